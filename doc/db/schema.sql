@@ -74,7 +74,7 @@ CREATE INDEX idx_chat_history_sender_role ON chat_history(sender_role);
 CREATE INDEX idx_chat_history_message_type ON chat_history(message_type);
 CREATE INDEX idx_chat_history_company_id ON chat_history(company_id);
 CREATE INDEX idx_chat_history_created_at ON chat_history(created_at);
-CREATE INDEX idx_chat_history_room_created ON chat_history(room_id, created_at);
+CREATE INDEX idx_chat_history_room_created ON chat_history(room_id, created_at, id); -- 방별 이력 페이지 조회 ((created_at, id) keyset)
 
 -- 테이블 코멘트
 COMMENT ON TABLE chat_history IS '채팅 메시지 이력';
@@ -121,6 +121,44 @@ COMMENT ON COLUMN user_account.active IS '활성 여부';
 COMMENT ON COLUMN user_account.created_at IS '생성 시간';
 COMMENT ON COLUMN user_account.updated_at IS '수정 시간';
 
+-- =====================================================
+-- 3-1. 상담 분석 테이블 (종료된 상담의 요약/키워드/분류, 분석 대기열 겸용)
+-- =====================================================
+CREATE TABLE IF NOT EXISTS chat_session_analysis (
+    id BIGSERIAL PRIMARY KEY,
+    room_id VARCHAR(100) NOT NULL UNIQUE,
+    company_id VARCHAR(100),
+    customer_id VARCHAR(100),
+    status VARCHAR(50) NOT NULL DEFAULT 'PENDING',
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    locked_at TIMESTAMP,
+    summary TEXT,
+    keywords TEXT,
+    category VARCHAR(255),
+    raw_result TEXT,
+    last_error TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    updated_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+-- 처리 대기 건 조회용 (완료 건은 제외)
+CREATE INDEX idx_chat_session_analysis_pending ON chat_session_analysis(status, next_attempt_at)
+    WHERE status IN ('PENDING', 'RUNNING');
+CREATE INDEX idx_chat_session_analysis_company_id ON chat_session_analysis(company_id);
+
+COMMENT ON TABLE chat_session_analysis IS '상담 종료 후 분석 결과 (요약/키워드/분류)';
+COMMENT ON COLUMN chat_session_analysis.room_id IS '채팅방 ID (chat_session.room_id)';
+COMMENT ON COLUMN chat_session_analysis.status IS '처리 상태 (PENDING, RUNNING, DONE, FAILED)';
+COMMENT ON COLUMN chat_session_analysis.attempts IS '시도 횟수';
+COMMENT ON COLUMN chat_session_analysis.next_attempt_at IS '다음 시도 가능 시간 (재시도 대기)';
+COMMENT ON COLUMN chat_session_analysis.locked_at IS '처리 시작 시간 (오래 멈춘 RUNNING 건 재처리 판단)';
+COMMENT ON COLUMN chat_session_analysis.summary IS '상담 요약';
+COMMENT ON COLUMN chat_session_analysis.keywords IS '키워드 (쉼표 구분)';
+COMMENT ON COLUMN chat_session_analysis.category IS '상담 분류';
+COMMENT ON COLUMN chat_session_analysis.raw_result IS '분석 API 원본 응답 (JSON)';
+COMMENT ON COLUMN chat_session_analysis.last_error IS '마지막 오류 내용';
+
 -- =====================================================
 -- 4. 외래키 제약조건 (선택사항)
 -- =====================================================
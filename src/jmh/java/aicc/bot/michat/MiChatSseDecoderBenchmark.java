@@ -0,0 +1,111 @@
+package aicc.bot.michat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * MiChat SSE 응답 디코딩 성능 비교 (스트림 하나 = 토큰 events 개)
+ *
+ *  - decoder : MiChatSseDecoder (바이트 단위 줄 분리 + Jackson 스트리밍 파서)
+ *  - jsonTree: 이전 방식 (줄마다 String, substring, JsonNode 트리 생성 후 필드 조회)
+ *
+ * 실행: ./gradlew jmh -PjmhInclude=MiChatSseDecoder (-prof gc 결과로 할당량도 비교)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MiChatSseDecoderBenchmark {
+
+    private static final String DATA_PREFIX = "data:";
+    private static final String DONE_MESSAGE = "[DONE]";
+
+    @Param({ "200" })
+    private int events;
+
+    @Param({ "512" })
+    private int chunkSize; // 네트워크에서 받는 DataBuffer 하나의 크기
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final DefaultDataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+
+    private byte[][] chunks;
+    private List<String> lines;
+
+    @Setup
+    public void setUp() {
+        StringBuilder body = new StringBuilder();
+        lines = new ArrayList<>(events + 1);
+        for (int i = 0; i < events; i++) {
+            String line = "data: {\"delta\":\"안녕하세요 고객님, 문의하신 내용 " + i + "번째 답변입니다.\",\"index\":" + i + ",\"finish\":false}";
+            body.append(line).append("\n\n");
+            lines.add(line);
+        }
+        body.append("data: ").append(DONE_MESSAGE).append("\n\n");
+        lines.add("data: " + DONE_MESSAGE);
+
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        int count = (bytes.length + chunkSize - 1) / chunkSize;
+        chunks = new byte[count][];
+        for (int i = 0; i < count; i++) {
+            int from = i * chunkSize;
+            int to = Math.min(bytes.length, from + chunkSize);
+            chunks[i] = Arrays.copyOfRange(bytes, from, to);
+        }
+    }
+
+    @Benchmark
+    public void decoder(Blackhole blackhole) {
+        MiChatSseDecoder decoder = new MiChatSseDecoder(objectMapper.getFactory());
+        Consumer<String> onDelta = blackhole::consume;
+        for (byte[] chunk : chunks) {
+            DataBuffer buffer = bufferFactory.wrap(chunk);
+            decoder.decode(buffer, onDelta);
+        }
+        decoder.finish(onDelta);
+    }
+
+    @Benchmark
+    public void jsonTree(Blackhole blackhole) throws Exception {
+        // 이전 구현은 Flux<String>으로 줄을 받았으므로 줄 분리 비용은 포함하지 않음 (디코더에 유리하지 않은 비교)
+        for (String line : lines) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.contains(DONE_MESSAGE)) {
+                continue;
+            }
+            String json = trimmed.startsWith(DATA_PREFIX) ? trimmed.substring(DATA_PREFIX.length()).trim() : trimmed;
+            JsonNode node = objectMapper.readTree(json);
+            String delta = null;
+            if (node.has("delta")) {
+                delta = node.get("delta").asText();
+            } else if (node.has("content")) {
+                delta = node.get("content").asText();
+            } else if (node.has("message")) {
+                delta = node.get("message").asText();
+            } else if (node.has("text")) {
+                delta = node.get("text").asText();
+            } else if (node.has("answer")) {
+                delta = node.get("answer").asText();
+            }
+            blackhole.consume(delta);
+        }
+    }
+}
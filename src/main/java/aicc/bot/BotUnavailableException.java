@@ -0,0 +1,12 @@
+package aicc.bot;
+
+/**
+ * 챗봇(AI 서버)을 호출할 수 없는 상태 (예: circuit breaker OPEN)
+ * 호출하지 않고 바로 던지므로, 호출 측은 상담원 연결 안내 등 대체 경로로 처리한다.
+ */
+public class BotUnavailableException extends RuntimeException {
+
+    public BotUnavailableException(String message) {
+        super(message);
+    }
+}
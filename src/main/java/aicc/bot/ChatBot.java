@@ -7,4 +7,10 @@ import aicc.bot.dto.ChatBotRequest;
 public interface ChatBot {
 
     void ask(ChatBotRequest requests, Consumer<String> onChunk, Runnable onComplete);
+
+    /**
+     * 세션(채팅방)의 진행 중인 응답 생성을 중단 (중단된 호출은 onComplete를 호출하지 않음)
+     */
+    default void cancel(String sessionId) {
+    }
 }
@@ -0,0 +1,53 @@
+package aicc.bot.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * MiChat 상담 분석 API(요약/키워드/분류) 공통 요청 구조체
+ * 종료된 상담의 전체 대화를 시간순으로 전달
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MiChatAnalysisRequest {
+    // 상담 대화 (시간순)
+    private List<Message> messages;
+    // 메타데이터(회사/세션/사용자)
+    private MetaConfig meta;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Message {
+        // 발신자 역할 (CUSTOMER, AGENT, BOT, SYSTEM)
+        private String role;
+        // 발신자 이름
+        private String sender;
+        // 메시지 내용
+        private String content;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class MetaConfig {
+        // 회사 식별자
+        private String companyId;
+        // 세션 식별자
+        private String sessionId;
+        // 사용자 식별자
+        private String userId;
+    }
+}
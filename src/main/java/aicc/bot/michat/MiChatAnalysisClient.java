@@ -0,0 +1,203 @@
+package aicc.bot.michat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import aicc.bot.dto.MiChatAnalysisRequest;
+import aicc.chat.domain.persistence.ChatHistory;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/*
+ MiChat 상담 분석 API 호출 (요약 / 키워드 / 분류)
+
+ 종료된 상담 한 건의 대화를 세 API에 동시에 보내고 결과를 모아 반환한다.
+ 응답 형식이 API 버전마다 다를 수 있으므로 알려진 필드명을 순서대로 찾아 꺼내고, 원본 응답도 함께 보관한다.
+
+ 실시간 상담(MiChatBotImpl)과 커넥션 풀/부하 분산 상태를 공유하지 않는다.
+  - WebClient: analysisWebClient (별도 커넥션 풀)
+  - 엔드포인트: 단순 순환 (배치 재시도가 있으므로 상태 판단 없음, 실시간 상담의 EWMA/제외 판단에도 반영하지 않음)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MiChatAnalysisClient {
+
+    private final WebClient analysisWebClient;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.ai-bot.analysis.end-points:${app.ai-bot.ai-end-points:${app.ai-bot.ai-end-point}}}")
+    private String[] endpointUrls;
+
+    @Value("${app.ai-bot.analysis.summary-uri:/v1/consultation-summary/summarize}")
+    private String summaryUri;
+
+    @Value("${app.ai-bot.analysis.keyword-uri:/v1/consultation-keywords/extract}")
+    private String keywordUri;
+
+    @Value("${app.ai-bot.analysis.category-uri:/v1/consultation-classification/classify}")
+    private String categoryUri;
+
+    @Value("${app.ai-bot.analysis.company-id:apt001}")
+    private String defaultCompanyId;
+
+    @Value("${app.ai-bot.analysis.default-user-id:manager}")
+    private String defaultUserId;
+
+    @Value("${app.ai-bot.analysis.request-timeout:60000}")
+    private long requestTimeout; // API 한 건당 최대 대기 시간 (밀리초)
+
+    private static final String[] SUMMARY_FIELDS = { "summary", "result", "text", "content" };
+    private static final String[] KEYWORD_FIELDS = { "keywords", "keyword", "result" };
+    private static final String[] CATEGORY_FIELDS = { "category", "classification", "label", "result" };
+
+    private final AtomicInteger nextEndpoint = new AtomicInteger();
+    private List<String> endpoints;
+
+    @PostConstruct
+    public void init() {
+        List<String> list = new ArrayList<>();
+        for (String url : endpointUrls) {
+            String trimmed = url.trim();
+            if (trimmed.endsWith("/")) {
+                trimmed = trimmed.substring(0, trimmed.length() - 1);
+            }
+            if (!trimmed.isEmpty()) {
+                list.add(trimmed);
+            }
+        }
+        if (list.isEmpty()) {
+            throw new IllegalStateException("app.ai-bot.analysis.end-points(ai-end-point) 설정이 비어 있습니다.");
+        }
+        endpoints = List.copyOf(list);
+        log.info("▼ MiChatAnalysisClient. endpoints:{}", endpoints);
+    }
+
+    /**
+     * 상담 한 건 분석
+     *
+     * @param history 상담 대화 (시간순)
+     */
+    public Mono<Result> analyze(String roomId, String companyId, String userId, List<ChatHistory> history) {
+        MiChatAnalysisRequest request = buildRequest(roomId, companyId, userId, history);
+
+        return Mono.zip(post(summaryUri, request), post(keywordUri, request), post(categoryUri, request))
+            .map(responses -> {
+                JsonNode summaryNode = responses.getT1();
+                JsonNode keywordNode = responses.getT2();
+                JsonNode categoryNode = responses.getT3();
+
+                ObjectNode raw = objectMapper.createObjectNode();
+                raw.set("summary", summaryNode);
+                raw.set("keyword", keywordNode);
+                raw.set("category", categoryNode);
+
+                return new Result(
+                    textOf(summaryNode, SUMMARY_FIELDS),
+                    textOf(keywordNode, KEYWORD_FIELDS),
+                    textOf(categoryNode, CATEGORY_FIELDS),
+                    raw.toString());
+            });
+    }
+
+    /**
+     * 재시도해도 결과가 같은 요청 오류(4xx) 여부
+     */
+    public static boolean isClientError(Throwable error) {
+        return error instanceof WebClientResponseException responseEx && responseEx.getStatusCode().is4xxClientError();
+    }
+
+    // 대화 메시지만 전달 (입장/퇴장 등 시스템 메시지 제외)
+    private MiChatAnalysisRequest buildRequest(String roomId, String companyId, String userId, List<ChatHistory> history) {
+        List<MiChatAnalysisRequest.Message> messages = new ArrayList<>(history.size());
+        for (ChatHistory h : history) {
+            if (!"TALK".equals(h.getMessageType()) || "SYSTEM".equals(h.getSenderRole())) {
+                continue;
+            }
+            messages.add(MiChatAnalysisRequest.Message.builder()
+                .role(h.getSenderRole())
+                .sender(h.getSenderName())
+                .content(h.getMessage())
+                .build());
+        }
+
+        return MiChatAnalysisRequest.builder()
+            .messages(messages)
+            .meta(MiChatAnalysisRequest.MetaConfig.builder()
+                .companyId(companyId != null && !companyId.isEmpty() ? companyId : defaultCompanyId)
+                .sessionId(roomId)
+                .userId(userId != null && !userId.isEmpty() ? userId : defaultUserId)
+                .build())
+            .build();
+    }
+
+    // 분석 API 한 건 호출 (엔드포인트는 호출마다 순환)
+    private Mono<JsonNode> post(String uri, MiChatAnalysisRequest request) {
+        return Mono.defer(() -> analysisWebClient.post()
+            .uri(nextEndpoint() + uri)
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaType.APPLICATION_JSON)
+            .bodyValue(request)
+            .retrieve()
+            .bodyToMono(JsonNode.class)
+            .timeout(Duration.ofMillis(requestTimeout))
+            .defaultIfEmpty(objectMapper.nullNode()));
+    }
+
+    private String nextEndpoint() {
+        if (endpoints.size() == 1) {
+            return endpoints.get(0);
+        }
+        return endpoints.get(Math.floorMod(nextEndpoint.getAndIncrement(), endpoints.size()));
+    }
+
+    // 알려진 필드명을 순서대로 찾아 텍스트로 변환 (배열은 쉼표로 연결)
+    private static String textOf(JsonNode node, String[] fields) {
+        if (node == null || node.isNull() || node.isMissingNode()) {
+            return null;
+        }
+        if (node.isTextual()) {
+            return node.asText();
+        }
+        // {"data": {...}} 형태로 감싼 응답
+        JsonNode data = node.get("data");
+        if (data != null && data.isContainerNode()) {
+            node = data;
+        }
+        for (String field : fields) {
+            JsonNode value = node.get(field);
+            if (value == null || value.isNull()) {
+                continue;
+            }
+            if (value.isArray()) {
+                List<String> items = new ArrayList<>(value.size());
+                for (JsonNode item : value) {
+                    items.add(item.isValueNode() ? item.asText() : item.toString());
+                }
+                return String.join(", ", items);
+            }
+            return value.isValueNode() ? value.asText() : value.toString();
+        }
+        return null;
+    }
+
+    /**
+     * 분석 결과
+     */
+    public record Result(String summary, String keywords, String category, String rawResult) {
+    }
+}
@@ -0,0 +1,194 @@
+package aicc.bot.michat;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ 회사별 챗봇 답변 캐시 (자주 묻는 질문의 AI 호출 생략)
+
+ Redis 키 구조:
+  - chat:bot:answer:{companyId}:{hash}   : 답변 (TTL)
+  - chat:bot:answer:{companyId}:keys     : 회사별 캐시 항목 목록 (ZSET, score=저장 시각) - 건수 제한/회사별 삭제용
+  - chat:bot:turn:{sessionId}            : AI 서버가 이 세션의 대화를 알고 있음 (TTL, AI 호출이 성공할 때마다 연장)
+
+ 질문은 정규화(NFKC, 소문자, 공백 정리, 끝 문장부호 제거) 후 category1/category2와 함께 정확히 일치할 때만 사용한다.
+ AI 서버는 세션의 이전 대화(useHistory)를 참고해 답하므로 같은 질문이라도 두 번째 질문부터는 답이 달라질 수 있다.
+ 그래서 캐시는 AI 서버에 이전 대화가 없는 세션의 질문(lookup()의 firstTurn이 true)에서만 조회/저장한다.
+ 캐시로 답한 질문은 AI 서버가 모르므로 대화 이력으로 치지 않고, AI 호출이 성공한 뒤에만 markTurn()으로 표시한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MiChatAnswerCache {
+
+    private final StringRedisTemplate redisTemplate;
+
+    @Value("${app.ai-bot.answer-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.ai-bot.answer-cache.ttl:3600000}")
+    private long ttl; // 답변 보관 시간 (밀리초, 기본 1시간)
+
+    @Value("${app.ai-bot.answer-cache.max-size:1000}")
+    private int maxSize; // 회사별 최대 보관 건수
+
+    @Value("${app.ai-bot.answer-cache.turn-ttl:86400000}")
+    private long turnTtl; // 세션 대화 이력 표시 보관 시간 (밀리초, 기본 1일)
+
+    private static final String KEY_PREFIX = "chat:bot:answer:";
+    private static final String TURN_KEY_PREFIX = "chat:bot:turn:";
+    private static final String TRAILING_PUNCTUATION = "?？!！.。~～";
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 질문 조회 - AI 서버에 세션의 이전 대화가 없으면 캐시된 답변까지 한 번의 왕복으로 조회
+     * 세션을 알 수 없거나 Redis 오류로 확인할 수 없으면 문맥이 있다고 보고 firstTurn=false
+     */
+    public Lookup lookup(String sessionId, String companyId, String category1, String category2, String question) {
+        if (!enabled || sessionId == null || companyId == null || question == null) return Lookup.NO_CACHE;
+        try {
+            String turnKey = TURN_KEY_PREFIX + sessionId;
+            String entryKey = entryKey(companyId, category1, category2, question);
+            List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection conn = (StringRedisConnection) connection;
+                conn.exists(turnKey);
+                conn.get(entryKey);
+                return null;
+            });
+            if (Boolean.TRUE.equals(results.get(0))) {
+                return Lookup.NO_CACHE;
+            }
+            return new Lookup(true, (String) results.get(1));
+        } catch (Exception e) {
+            log.warn("Failed to read answer cache: sessionId={}, companyId={}", sessionId, companyId, e);
+            return Lookup.NO_CACHE;
+        }
+    }
+
+    /**
+     * AI 서버가 세션의 대화를 알게 되었음을 표시 (AI 호출 성공 후, 이후 질문은 캐시 사용 안 함)
+     */
+    public void markTurn(String sessionId) {
+        if (!enabled || sessionId == null) return;
+        try {
+            redisTemplate.opsForValue().set(TURN_KEY_PREFIX + sessionId, "1", Duration.ofMillis(turnTtl));
+        } catch (Exception e) {
+            log.warn("Failed to mark bot turn: sessionId={}", sessionId, e);
+        }
+    }
+
+    /**
+     * 질문 조회 결과
+     *
+     * @param firstTurn AI 서버에 이전 대화가 없음 (답변 캐시 조회/저장 가능)
+     * @param answer    캐시된 답변 (없으면 null)
+     */
+    public record Lookup(boolean firstTurn, String answer) {
+        static final Lookup NO_CACHE = new Lookup(false, null);
+    }
+
+    /**
+     * 정상 완료된 답변 저장 (오래된 항목부터 max-size 초과분 삭제)
+     */
+    public void put(String companyId, String category1, String category2, String question, String answer) {
+        if (!enabled || companyId == null || question == null || answer == null || answer.isEmpty()) return;
+        try {
+            long now = System.currentTimeMillis();
+            String entryKey = entryKey(companyId, category1, category2, question);
+            String indexKey = indexKey(companyId);
+            List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection conn = (StringRedisConnection) connection;
+                conn.pSetEx(entryKey, ttl, answer);
+                conn.zAdd(indexKey, now, entryKey);
+                conn.zRemRangeByScore(indexKey, 0, now - ttl); // 이미 만료된 항목 정리
+                conn.pExpire(indexKey, ttl);
+                conn.zCard(indexKey);
+                return null;
+            });
+
+            Long count = (Long) results.get(results.size() - 1);
+            if (count != null && count > maxSize) {
+                Set<String> eldest = redisTemplate.opsForZSet().range(indexKey, 0, count - maxSize - 1);
+                if (eldest != null && !eldest.isEmpty()) {
+                    redisTemplate.delete(eldest);
+                    redisTemplate.opsForZSet().remove(indexKey, eldest.toArray());
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Failed to write answer cache: companyId={}", companyId, e);
+        }
+    }
+
+    /**
+     * 회사의 캐시된 답변 전체 삭제 (FAQ/지식베이스 변경 시)
+     *
+     * @return 삭제된 답변 수
+     */
+    public long invalidateCompany(String companyId) {
+        log.info("▼ invalidateCompany. companyId:{}", companyId);
+        String indexKey = indexKey(companyId);
+        Set<String> keys = redisTemplate.opsForZSet().range(indexKey, 0, -1);
+        List<String> toDelete = new ArrayList<>();
+        if (keys != null) {
+            toDelete.addAll(keys);
+        }
+        toDelete.add(indexKey);
+        redisTemplate.delete(toDelete);
+        long count = toDelete.size() - 1;
+        log.info("Answer cache invalidated: companyId={}, count={}", companyId, count);
+        return count;
+    }
+
+    /**
+     * 질문 정규화 (전각/반각 통일, 소문자, 연속 공백 축소, 끝 문장부호 제거)
+     */
+    static String normalize(String question) {
+        String text = Normalizer.normalize(question, Normalizer.Form.NFKC)
+                .toLowerCase(Locale.ROOT)
+                .replaceAll("\\s+", " ")
+                .trim();
+        int end = text.length();
+        while (end > 0 && (TRAILING_PUNCTUATION.indexOf(text.charAt(end - 1)) >= 0 || text.charAt(end - 1) == ' ')) {
+            end--;
+        }
+        return text.substring(0, end);
+    }
+
+    private static String entryKey(String companyId, String category1, String category2, String question) {
+        String source = nullToEmpty(category1) + '\u0000' + nullToEmpty(category2) + '\u0000' + normalize(question);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return KEY_PREFIX + companyId + ":" + HexFormat.of().formatHex(digest.digest(source.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String indexKey(String companyId) {
+        return KEY_PREFIX + companyId + ":keys";
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+}
@@ -4,9 +4,14 @@ import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
@@ -17,11 +22,15 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import aicc.bot.BotUnavailableException;
 import aicc.bot.ChatBot;
 import aicc.bot.dto.ChatBotRequest;
 import aicc.bot.dto.MiChatAskRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.SignalType;
 /*
  챗봇과 연계 기능 제공
  */
@@ -32,9 +41,9 @@ public class MiChatBotImpl implements ChatBot {
 
     private final WebClient chatWebClient;
     private final ObjectMapper objectMapper;
-
-    @Value("${app.ai-bot.ai-end-point}")
-    private String aiEndPoint;
+    private final MiChatAnswerCache answerCache;
+    private final MiChatCircuitBreaker circuitBreaker;
+    private final MiChatEndpointBalancer endpointBalancer;
 
     @Value("${app.ai-bot.company-id:apt001}")
     private String companyId;
@@ -46,12 +55,14 @@ public class MiChatBotImpl implements ChatBot {
     private String ragSysInfo;
 
     private static final String ASK_ENDPOINT = "/v1/chatbot/ask";
-    private static final String SSE_DATA_PREFIX = "data:";
-    private static final String SSE_DONE_MESSAGE = "[DONE]";
     private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(65);
 
+    // sessionId -> 진행 중인 SSE 구독 (cancel 시 dispose하여 AI 서버 연결을 바로 끊음)
+    private final Map<String, Set<Disposable.Swap>> activeCalls = new ConcurrentHashMap<>();
+
     @Override
     // 챗봇 요청을 SSE 스트리밍으로 호출하고 청크를 전달
+    // AI 서버 장애로 circuit breaker가 열려 있으면 호출하지 않고 BotUnavailableException을 던진다.
     public void ask(ChatBotRequest requests, Consumer<String> onChunk, Runnable onComplete) {
 log.info("▶ ask S.");
         if (requests == null || requests.getMessage() == null) {
@@ -62,41 +73,118 @@ log.info("▶ ask S.");
             return;
         }
 
+        boolean permitted = false;
+        MiChatEndpointBalancer.Call acquired = null;
         try {
             MiChatAskRequest askRequest = buildAskRequest(requests);
+            MiChatAskRequest.MetaConfig meta = askRequest.getMeta();
+
+            // 같은 회사/카테고리의 동일 질문이면 AI 호출 없이 캐시된 답변을 전달
+            // useHistory로 이전 대화를 참고해 답하므로 AI 서버에 이전 대화가 없는 질문만 캐시 사용 (다른 방의 답이 섞이지 않도록)
+            // 캐시로 답한 질문은 AI 서버가 모르므로 대화 이력으로 표시하지 않음 (다음 질문도 이전 대화 없음)
+            MiChatAnswerCache.Lookup lookup = answerCache.lookup(meta.getSessionId(),
+                meta.getCompanyId(), meta.getCategory1(), meta.getCategory2(), requests.getMessage());
+            boolean cacheable = lookup.firstTurn();
+            String cachedAnswer = lookup.answer();
+            if (cachedAnswer != null) {
+                log.info("ChatBot 답변 캐시 사용 - SessionId: {}, CompanyId: {}", meta.getSessionId(), meta.getCompanyId());
+                onChunk.accept(cachedAnswer);
+                if (onComplete != null)
+                    onComplete.run();
+                return;
+            }
+
             String requestBody = objectMapper.writeValueAsString(askRequest);
 
-            log.info("ChatBot API 호출 시작 - SessionId: {}, CompanyId: {}",
-                askRequest.getMeta().getSessionId(), askRequest.getMeta().getCompanyId());
+            if (!circuitBreaker.tryAcquirePermission()) {
+                log.warn("ChatBot 호출 차단 (circuit {}) - SessionId: {}", circuitBreaker.getState(), meta.getSessionId());
+                throw new BotUnavailableException("AI 서버 호출 차단 중");
+            }
+            permitted = true;
+            long startedAt = System.currentTimeMillis();
+
+            // 같은 세션은 같은 AI 서버로 (useHistory), 새 세션은 가장 한가한 AI 서버로
+            MiChatEndpointBalancer.Call endpoint = endpointBalancer.acquire(meta.getSessionId());
+            acquired = endpoint;
 
-            chatWebClient.post()
-                .uri(aiEndPoint + ASK_ENDPOINT)
+            log.info("ChatBot API 호출 시작 - SessionId: {}, CompanyId: {}, Endpoint: {}",
+                meta.getSessionId(), meta.getCompanyId(), endpoint.getUrl());
+
+            // 정상 완료된 답변만 캐시에 저장하기 위해 누적 (오류 안내 문구는 제외)
+            // circuit breaker의 지연 판단은 스트림 전체가 아닌 첫 답변 토큰까지의 시간(TTFT)으로 함
+            StringBuilder answer = new StringBuilder();
+            AtomicLong firstTokenAt = new AtomicLong();
+            Consumer<String> onDelta = chunk -> {
+                firstTokenAt.compareAndSet(0, System.currentTimeMillis());
+                answer.append(chunk);
+                onChunk.accept(chunk);
+            };
+            // 원본 바이트를 줄 단위로 읽어 텍스트 필드만 추출 (줄마다 String/JsonNode를 만들지 않음)
+            MiChatSseDecoder decoder = new MiChatSseDecoder(objectMapper.getFactory());
+
+            // 구독 전에 등록해 두어야 구독 직후 들어온 cancel도 놓치지 않음
+            String sessionId = meta.getSessionId();
+            Disposable.Swap subscription = Disposables.swap();
+            trackCall(sessionId, subscription);
+
+            subscription.update(chatWebClient.post()
+                .uri(endpoint.getUrl() + ASK_ENDPOINT)
                 .contentType(MediaType.APPLICATION_JSON)
                 .bodyValue(requestBody)
                 .accept(MediaType.TEXT_EVENT_STREAM)
                 .retrieve()
-                .bodyToFlux(String.class)
+                .bodyToFlux(DataBuffer.class)
                 .timeout(REQUEST_TIMEOUT)
+                .doFinally(signal -> {
+                    untrackCall(sessionId, subscription);
+                    if (signal == SignalType.CANCEL) {
+                        log.info("ChatBot Stream 중단 - SessionId: {}", sessionId);
+                        circuitBreaker.onCancel();
+                        endpoint.cancel();
+                    }
+                })
                 .subscribe(
-                    line -> processStreamLine(line, onChunk),
+                    buffer -> {
+                        endpoint.onFirstByte();
+                        try {
+                            decoder.decode(buffer, onDelta);
+                        } finally {
+                            DataBufferUtils.release(buffer);
+                        }
+                    },
                     error -> {
+                        endpoint.release(isClientError(error));
+                        circuitBreaker.onResult(isClientError(error), timeToFirstToken(startedAt, firstTokenAt));
                         handleDetailedError(error, onChunk);
                         if (onComplete != null)
                             onComplete.run();
                     },
                     () -> {
-                        log.info("ChatBot Stream 완료 - SessionId: {}", askRequest.getMeta().getSessionId());
+                        decoder.finish(onDelta);
+                        endpoint.release(true);
+                        log.info("ChatBot Stream 완료 - SessionId: {}", meta.getSessionId());
+                        circuitBreaker.onResult(true, timeToFirstToken(startedAt, firstTokenAt));
+                        answerCache.markTurn(sessionId); // AI 서버가 이 대화를 알게 됨
+                        if (cacheable)
+                            answerCache.put(meta.getCompanyId(), meta.getCategory1(), meta.getCategory2(),
+                                requests.getMessage(), answer.toString());
                         if (onComplete != null)
                             onComplete.run();
                     }
-                );
+                ));
 
+        } catch (BotUnavailableException e) {
+            throw e;
         } catch (JsonProcessingException e) {
             log.error("ChatBot 요청 JSON 생성 실패", e);
             onChunk.accept("요청 처리 중 오류가 발생했습니다.");
             if (onComplete != null) onComplete.run();
         } catch (Exception e) {
             log.error("ChatBot Stream 호출 중 예상치 못한 오류 발생", e);
+            if (permitted)
+                circuitBreaker.onResult(false, 0);
+            if (acquired != null)
+                acquired.cancel(); // 구독 전 오류는 엔드포인트 상태와 무관
             onChunk.accept("시스템 오류가 발생했습니다.");
             if (onComplete != null)
                 onComplete.run();
@@ -104,6 +192,45 @@ log.info("▶ ask S.");
         log.info("◀ ask E.");
     }
 
+    @Override
+    // 세션의 진행 중인 SSE 구독을 모두 끊음 (취소된 호출은 onComplete를 호출하지 않음)
+    public void cancel(String sessionId) {
+        if (sessionId == null) {
+            return;
+        }
+        Set<Disposable.Swap> calls = activeCalls.remove(sessionId);
+        if (calls == null) {
+            return;
+        }
+        log.info("▼ cancel. sessionId:{}, calls:{}", sessionId, calls.size());
+        for (Disposable.Swap call : calls) {
+            call.dispose();
+        }
+    }
+
+    // 첫 답변 토큰까지 걸린 시간 (토큰 없이 끝났으면 지금까지 걸린 시간)
+    private static long timeToFirstToken(long startedAt, AtomicLong firstTokenAt) {
+        long firstToken = firstTokenAt.get();
+        return (firstToken > 0 ? firstToken : System.currentTimeMillis()) - startedAt;
+    }
+
+    private void trackCall(String sessionId, Disposable.Swap call) {
+        if (sessionId == null) {
+            return;
+        }
+        activeCalls.computeIfAbsent(sessionId, k -> ConcurrentHashMap.newKeySet()).add(call);
+    }
+
+    private void untrackCall(String sessionId, Disposable.Swap call) {
+        if (sessionId == null) {
+            return;
+        }
+        activeCalls.computeIfPresent(sessionId, (k, calls) -> {
+            calls.remove(call);
+            return calls.isEmpty() ? null : calls;
+        });
+    }
+
     /**
      * 표준화된 Request DTO 빌드
      */
@@ -130,70 +257,10 @@ log.info("▶ ask S.");
     }
 
     /**
-     * SSE 스트림 라인을 처리합니다.
+     * 4xx 요청 오류 여부 (AI 서버 상태와 무관하므로 circuit breaker에서 실패로 보지 않음)
      */
-    private void processStreamLine(String line, Consumer<String> onChunk) {
-        log.info("▶ processStreamLine S. line={}", line);
-
-        // 디버깅을 위해 수신된 라인을 INFO 레벨로 출력
-        if (log.isDebugEnabled()) {
-             log.debug("SSE Raw Line 수신: '{}'", line);
-        }
-
-        if (line == null || line.trim().isEmpty()) {
-            log.info("◀ processStreamLine E. line == null");
-            return;
-        }
-
-        // [DONE] 메시지 처리
-        if (SSE_DONE_MESSAGE.equals(line.trim()) || line.contains(SSE_DONE_MESSAGE)) {
-            log.debug("ChatBot Stream [DONE] 수신");
-            log.info("◀ processStreamLine E. SSE_DONE_MESSAGE");
-            return;
-        }
-
-        // "data:" 접두어가 있다면 제거, 없다면 그대로 사용
-        String raw = line;
-        if (line.startsWith(SSE_DATA_PREFIX)) {
-            raw = line.substring(SSE_DATA_PREFIX.length()).trim();
-        }
-
-        try {
-            JsonNode node = objectMapper.readTree(raw);
-            String delta = null;
-
-            // 1. 'delta' 필드 확인
-            if (node.has("delta")) {
-                delta = node.get("delta").asText();
-            }
-            // 2. 'content' 필드 확인 (OpenAI 스타일)
-            else if (node.has("content")) {
-                delta = node.get("content").asText();
-            }
-            // 3. 'message' 필드 확인
-            else if (node.has("message")) {
-                delta = node.get("message").asText();
-            }
-            // 4. 'text' 필드 확인
-            else if (node.has("text")) {
-                delta = node.get("text").asText();
-            }
-            // 5. 'answer' 필드 확인
-            else if (node.has("answer")) {
-                delta = node.get("answer").asText();
-            }
-
-            if (delta != null && !delta.isEmpty()) {
-                // 수신된 청크 데이터 로그 출력
-                if (log.isDebugEnabled()) log.debug("Stream Chunk: {}", delta);
-                onChunk.accept(delta);
-            } else {
-                log.warn("Stream 데이터에 유효한 텍스트 필드(delta, content, message, text, answer)가 없음: {}", raw);
-            }
-        } catch (JsonProcessingException e) {
-            log.warn("ChatBot Stream 응답 파싱 실패 - Raw: {}", raw, e);
-        }
-        log.info("◀ processStreamLine E.");
+    private boolean isClientError(Throwable error) {
+        return error instanceof WebClientResponseException responseEx && responseEx.getStatusCode().is4xxClientError();
     }
 
     /**
@@ -0,0 +1,188 @@
+package aicc.bot.michat;
+
+import java.util.Arrays;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ MiChat(AI 서버) 호출 circuit breaker
+
+ - CLOSED    : 최근 window-size 건 중 minimum-calls 건 이상 기록되었고,
+               실패율이 failure-rate-threshold(%) 이상이거나 지연 호출률이 slow-call-rate-threshold(%) 이상이면 OPEN
+ - OPEN      : open-duration 동안 호출하지 않고 바로 거절 (호출 측은 상담원 연결 안내)
+ - HALF_OPEN : open-duration 이후 half-open-calls 건만 시험 호출, 모두 성공하면 CLOSED, 하나라도 실패/지연이면 다시 OPEN
+
+ 실패: 연결 오류, 타임아웃, 5xx (4xx 요청 오류는 AI 서버 상태와 무관하므로 실패로 보지 않음)
+ 지연: 호출 시작부터 첫 답변 토큰까지 slow-call-duration 이상 (TTFT)
+       답변 길이에 따라 스트림 전체 시간은 길어질 수 있으므로 AI 서버 응답 지연은 첫 토큰 시간으로 판단한다.
+       첫 토큰 없이 끝난 호출은 끝날 때까지의 시간으로 판단.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MiChatCircuitBreaker {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.ai-bot.circuit-breaker.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.ai-bot.circuit-breaker.window-size:20}")
+    private int windowSize;
+
+    @Value("${app.ai-bot.circuit-breaker.minimum-calls:10}")
+    private int minimumCalls;
+
+    @Value("${app.ai-bot.circuit-breaker.failure-rate-threshold:50}")
+    private int failureRateThreshold;
+
+    @Value("${app.ai-bot.circuit-breaker.slow-call-rate-threshold:80}")
+    private int slowCallRateThreshold;
+
+    @Value("${app.ai-bot.circuit-breaker.slow-call-duration:20000}")
+    private long slowCallDuration;
+
+    @Value("${app.ai-bot.circuit-breaker.open-duration:30000}")
+    private long openDuration;
+
+    @Value("${app.ai-bot.circuit-breaker.half-open-calls:3}")
+    private int halfOpenCalls;
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private State state = State.CLOSED;
+    private long openUntil;
+    private int halfOpenRemaining;
+    private int halfOpenSucceeded;
+
+    // 최근 호출 결과 (원형 버퍼)
+    private boolean[] failedWindow;
+    private boolean[] slowWindow;
+    private int windowPos;
+    private int recorded;
+    private int failures;
+    private int slowCalls;
+
+    @PostConstruct
+    public void init() {
+        failedWindow = new boolean[windowSize];
+        slowWindow = new boolean[windowSize];
+        Gauge.builder("bot.circuit.state", this, cb -> cb.getState().ordinal()).register(meterRegistry);
+        log.info("▼ MiChatCircuitBreaker. enabled:{}, window:{}, failureRate:{}%, slowRate:{}%, slowCall:{}ms, open:{}ms",
+                enabled, windowSize, failureRateThreshold, slowCallRateThreshold, slowCallDuration, openDuration);
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * 호출 가능 여부 확인 (true를 받은 호출은 반드시 onResult 또는 onCancel로 결과를 알려야 함)
+     */
+    public synchronized boolean tryAcquirePermission() {
+        if (!enabled) {
+            return true;
+        }
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() < openUntil) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            halfOpenRemaining = halfOpenCalls;
+            halfOpenSucceeded = 0;
+            log.info("MiChat circuit HALF_OPEN - probing with {} calls", halfOpenCalls);
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenRemaining <= 0) {
+                return false;
+            }
+            halfOpenRemaining--;
+        }
+        return true;
+    }
+
+    /**
+     * 결과 없이 중단된 호출 (상담원 연결 등으로 취소) - 실패로 보지 않고 HALF_OPEN 시험 호출 자리만 돌려줌
+     */
+    public synchronized void onCancel() {
+        if (enabled && state == State.HALF_OPEN && halfOpenRemaining < halfOpenCalls) {
+            halfOpenRemaining++;
+        }
+    }
+
+    /**
+     * 호출 결과 기록
+     *
+     * @param success  AI 서버 정상 응답 여부
+     * @param duration 호출 시작부터 첫 답변 토큰까지 걸린 시간 (첫 토큰 없이 끝났으면 끝날 때까지, 밀리초)
+     */
+    public synchronized void onResult(boolean success, long duration) {
+        if (!enabled) {
+            return;
+        }
+        boolean slow = duration >= slowCallDuration;
+
+        if (state == State.HALF_OPEN) {
+            if (!success || slow) {
+                open("half-open probe " + (success ? "slow (" + duration + "ms)" : "failed"));
+            } else if (++halfOpenSucceeded >= halfOpenCalls) {
+                close();
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            return; // OPEN 전에 시작된 호출의 결과는 무시
+        }
+
+        if (recorded == windowSize) {
+            // 가장 오래된 결과를 밀어냄
+            if (failedWindow[windowPos]) failures--;
+            if (slowWindow[windowPos]) slowCalls--;
+        } else {
+            recorded++;
+        }
+        failedWindow[windowPos] = !success;
+        slowWindow[windowPos] = slow;
+        if (!success) failures++;
+        if (slow) slowCalls++;
+        windowPos = (windowPos + 1) % windowSize;
+
+        if (recorded >= minimumCalls) {
+            int failureRate = failures * 100 / recorded;
+            int slowRate = slowCalls * 100 / recorded;
+            if (failureRate >= failureRateThreshold) {
+                open("failure rate " + failureRate + "%");
+            } else if (slowRate >= slowCallRateThreshold) {
+                open("slow call rate " + slowRate + "%");
+            }
+        }
+    }
+
+    private void open(String reason) {
+        state = State.OPEN;
+        openUntil = System.currentTimeMillis() + openDuration;
+        log.warn("MiChat circuit OPEN ({}) - rejecting calls for {}ms", reason, openDuration);
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        resetWindow();
+        log.info("MiChat circuit CLOSED");
+    }
+
+    private void resetWindow() {
+        Arrays.fill(failedWindow, false);
+        Arrays.fill(slowWindow, false);
+        windowPos = 0;
+        recorded = 0;
+        failures = 0;
+        slowCalls = 0;
+    }
+}
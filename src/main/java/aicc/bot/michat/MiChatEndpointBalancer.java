@@ -0,0 +1,261 @@
+package aicc.bot.michat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ MiChat(AI 서버) 다중 엔드포인트 부하 분산
+
+ - 선택   : 같은 sessionId는 처음 배정된 엔드포인트를 계속 사용 (AI 서버의 useHistory 대화 이력 유지)
+            새 세션은 정상 엔드포인트 중 (진행 중 호출 수 + 1) x (첫 응답 지연 EWMA + 1) 점수가 가장 낮은 곳으로 배정
+ - 지연   : 호출 시작부터 첫 응답 바이트까지의 시간을 시간 감쇠 EWMA로 유지 (응답 길이와 무관한 서버 혼잡도 지표)
+ - 제외   : 연속 eject-after-failures 회 실패(연결 오류, 타임아웃, 5xx)하면 eject-duration 동안 제외,
+            제외 기간이 끝난 뒤 첫 호출이 다시 실패하면 바로 재제외, 성공하면 정상 복귀
+            모든 엔드포인트가 제외된 경우에는 제외가 가장 먼저 끝나는 엔드포인트를 사용 (차단은 circuit breaker 담당)
+
+ 세션 고정 정보는 서버(JVM)별 메모리에 보관한다. 고객 메시지는 고객 WebSocket이 연결된 서버에서 처리되므로 충분하다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MiChatEndpointBalancer {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.ai-bot.ai-end-points:${app.ai-bot.ai-end-point}}")
+    private String[] endpointUrls;
+
+    @Value("${app.ai-bot.load-balancer.ewma-decay:10000}")
+    private long ewmaDecay; // EWMA 감쇠 시간 상수 (밀리초, 클수록 과거 값 비중이 큼)
+
+    @Value("${app.ai-bot.load-balancer.eject-after-failures:3}")
+    private int ejectAfterFailures;
+
+    @Value("${app.ai-bot.load-balancer.eject-duration:30000}")
+    private long ejectDuration;
+
+    @Value("${app.ai-bot.load-balancer.sticky-max-sessions:10000}")
+    private int stickyMaxSessions;
+
+    @Value("${app.ai-bot.load-balancer.sticky-ttl:1800000}")
+    private long stickyTtl; // 마지막 호출 이후 세션 고정 유지 시간 (밀리초)
+
+    private List<Endpoint> endpoints;
+
+    // 현재 시각 (밀리초) - 테스트에서 교체
+    LongSupplier clock = System::currentTimeMillis;
+
+    // sessionId -> 배정된 엔드포인트 (오래 사용하지 않은 세션부터 제거)
+    private Map<String, Sticky> stickySessions;
+
+    @PostConstruct
+    public void init() {
+        List<Endpoint> list = new ArrayList<>();
+        for (String url : endpointUrls) {
+            String trimmed = url.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (trimmed.endsWith("/")) {
+                trimmed = trimmed.substring(0, trimmed.length() - 1);
+            }
+            Endpoint endpoint = new Endpoint(trimmed);
+            list.add(endpoint);
+            Gauge.builder("bot.endpoint.outstanding", endpoint, e -> e.outstanding.get())
+                    .tag("endpoint", trimmed).register(meterRegistry);
+            Gauge.builder("bot.endpoint.latency.ewma", endpoint, Endpoint::currentEwma)
+                    .tag("endpoint", trimmed).register(meterRegistry);
+            Gauge.builder("bot.endpoint.ejected", endpoint, e -> e.isEjected(clock.getAsLong()) ? 1 : 0)
+                    .tag("endpoint", trimmed).register(meterRegistry);
+        }
+        if (list.isEmpty()) {
+            throw new IllegalStateException("app.ai-bot.ai-end-point(s) 설정이 비어 있습니다.");
+        }
+        endpoints = Collections.unmodifiableList(list);
+        stickySessions = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Sticky> eldest) {
+                return size() > stickyMaxSessions;
+            }
+        };
+        log.info("▼ MiChatEndpointBalancer. endpoints:{}, ejectAfter:{}, eject:{}ms", Arrays.toString(endpointUrls), ejectAfterFailures, ejectDuration);
+    }
+
+    /**
+     * 호출할 엔드포인트 선택 (반환된 Call은 반드시 release 또는 cancel로 종료해야 함)
+     */
+    public Call acquire(String sessionId) {
+        long now = clock.getAsLong();
+        Endpoint endpoint;
+        if (endpoints.size() == 1) {
+            endpoint = endpoints.get(0);
+        } else {
+            synchronized (this) {
+                Sticky sticky = sessionId != null ? stickySessions.get(sessionId) : null;
+                if (sticky != null && now - sticky.lastUsedAt < stickyTtl && !sticky.endpoint.isEjected(now)) {
+                    endpoint = sticky.endpoint;
+                } else {
+                    endpoint = selectLeastLoaded(now);
+                    if (sticky != null && sticky.endpoint != endpoint) {
+                        log.info("MiChat 세션 엔드포인트 변경 - SessionId: {}, {} -> {}", sessionId, sticky.endpoint.url, endpoint.url);
+                    }
+                }
+                if (sessionId != null) {
+                    stickySessions.put(sessionId, new Sticky(endpoint, now));
+                }
+            }
+        }
+        endpoint.outstanding.incrementAndGet();
+        return new Call(endpoint, now);
+    }
+
+    // 정상 엔드포인트 중 점수가 가장 낮은 곳 (모두 제외 상태면 제외가 가장 먼저 끝나는 곳)
+    private Endpoint selectLeastLoaded(long now) {
+        Endpoint best = null;
+        double bestScore = Double.MAX_VALUE;
+        Endpoint soonest = null;
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint.isEjected(now)) {
+                if (soonest == null || endpoint.ejectedUntil < soonest.ejectedUntil) {
+                    soonest = endpoint;
+                }
+                continue;
+            }
+            double score = (endpoint.outstanding.get() + 1) * (endpoint.currentEwma() + 1);
+            if (score < bestScore) {
+                bestScore = score;
+                best = endpoint;
+            }
+        }
+        return best != null ? best : soonest;
+    }
+
+    /**
+     * 엔드포인트 하나의 상태
+     */
+    private class Endpoint {
+        private final String url;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private double ewma; // 첫 응답 지연 (밀리초)
+        private long ewmaUpdatedAt;
+        private int consecutiveFailures;
+        private volatile long ejectedUntil;
+
+        private Endpoint(String url) {
+            this.url = url;
+        }
+
+        private boolean isEjected(long now) {
+            return now < ejectedUntil;
+        }
+
+        private synchronized double currentEwma() {
+            return ewma;
+        }
+
+        private synchronized void recordLatency(long latency, long now) {
+            if (ewmaUpdatedAt == 0) {
+                ewma = latency;
+            } else {
+                double weight = Math.exp(-(double) Math.max(0, now - ewmaUpdatedAt) / ewmaDecay);
+                ewma = ewma * weight + latency * (1 - weight);
+            }
+            ewmaUpdatedAt = now;
+        }
+
+        private synchronized void recordResult(boolean success, long now) {
+            if (success) {
+                consecutiveFailures = 0;
+                return;
+            }
+            // 제외 후 복귀한 엔드포인트는 카운트가 유지되어 있으므로 한 번만 더 실패해도 다시 제외
+            if (++consecutiveFailures >= ejectAfterFailures && !isEjected(now)) {
+                ejectedUntil = now + ejectDuration;
+                log.warn("MiChat 엔드포인트 제외 - {} ({}회 연속 실패, {}ms)", url, consecutiveFailures, ejectDuration);
+            }
+        }
+    }
+
+    private static class Sticky {
+        private final Endpoint endpoint;
+        private final long lastUsedAt;
+
+        private Sticky(Endpoint endpoint, long lastUsedAt) {
+            this.endpoint = endpoint;
+            this.lastUsedAt = lastUsedAt;
+        }
+    }
+
+    /**
+     * 진행 중인 호출 하나 (release/cancel은 한 번만 반영)
+     */
+    public class Call {
+        private final Endpoint endpoint;
+        private final long startedAt;
+        private final AtomicBoolean firstByte = new AtomicBoolean();
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        private Call(Endpoint endpoint, long startedAt) {
+            this.endpoint = endpoint;
+            this.startedAt = startedAt;
+        }
+
+        public String getUrl() {
+            return endpoint.url;
+        }
+
+        /**
+         * 첫 응답 바이트 수신 시 호출 (지연 EWMA 갱신)
+         */
+        public void onFirstByte() {
+            if (firstByte.get() || !firstByte.compareAndSet(false, true)) {
+                return;
+            }
+            long now = clock.getAsLong();
+            endpoint.recordLatency(now - startedAt, now);
+        }
+
+        /**
+         * 호출 종료
+         *
+         * @param healthy 엔드포인트가 정상 응답했는지 여부 (4xx 요청 오류는 정상으로 봄)
+         */
+        public void release(boolean healthy) {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+            endpoint.outstanding.decrementAndGet();
+            long now = clock.getAsLong();
+            if (!healthy && !firstByte.get()) {
+                // 응답을 받지 못한 실패는 지연 시간도 나쁜 값으로 반영하여 새 세션이 덜 배정되도록 함
+                endpoint.recordLatency(now - startedAt, now);
+            }
+            endpoint.recordResult(healthy, now);
+        }
+
+        /**
+         * 결과 없이 중단된 호출 (상담원 연결 등) - 상태에 반영하지 않음
+         */
+        public void cancel() {
+            if (finished.compareAndSet(false, true)) {
+                endpoint.outstanding.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package aicc.bot.michat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+import org.springframework.core.io.buffer.DataBuffer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * MiChat SSE 응답 디코더 (스트림 하나당 인스턴스 하나, 스레드 안전하지 않음)
+ *
+ * 수신한 DataBuffer 바이트를 줄 단위로 잘라 "data:" 뒤의 JSON을 Jackson 스트리밍 파서로 읽고,
+ * 텍스트 필드(delta > content > message > text > answer 우선순위)만 꺼낸다.
+ * 줄마다 String/JsonNode 트리를 만들지 않으므로 동시 스트림이 많을 때 CPU/GC 부담이 적다.
+ * 여러 DataBuffer에 걸친 줄(멀티바이트 문자 포함)은 다음 버퍼가 올 때까지 내부 버퍼에 보관한다.
+ * 한 이벤트의 JSON이 여러 "data:" 줄로 나뉘어 오면 (SSE 규격) 줄바꿈으로 이어 붙여 JSON이 완성될 때 처리하고,
+ * 빈 줄(이벤트 끝)에서 이어 붙이던 내용을 비운다. "[DONE]" 이후 들어온 데이터는 무시한다.
+ */
+@Slf4j
+public class MiChatSseDecoder {
+
+    // 우선순위 순 (앞쪽일수록 우선)
+    private static final String[] TEXT_FIELDS = { "delta", "content", "message", "text", "answer" };
+
+    private static final byte[] DATA_PREFIX = "data:".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DONE_MESSAGE = "[DONE]".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+    private static final int MAX_LINE_BYTES = 1024 * 1024; // 한 줄 최대 크기 (초과 시 버림)
+
+    private final JsonFactory jsonFactory;
+
+    private byte[] pending = new byte[INITIAL_BUFFER_SIZE];
+    private int pendingLength;
+    private boolean skipping; // 최대 크기를 넘은 줄을 다음 줄바꿈까지 버리는 중
+
+    // 여러 data: 줄로 나뉜 이벤트의 아직 완성되지 않은 JSON (대부분의 이벤트는 한 줄이므로 필요할 때만 생성)
+    private byte[] event;
+    private int eventLength;
+    private boolean done; // [DONE] 수신
+
+    public MiChatSseDecoder(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    /**
+     * 수신한 버퍼를 처리 (완성된 줄마다 텍스트를 전달, 남은 조각은 보관). 버퍼 해제는 호출 측 책임
+     */
+    public void decode(DataBuffer buffer, Consumer<String> onDelta) {
+        int readable = buffer.readableByteCount();
+        if (readable == 0 || done) {
+            return;
+        }
+        ensureCapacity(pendingLength + readable);
+        buffer.read(pending, pendingLength, readable);
+
+        int scanFrom = pendingLength;
+        pendingLength += readable;
+
+        int lineStart = 0;
+        for (int i = scanFrom; i < pendingLength; i++) {
+            if (pending[i] != '\n') {
+                continue;
+            }
+            if (skipping) {
+                skipping = false;
+            } else {
+                decodeLine(pending, lineStart, i - lineStart, onDelta);
+            }
+            lineStart = i + 1;
+        }
+
+        if (skipping) {
+            pendingLength = 0; // 버리는 줄이 아직 끝나지 않음
+            return;
+        }
+
+        // 처리한 줄은 앞에서 제거하고 미완성 줄만 남김
+        int remaining = pendingLength - lineStart;
+        if (remaining > MAX_LINE_BYTES) {
+            log.warn("MiChat SSE 줄이 너무 깁니다. 다음 줄까지 버립니다. size={}", remaining);
+            skipping = true;
+            remaining = 0;
+        } else if (lineStart > 0 && remaining > 0) {
+            System.arraycopy(pending, lineStart, pending, 0, remaining);
+        }
+        pendingLength = remaining;
+    }
+
+    /**
+     * 스트림 종료 시 줄바꿈 없이 끝난 마지막 줄 처리
+     */
+    public void finish(Consumer<String> onDelta) {
+        if (pendingLength > 0 && !skipping && !done) {
+            decodeLine(pending, 0, pendingLength, onDelta);
+        }
+        if (eventLength > 0) {
+            log.warn("ChatBot Stream 이벤트가 완성되지 않은 채 종료됨 - Raw: {}",
+                    new String(event, 0, eventLength, StandardCharsets.UTF_8));
+        }
+        pendingLength = 0;
+        eventLength = 0;
+        skipping = false;
+    }
+
+    /**
+     * [DONE] 수신 여부
+     */
+    public boolean isDone() {
+        return done;
+    }
+
+    private void decodeLine(byte[] bytes, int offset, int length, Consumer<String> onDelta) {
+        if (done) {
+            return;
+        }
+        int start = offset;
+        int end = offset + length;
+
+        // 앞뒤 공백/CR 제거
+        while (start < end && isWhitespace(bytes[start])) start++;
+        while (end > start && isWhitespace(bytes[end - 1])) end--;
+        if (start == end) {
+            // 빈 줄 = 이벤트 끝 - 완성되지 못한 JSON은 버림
+            if (eventLength > 0) {
+                log.warn("ChatBot Stream 응답 파싱 실패 (이벤트 끝까지 JSON 미완성) - Raw: {}",
+                        new String(event, 0, eventLength, StandardCharsets.UTF_8));
+                eventLength = 0;
+            }
+            return;
+        }
+
+        // "data:" 접두어가 있다면 제거, 없다면 그대로 JSON으로 처리
+        if (startsWith(bytes, start, end, DATA_PREFIX)) {
+            start += DATA_PREFIX.length;
+            while (start < end && isWhitespace(bytes[start])) start++;
+            if (start == end) {
+                return;
+            }
+        } else if (bytes[start] != '{') {
+            // 주석(:), event:/id:/retry: 등 JSON이 아닌 SSE 필드
+            return;
+        }
+
+        // [DONE] 메시지 처리
+        if (end - start == DONE_MESSAGE.length && startsWith(bytes, start, end, DONE_MESSAGE)) {
+            log.debug("ChatBot Stream [DONE] 수신");
+            done = true;
+            eventLength = 0;
+            return;
+        }
+
+        // 앞 data: 줄에서 이어지는 JSON이면 줄바꿈으로 이어 붙여 전체를 다시 파싱
+        if (eventLength > 0) {
+            appendEvent(bytes, start, end);
+            decodeJson(event, 0, eventLength, onDelta);
+        } else if (bytes[start] == '{') {
+            decodeJson(bytes, start, end, onDelta);
+        } else if (log.isDebugEnabled()) {
+            // 텍스트를 이미 전달한 여러 줄 이벤트의 나머지 줄
+            log.debug("ChatBot Stream 이어지는 줄 무시: {}", new String(bytes, start, end - start, StandardCharsets.UTF_8));
+        }
+    }
+
+    // JSON 하나를 파싱하여 텍스트 전달 - 입력이 중간에 끝났으면 다음 data: 줄을 기다리도록 보관
+    private void decodeJson(byte[] bytes, int start, int end, Consumer<String> onDelta) {
+        String delta;
+        try (JsonParser parser = jsonFactory.createParser(bytes, start, end - start)) {
+            try {
+                // 이어 붙인 이벤트는 끝까지 읽어 JSON이 완성되었는지 확인 (한 줄 이벤트는 delta를 찾으면 바로 중단)
+                delta = extractText(parser, bytes == event);
+            } catch (JsonProcessingException e) {
+                if (parser.currentLocation().getByteOffset() < end - start) {
+                    throw e; // 입력 중간의 문법 오류
+                }
+                holdIncomplete(bytes, start, end);
+                return;
+            }
+        } catch (IOException e) {
+            log.warn("ChatBot Stream 응답 파싱 실패 - Raw: {}",
+                    new String(bytes, start, end - start, StandardCharsets.UTF_8), e);
+            eventLength = 0;
+            return;
+        }
+        eventLength = 0;
+
+        if (delta != null && !delta.isEmpty()) {
+            if (log.isDebugEnabled()) log.debug("Stream Chunk: {}", delta);
+            onDelta.accept(delta);
+        } else if (log.isWarnEnabled()) {
+            log.warn("Stream 데이터에 유효한 텍스트 필드(delta, content, message, text, answer)가 없음: {}",
+                    new String(bytes, start, end - start, StandardCharsets.UTF_8));
+        }
+    }
+
+    // 입력 끝에서 JSON이 끝나지 않은 경우 - 다음 data: 줄과 이어 붙이기 위해 보관
+    private void holdIncomplete(byte[] bytes, int start, int end) {
+        if (bytes != event) {
+            appendEvent(bytes, start, end);
+        } else if (eventLength > MAX_LINE_BYTES) {
+            log.warn("MiChat SSE 이벤트가 너무 깁니다. 버립니다. size={}", eventLength);
+            eventLength = 0;
+        }
+    }
+
+    // 이벤트 버퍼에 data: 줄 내용 추가 (이미 내용이 있으면 줄바꿈으로 구분)
+    private void appendEvent(byte[] bytes, int start, int end) {
+        int separator = eventLength > 0 ? 1 : 0;
+        int required = eventLength + separator + (end - start);
+        if (event == null || event.length < required) {
+            byte[] grown = new byte[Math.max(required, event == null ? INITIAL_BUFFER_SIZE : event.length << 1)];
+            if (eventLength > 0) {
+                System.arraycopy(event, 0, grown, 0, eventLength);
+            }
+            event = grown;
+        }
+        if (separator > 0) {
+            event[eventLength++] = '\n';
+        }
+        System.arraycopy(bytes, start, event, eventLength, end - start);
+        eventLength += end - start;
+    }
+
+    // 최상위 객체의 필드를 순서대로 읽으며 우선순위가 가장 높은 텍스트 필드 값을 반환 (트리 생성 없음)
+    // readAll이 false면 최우선 필드(delta)를 찾는 즉시 중단
+    private static String extractText(JsonParser parser, boolean readAll) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return null;
+        }
+        String best = null;
+        int bestRank = TEXT_FIELDS.length;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            int rank = rankOf(parser.currentName());
+            JsonToken value = parser.nextToken();
+            if (rank >= bestRank) {
+                parser.skipChildren();
+                continue;
+            }
+            if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                best = "";
+            } else if (value == JsonToken.VALUE_NULL) {
+                best = "";
+            } else {
+                best = parser.getText();
+            }
+            bestRank = rank;
+            if (rank == 0 && !readAll) {
+                break; // 최우선 필드(delta)를 찾았으면 나머지는 읽지 않음
+            }
+        }
+        return best;
+    }
+
+    // 텍스트 필드 우선순위 (해당 없으면 TEXT_FIELDS.length)
+    private static int rankOf(String fieldName) {
+        for (int i = 0; i < TEXT_FIELDS.length; i++) {
+            if (TEXT_FIELDS[i].equals(fieldName)) {
+                return i;
+            }
+        }
+        return TEXT_FIELDS.length;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= pending.length) {
+            return;
+        }
+        int size = pending.length;
+        while (size < required) {
+            size <<= 1;
+        }
+        byte[] grown = new byte[size];
+        System.arraycopy(pending, 0, grown, 0, pendingLength);
+        pending = grown;
+    }
+
+    private static boolean startsWith(byte[] bytes, int start, int end, byte[] prefix) {
+        if (end - start < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[start + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+}
@@ -0,0 +1,29 @@
+package aicc.chat.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 상담원별 동시 상담 수 한도 (app.chat.agent-capacity.*)
+ * 상담원별(agents.{userId}) 값이 있으면 기본값 대신 사용한다.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "app.chat.agent-capacity")
+public class AgentCapacityProperties {
+
+    private int maxChats = 3; // 상담원 한 명이 동시에 진행할 수 있는 최대 상담 수
+
+    private Map<String, Integer> agents = new HashMap<>();
+
+    public int maxChatsFor(String userId) {
+        Integer value = userId != null ? agents.get(userId) : null;
+        return value != null ? value : maxChats;
+    }
+}
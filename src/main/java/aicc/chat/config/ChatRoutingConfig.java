@@ -1,6 +1,10 @@
 package aicc.chat.config;
 
 import aicc.bot.ChatBot;
+import aicc.chat.service.BotCallBulkhead;
+import aicc.chat.service.BotMessageDebouncer;
+import aicc.chat.service.BotStreamCoalescer;
+import aicc.chat.service.BotStreamRegistry;
 import aicc.chat.service.impl.AgentRoutingStrategy;
 import aicc.chat.service.impl.DynamicRoutingStrategy;
 import aicc.chat.service.impl.MiChatRoutingStrategy;
@@ -31,14 +35,18 @@ public class ChatRoutingConfig {
             RoomRepository roomRepository,
             aicc.chat.service.RoomUpdateBroadcaster roomUpdateBroadcaster,
             ChatHistoryService chatHistoryService,
-            ChatSessionService chatSessionService) {
+            ChatSessionService chatSessionService,
+            BotStreamCoalescer botStreamCoalescer,
+            BotCallBulkhead botCallBulkhead,
+            BotStreamRegistry botStreamRegistry,
+            BotMessageDebouncer botMessageDebouncer) {
         log.info("▼ dynamicRoutingStrategy");
         MiChatRoutingStrategy miChat = new MiChatRoutingStrategy(
                 messageBroker, chatBot, roomRepository, roomUpdateBroadcaster,
-                chatHistoryService, chatSessionService);
+                chatHistoryService, chatSessionService, botStreamCoalescer, botCallBulkhead, botStreamRegistry, botMessageDebouncer);
         AgentRoutingStrategy agent = new AgentRoutingStrategy(messageBroker);
 
-        return new DynamicRoutingStrategy(roomRepository, miChat, agent, roomUpdateBroadcaster);
+        return new DynamicRoutingStrategy(roomRepository, miChat, agent, roomUpdateBroadcaster, botStreamRegistry);
     }
 
     /**
@@ -52,11 +60,15 @@ public class ChatRoutingConfig {
             RoomRepository roomRepository,
             aicc.chat.service.RoomUpdateBroadcaster roomUpdateBroadcaster,
             ChatHistoryService chatHistoryService,
-            ChatSessionService chatSessionService) {
+            ChatSessionService chatSessionService,
+            BotStreamCoalescer botStreamCoalescer,
+            BotCallBulkhead botCallBulkhead,
+            BotStreamRegistry botStreamRegistry,
+            BotMessageDebouncer botMessageDebouncer) {
         log.info("▼ miChatRoutingStrategy");
         return new MiChatRoutingStrategy(
                 messageBroker, chatBot, roomRepository, roomUpdateBroadcaster,
-                chatHistoryService, chatSessionService);
+                chatHistoryService, chatSessionService, botStreamCoalescer, botCallBulkhead, botStreamRegistry, botMessageDebouncer);
     }
 
     /**
@@ -1,25 +1,56 @@
 package aicc.chat.config;
 
+import aicc.chat.mapper.ChatSessionMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.mybatis.spring.SqlSessionFactoryBean;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.data.redis.core.StringRedisTemplate;
 
 import lombok.extern.slf4j.Slf4j;
 
 import javax.sql.DataSource;
+import java.util.Properties;
 
 /**
  * MyBatis 설정 클래스
  * SQL 로깅 인터셉터를 등록합니다.
+ * Mapper XML에서 cache-ref로 참조하는 2차 캐시(MyBatisTtlCache)를 Bean으로 생성하여 등록합니다.
  */
 @Slf4j
 @Configuration
 public class MyBatisConfig {
 
+    /**
+     * chat_session 조회 2차 캐시 (ChatSessionMapper.xml의 cache-ref가 참조)
+     * 조회 결과를 roomId로 색인하여 ChatSessionService에서 방 단위로 무효화한다.
+     */
     @Bean
-    public SqlSessionFactory sqlSessionFactory(DataSource dataSource) throws Exception {
+    public MyBatisTtlCache chatSessionCache(
+            StringRedisTemplate redisTemplate,
+            ObjectMapper objectMapper,
+            @Value("${app.chat.session.cache.enabled:true}") boolean enabled,
+            @Value("${app.chat.session.cache.backend:redis}") String backend,
+            @Value("${app.chat.session.cache.max-size:10000}") int maxSize,
+            @Value("${app.chat.session.cache.ttl:60000}") long ttl) {
+        MyBatisTtlCache cache = new MyBatisTtlCache(ChatSessionMapper.class.getName(), redisTemplate, objectMapper);
+        cache.setEnabled(enabled);
+        cache.setBackend(backend);
+        cache.setMaxSize(maxSize);
+        cache.setTtl(ttl);
+        cache.setIndexProperty("roomId");
+        cache.initialize();
+        return cache;
+    }
+
+    @Bean
+    public SqlSessionFactory sqlSessionFactory(
+            DataSource dataSource,
+            MyBatisTtlCache chatSessionCache,
+            @Value("${app.chat.history.export.fetch-size:1000}") int exportFetchSize) throws Exception {
         log.info("▼ sqlSessionFactory");
         SqlSessionFactoryBean sessionFactory = new SqlSessionFactoryBean();
         sessionFactory.setDataSource(dataSource);
@@ -32,6 +63,11 @@ public class MyBatisConfig {
         // Type Aliases 패키지 설정
         sessionFactory.setTypeAliasesPackage("aicc.chat.domain.persistence");
 
+        // Mapper XML에서 ${...}로 참조하는 설정값
+        Properties variables = new Properties();
+        variables.setProperty("chat.history.export.fetch-size", String.valueOf(exportFetchSize));
+        sessionFactory.setConfigurationProperties(variables);
+
         // SQL 로깅 인터셉터 등록
         sessionFactory.setPlugins(new MyBatisSqlLogger());
 
@@ -44,6 +80,9 @@ public class MyBatisConfig {
         configuration.setLazyLoadingEnabled(false);
         configuration.setLocalCacheScope(org.apache.ibatis.session.LocalCacheScope.SESSION);
 
+        // Mapper XML 파싱 전에 등록해야 cache-ref가 참조할 수 있음
+        configuration.addCache(chatSessionCache);
+
         sessionFactory.setConfiguration(configuration);
 
         return sessionFactory.getObject();
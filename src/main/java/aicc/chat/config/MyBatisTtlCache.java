@@ -0,0 +1,523 @@
+package aicc.chat.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.builder.InitializingObject;
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * MyBatis 2차 캐시 구현 (건수 제한 + TTL, 저장소 선택: local / redis)
+ *
+ * Spring Bean으로 생성하여(MyBatisConfig) MyBatis Configuration에 미리 등록하고,
+ * Mapper XML에서는 &lt;cache-ref namespace="..."/&gt; 로 자기 namespace의 캐시를 참조한다.
+ * <pre>
+ *  backend       local: JVM 내 LRU, redis: 여러 서버가 공유
+ *  maxSize       최대 보관 건수
+ *  ttl           보관 시간 (밀리초)
+ *  indexProperty 결과 객체의 이 속성값으로 항목을 색인
+ * </pre>
+ *
+ * MyBatis는 같은 namespace의 insert/update/delete가 커밋되면 캐시 전체를 비운다(clear).
+ * redis backend의 clear는 세대(generation) 번호만 올리는 O(1) 연산이며, 이전 세대 항목은 TTL로 사라진다.
+ * 자주 실행되는 갱신(flushCache="false")은 evictByIndex()로 해당 값이 포함된 항목만 골라 지운다.
+ * 결과는 JSON(ObjectMapper)으로 직렬화하여 보관하므로 조회할 때마다 복사본이 반환된다.
+ * 공유 Redis의 값으로 임의 클래스가 만들어지지 않도록 결과 타입은 aicc.chat.domain.persistence 패키지와
+ * 단순 값(String, 숫자, Boolean)만 허용하며, 그 외 타입(Map 등)의 결과는 캐시하지 않는다.
+ * <pre>
+ *  저장 형식  {"type": 결과 클래스, "list": List 여부, "value": 결과 JSON}
+ * </pre>
+ */
+@Slf4j
+public class MyBatisTtlCache implements Cache, InitializingObject {
+
+    private static final String REDIS_KEY_PREFIX = "mybatis:cache:";
+    private static final String ALLOWED_PACKAGE = "aicc.chat.domain.persistence.";
+    private static final Set<Class<?>> ALLOWED_VALUE_TYPES = Set.of(
+            String.class, Long.class, Integer.class, Short.class, Double.class, Float.class, Boolean.class, BigDecimal.class);
+
+    private final String id;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    private boolean enabled = true;
+    private String backend = "local";
+    private int maxSize = 10000;
+    private long ttl = 60000;
+    private String indexProperty;
+
+    private Store store;
+
+    /**
+     * @param id            Mapper namespace (예: aicc.chat.mapper.ChatSessionMapper)
+     * @param redisTemplate redis backend에서 사용 (local backend면 null 가능)
+     * @param objectMapper  결과 직렬화
+     */
+    public MyBatisTtlCache(String id, StringRedisTemplate redisTemplate, ObjectMapper objectMapper) {
+        this.id = id;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 결과에 indexProperty 값이 value 인 객체가 포함된 캐시 항목만 삭제
+     */
+    public void evictByIndex(Object value) {
+        if (enabled && value != null) {
+            store.evictByIndex(String.valueOf(value));
+        }
+    }
+
+    // 설정값은 MyBatisConfig에서 setter로 지정한 뒤 initialize() 호출
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void setBackend(String backend) {
+        this.backend = backend;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public void setTtl(long ttl) {
+        this.ttl = ttl;
+    }
+
+    public void setIndexProperty(String indexProperty) {
+        this.indexProperty = indexProperty;
+    }
+
+    @Override
+    public void initialize() {
+        if ("redis".equalsIgnoreCase(backend)) {
+            if (redisTemplate == null) {
+                throw new CacheException("MyBatis 캐시 설정 오류: redis backend를 사용하려면 RedisTemplate이 필요합니다. namespace=" + id);
+            }
+            store = new RedisStore();
+        } else {
+            store = new LocalStore();
+        }
+        log.info("▼ MyBatisTtlCache initialized. namespace:{}, enabled:{}, backend:{}, maxSize:{}, ttl:{}ms, index:{}",
+                id, enabled, backend, maxSize, ttl, indexProperty);
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public void putObject(Object key, Object value) {
+        // MyBatis는 조회 결과가 없을 때 null도 저장하려 하므로 무시
+        if (!enabled || value == null) {
+            return;
+        }
+        byte[] bytes = serialize(value);
+        if (bytes == null) {
+            return;
+        }
+        store.put(keyOf(key), bytes, indexValuesOf(value));
+    }
+
+    @Override
+    public Object getObject(Object key) {
+        if (!enabled) {
+            return null;
+        }
+        byte[] bytes = store.get(keyOf(key));
+        return bytes != null ? deserialize(bytes) : null;
+    }
+
+    @Override
+    public Object removeObject(Object key) {
+        if (enabled) {
+            store.remove(keyOf(key));
+        }
+        return null;
+    }
+
+    @Override
+    public void clear() {
+        if (enabled) {
+            store.clear();
+        }
+    }
+
+    @Override
+    public int getSize() {
+        return enabled ? store.size() : 0;
+    }
+
+    // CacheKey 문자열(구문 ID, SQL, 파라미터 포함)의 해시를 캐시 키로 사용
+    private static String keyOf(Object key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(key.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // 결과(단건 또는 List)에서 indexProperty 값 추출
+    private Set<String> indexValuesOf(Object value) {
+        if (indexProperty == null) {
+            return Set.of();
+        }
+        Collection<?> rows = value instanceof Collection<?> c ? c : List.of(value);
+        Set<String> values = new HashSet<>();
+        for (Object row : rows) {
+            if (row == null) {
+                continue;
+            }
+            MetaObject meta = SystemMetaObject.forObject(row);
+            if (meta.hasGetter(indexProperty)) {
+                Object indexValue = meta.getValue(indexProperty);
+                if (indexValue != null) {
+                    values.add(String.valueOf(indexValue));
+                }
+            }
+        }
+        return values;
+    }
+
+    // 결과(단건 또는 List)를 타입 정보와 함께 JSON으로 직렬화 (허용되지 않은 타입이면 null - 캐시하지 않음)
+    private byte[] serialize(Object value) {
+        boolean list = value instanceof List<?>;
+        List<?> rows = list ? (List<?>) value : List.of(value);
+        Class<?> type = null;
+        for (Object row : rows) {
+            if (row == null) {
+                continue;
+            }
+            if (type == null) {
+                type = row.getClass();
+            } else if (type != row.getClass()) {
+                log.warn("MyBatis cache value has mixed types, skipped: namespace={}", id);
+                return null;
+            }
+        }
+        if (type != null && !isAllowedType(type)) {
+            log.warn("MyBatis cache value type is not allowed, skipped: namespace={}, type={}", id, type.getName());
+            return null;
+        }
+        try {
+            ObjectNode envelope = objectMapper.createObjectNode();
+            envelope.put("type", type != null ? type.getName() : null);
+            envelope.put("list", list);
+            envelope.set("value", objectMapper.valueToTree(value));
+            return objectMapper.writeValueAsBytes(envelope);
+        } catch (Exception e) {
+            log.warn("Failed to serialize MyBatis cache value: namespace={}", id, e);
+            return null;
+        }
+    }
+
+    // 저장된 타입이 허용 목록에 있을 때만 해당 클래스로 변환
+    private Object deserialize(byte[] bytes) {
+        try {
+            JsonNode envelope = objectMapper.readTree(bytes);
+            JsonNode typeNode = envelope.get("type");
+            Class<?> type = null;
+            if (typeNode != null && !typeNode.isNull()) {
+                type = allowedType(typeNode.asText());
+                if (type == null) {
+                    log.warn("MyBatis cache value type is not allowed, ignored: namespace={}, type={}", id, typeNode.asText());
+                    return null;
+                }
+            }
+            JsonNode value = envelope.get("value");
+            if (!envelope.path("list").asBoolean()) {
+                return type != null && value != null && !value.isNull() ? objectMapper.treeToValue(value, type) : null;
+            }
+            List<Object> rows = new ArrayList<>();
+            if (value instanceof ArrayNode array) {
+                for (JsonNode row : array) {
+                    rows.add(type != null && !row.isNull() ? objectMapper.treeToValue(row, type) : null);
+                }
+            }
+            return rows;
+        } catch (Exception e) {
+            // 클래스 변경 등으로 읽을 수 없는 항목은 캐시 미스로 처리
+            log.warn("Failed to deserialize MyBatis cache value: namespace={}", id, e);
+            return null;
+        }
+    }
+
+    private static boolean isAllowedType(Class<?> type) {
+        return ALLOWED_VALUE_TYPES.contains(type) || type.getName().startsWith(ALLOWED_PACKAGE);
+    }
+
+    // 허용 목록 확인 후에만 클래스를 로드
+    private static Class<?> allowedType(String name) {
+        for (Class<?> type : ALLOWED_VALUE_TYPES) {
+            if (type.getName().equals(name)) {
+                return type;
+            }
+        }
+        if (!name.startsWith(ALLOWED_PACKAGE) || name.indexOf('.', ALLOWED_PACKAGE.length()) >= 0) {
+            return null;
+        }
+        try {
+            return Class.forName(name, false, MyBatisTtlCache.class.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 캐시 저장소
+     */
+    private interface Store {
+        void put(String key, byte[] value, Set<String> indexValues);
+
+        byte[] get(String key);
+
+        void remove(String key);
+
+        void clear();
+
+        void evictByIndex(String indexValue);
+
+        int size();
+    }
+
+    /**
+     * JVM 내 LRU 저장소 (단일 서버용 - 다른 서버의 갱신은 TTL이 지나야 반영됨)
+     */
+    private class LocalStore implements Store {
+
+        private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private final Map<String, Set<String>> index = new HashMap<>();
+
+        @Override
+        public synchronized void put(String key, byte[] value, Set<String> indexValues) {
+            unlink(key, entries.remove(key));
+            entries.put(key, new Entry(value, System.currentTimeMillis() + ttl, indexValues));
+            for (String indexValue : indexValues) {
+                index.computeIfAbsent(indexValue, k -> new HashSet<>()).add(key);
+            }
+            // 가장 오래 사용되지 않은 항목부터 제거
+            Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+            while (entries.size() > maxSize && it.hasNext()) {
+                Map.Entry<String, Entry> eldest = it.next();
+                it.remove();
+                unlink(eldest.getKey(), eldest.getValue());
+            }
+        }
+
+        @Override
+        public synchronized byte[] get(String key) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt < System.currentTimeMillis()) {
+                entries.remove(key);
+                unlink(key, entry);
+                return null;
+            }
+            return entry.value;
+        }
+
+        @Override
+        public synchronized void remove(String key) {
+            unlink(key, entries.remove(key));
+        }
+
+        @Override
+        public synchronized void clear() {
+            entries.clear();
+            index.clear();
+        }
+
+        @Override
+        public synchronized void evictByIndex(String indexValue) {
+            Set<String> keys = index.remove(indexValue);
+            if (keys == null) {
+                return;
+            }
+            for (String key : keys) {
+                unlink(key, entries.remove(key));
+            }
+        }
+
+        @Override
+        public synchronized int size() {
+            return entries.size();
+        }
+
+        private void unlink(String key, Entry entry) {
+            if (entry == null) {
+                return;
+            }
+            for (String indexValue : entry.indexValues) {
+                Set<String> keys = index.get(indexValue);
+                if (keys != null) {
+                    keys.remove(key);
+                    if (keys.isEmpty()) {
+                        index.remove(indexValue);
+                    }
+                }
+            }
+        }
+    }
+
+    private record Entry(byte[] value, long expiresAt, Set<String> indexValues) {
+    }
+
+    /**
+     * Redis 저장소 (여러 서버가 공유하므로 어느 서버에서 갱신해도 모든 서버에 반영)
+     *
+     * Redis 키 구조 ({namespace}는 hash tag - 한 namespace의 키는 모두 같은 slot):
+     *  - mybatis:cache:{namespace}:gen                 : 현재 세대 번호 (clear 시 INCR)
+     *  - mybatis:cache:{namespace}:{gen}:{hash}        : 직렬화된 결과 (Base64, TTL)
+     *  - mybatis:cache:{namespace}:{gen}:keys          : 세대별 항목 목록 (ZSET, score=만료 시각, TTL) - 건수 제한용
+     *  - mybatis:cache:{namespace}:{gen}:idx:{value}   : 세대별 색인값 항목 목록 (SET, TTL)
+     *
+     * 항목 키는 현재 세대 번호에 따라 정해지므로 스크립트 안에서 만든다. 모든 키가 같은 hash tag를 가지므로
+     * Redis Cluster에서도 한 노드 안에서 실행된다.
+     * Redis 오류는 캐시 미스로 처리하고 로그만 남긴다 (삭제 실패 시 TTL이 지나면 반영).
+     */
+    private class RedisStore implements Store {
+
+        private final String prefix = REDIS_KEY_PREFIX + "{" + id + "}:";
+        private final String genKey = prefix + "gen";
+
+        // KEYS: 세대 키 / ARGV: 접두어, 항목 hash
+        private static final String BASE = "local base = ARGV[1] .. (redis.call('GET', KEYS[1]) or '0') .. ':' ";
+
+        private final RedisScript<String> getScript = new DefaultRedisScript<>(
+                BASE + "return redis.call('GET', base .. ARGV[2])", String.class);
+
+        // ARGV: 접두어, 항목 hash, ttl, 값, 현재 시각, maxSize, 색인값...
+        private final RedisScript<Long> putScript = new DefaultRedisScript<>(
+                BASE
+              + "local keys = base .. 'keys' "
+              + "redis.call('SET', base .. ARGV[2], ARGV[4], 'PX', ARGV[3]) "
+              + "redis.call('ZADD', keys, tonumber(ARGV[5]) + tonumber(ARGV[3]), ARGV[2]) "
+              + "redis.call('PEXPIRE', keys, ARGV[3]) "
+              + "for i = 7, #ARGV do "
+              + "  redis.call('SADD', base .. 'idx:' .. ARGV[i], ARGV[2]) "
+              + "  redis.call('PEXPIRE', base .. 'idx:' .. ARGV[i], ARGV[3]) "
+              + "end "
+              + "redis.call('ZREMRANGEBYSCORE', keys, 0, ARGV[5]) "
+              + "local over = redis.call('ZCARD', keys) - tonumber(ARGV[6]) "
+              + "if over > 0 then "
+              + "  local eldest = redis.call('ZRANGE', keys, 0, over - 1) "
+              + "  for _, k in ipairs(eldest) do redis.call('DEL', base .. k) end "
+              + "  redis.call('ZREM', keys, unpack(eldest)) "
+              + "end "
+              + "return 1", Long.class);
+
+        private final RedisScript<Long> removeScript = new DefaultRedisScript<>(
+                BASE
+              + "redis.call('DEL', base .. ARGV[2]) "
+              + "return redis.call('ZREM', base .. 'keys', ARGV[2])", Long.class);
+
+        // ARGV: 접두어, 색인값
+        private final RedisScript<Long> evictScript = new DefaultRedisScript<>(
+                BASE
+              + "local idx = base .. 'idx:' .. ARGV[2] "
+              + "local members = redis.call('SMEMBERS', idx) "
+              + "for _, k in ipairs(members) do redis.call('DEL', base .. k) end "
+              + "if #members > 0 then redis.call('ZREM', base .. 'keys', unpack(members)) end "
+              + "redis.call('DEL', idx) "
+              + "return #members", Long.class);
+
+        private final RedisScript<Long> sizeScript = new DefaultRedisScript<>(
+                BASE + "return redis.call('ZCARD', base .. 'keys')", Long.class);
+
+        @Override
+        public void put(String key, byte[] value, Set<String> indexValues) {
+            try {
+                List<String> args = new ArrayList<>(6 + indexValues.size());
+                args.add(prefix);
+                args.add(key);
+                args.add(String.valueOf(ttl));
+                args.add(Base64.getEncoder().encodeToString(value));
+                args.add(String.valueOf(System.currentTimeMillis()));
+                args.add(String.valueOf(maxSize));
+                args.addAll(indexValues);
+                redisTemplate.execute(putScript, List.of(genKey), args.toArray());
+            } catch (Exception e) {
+                log.warn("Failed to put MyBatis cache (redis): namespace={}", id, e);
+            }
+        }
+
+        @Override
+        public byte[] get(String key) {
+            try {
+                String encoded = redisTemplate.execute(getScript, List.of(genKey), prefix, key);
+                return encoded != null ? Base64.getDecoder().decode(encoded) : null;
+            } catch (Exception e) {
+                log.warn("Failed to get MyBatis cache (redis): namespace={}", id, e);
+                return null;
+            }
+        }
+
+        @Override
+        public void remove(String key) {
+            try {
+                redisTemplate.execute(removeScript, List.of(genKey), prefix, key);
+            } catch (Exception e) {
+                log.warn("Failed to remove MyBatis cache (redis): namespace={}", id, e);
+            }
+        }
+
+        // 세대 번호만 올림 - 캐시 크기와 무관하게 O(1), 이전 세대 항목은 TTL로 만료
+        @Override
+        public void clear() {
+            try {
+                redisTemplate.opsForValue().increment(genKey);
+            } catch (Exception e) {
+                log.error("Failed to clear MyBatis cache (redis): namespace={}", id, e);
+            }
+        }
+
+        @Override
+        public void evictByIndex(String indexValue) {
+            try {
+                redisTemplate.execute(evictScript, List.of(genKey), prefix, indexValue);
+            } catch (Exception e) {
+                log.error("Failed to evict MyBatis cache (redis): namespace={}, index={}", id, indexValue, e);
+            }
+        }
+
+        @Override
+        public int size() {
+            try {
+                Long count = redisTemplate.execute(sizeScript, List.of(genKey), prefix, "");
+                return count != null ? count.intValue() : 0;
+            } catch (Exception e) {
+                return 0;
+            }
+        }
+    }
+}
@@ -2,6 +2,8 @@ package aicc.chat.config;
 
 import aicc.chat.domain.UserInfo;
 import aicc.chat.service.TokenService;
+import aicc.chat.websocket.WebSocketAttributes;
+import aicc.chat.websocket.domain.WebSocketSessionContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Configuration;
@@ -10,8 +12,15 @@ import org.springframework.http.server.ServerHttpResponse;
 import org.springframework.http.server.ServletServerHttpRequest;
 import org.springframework.lang.NonNull;
 import org.springframework.lang.Nullable;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessagingException;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
 import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
@@ -43,7 +52,7 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     // STOMP 브로커 및 애플리케이션 목적지 접두어 설정
     public void configureMessageBroker(@NonNull MessageBrokerRegistry registry) {
         log.info("▶ configureMessageBroker (/topic, /app) S");
-        registry.enableSimpleBroker("/topic"); // 서버에서 클라이언트로 broadcast 하는 prefix
+        registry.enableSimpleBroker("/topic", "/queue"); // 서버에서 클라이언트로 broadcast 하는 prefix (/queue: 사용자별 /user/queue/** 전달용)
         // ["SUBSCRIBE\nid:sub-0\ndestination:/topic/room/room-161cedaa\n\n\u0000"]
 
 
@@ -75,17 +84,16 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                                     log.debug("WebSocket Handshake - User: {}, RequestRoom: {}, Company: {}",
                                         userInfo.getUserId(), roomId, userInfo.getCompanyId());
 
-                                    attributes.put("userId", userInfo.getUserId());
-                                    attributes.put("userName", userInfo.getUserName());
-                                    attributes.put("userRole", userInfo.getRole());
-                                    if (userInfo.getEmail() != null) attributes.put("userEmail", userInfo.getEmail());
+                                    // 세션 사용자 정보는 여기서 한 번만 만들고 이후 메시지/이벤트에서는 그대로 꺼내 사용
+                                    WebSocketSessionContext context = WebSocketSessionContext.of(userInfo, roomId);
+                                    attributes.put(WebSocketSessionContext.ATTRIBUTE, context);
 
-                                    // 1. 토큰에 roomId가 있으면 사용 (주로 상담원 등 고정된 경우)
-                                    // 2. 파라미터로 roomId가 전달되면 사용 (주로 고객이 상담 시작 시 생성한 경우)
-                                    String finalRoomId = (userInfo.getRoomId() != null) ? userInfo.getRoomId() : roomId;
-                                    if (finalRoomId != null) attributes.put("roomId", finalRoomId);
-
-                                    if (userInfo.getCompanyId() != null) attributes.put("companyId", userInfo.getCompanyId());
+                                    attributes.put("userId", context.getUserId());
+                                    attributes.put("userName", context.getUserName());
+                                    attributes.put("userRole", context.getUserRole());
+                                    if (context.getUserEmail() != null) attributes.put("userEmail", context.getUserEmail());
+                                    if (context.getRoomId() != null) attributes.put("roomId", context.getRoomId());
+                                    if (context.getCompanyId() != null) attributes.put("companyId", context.getCompanyId());
                                 }
                             }
                         }
@@ -106,9 +114,30 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     }
 
     @Override
-    // 인바운드 채널 인터셉터를 추가할 때 사용 (현재 미사용)
+    // 인바운드 채널 인터셉터: CONNECT 시 핸드셰이크에서 인증한 사용자 ID를 세션 사용자로 지정 (/user/** 목적지가 본인 세션에만 전달되도록)
     public void configureClientInboundChannel(ChannelRegistration registration) {
         //registration.interceptors(stompHandler);
+        registration.interceptors(new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+                StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+                if (accessor == null) {
+                    return message;
+                }
+                if (StompCommand.CONNECT.equals(accessor.getCommand())) {
+                    WebSocketSessionContext context = WebSocketAttributes.getSessionContext(accessor);
+                    if (context != null && context.getUserId() != null) {
+                        String userId = context.getUserId();
+                        accessor.setUser(() -> userId);
+                    }
+                } else if (StompCommand.SUBSCRIBE.equals(accessor.getCommand())
+                        && accessor.getDestination() != null && accessor.getDestination().startsWith("/topic/agent/")) {
+                    // 상담원별 알림은 /user/queue/agent 로만 전달 (다른 상담원의 알림 구독 방지)
+                    throw new MessagingException("/topic/agent/** 는 구독할 수 없습니다. /user/queue/agent 를 사용하세요.");
+                }
+                return message;
+            }
+        });
         log.info("▼ configureClientInboundChannel ▲");
     }
 
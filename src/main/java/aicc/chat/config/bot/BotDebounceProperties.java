@@ -0,0 +1,57 @@
+package aicc.chat.config.bot;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 연속된 고객 메시지 묶음 설정 (app.ai-bot.debounce.*)
+ * 회사별(companies.{companyId}) 값이 있으면 기본값 대신 사용한다.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "app.ai-bot.debounce")
+public class BotDebounceProperties {
+
+    private boolean enabled = false;
+
+    private long window = 800; // 마지막 메시지 이후 이 시간 동안 추가 메시지가 없으면 챗봇 호출 (밀리초)
+
+    private long maxWait = 3000; // 첫 메시지부터 최대 대기 시간 (계속 입력해도 이 시간이 지나면 호출)
+
+    private int maxMessages = 10; // 한 번에 묶을 최대 메시지 수 (도달 시 즉시 호출)
+
+    private int dispatchThreads = 4; // 대기가 끝난 묶음을 챗봇에 전달하는 스레드 수
+
+    private int dispatchQueue = 1000; // 전달 대기열 크기 (가득 차면 타이머 스레드에서 직접 전달)
+
+    private Map<String, Policy> companies = new HashMap<>();
+
+    public boolean enabledFor(String companyId) {
+        Policy policy = companyId != null ? companies.get(companyId) : null;
+        return policy != null && policy.getEnabled() != null ? policy.getEnabled() : enabled;
+    }
+
+    public long windowFor(String companyId) {
+        Policy policy = companyId != null ? companies.get(companyId) : null;
+        return policy != null && policy.getWindow() != null ? policy.getWindow() : window;
+    }
+
+    public long maxWaitFor(String companyId) {
+        Policy policy = companyId != null ? companies.get(companyId) : null;
+        return policy != null && policy.getMaxWait() != null ? policy.getMaxWait() : maxWait;
+    }
+
+    @Getter
+    @Setter
+    public static class Policy {
+        private Boolean enabled;
+        private Long window;
+        private Long maxWait;
+    }
+}
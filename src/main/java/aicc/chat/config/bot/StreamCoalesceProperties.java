@@ -0,0 +1,47 @@
+package aicc.chat.config.bot;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 챗봇 스트리밍 응답 묶음 전송 설정 (app.chat.stream.coalesce.*)
+ * 회사별(companies.{companyId}) 값이 있으면 기본값 대신 사용한다.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "app.chat.stream.coalesce")
+public class StreamCoalesceProperties {
+
+    private boolean enabled = true;
+
+    private long flushInterval = 50; // 묶음 전송 주기 (밀리초, 0 이하이면 시간 기준 전송 안 함)
+
+    private int maxBytes = 256; // 누적 크기(UTF-8 바이트)가 이 값 이상이면 즉시 전송 (0 이하이면 크기 기준 전송 안 함)
+
+    private int flushThreads = 2; // 시간 기준 전송을 실행하는 스레드 수 (타이머 스레드는 시간만 잼)
+
+    private Map<String, Policy> companies = new HashMap<>();
+
+    public long flushIntervalFor(String companyId) {
+        Policy policy = companyId != null ? companies.get(companyId) : null;
+        return policy != null && policy.getFlushInterval() != null ? policy.getFlushInterval() : flushInterval;
+    }
+
+    public int maxBytesFor(String companyId) {
+        Policy policy = companyId != null ? companies.get(companyId) : null;
+        return policy != null && policy.getMaxBytes() != null ? policy.getMaxBytes() : maxBytes;
+    }
+
+    @Getter
+    @Setter
+    public static class Policy {
+        private Long flushInterval;
+        private Integer maxBytes;
+    }
+}
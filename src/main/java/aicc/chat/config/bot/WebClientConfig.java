@@ -3,6 +3,7 @@ package aicc.chat.config.bot;
 import java.time.Duration;
 import java.util.concurrent.TimeUnit;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
@@ -34,9 +35,21 @@ public class WebClientConfig {
     // AI 호출 전용 WebClient(커넥션 풀/타임아웃 설정 포함) 생성
     public WebClient chatWebClient(WebClient.Builder builder) {
         log.info("▼ chatWebClient");
-        ConnectionProvider connectionProvider = ConnectionProvider.builder("chat-connection-pool")
-            .maxConnections(MAX_CONNECTIONS)
-            .pendingAcquireMaxCount(PENDING_ACQUIRE_MAX_COUNT)
+        return buildWebClient(builder, "chat-connection-pool", MAX_CONNECTIONS, PENDING_ACQUIRE_MAX_COUNT);
+    }
+
+    @Bean
+    // 상담 분석 API 전용 WebClient - 커넥션 풀을 분리하여 분석 배치가 실시간 상담 호출의 커넥션을 차지하지 않도록 함
+    public WebClient analysisWebClient(WebClient.Builder builder,
+            @Value("${app.ai-bot.analysis.max-connections:20}") int maxConnections) {
+        log.info("▼ analysisWebClient. maxConnections:{}", maxConnections);
+        return buildWebClient(builder, "analysis-connection-pool", maxConnections, PENDING_ACQUIRE_MAX_COUNT);
+    }
+
+    private WebClient buildWebClient(WebClient.Builder builder, String poolName, int maxConnections, int pendingAcquireMaxCount) {
+        ConnectionProvider connectionProvider = ConnectionProvider.builder(poolName)
+            .maxConnections(maxConnections)
+            .pendingAcquireMaxCount(pendingAcquireMaxCount)
             .maxIdleTime(MAX_IDLE_TIME)
             .maxLifeTime(MAX_LIFE_TIME)
             .evictInBackground(Duration.ofSeconds(30))
@@ -55,7 +68,7 @@ public class WebClientConfig {
             .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(MAX_IN_MEMORY_SIZE))
             .build();
 
-        return builder
+        return builder.clone()
             .clientConnector(new ReactorClientHttpConnector(httpClient))
             .exchangeStrategies(exchangeStrategies)
             .build();
@@ -0,0 +1,91 @@
+package aicc.chat.config.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 읽기 전용 복제본(replica) 라우팅 DataSource 설정
+ * app.datasource.replica.enabled=true 인 경우에만 적용되며, 꺼져 있으면 기존 spring.datasource 단일 풀을 그대로 사용한다.
+ *
+ * 빈 구성:
+ *  - primaryDataSource         : spring.datasource(.hikari) 설정의 쓰기용 풀
+ *  - replicaRoutingDataSource  : readOnly 트랜잭션을 replica 풀로 보내는 라우터
+ *  - dataSource (@Primary)     : 라우터를 감싼 LazyConnectionDataSourceProxy (MyBatis/트랜잭션 매니저가 사용)
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(ReplicaDataSourceProperties.class)
+@ConditionalOnProperty(prefix = "app.datasource.replica", name = "enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    // 쓰기용 primary 풀 (spring.datasource.hikari.* 설정 적용)
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        log.info("▼ primaryDataSource. url:{}", dataSourceProperties.getUrl());
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean(destroyMethod = "close")
+    // replica 풀 생성 및 라우팅 DataSource 구성
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            @Qualifier("primaryDataSource") DataSource primaryDataSource,
+            DataSourceProperties dataSourceProperties,
+            ReplicaDataSourceProperties replicaProperties) {
+        List<ReplicaDataSourceProperties.Node> nodes = replicaProperties.getNodes();
+        log.info("▼ replicaRoutingDataSource. replicas:{}, maxLag:{}ms", nodes.size(), replicaProperties.getMaxLag());
+        if (nodes.isEmpty()) {
+            log.warn("app.datasource.replica.enabled=true but no nodes configured - all queries go to primary");
+        }
+
+        Map<String, HikariDataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            ReplicaDataSourceProperties.Node node = nodes.get(i);
+            String key = "replica-" + i;
+
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName(key);
+            replica.setDriverClassName(dataSourceProperties.determineDriverClassName());
+            replica.setJdbcUrl(node.getUrl());
+            replica.setUsername(StringUtils.hasText(node.getUsername()) ? node.getUsername() : dataSourceProperties.determineUsername());
+            replica.setPassword(StringUtils.hasText(node.getPassword()) ? node.getPassword() : dataSourceProperties.determinePassword());
+            replica.setMaximumPoolSize(node.getMaximumPoolSize());
+            replica.setMinimumIdle(node.getMinimumIdle());
+            replica.setConnectionTimeout(node.getConnectionTimeout());
+            replica.setReadOnly(true);
+            // replica가 내려가 있어도 애플리케이션 기동은 계속 (지연 점검에서 제외됨)
+            replica.setInitializationFailTimeout(-1);
+            replicas.put(key, replica);
+            log.info("Replica pool configured: {} -> {}", key, node.getUrl());
+        }
+
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, replicaProperties.getMaxLag());
+    }
+
+    @Bean
+    @Primary
+    // 실제 SQL 실행 시점까지 커넥션 획득을 미뤄 readOnly 여부가 결정된 뒤 라우팅되도록 함
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        log.info("▼ dataSource (LazyConnectionDataSourceProxy -> ReplicaRoutingDataSource)");
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
@@ -0,0 +1,36 @@
+package aicc.chat.config.datasource;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 읽기 전용 복제본(replica) DataSource 설정 (app.datasource.replica.*)
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.datasource.replica")
+public class ReplicaDataSourceProperties {
+
+    private boolean enabled = false;
+
+    private long maxLag = 5000; // 허용 복제 지연 (밀리초). 초과한 복제본은 primary로 대체
+
+    private long lagCheckInterval = 2000; // 복제 지연 점검 주기 (밀리초)
+
+    private List<Node> nodes = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Node {
+        private String url;
+        private String username; // 비어 있으면 spring.datasource.username 사용
+        private String password; // 비어 있으면 spring.datasource.password 사용
+        private int maximumPoolSize = 10;
+        private int minimumIdle = 2;
+        private long connectionTimeout = 3000;
+    }
+}
@@ -0,0 +1,116 @@
+package aicc.chat.config.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 트랜잭션 성격에 따라 primary / replica 를 선택하는 라우팅 DataSource
+ *
+ *  - readOnly 트랜잭션 : 복제 지연이 max-lag 이내인 replica 중 라운드로빈, 없으면 primary
+ *  - 그 외(쓰기, 트랜잭션 없음) : primary
+ *
+ * 트랜잭션 시작 시점에는 readOnly 여부가 아직 설정되지 않으므로
+ * 반드시 LazyConnectionDataSourceProxy로 감싸서 실제 SQL 실행 시점에 커넥션을 고르도록 해야 한다.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY_KEY = "primary";
+
+    private static final String LAG_SQL =
+            "SELECT CASE WHEN NOT pg_is_in_recovery() THEN 0"
+            + " WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0"
+            + " ELSE COALESCE(EXTRACT(EPOCH FROM (now() - pg_last_xact_replay_timestamp())) * 1000, 0) END";
+    private static final int LAG_QUERY_TIMEOUT_SECONDS = 2;
+
+    private final Map<String, HikariDataSource> replicas; // key: replica-0, replica-1 ...
+    private final long maxLag;
+    private final AtomicInteger roundRobin = new AtomicInteger();
+
+    // 점검 결과 사용 가능한 replica 키 (첫 점검 전에는 비어 있어 primary 사용)
+    private volatile List<String> healthyReplicas = List.of();
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, HikariDataSource> replicas, long maxLag) {
+        this.replicas = new LinkedHashMap<>(replicas);
+        this.maxLag = maxLag;
+
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY_KEY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY_KEY;
+        }
+        List<String> healthy = healthyReplicas;
+        if (healthy.isEmpty()) {
+            return PRIMARY_KEY;
+        }
+        return healthy.get(Math.floorMod(roundRobin.getAndIncrement(), healthy.size()));
+    }
+
+    /**
+     * 각 replica의 복제 지연을 조회하여 사용 가능한 목록 갱신
+     * (연결 실패, 지연 초과 replica는 다음 점검까지 제외)
+     */
+    @Scheduled(fixedDelayString = "${app.datasource.replica.lag-check-interval:2000}")
+    public void refreshReplicaHealth() {
+        List<String> healthy = new ArrayList<>(replicas.size());
+        for (Map.Entry<String, HikariDataSource> entry : replicas.entrySet()) {
+            long lag = measureLag(entry.getKey(), entry.getValue());
+            if (lag >= 0 && lag <= maxLag) {
+                healthy.add(entry.getKey());
+            } else if (lag > maxLag) {
+                log.warn("Replica lag exceeded: {} lag={}ms (max={}ms)", entry.getKey(), lag, maxLag);
+            }
+        }
+        if (!healthy.equals(healthyReplicas)) {
+            log.info("▼ healthy replicas changed: {} -> {}", healthyReplicas, healthy);
+        }
+        healthyReplicas = List.copyOf(healthy);
+    }
+
+    public List<String> getHealthyReplicas() {
+        return healthyReplicas;
+    }
+
+    // 복제 지연(밀리초), 조회 실패 시 -1
+    private long measureLag(String key, DataSource replica) {
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(LAG_QUERY_TIMEOUT_SECONDS);
+            try (ResultSet rs = statement.executeQuery(LAG_SQL)) {
+                return rs.next() ? rs.getLong(1) : -1;
+            }
+        } catch (Exception e) {
+            log.warn("Replica lag check failed: {} ({})", key, e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * replica 커넥션 풀 종료 (primary 풀은 별도 빈으로 관리)
+     */
+    public void close() {
+        for (HikariDataSource replica : replicas.values()) {
+            replica.close();
+        }
+    }
+}
@@ -3,6 +3,7 @@ package aicc.chat.config.mode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import aicc.chat.domain.ChatMessage;
+import aicc.chat.service.TokenService;
 import aicc.chat.service.inteface.MessageBroker;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -17,6 +18,7 @@ import org.springframework.data.redis.listener.adapter.MessageListenerAdapter;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Map;
 
 @Slf4j
 @Configuration
@@ -24,9 +26,15 @@ import java.nio.charset.StandardCharsets;
 @ConditionalOnProperty(name = "app.system-mode", havingValue = "REDIS_ONLY")
 public class RedisOnlyConfig {
 
+    // 특정 상담원에게 보내는 메시지 채널 (각 서버가 자기 서버에 연결된 해당 상담원 세션의 /user/queue/agent 로 전달)
+    public static final String AGENT_CHANNEL = "chat.agent.topic";
+    // 상담원 개인 대기열 (상담원은 /user/queue/agent 를 구독, 연결 시 인증된 상담원 본인에게만 전달됨)
+    public static final String AGENT_QUEUE = "/queue/agent";
+
     private final StringRedisTemplate redisTemplate;
     private final SimpMessagingTemplate messagingTemplate;
     private final ObjectMapper objectMapper;
+    private final TokenService tokenService;
 
     @Bean
     // Redis pub 채널로 메시지를 발행하는 MessageBroker 구현
@@ -47,9 +55,35 @@ public class RedisOnlyConfig {
         RedisMessageListenerContainer container = new RedisMessageListenerContainer();
         container.setConnectionFactory(redisTemplate.getConnectionFactory());
         container.addMessageListener(adapter, new ChannelTopic("chat.topic"));
+        container.addMessageListener(agentMessageListener(), new ChannelTopic(AGENT_CHANNEL));
+        container.addMessageListener(tokenRevokedListener(), new ChannelTopic(TokenService.REVOKED_CHANNEL));
         return container;
     }
 
+    // Redis 상담원 메시지({"userId": ..., "message": ChatMessage})를 해당 상담원의 개인 대기열로 중계
+    private MessageListener agentMessageListener() {
+        return (message, pattern) -> {
+            try {
+                Map<?, ?> body = objectMapper.readValue(message.getBody(), Map.class);
+                ChatMessage chatMessage = objectMapper.convertValue(body.get("message"), ChatMessage.class);
+                messagingTemplate.convertAndSendToUser(String.valueOf(body.get("userId")), AGENT_QUEUE, chatMessage);
+            } catch (Exception e) {
+                log.error("Redis Agent Subscribe Error", e);
+            }
+        };
+    }
+
+    // 다른 서버에서 폐기(로그아웃)한 토큰을 이 서버의 토큰 보관에서 제거
+    private MessageListener tokenRevokedListener() {
+        return (message, pattern) -> {
+            try {
+                tokenService.onTokenRevoked(new String(message.getBody(), StandardCharsets.UTF_8));
+            } catch (Exception e) {
+                log.error("Redis Token Revoke Subscribe Error", e);
+            }
+        };
+    }
+
     @Bean
     // Redis 메시지를 STOMP 토픽으로 중계하는 리스너 어댑터
     public MessageListenerAdapter listenerAdapter() {
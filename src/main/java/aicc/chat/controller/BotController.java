@@ -0,0 +1,69 @@
+package aicc.chat.controller;
+
+import aicc.bot.michat.MiChatAnswerCache;
+import aicc.chat.domain.UserInfo;
+import aicc.chat.domain.UserRole;
+import aicc.chat.service.TokenService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 챗봇 운영 API 컨트롤러
+ */
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/bot")
+public class BotController {
+
+    private final MiChatAnswerCache answerCache;
+    private final TokenService tokenService;
+
+    /**
+     * 회사별 챗봇 답변 캐시 삭제 (FAQ/지식베이스 변경 후 호출)
+     *
+     * DELETE /api/bot/answer-cache/{companyId}
+     */
+    @DeleteMapping("/answer-cache/{companyId}")
+    public ResponseEntity<Map<String, Object>> invalidateAnswerCache(
+            @RequestHeader(value = "Authorization", required = false) String token,
+            @PathVariable String companyId) {
+        log.info("▶ invalidateAnswerCache S. companyId:{}", companyId);
+        ResponseEntity<Map<String, Object>> ret;
+
+        do {
+            if (token == null || !token.startsWith("Bearer ")) {
+                log.warn("token == null || !token.startsWith(\"Bearer \")");
+                ret = ResponseEntity.status(401).build();
+                break;
+            }
+            UserInfo userInfo = tokenService.validateToken(token.substring(7));
+            if (userInfo == null || userInfo.getRole() != UserRole.AGENT) {
+                log.warn("userInfo == null || userInfo.getRole() != UserRole.AGENT");
+                ret = ResponseEntity.status(403).build();
+                break;
+            }
+            // 상담원 본인 회사의 캐시만 삭제 가능
+            if (userInfo.getCompanyId() == null || !userInfo.getCompanyId().equals(companyId)) {
+                log.warn("Answer cache invalidation denied: userId={}, userCompanyId={}, companyId={}",
+                        userInfo.getUserId(), userInfo.getCompanyId(), companyId);
+                ret = ResponseEntity.status(403).build();
+                break;
+            }
+
+            long deleted = answerCache.invalidateCompany(companyId);
+            Map<String, Object> result = new HashMap<>();
+            result.put("companyId", companyId);
+            result.put("deleted", deleted);
+            ret = ResponseEntity.ok(result);
+        } while (false);
+
+        log.info("◀ invalidateAnswerCache E. companyId:{}", companyId);
+        return ret;
+    }
+}
@@ -1,16 +1,22 @@
 package aicc.chat.controller;
 
+import aicc.chat.config.AgentCapacityProperties;
 import aicc.chat.domain.ChatMessage;
 import aicc.chat.domain.ChatRoom;
 import aicc.chat.domain.UserInfo;
 import aicc.chat.domain.UserRole;
 import aicc.chat.domain.persistence.ChatHistory;
+import aicc.chat.service.AgentAssignmentDispatcher;
 import aicc.chat.service.AgentAuthService;
+import aicc.chat.service.AgentPresenceRegistry;
+import aicc.chat.service.BotStreamRegistry;
 import aicc.chat.service.TokenService;
 import aicc.chat.service.inteface.ChatHistoryService;
 import aicc.chat.service.inteface.ChatRoutingStrategy;
 import aicc.chat.service.inteface.ChatSessionService;
 import aicc.chat.service.inteface.RoomRepository;
+import aicc.chat.websocket.WebSocketAttributes;
+import aicc.chat.websocket.domain.WebSocketSessionContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -36,9 +42,10 @@ public class ChatAgentController {
     private final aicc.chat.service.inteface.MessageBroker messageBroker;
     private final ChatSessionService chatSessionService;
     private final ChatHistoryService chatHistoryService;
-    private final org.springframework.data.redis.core.StringRedisTemplate redisTemplate;
-
-    private static final String ONLINE_AGENTS_KEY = "chat:online:agents";
+    private final BotStreamRegistry botStreamRegistry;
+    private final AgentPresenceRegistry agentPresenceRegistry;
+    private final AgentCapacityProperties agentCapacityProperties;
+    private final AgentAssignmentDispatcher agentAssignmentDispatcher;
 
 
     @PostMapping("/login")
@@ -53,6 +60,7 @@ public class ChatAgentController {
             log.warn("userInfo == null");
             ret = ResponseEntity.status(401).build();
         } else {
+            agentAssignmentDispatcher.wakeUp(); // 대기 중인 상담 자동 배정
             ret = ResponseEntity.ok(userInfo);
         }
         log.info("◀ 상담원 로그인 요청을 인증 서비스로 전달하고 토큰/프로필 반환:login 완료./api/agent > /login E");
@@ -90,6 +98,28 @@ public class ChatAgentController {
 
 
 
+    @PostMapping("/logout")
+    // 상담원 로그아웃: 토큰을 폐기하고 오프라인으로 변경 (이후 요청/WebSocket 연결 거부, 자동 배정 제외)
+    public ResponseEntity<Void> logout(@RequestHeader(value = "Authorization", required = false) String token) {
+        log.info("▶ 상담원 로그아웃:logout 시작./api/agent > /logout S");
+        if (token == null || !token.startsWith("Bearer ")) {
+            log.warn("token == null || !token.startsWith(\"Bearer \"))");
+            log.info("◀ 상담원 로그아웃:logout 완료./api/agent > /logout E");
+            return ResponseEntity.status(401).build();
+        }
+        String actualToken = token.substring(7);
+        UserInfo userInfo = tokenService.validateToken(actualToken);
+        if (userInfo == null) {
+            log.warn("userInfo == null");
+            log.info("◀ 상담원 로그아웃:logout 완료./api/agent > /logout E");
+            return ResponseEntity.status(401).build();
+        }
+        userInfo.setToken(actualToken);
+        agentAuthService.logout(userInfo);
+        log.info("◀ 상담원 로그아웃:logout 완료./api/agent > /logout E");
+        return ResponseEntity.ok().build();
+    }
+
     @GetMapping("/rooms")
     // 상담원에게 전체 상담방 목록을 반환
     public ResponseEntity<List<ChatRoom>> findAllRooms() {
@@ -101,20 +131,13 @@ public class ChatAgentController {
     }
 
     @GetMapping("/availability")
-    // 상담원 가용성 확인: 로그인한 상담원이 있고 3개 미만의 상담을 하고 있는지 확인
+    // 상담원 가용성 확인: 로그인한 상담원이 있고 동시 상담 한도 미만의 상담을 하고 있는지 확인
     public ResponseEntity<Map<String, Object>> checkAgentAvailability() {
         log.info("▶ checkAgentAvailability S. /api/agent > /availability S");
 
-        // 1. 온라인 상담원 목록 조회
-        java.util.Set<String> onlineAgentKeys = redisTemplate.keys(ONLINE_AGENTS_KEY + ":*");
-        java.util.Set<String> onlineAgentIds = new java.util.HashSet<>();
-
-        if (onlineAgentKeys != null) {
-            for (String key : onlineAgentKeys) {
-                String agentId = key.substring((ONLINE_AGENTS_KEY + ":").length());
-                onlineAgentIds.add(agentId);
-            }
-        }
+        // 1. 온라인 상담원 목록 조회 (상담원 ID -> 이름)
+        Map<String, String> onlineAgents = agentPresenceRegistry.onlineAgents();
+        java.util.Set<String> onlineAgentIds = onlineAgents.keySet();
 
         log.info("Online agents: {}", onlineAgentIds);
 
@@ -129,25 +152,15 @@ public class ChatAgentController {
             ));
         }
 
-        // 2. 상담원이 배정된 방 개수 세기
-        List<ChatRoom> allRooms = roomRepository.findAllRooms();
-        java.util.Map<String, Long> agentRoomCount = allRooms.stream()
-            .filter(room -> "AGENT".equals(room.getStatus()) && room.getAssignedAgent() != null)
-            .collect(java.util.stream.Collectors.groupingBy(
-                ChatRoom::getAssignedAgent,
-                java.util.stream.Collectors.counting()
-            ));
+        // 2. 상담원 ID 별 진행 중인 상담 수 (배정/해제/종료 시 갱신되는 카운터)
+        java.util.Map<String, Long> agentRoomCount = roomRepository.getAgentRoomCounts();
 
-        // 3. 온라인 상담원 중 3개 미만의 상담을 하고 있는 상담원이 있는지 확인
+        // 3. 온라인 상담원 중 동시 상담 한도 미만의 상담을 하고 있는 상담원이 있는지 확인
         boolean hasAvailableAgent = onlineAgentIds.stream()
             .anyMatch(agentId -> {
-                // 해당 상담원의 userName 조회 (Redis에서)
-                String agentName = redisTemplate.opsForValue().get(ONLINE_AGENTS_KEY + ":" + agentId);
-                if (agentName == null) return false;
-
-                // 현재 상담 개수 확인
-                long currentChats = agentRoomCount.getOrDefault(agentName, 0L);
-                return currentChats < 3;
+                // 현재 상담 개수 확인 (한도와 같은 상담원 ID 기준)
+                long currentChats = agentRoomCount.getOrDefault(agentId, 0L);
+                return currentChats < agentCapacityProperties.maxChatsFor(agentId);
             });
 
         log.info("Agent availability check - Online: {}, Available: {}, Room count: {}",
@@ -162,6 +175,58 @@ public class ChatAgentController {
         ));
     }
 
+    @GetMapping("/load")
+    // 온라인 상담원별 진행 중인 상담 수와 한도 조회
+    public ResponseEntity<Map<String, Object>> getAgentLoad(
+            @RequestHeader(value = "Authorization", required = false) String token) {
+        log.info("▶ getAgentLoad S. /api/agent > /load S");
+        ResponseEntity<Map<String, Object>> ret;
+
+        do {
+            if (token == null || !token.startsWith("Bearer ")) {
+                log.warn("token == null || !token.startsWith(\"Bearer \")");
+                ret = ResponseEntity.status(401).build();
+                break;
+            }
+            UserInfo userInfo = tokenService.validateToken(token.substring(7));
+            if (userInfo == null) {
+                log.warn("userInfo == null");
+                ret = ResponseEntity.status(401).build();
+                break;
+            }
+            if (userInfo.getRole() != UserRole.AGENT) {
+                log.warn("userInfo.getRole() != UserRole.AGENT");
+                ret = ResponseEntity.status(403).build();
+                break;
+            }
+
+            Map<String, String> onlineAgents = agentPresenceRegistry.onlineAgents();
+            Map<String, Long> agentRoomCount = roomRepository.getAgentRoomCounts();
+
+            List<Map<String, Object>> agents = new java.util.ArrayList<>(onlineAgents.size());
+            onlineAgents.forEach((agentId, agentName) -> {
+                long activeChats = agentRoomCount.getOrDefault(agentId, 0L);
+                int maxChats = agentCapacityProperties.maxChatsFor(agentId);
+                Map<String, Object> agent = new java.util.HashMap<>();
+                agent.put("userId", agentId);
+                agent.put("userName", agentName);
+                agent.put("activeChats", activeChats);
+                agent.put("maxChats", maxChats);
+                agent.put("available", activeChats < maxChats);
+                agents.add(agent);
+            });
+
+            Map<String, Object> result = new java.util.HashMap<>();
+            result.put("agents", agents);
+            result.put("onlineAgentCount", onlineAgents.size());
+            result.put("agentRoomCount", agentRoomCount);
+            ret = ResponseEntity.ok(result);
+        } while (false);
+
+        log.info("◀ getAgentLoad E. /api/agent > /load E");
+        return ret;
+    }
+
     @GetMapping("/rooms/{roomId}")
     // 특정 상담방 상세 정보를 조회
     public ResponseEntity<ChatRoom> findRoomById(
@@ -201,8 +266,9 @@ public class ChatAgentController {
             return ResponseEntity.status(403).body("상담원만 배정 가능합니다.");
         }
 
-        boolean success = roomRepository.assignAgent(roomId, userInfo.getUserName());
+        boolean success = roomRepository.assignAgent(roomId, userInfo.getUserId(), userInfo.getUserName());
         if (success) {
+            botStreamRegistry.cancel(roomId); // 상담원 배정 시 생성 중인 챗봇 응답 중단
             LocalDateTime now = LocalDateTime.now(); // 서버 타임스탬프
 
             ChatMessage notice = ChatMessage.builder()
@@ -248,8 +314,9 @@ public class ChatAgentController {
             if (force) {
                 log.info("Force assigning agent {} to room {} (current: {})", userInfo.getUserName(), roomId, currentAgent);
                 // 강제 배정: 기존 배정 상담원 교체
-                roomRepository.setAssignedAgent(roomId, userInfo.getUserName());
+                roomRepository.setAssignedAgent(roomId, userInfo.getUserId(), userInfo.getUserName());
                 roomRepository.setRoutingMode(roomId, "AGENT");
+                botStreamRegistry.cancel(roomId); // 상담원이 개입했으므로 생성 중인 챗봇 응답 중단
                 roomRepository.updateLastActivity(roomId);
 
                 LocalDateTime now = LocalDateTime.now(); // 서버 타임스탬프
@@ -327,6 +394,8 @@ public class ChatAgentController {
             // 이미 종료된 상태에서 한 번 더 요청하면 실제 삭제 수행
             if ("CLOSED".equals(currentMode)) {
                 log.info("Permanently deleting closed room: {}", roomId);
+                // 상담 종료 기록 (상담 분석 대기열에 추가됨)
+                chatSessionService.endSession(roomId);
                 roomRepository.deleteRoom(roomId);
             } else {
                 // 상담원이 상담 종료 시 BOT 모드로 복귀 (CLOSED가 아닌 BOT으로 변경)
@@ -348,10 +417,13 @@ public class ChatAgentController {
                 roomRepository.setRoutingMode(roomId, "BOT");
 
                 // 상담원 배정 해제 (assignedAgent 키 삭제)
-                roomRepository.setAssignedAgent(roomId, null); // null로 설정하여 키 삭제
+                roomRepository.setAssignedAgent(roomId, null, null); // null로 설정하여 키 삭제
                 // 상담원 멤버 정보 제거 (Redis 멤버 목록 정리)
                 roomRepository.removeMember(roomId, userInfo.getUserId());
 
+                // 상담 수가 줄었으므로 대기 중인 상담 자동 배정
+                agentAssignmentDispatcher.wakeUp();
+
                 // PostgreSQL에 상태 업데이트
                 chatSessionService.updateSessionStatus(roomId, "BOT");
 
@@ -381,16 +453,16 @@ public class ChatAgentController {
     public void onAgentMessage(ChatMessage message, SimpMessageHeaderAccessor headerAccessor) {
 
         log.info("▶ onAgentMessage S");
-        Map<String, Object> sessionAttributes = headerAccessor.getSessionAttributes();
+        WebSocketSessionContext context = WebSocketAttributes.getSessionContext(headerAccessor);
         String userId = null;
 
         // 서버에서 메시지 수신 시간 설정
         message.setTimestamp(LocalDateTime.now());
 
-        if (sessionAttributes != null) {
-            String userName = (String) sessionAttributes.get("userName");
-            String companyId = (String) sessionAttributes.get("companyId");
-            userId = (String) sessionAttributes.get("userId");
+        if (context != null) {
+            String userName = context.getUserName();
+            String companyId = context.getCompanyId();
+            userId = context.getUserId();
 
             // 상담원 전용 로직: 클라이언트가 보낸 roomId 유지 (여러 방 관리 가능)
             // 이름과 역할만 세션 정보로 강제
@@ -8,6 +8,7 @@ import aicc.chat.domain.UserRole;
 import aicc.chat.domain.persistence.ChatHistory;
 import aicc.chat.domain.persistence.ChatSession;
 import aicc.chat.service.CustomerAuthService;
+import aicc.chat.service.RecentMessageCache;
 import aicc.chat.service.TokenService;
 import aicc.chat.service.inteface.ChatHistoryService;
 import aicc.chat.service.inteface.ChatRoutingStrategy;
@@ -15,17 +16,15 @@ import aicc.chat.service.inteface.ChatSessionService;
 import aicc.chat.service.inteface.MessageBroker;
 import aicc.chat.service.inteface.RoomRepository;
 import aicc.chat.websocket.WebSocketAttributes;
-import aicc.chat.websocket.domain.WebSocketSessionAttribute;
+import aicc.chat.websocket.domain.WebSocketSessionContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
-import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
-import java.util.Map;
 import java.util.UUID;
 
 @RestController
@@ -42,6 +41,7 @@ public class ChatCustomerController {
     private final ChatHistoryService chatHistoryService;
     private final MessageBroker messageBroker;
     private final CustomerAuthService customerAuthService;
+    private final RecentMessageCache recentMessageCache;
 
     @PostMapping("/{companyId}/login")
     // 회사별 고객 로그인 처리
@@ -74,6 +74,19 @@ public class ChatCustomerController {
     }
 
 
+    @PostMapping("/logout")
+    // 고객 로그아웃: 토큰을 폐기해 이후 요청/WebSocket 연결을 거부
+    public ResponseEntity<Void> logout(@RequestHeader(value = "Authorization", required = false) String token) {
+        log.info("▶ 고객 로그아웃:logout 시작");
+        if (token == null || !token.startsWith("Bearer ")) {
+            log.info("◀ 고객 로그아웃:logout 완료 ");
+            return ResponseEntity.status(401).build();
+        }
+        tokenService.revokeToken(token.substring(7));
+        log.info("◀ 고객 로그아웃:logout 완료 ");
+        return ResponseEntity.ok().build();
+    }
+
     @PostMapping("/chatbot")
     // 고객의 챗봇 상담방을 생성하고 세션/목록을 갱신
     public ResponseEntity<ChatRoom> createRoomWithBot(@RequestHeader(value = "Authorization", required = false) String token) {
@@ -98,6 +111,7 @@ public class ChatCustomerController {
             String newRoomId = "room-" + UUID.randomUUID().toString().substring(0, 8);
             ChatRoom room = roomRepository.createRoom(newRoomId, custInfo.getUserId()); // 룸 생성(Redis에 키 및 값들 넣음)
             roomRepository.addMember(newRoomId, custInfo.getUserId()); // 고객을 멤버로 추가
+            recentMessageCache.markComplete(newRoomId); // 새 방은 이력이 없으므로 최근 메시지 조회 시 DB를 거치지 않음
 
             // PostgreSQL에 세션 정보 저장
             try {
@@ -135,10 +149,9 @@ public class ChatCustomerController {
         log.info("▶ 고객 메시지를 받아 이력 저장 후 라우팅:onCustomerMessage 시작");
         String sessionId = headerAccessor.getSessionId();
         log.info("sessionId:{}, MessageType:{}", sessionId, message.getType().toString());
-    	WebSocketSessionAttribute attr = WebSocketAttributes.getSimpSessionAttributes((StompHeaderAccessor)headerAccessor);
-        log.info("attr:{}", attr);
+        WebSocketSessionContext context = WebSocketAttributes.getSessionContext(headerAccessor);
+        log.info("context:{}", context);
 
-        Map<String, Object> sessionAttributes = headerAccessor.getSessionAttributes();
         String userId = null;
 
         // 서버에서 메시지 수신 시간 설정
@@ -146,11 +159,11 @@ public class ChatCustomerController {
 // 세션id
 // userId
 // roomId
-        if (sessionAttributes != null) {
-            String roomId = (String) sessionAttributes.get("roomId");
-            String userName = (String) sessionAttributes.get("userName");
-            String companyId = (String) sessionAttributes.get("companyId");
-            userId = (String) sessionAttributes.get("userId");
+        if (context != null) {
+            String roomId = context.getRoomId();
+            String userName = context.getUserName();
+            String companyId = context.getCompanyId();
+            userId = context.getUserId();
 
             // 고객 전용 로직: 세션의 roomId와 userName으로 강제 고정
             if (roomId != null) message.setRoomId(roomId);
@@ -0,0 +1,317 @@
+package aicc.chat.controller;
+
+import aicc.chat.domain.UserInfo;
+import aicc.chat.domain.UserRole;
+import aicc.chat.domain.persistence.ChatHistory;
+import aicc.chat.domain.persistence.ChatSession;
+import aicc.chat.service.TokenService;
+import aicc.chat.service.inteface.ChatHistoryService;
+import aicc.chat.service.inteface.ChatSessionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 채팅 이력 조회/내보내기 API 컨트롤러
+ */
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/history")
+public class ChatHistoryController {
+
+    private final ChatHistoryService chatHistoryService;
+    private final ChatSessionService chatSessionService;
+    private final TokenService tokenService;
+    private final ObjectMapper objectMapper;
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final String CSV_HEADER =
+            "id,room_id,sender_id,sender_name,sender_role,message,message_type,company_id,created_at,updated_at";
+
+    /**
+     * 채팅방 메시지 조회 (재접속 시 화면 복원 / 이전 메시지 더보기)
+     * beforeId가 없으면 최근 limit 건을 Redis 최근 메시지 캐시에서 우선 조회하고,
+     * beforeId가 있으면 그 이전 페이지를 DB에서 조회한다.
+     * 고객은 본인 방만, 상담원은 같은 회사의 방만 조회할 수 있다.
+     *
+     * GET /api/history/rooms/{roomId}?limit=50
+     * GET /api/history/rooms/{roomId}?limit=50&beforeId=12345
+     */
+    @GetMapping("/rooms/{roomId}")
+    public ResponseEntity<Map<String, Object>> getRoomHistory(
+            @RequestHeader(value = "Authorization", required = false) String token,
+            @PathVariable String roomId,
+            @RequestParam(value = "limit", required = false, defaultValue = "50") int limit,
+            @RequestParam(value = "beforeId", required = false) Long beforeId) {
+        log.info("▶ getRoomHistory S. roomId:{}, limit:{}, beforeId:{}", roomId, limit, beforeId);
+        ResponseEntity<Map<String, Object>> ret;
+
+        do {
+            if (token == null || !token.startsWith("Bearer ")) {
+                log.warn("token == null || !token.startsWith(\"Bearer \")");
+                ret = ResponseEntity.status(401).build();
+                break;
+            }
+            UserInfo userInfo = tokenService.validateToken(token.substring(7));
+            if (userInfo == null) {
+                log.warn("userInfo == null");
+                ret = ResponseEntity.status(401).build();
+                break;
+            }
+            if (!canReadRoom(userInfo, roomId)) {
+                log.warn("Room history access denied: userId={}, role={}, roomId={}", userInfo.getUserId(), userInfo.getRole(), roomId);
+                ret = ResponseEntity.status(403).build();
+                break;
+            }
+
+            int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+            List<ChatHistory> messages = beforeId == null
+                    ? chatHistoryService.getRecentChatHistoryByRoomId(roomId, pageSize)
+                    : chatHistoryService.getChatHistoryPageByRoomId(roomId, beforeId, pageSize);
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("roomId", roomId);
+            result.put("messages", messages);
+            result.put("count", messages.size());
+            result.put("hasMore", messages.size() >= pageSize);
+            ret = ResponseEntity.ok(result);
+        } while (false);
+
+        log.info("◀ getRoomHistory E. roomId:{}", roomId);
+        return ret;
+    }
+
+    // 상담원은 같은 회사의 방, 고객은 본인이 시작한 방만 조회 가능
+    private boolean canReadRoom(UserInfo userInfo, String roomId) {
+        if (userInfo.getRole() != UserRole.AGENT && roomId.equals(userInfo.getRoomId())) {
+            return true;
+        }
+        ChatSession session = chatSessionService.getChatSessionByRoomId(roomId);
+        if (userInfo.getRole() == UserRole.AGENT) {
+            // 세션이 없거나 회사를 확인할 수 없으면 거부
+            return session != null && session.getCompanyId() != null
+                    && session.getCompanyId().equals(userInfo.getCompanyId());
+        }
+        return session != null && userInfo.getUserId() != null && userInfo.getUserId().equals(session.getCustomerId());
+    }
+
+    /**
+     * 회사별 채팅 이력 스트리밍 내보내기 (컴플라이언스용)
+     * Cursor로 읽은 행을 바로 응답 스트림에 기록하므로 기간이 길어도 메모리 사용량이 일정하다.
+     *
+     * GET /api/history/export?companyId=apt001&startTime=2026-01-01T00:00:00&endTime=2026-02-01T00:00:00&format=csv&gzip=true
+     */
+    @GetMapping("/export")
+    public void exportChatHistory(
+            @RequestHeader(value = "Authorization", required = false) String token,
+            @RequestParam String companyId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime,
+            @RequestParam(value = "format", required = false, defaultValue = "ndjson") String format,
+            @RequestParam(value = "gzip", required = false, defaultValue = "false") boolean gzip,
+            HttpServletResponse response) throws IOException {
+        log.info("▶ exportChatHistory S. companyId:{}, startTime:{}, endTime:{}, format:{}, gzip:{}",
+                companyId, startTime, endTime, format, gzip);
+
+        if (token == null || !token.startsWith("Bearer ")) {
+            log.warn("token == null || !token.startsWith(\"Bearer \")");
+            response.setStatus(401);
+            return;
+        }
+        UserInfo userInfo = tokenService.validateToken(token.substring(7));
+        if (userInfo == null || userInfo.getRole() != UserRole.AGENT) {
+            log.warn("userInfo == null || userInfo.getRole() != UserRole.AGENT");
+            response.setStatus(403);
+            return;
+        }
+        // 상담원 본인 회사의 이력만 내보내기 가능
+        if (userInfo.getCompanyId() == null || !userInfo.getCompanyId().equals(companyId)) {
+            log.warn("Chat history export denied: userId={}, userCompanyId={}, companyId={}",
+                    userInfo.getUserId(), userInfo.getCompanyId(), companyId);
+            response.setStatus(403);
+            return;
+        }
+
+        boolean csv = "csv".equalsIgnoreCase(format);
+        // 파일명에는 영문/숫자/-/_ 만 사용 (Content-Disposition 헤더 주입 방지)
+        String fileName = "chat-history-" + companyId.replaceAll("[^A-Za-z0-9_-]", "_")
+                + (csv ? ".csv" : ".ndjson") + (gzip ? ".gz" : "");
+
+        // 응답은 Cursor를 열고 첫 행을 읽은 뒤에 시작 (그 전의 실패는 5xx로 응답 가능)
+        ExportWriter export = new ExportWriter(response, csv, gzip, fileName);
+        long count;
+        try {
+            count = chatHistoryService.exportChatHistoryByCompanyIdAndTimeRange(companyId, startTime, endTime,
+                    chatHistory -> {
+                        try {
+                            export.write(chatHistory);
+                        } catch (IOException e) {
+                            // 클라이언트 연결 끊김 등: Cursor 순회를 중단시키기 위해 언체크 예외로 전파
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        } catch (RuntimeException e) {
+            if (!export.isStarted()) {
+                log.error("Chat history export failed before streaming: companyId={}", companyId, e);
+                response.setStatus(500);
+                return;
+            }
+            // 이미 응답이 전송 중 - 오류 표시 줄을 남기고 gzip 트레일러/청크 종료 없이 연결을 끊어
+            // 잘린 파일이 정상 파일처럼 받아지지 않도록 한다.
+            log.error("Chat history export aborted: companyId={}, exported={}", companyId, export.getCount(), e);
+            export.abort();
+            throw e;
+        }
+
+        export.finish();
+        log.info("◀ exportChatHistory E. companyId:{}, count:{}", companyId, count);
+    }
+
+    /**
+     * 내보내기 응답 기록 (첫 행을 받을 때 응답 헤더를 보내고 스트림을 연다)
+     */
+    private class ExportWriter {
+
+        private final HttpServletResponse response;
+        private final boolean csv;
+        private final boolean gzip;
+        private final String fileName;
+
+        private Writer writer;
+        private long count;
+
+        ExportWriter(HttpServletResponse response, boolean csv, boolean gzip, String fileName) {
+            this.response = response;
+            this.csv = csv;
+            this.gzip = gzip;
+            this.fileName = fileName;
+        }
+
+        boolean isStarted() {
+            return writer != null;
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        void write(ChatHistory chatHistory) throws IOException {
+            start();
+            if (csv) {
+                writeCsvRow(writer, chatHistory);
+            } else {
+                writer.write(objectMapper.writeValueAsString(chatHistory));
+                writer.write('\n');
+            }
+            count++;
+        }
+
+        // 정상 종료: 버퍼와 gzip 트레일러까지 기록 (0건이면 헤더만 있는 파일)
+        void finish() throws IOException {
+            start();
+            writer.close();
+        }
+
+        // 비정상 종료: 오류 표시 줄만 내보내고 스트림은 닫지 않음 (gzip 트레일러 미기록)
+        void abort() {
+            try {
+                if (csv) {
+                    writer.write("#EXPORT_ABORTED,exported=" + count + "\n");
+                } else {
+                    writer.write("{\"error\":\"EXPORT_ABORTED\",\"exported\":" + count + "}\n");
+                }
+                writer.flush();
+            } catch (IOException e) {
+                log.warn("Failed to write export abort marker: {}", e.getMessage());
+            }
+        }
+
+        private void start() throws IOException {
+            if (writer != null) {
+                return;
+            }
+            response.setStatus(200);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.setContentType(csv ? "text/csv" : "application/x-ndjson");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+
+            OutputStream out = response.getOutputStream();
+            if (gzip) {
+                // syncFlush: 중단 시 오류 표시 줄까지는 압축 해제 가능하도록
+                out = new GZIPOutputStream(out, WRITE_BUFFER_SIZE, true);
+            }
+            writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+            if (csv) {
+                writer.write('\uFEFF'); // 엑셀에서 한글이 깨지지 않도록 UTF-8 BOM 기록
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+            }
+        }
+    }
+
+    // ChatHistory 한 건을 CSV 한 줄로 기록
+    private void writeCsvRow(Writer writer, ChatHistory h) throws IOException {
+        writer.write(h.getId() != null ? h.getId().toString() : "");
+        writer.write(',');
+        writeCsvField(writer, h.getRoomId());
+        writer.write(',');
+        writeCsvField(writer, h.getSenderId());
+        writer.write(',');
+        writeCsvField(writer, h.getSenderName());
+        writer.write(',');
+        writeCsvField(writer, h.getSenderRole());
+        writer.write(',');
+        writeCsvField(writer, h.getMessage());
+        writer.write(',');
+        writeCsvField(writer, h.getMessageType());
+        writer.write(',');
+        writeCsvField(writer, h.getCompanyId());
+        writer.write(',');
+        writeCsvField(writer, h.getCreatedAt() != null ? h.getCreatedAt().toString() : null);
+        writer.write(',');
+        writeCsvField(writer, h.getUpdatedAt() != null ? h.getUpdatedAt().toString() : null);
+        writer.write('\n');
+    }
+
+    // RFC 4180 규칙에 따라 필요한 경우에만 따옴표로 감싸고 내부 따옴표는 두 번 기록
+    private void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+}
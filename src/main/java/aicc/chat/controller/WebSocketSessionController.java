@@ -25,6 +25,7 @@ public class WebSocketSessionController {
      * 모든 활성 세션 조회
      *
      * GET /api/session/all
+     * 세션 수가 많으면 응답이 커지므로 목록 화면 등은 /api/session/page를 사용
      */
     @GetMapping("/all")
     public ResponseEntity<Map<String, Object>> getAllSessions() {
@@ -41,6 +42,36 @@ public class WebSocketSessionController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * 활성 세션 목록 조회 (cursor 페이지 단위)
+     *
+     * GET /api/session/page?cursor=0&count=100&role=AGENT&node={nodeId}
+     * 응답의 cursor를 다음 요청에 넘겨 이어서 조회하며, cursor가 "0"이면 마지막 페이지이다.
+     * (SSCAN 특성상 페이지 크기는 count와 다를 수 있고, 조회 중 추가/삭제된 세션은 포함되지 않을 수 있음)
+     */
+    @GetMapping("/page")
+    public ResponseEntity<Map<String, Object>> getSessionPage(
+            @RequestParam(defaultValue = "0") String cursor,
+            @RequestParam(defaultValue = "100") int count,
+            @RequestParam(required = false) String role,
+            @RequestParam(required = false) String node) {
+        log.info("▶ 세션 목록 조회 요청 - cursor: {}, count: {}, role: {}, node: {}", cursor, count, role, node);
+
+        WebSocketSessionService.SessionPage page = webSocketSessionService.scanSessions(cursor, count,
+                role != null && !role.isBlank() ? role : null,
+                node != null && !node.isBlank() ? node : null);
+        long totalCount = webSocketSessionService.getTotalSessionCount();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("totalCount", totalCount);
+        response.put("cursor", page.cursor());
+        response.put("hasMore", !"0".equals(page.cursor()));
+        response.put("sessions", page.sessions());
+
+        log.info("◀ 세션 목록: {} 개 (전체 {} 개), next cursor: {}", page.sessions().size(), totalCount, page.cursor());
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * 세션ID로 사용자 정보 조회
      *
@@ -139,10 +170,12 @@ public class WebSocketSessionController {
     public ResponseEntity<Map<String, Object>> getSessionStats() {
         log.info("▼ 세션 통계 조회 요청");
 
-        long totalSessions = webSocketSessionService.getTotalSessionCount();
+        WebSocketSessionService.SessionStats stats = webSocketSessionService.getSessionStats();
 
         Map<String, Object> response = new HashMap<>();
-        response.put("totalActiveSessions", totalSessions);
+        response.put("totalActiveSessions", stats.total());
+        response.put("sessionsByRole", stats.byRole());
+        response.put("sessionsByNode", stats.byNode());
         response.put("timestamp", System.currentTimeMillis());
 
         return ResponseEntity.ok(response);
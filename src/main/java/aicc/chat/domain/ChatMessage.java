@@ -16,4 +16,5 @@ public class ChatMessage {
     private MessageType type;
     private String companyId;
     private LocalDateTime timestamp; // 메시지 발행 시간 (서버에서 설정)
+    private String messageId; // 스트리밍 메시지 식별자 (STREAM_START/DELTA/END 공통)
 }
@@ -9,5 +9,12 @@ public enum MessageType {
     CANCEL_HANDOFF, // 상담원 연결 요청 취소 추가
     INTERVENE, // 상담원 개입 알림
     CUSTOMER_DISCONNECTED, // 고객 연결 해제 알림 (상담원에게 전송)
-    CUSTOMER_LEFT // 고객 퇴장 알림 (상담원에게 전송)
+    CUSTOMER_LEFT, // 고객 퇴장 알림 (상담원에게 전송)
+    STREAM_START, // 챗봇 스트리밍 응답 시작 (messageId로 말풍선 생성)
+    STREAM_DELTA, // 챗봇 스트리밍 응답 조각 (같은 messageId 말풍선에 이어 붙임)
+    STREAM_END, // 챗봇 스트리밍 응답 종료 (message에 전체 응답 포함)
+    BOT_QUEUE, // 챗봇 호출 대기 안내 (동시 호출 한도 초과, 고객에게만 표시)
+    BOT_UNAVAILABLE, // 챗봇 장애 안내 (상담원 연결 버튼 표시, 고객에게만 표시)
+    WAITING_QUEUE, // 상담원 연결 대기 순서/예상 대기 시간 안내 (순서가 바뀔 때만 전송, 고객에게만 표시)
+    AGENT_ASSIGNED // 상담 자동 배정 알림 (배정된 상담원에게만 전송, /user/queue/agent)
 }
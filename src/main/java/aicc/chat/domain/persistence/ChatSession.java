@@ -6,18 +6,22 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.io.Serializable;
 import java.time.LocalDateTime;
 
 /**
  * 상담 세션 도메인 모델
  * 각 상담방의 전체 세션 정보를 저장
+ * (MyBatis 2차 캐시에 직렬화하여 보관하므로 Serializable)
  */
 @Getter
 @Setter
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-public class ChatSession {
+public class ChatSession implements Serializable {
+
+    private static final long serialVersionUID = 1L;
     
     /**
      * 세션 고유 ID (자동 증가)
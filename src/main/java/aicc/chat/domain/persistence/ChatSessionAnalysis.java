@@ -0,0 +1,91 @@
+package aicc.chat.domain.persistence;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 상담 종료 후 분석(요약/키워드/분류) 도메인 모델
+ * 분석 대기열과 결과를 함께 보관
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatSessionAnalysis {
+
+    /**
+     * 분석 고유 ID (자동 증가)
+     */
+    private Long id;
+
+    /**
+     * 채팅방 ID
+     */
+    private String roomId;
+
+    /**
+     * 회사 ID
+     */
+    private String companyId;
+
+    /**
+     * 고객 ID
+     */
+    private String customerId;
+
+    /**
+     * 처리 상태 (PENDING, RUNNING, DONE, FAILED)
+     */
+    private String status;
+
+    /**
+     * 시도 횟수
+     */
+    private int attempts;
+
+    /**
+     * 다음 시도 가능 시간 (재시도 대기)
+     */
+    private LocalDateTime nextAttemptAt;
+
+    /**
+     * 상담 요약
+     */
+    private String summary;
+
+    /**
+     * 키워드 (쉼표 구분)
+     */
+    private String keywords;
+
+    /**
+     * 상담 분류
+     */
+    private String category;
+
+    /**
+     * 분석 API 원본 응답 (JSON: summary/keyword/category)
+     */
+    private String rawResult;
+
+    /**
+     * 마지막 오류 내용
+     */
+    private String lastError;
+
+    /**
+     * 생성 시간
+     */
+    private LocalDateTime createdAt;
+
+    /**
+     * 수정 시간
+     */
+    private LocalDateTime updatedAt;
+}
@@ -3,6 +3,7 @@ package aicc.chat.mapper;
 import aicc.chat.domain.persistence.ChatHistory;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -45,6 +46,14 @@ public interface ChatHistoryMapper {
      */
     List<ChatHistory> selectChatHistoryByRoomId(@Param("roomId") String roomId);
     
+    /**
+     * 여러 채팅방의 채팅 이력을 한 번에 조회 (방별 시간순 정렬)
+     * 
+     * @param roomIds 채팅방 ID 목록 (비어 있으면 안 됨)
+     * @return 채팅 이력 리스트 (room_id, 시간순)
+     */
+    List<ChatHistory> selectChatHistoryByRoomIds(@Param("roomIds") List<String> roomIds);
+    
     /**
      * 채팅방 ID와 시간 범위로 채팅 이력 조회
      * 
@@ -59,6 +68,20 @@ public interface ChatHistoryMapper {
             @Param("endTime") LocalDateTime endTime
     );
     
+    /**
+     * 채팅방 ID로 최근 채팅 이력 페이지 조회 ((created_at, id) 기준 keyset 페이징, 최신순 정렬)
+     * 
+     * @param roomId 채팅방 ID
+     * @param beforeId 이 ID 메시지보다 이전(created_at, id 순) 메시지만 조회 (null이면 최신부터)
+     * @param limit 최대 건수
+     * @return 채팅 이력 리스트 (최신 → 과거 순)
+     */
+    List<ChatHistory> selectChatHistoryPageByRoomId(
+            @Param("roomId") String roomId,
+            @Param("beforeId") Long beforeId,
+            @Param("limit") int limit
+    );
+    
     /**
      * 고객 ID로 채팅 이력 조회
      * 
@@ -85,6 +108,22 @@ public interface ChatHistoryMapper {
             @Param("endTime") LocalDateTime endTime
     );
     
+    /**
+     * 회사 ID와 시간 범위로 채팅 이력을 Cursor로 조회 (대량 내보내기용)
+     * 전체 결과를 메모리에 올리지 않고 fetchSize 단위로 읽어온다.
+     * 트랜잭션(커넥션)이 유지되는 동안에만 순회할 수 있다.
+     * 
+     * @param companyId 회사 ID
+     * @param startTime 시작 시간
+     * @param endTime 종료 시간
+     * @return 채팅 이력 Cursor
+     */
+    Cursor<ChatHistory> selectChatHistoryCursorByCompanyIdAndTimeRange(
+            @Param("companyId") String companyId,
+            @Param("startTime") LocalDateTime startTime,
+            @Param("endTime") LocalDateTime endTime
+    );
+    
     /**
      * 채팅 이력 수정
      * 
@@ -0,0 +1,68 @@
+package aicc.chat.mapper;
+
+import aicc.chat.domain.persistence.ChatSessionAnalysis;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 상담 분석 대기열/결과 MyBatis Mapper 인터페이스
+ */
+@Mapper
+public interface ChatSessionAnalysisMapper {
+
+    /**
+     * 종료된 상담을 분석 대기열에 추가 (이미 있으면 무시)
+     *
+     * @param roomId 채팅방 ID
+     * @return 추가된 레코드 수
+     */
+    int insertPendingAnalysis(@Param("roomId") String roomId);
+
+    /**
+     * 처리할 분석 건을 가져오면서 RUNNING으로 표시 (여러 서버가 동시에 가져가지 않도록 SKIP LOCKED)
+     * 처리 중(RUNNING) 상태로 leaseMillis 이상 멈춘 건(서버 종료 등)도 다시 가져온다. (기준 시각은 DB NOW())
+     *
+     * @param limit 최대 건수
+     * @param leaseMillis 시작된 지 이 시간(밀리초) 이상 지난 RUNNING 건은 다시 처리
+     * @return 가져온 분석 건 리스트
+     */
+    List<ChatSessionAnalysis> claimPendingAnalyses(
+            @Param("limit") int limit,
+            @Param("leaseMillis") long leaseMillis
+    );
+
+    /**
+     * 분석 결과 저장 (DONE)
+     *
+     * @param analysis 분석 결과 (id, summary, keywords, category, rawResult)
+     * @return 수정된 레코드 수
+     */
+    int updateAnalysisDone(ChatSessionAnalysis analysis);
+
+    /**
+     * 분석 실패 기록 (재시도 대기 또는 최종 실패)
+     *
+     * @param id 분석 ID
+     * @param status PENDING(재시도) 또는 FAILED
+     * @param nextAttemptAt 다음 시도 가능 시간
+     * @param lastError 오류 내용
+     * @return 수정된 레코드 수
+     */
+    int updateAnalysisFailed(
+            @Param("id") Long id,
+            @Param("status") String status,
+            @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+            @Param("lastError") String lastError
+    );
+
+    /**
+     * 채팅방 ID로 분석 결과 조회
+     *
+     * @param roomId 채팅방 ID
+     * @return 분석 결과
+     */
+    ChatSessionAnalysis selectAnalysisByRoomId(@Param("roomId") String roomId);
+}
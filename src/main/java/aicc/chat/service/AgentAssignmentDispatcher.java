@@ -0,0 +1,246 @@
+package aicc.chat.service;
+
+import aicc.chat.config.AgentCapacityProperties;
+import aicc.chat.config.mode.RedisOnlyConfig;
+import aicc.chat.domain.ChatMessage;
+import aicc.chat.domain.MessageType;
+import aicc.chat.domain.UserRole;
+import aicc.chat.domain.persistence.ChatHistory;
+import aicc.chat.service.inteface.ChatHistoryService;
+import aicc.chat.service.inteface.ChatSessionService;
+import aicc.chat.service.inteface.MessageBroker;
+import aicc.chat.service.inteface.RoomRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 상담원 자동 배정 (app.chat.auto-assign.enabled=true)
+ *
+ * 상담 대기열(chat:rooms:waiting, WAITING 전환 시 RoomRepository가 대기 시작 순으로 유지)의 앞쪽 방부터
+ * 온라인 상담원 중 진행 중인 상담 수가 가장 적고 한도가 남은 상담원에게 배정한다.
+ *  - 배정은 RoomRepository.assignWaitingRoom 으로 원자적으로 처리 (WAITING 이고 한도가 남았을 때만 성공)
+ *    여러 서버가 동시에 배정하거나 상담원이 직접 배정해도 한 방이 두 번 배정되거나 한도를 넘지 않는다.
+ *  - 한 번에 한 서버만 배정하도록 짧은 Redis 잠금을 사용 (잠금이 풀리지 않아도 lock-ttl 이후 다른 서버가 이어받음)
+ *  - 배정 결과는 배정된 상담원에게 AGENT_ASSIGNED 메시지로 전달 (/user/queue/agent, 상담원이 연결된 서버에서 본인 세션에만 전송)
+ *
+ * 상담원이 직접 배정(/api/agent/rooms/{roomId}/assign)하는 기존 방식도 그대로 사용할 수 있다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AgentAssignmentDispatcher {
+
+    private final RoomRepository roomRepository;
+    private final AgentPresenceRegistry agentPresenceRegistry;
+    private final AgentCapacityProperties agentCapacityProperties;
+    private final MessageBroker messageBroker;
+    private final RoomUpdateBroadcaster roomUpdateBroadcaster;
+    private final ChatSessionService chatSessionService;
+    private final ChatHistoryService chatHistoryService;
+    private final BotStreamRegistry botStreamRegistry;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.chat.auto-assign.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.chat.auto-assign.interval:1000}")
+    private long interval; // 대기열 확인 주기 (밀리초)
+
+    @Value("${app.chat.auto-assign.batch-size:50}")
+    private int batchSize; // 한 번에 배정을 시도할 최대 방 수
+
+    @Value("${app.chat.auto-assign.lock-ttl:10000}")
+    private long lockTtl; // 배정 잠금 유지 시간 (밀리초)
+
+    private static final String LOCK_KEY = "chat:agents:dispatch:lock";
+
+    // 잠금 해제: 자신이 잡은 잠금일 때만 삭제 (확인과 삭제 사이에 만료되어 다른 서버가 잡은 잠금을 지우지 않도록 원자적으로 처리)
+    // KEYS: 잠금 키 / ARGV: 서버 식별자
+    private static final RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end "
+          + "return 0", Long.class);
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private ScheduledExecutorService worker;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("▼ AgentAssignmentDispatcher disabled");
+            return;
+        }
+        worker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "agent-assignment");
+            thread.setDaemon(true);
+            return thread;
+        });
+        worker.scheduleWithFixedDelay(this::dispatch, interval, interval, TimeUnit.MILLISECONDS);
+        log.info("▼ AgentAssignmentDispatcher started. interval:{}ms, batch:{}", interval, batchSize);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (worker != null) {
+            worker.shutdownNow();
+        }
+    }
+
+    /**
+     * 대기열 즉시 확인 요청 (상담원 연결 요청, 상담 종료 등으로 배정 가능성이 생겼을 때)
+     */
+    public void wakeUp() {
+        if (worker != null) {
+            worker.execute(this::dispatch);
+        }
+    }
+
+    private void dispatch() {
+        try {
+            List<String> waitingRooms = roomRepository.getWaitingRooms(batchSize);
+            if (waitingRooms.isEmpty()) {
+                return;
+            }
+            Map<String, String> onlineAgents = agentPresenceRegistry.onlineAgents();
+            if (onlineAgents.isEmpty()) {
+                return;
+            }
+            if (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(LOCK_KEY, nodeId, Duration.ofMillis(lockTtl)))) {
+                return; // 다른 서버가 배정 중
+            }
+            int assigned;
+            try {
+                assigned = assignAll(waitingRooms, onlineAgents);
+            } finally {
+                redisTemplate.execute(UNLOCK_SCRIPT, List.of(LOCK_KEY), nodeId);
+            }
+            // 방 목록은 배정이 끝난 뒤 한 번만 갱신 (방마다 전체 목록을 다시 보내지 않음)
+            if (assigned > 0) {
+                roomUpdateBroadcaster.broadcastRoomList();
+            }
+        } catch (Exception e) {
+            log.warn("Agent assignment dispatch failed", e);
+        }
+    }
+
+    // 대기 중인 방을 순서대로 배정하고 배정한 방 수를 반환
+    private int assignAll(List<String> waitingRooms, Map<String, String> onlineAgents) {
+        Map<String, Long> loads = new HashMap<>(roomRepository.getAgentRoomCounts());
+        int assigned = 0;
+
+        for (String roomId : waitingRooms) {
+            while (true) {
+                String agentId = selectAgent(onlineAgents, loads);
+                if (agentId == null) {
+                    log.info("All online agents are at capacity. waiting:{}", waitingRooms.size());
+                    return assigned;
+                }
+                String agentName = onlineAgents.get(agentId);
+                int maxChats = agentCapacityProperties.maxChatsFor(agentId);
+
+                RoomRepository.AssignResult result = roomRepository.assignWaitingRoom(roomId, agentId, agentName, maxChats);
+                if (result == RoomRepository.AssignResult.ASSIGNED) {
+                    loads.merge(agentId, 1L, Long::sum);
+                    onAssigned(roomId, agentId, agentName);
+                    assigned++;
+                    break;
+                }
+                if (result == RoomRepository.AssignResult.ROOM_UNAVAILABLE) {
+                    break; // 이미 배정되었거나 대기가 취소된 방
+                }
+                // 다른 경로(직접 배정 등)로 상담 수가 늘어난 상담원 - 최신 상담 수로 다시 선택
+                loads = new HashMap<>(roomRepository.getAgentRoomCounts());
+                loads.merge(agentId, (long) maxChats, Math::max);
+            }
+        }
+        return assigned;
+    }
+
+    // 한도가 남은 상담원 중 진행 중인 상담 수가 가장 적은 상담원 (같으면 최근 하트비트 순)
+    private String selectAgent(Map<String, String> onlineAgents, Map<String, Long> loads) {
+        String best = null;
+        long bestLoad = Long.MAX_VALUE;
+        for (Map.Entry<String, String> agent : onlineAgents.entrySet()) {
+            long load = loads.getOrDefault(agent.getKey(), 0L);
+            if (load >= agentCapacityProperties.maxChatsFor(agent.getKey())) {
+                continue;
+            }
+            if (load < bestLoad) {
+                bestLoad = load;
+                best = agent.getKey();
+            }
+        }
+        return best;
+    }
+
+    // 배정 후 처리: 챗봇 응답 중단, 고객 안내, 상담원 알림, DB 반영 (상담원 직접 배정과 동일, 방 목록 갱신은 dispatch에서 한 번)
+    private void onAssigned(String roomId, String agentId, String agentName) {
+        log.info("▼ onAssigned. roomId:{}, agent:{}", roomId, agentName);
+        botStreamRegistry.cancel(roomId);
+        LocalDateTime now = LocalDateTime.now(); // 서버 타임스탬프
+
+        ChatMessage notice = ChatMessage.builder()
+                .roomId(roomId)
+                .sender("System")
+                .senderRole(UserRole.SYSTEM)
+                .message(agentName + " 상담원과 연결되었습니다.")
+                .type(MessageType.TALK)
+                .timestamp(now)
+                .build();
+
+        try {
+            messageBroker.publish(notice);
+            notifyAgent(agentId, ChatMessage.builder()
+                    .roomId(roomId)
+                    .sender("System")
+                    .senderRole(UserRole.SYSTEM)
+                    .message(roomId)
+                    .type(MessageType.AGENT_ASSIGNED)
+                    .timestamp(now)
+                    .build());
+
+            // PostgreSQL에 상담원 배정 정보 저장
+            chatSessionService.updateSessionStatus(roomId, "AGENT");
+            chatSessionService.assignAgent(roomId, agentName);
+
+            ChatHistory chatHistory = ChatHistory.builder()
+                    .roomId(roomId)
+                    .senderId("SYSTEM")
+                    .senderName("System")
+                    .senderRole("SYSTEM")
+                    .message(notice.getMessage())
+                    .messageType("TALK")
+                    .createdAt(now)
+                    .build();
+            chatHistoryService.saveChatHistory(chatHistory);
+        } catch (Exception e) {
+            log.error("Failed to post-auto-assign actions: roomId={}", roomId, e);
+        }
+    }
+
+    private void notifyAgent(String agentId, ChatMessage message) throws Exception {
+        Map<String, Object> body = new HashMap<>();
+        body.put("userId", agentId);
+        body.put("message", message);
+        redisTemplate.convertAndSend(RedisOnlyConfig.AGENT_CHANNEL, objectMapper.writeValueAsString(body));
+    }
+}
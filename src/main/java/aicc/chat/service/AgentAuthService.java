@@ -7,11 +7,8 @@ import aicc.chat.mapper.UserAccountMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
-import java.util.concurrent.TimeUnit;
-
 @Slf4j
 @Service
 @RequiredArgsConstructor
@@ -22,9 +19,7 @@ public class AgentAuthService {
 
     private final TokenService tokenService;
     private final UserAccountMapper userAccountMapper;
-    private final StringRedisTemplate redisTemplate;
-
-    private static final String ONLINE_AGENTS_KEY = "chat:online:agents";
+    private final AgentPresenceRegistry agentPresenceRegistry;
 
     public UserInfo login(String id, String password) {
         // 상담원 로그인 후 토큰을 생성해 반환
@@ -54,9 +49,8 @@ public class AgentAuthService {
 
         userInfo.setToken(tokenService.generateToken(userInfo));
 
-        // Redis에 온라인 상담원 등록 (10분 TTL)
-        String agentKey = ONLINE_AGENTS_KEY + ":" + account.getUserId();
-        redisTemplate.opsForValue().set(agentKey, account.getUserName(), 10, TimeUnit.MINUTES);
+        // Redis에 온라인 상담원 등록 (하트비트 없이 10분이 지나면 오프라인)
+        agentPresenceRegistry.register(account.getUserId(), account.getUserName());
         log.info("Agent {} registered as online in Redis", account.getUserId());
 
         return userInfo;
@@ -67,8 +61,15 @@ public class AgentAuthService {
      */
     public void heartbeat(String userId) {
         log.info("▼ heartbeat. userId:{}", userId);
-        String agentKey = ONLINE_AGENTS_KEY + ":" + userId; // "chat:online:agents:{userId}"
-        redisTemplate.expire(agentKey, 10, TimeUnit.MINUTES); // TTL 재설정
+        agentPresenceRegistry.heartbeat(userId); // 마지막 하트비트 시각 갱신
     }
-}
 
+    /**
+     * 상담원 로그아웃 - 토큰 폐기 후 오프라인으로 변경
+     */
+    public void logout(UserInfo userInfo) {
+        log.info("▼ logout. userId:{}", userInfo.getUserId());
+        tokenService.revokeToken(userInfo.getToken());
+        agentPresenceRegistry.unregister(userInfo.getUserId());
+    }
+}
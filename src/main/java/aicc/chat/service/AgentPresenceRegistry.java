@@ -0,0 +1,131 @@
+package aicc.chat.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 온라인 상담원 목록 (Redis Sorted Set)
+ *
+ * Redis 키 구조:
+ *  - chat:agents:presence : 상담원 ID, score = 마지막 하트비트 시각(밀리초)
+ *  - chat:agents:names    : 상담원 ID -> 상담원 이름 (로그인 시 갱신)
+ *
+ * 이전 방식(chat:online:agents:{userId} = 이름, TTL)으로 로그인한 상담원은 첫 하트비트에서 현재 구조로 옮긴다.
+ *
+ * 하트비트가 ttl 이상 없는 상담원은 조회 시 score 범위 삭제(ZREMRANGEBYSCORE)로 한 번에 제거한다.
+ * 상담원마다 TTL 키를 두고 KEYS로 찾던 방식과 달리 조회 비용이 전체 키 수와 무관하고 Redis를 막지 않는다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AgentPresenceRegistry {
+
+    private final StringRedisTemplate redisTemplate;
+
+    @Value("${app.chat.agent-presence.ttl:600000}")
+    private long ttl; // 마지막 하트비트 이후 온라인으로 보는 시간 (밀리초, 기본 10분)
+
+    private static final String PRESENCE_KEY = "chat:agents:presence";
+    private static final String NAMES_KEY = "chat:agents:names";
+    private static final String LEGACY_KEY_PREFIX = "chat:online:agents:";
+
+    // KEYS: presence, names, 이전 방식 키 / ARGV: 현재 시각, 상담원 ID
+    // 등록된 상담원은 시각만 갱신, 이전 방식 키만 있으면 이름과 함께 등록 후 이전 키 삭제, 둘 다 없으면 무시
+    private static final RedisScript<Long> HEARTBEAT_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('ZSCORE', KEYS[1], ARGV[2]) then "
+          + "  redis.call('ZADD', KEYS[1], ARGV[1], ARGV[2]) "
+          + "  return 1 "
+          + "end "
+          + "local name = redis.call('GET', KEYS[3]) "
+          + "if not name then return 0 end "
+          + "redis.call('HSETNX', KEYS[2], ARGV[2], name) "
+          + "redis.call('ZADD', KEYS[1], ARGV[1], ARGV[2]) "
+          + "redis.call('DEL', KEYS[3]) "
+          + "return 2", Long.class);
+
+    /**
+     * 로그인한 상담원을 온라인으로 등록
+     */
+    public void register(String userId, String userName) {
+        log.info("▼ register. userId:{}", userId);
+        long now = System.currentTimeMillis();
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            conn.hSet(NAMES_KEY, userId, userName != null ? userName : userId);
+            conn.zAdd(PRESENCE_KEY, now, userId);
+            return null;
+        });
+    }
+
+    /**
+     * 하트비트 - 온라인 상태인 상담원의 마지막 하트비트 시각만 갱신 (만료된 상담원은 다시 로그인해야 함)
+     */
+    public void heartbeat(String userId) {
+        long now = System.currentTimeMillis();
+        Long result = redisTemplate.execute(HEARTBEAT_SCRIPT,
+                List.of(PRESENCE_KEY, NAMES_KEY, LEGACY_KEY_PREFIX + userId),
+                String.valueOf(now), userId);
+        if (result != null && result == 2L) {
+            log.info("Agent {} migrated from legacy online key", userId);
+        }
+    }
+
+    /**
+     * 상담원을 오프라인으로 변경 (로그아웃)
+     */
+    public void unregister(String userId) {
+        log.info("▼ unregister. userId:{}", userId);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            conn.zRem(PRESENCE_KEY, userId);
+            conn.del(LEGACY_KEY_PREFIX + userId);
+            return null;
+        });
+    }
+
+    /**
+     * 온라인 상담원 목록 (상담원 ID -> 이름, 최근 하트비트 순)
+     */
+    public Map<String, String> onlineAgents() {
+        long cutoff = System.currentTimeMillis() - ttl;
+
+        // 만료된 상담원 제거와 온라인 상담원 조회를 한 번에
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            conn.zRemRangeByScore(PRESENCE_KEY, Double.NEGATIVE_INFINITY, cutoff);
+            conn.zRevRangeByScore(PRESENCE_KEY, cutoff, Double.POSITIVE_INFINITY);
+            return null;
+        });
+
+        @SuppressWarnings("unchecked")
+        Set<String> agentIds = (Set<String>) results.get(1);
+        if (agentIds == null || agentIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        List<String> ids = new ArrayList<>(agentIds);
+        List<Object> names = redisTemplate.opsForHash().multiGet(NAMES_KEY, new ArrayList<>(ids));
+        Map<String, String> online = new LinkedHashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            Object name = names.get(i);
+            if (name != null) {
+                online.put(ids.get(i), name.toString());
+            }
+        }
+        return online;
+    }
+}
@@ -0,0 +1,305 @@
+package aicc.chat.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * 챗봇(AI 서버) 호출 동시 실행 제한 (전체 + 회사별) 및 대기열
+ *
+ *  - 전체 동시 호출이 max-concurrent, 회사별 동시 호출이 max-concurrent-per-company 를 넘으면 대기열에 넣는다.
+ *  - 대기열은 도착 순서이지만, 자기 회사 한도가 찬 요청은 건너뛰고 다른 회사 요청을 먼저 실행한다 (회사 간 공정성).
+ *  - 대기열이 max-queue 만큼 차 있거나 max-wait 안에 실행되지 못하면 거절한다.
+ *
+ * 호출은 비동기(WebClient)이므로 스레드를 막지 않고, 완료 시 Permit.release()로 다음 요청을 실행한다.
+ * release()는 WebClient 응답 스레드(이벤트 루프)에서 불리므로, 대기하던 요청의 실행과 순번 안내는 별도 실행 스레드에 넘긴다.
+ * 앞선 요청이 실행되거나 시간 초과로 빠지면 남은 요청 중 순번이 바뀐 요청에만 새 순번을 알린다.
+ *
+ * 메트릭: bot.bulkhead.inflight, bot.bulkhead.queued (gauge),
+ *        bot.bulkhead.rejected{reason=queue_full|timeout} (counter), bot.bulkhead.wait (timer)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BotCallBulkhead {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.ai-bot.bulkhead.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.ai-bot.bulkhead.max-concurrent:50}")
+    private int maxConcurrent; // 전체 동시 호출 수 (WebClient 커넥션 풀보다 작게)
+
+    @Value("${app.ai-bot.bulkhead.max-concurrent-per-company:20}")
+    private int maxConcurrentPerCompany; // 회사별 동시 호출 수
+
+    @Value("${app.ai-bot.bulkhead.max-queue:100}")
+    private int maxQueue; // 대기열 최대 길이
+
+    @Value("${app.ai-bot.bulkhead.max-wait:30000}")
+    private long maxWait; // 대기열 최대 대기 시간 (밀리초)
+
+    @Value("${app.ai-bot.bulkhead.dispatch-threads:4}")
+    private int dispatchThreads; // 대기하던 요청을 실행하는 스레드 수
+
+    public enum Status { ADMITTED, QUEUED, REJECTED }
+
+    /**
+     * submit 결과 (QUEUED인 경우 position은 1부터 시작하는 대기 순번)
+     */
+    public record Admission(Status status, int position) {
+    }
+
+    private final Deque<Ticket> queue = new ArrayDeque<>();
+    private final Map<String, Integer> inFlightByCompany = new HashMap<>();
+    private int inFlight;
+
+    private ScheduledExecutorService scheduler;
+    private ExecutorService dispatcher;
+    private Counter rejectedQueueFull;
+    private Counter rejectedTimeout;
+    private Timer waitTimer;
+
+    @PostConstruct
+    public void init() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "bot-bulkhead-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger sequence = new AtomicInteger();
+        dispatcher = Executors.newFixedThreadPool(Math.max(1, dispatchThreads), r -> {
+            Thread thread = new Thread(r, "bot-bulkhead-dispatch-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("bot.bulkhead.inflight", this, BotCallBulkhead::getInFlight).register(meterRegistry);
+        Gauge.builder("bot.bulkhead.queued", this, BotCallBulkhead::getQueued).register(meterRegistry);
+        rejectedQueueFull = Counter.builder("bot.bulkhead.rejected").tag("reason", "queue_full").register(meterRegistry);
+        rejectedTimeout = Counter.builder("bot.bulkhead.rejected").tag("reason", "timeout").register(meterRegistry);
+        waitTimer = Timer.builder("bot.bulkhead.wait").register(meterRegistry);
+        log.info("▼ BotCallBulkhead. enabled:{}, maxConcurrent:{}, perCompany:{}, maxQueue:{}, maxWait:{}ms",
+                enabled, maxConcurrent, maxConcurrentPerCompany, maxQueue, maxWait);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        dispatcher.shutdownNow();
+    }
+
+    /**
+     * 챗봇 호출 실행 요청
+     *
+     * @param companyId  회사별 한도 적용 기준
+     * @param onAdmitted        실행 가능해지면 호출 (즉시 실행 시 호출 스레드, 대기 후 실행 시 bulkhead 실행 스레드)
+     *                          전달받은 Permit은 챗봇 호출이 끝나면 반드시 release() 해야 한다.
+     * @param onPositionChanged 대기 중 순번이 바뀌면 새 순번으로 호출 (처음 순번은 반환값으로 알림)
+     * @param onRejected        대기 시간 초과로 거절된 경우 호출 (대기열이 가득 찬 경우는 반환값으로 알림)
+     */
+    public Admission submit(String companyId, Consumer<Permit> onAdmitted, IntConsumer onPositionChanged, Runnable onRejected) {
+        String company = companyId != null ? companyId : "";
+        if (!enabled) {
+            onAdmitted.accept(new Permit(null));
+            return new Admission(Status.ADMITTED, 0);
+        }
+
+        Ticket ticket = new Ticket(company, onAdmitted, onPositionChanged, onRejected);
+        int position;
+        synchronized (this) {
+            // 대기 중인 요청은 모두 자기 회사 한도나 전체 한도에 막힌 상태이므로, 이 회사에 여유가 있으면 바로 실행
+            if (hasCapacity(company)) {
+                acquire(company);
+                position = 0;
+            } else if (queue.size() >= maxQueue) {
+                position = -1;
+            } else {
+                queue.addLast(ticket);
+                position = queue.size();
+                ticket.position = position;
+                ticket.timeout = scheduler.schedule(() -> expire(ticket), maxWait, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        if (position == 0) {
+            waitTimer.record(0, TimeUnit.MILLISECONDS);
+            onAdmitted.accept(new Permit(company));
+            return new Admission(Status.ADMITTED, 0);
+        }
+        if (position < 0) {
+            rejectedQueueFull.increment();
+            log.warn("Bot call rejected (queue full): companyId={}, inFlight={}, queued={}", company, inFlight, maxQueue);
+            return new Admission(Status.REJECTED, 0);
+        }
+        log.info("Bot call queued: companyId={}, position={}", company, position);
+        return new Admission(Status.QUEUED, position);
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getQueued() {
+        return queue.size();
+    }
+
+    /**
+     * 실행 권한 (챗봇 호출 완료 시 release, 여러 번 호출해도 한 번만 반영)
+     */
+    public class Permit {
+        private final String company; // null 이면 제한 없음 (disabled)
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(String company) {
+            this.company = company;
+        }
+
+        public void release() {
+            if (company == null || !released.compareAndSet(false, true)) {
+                return;
+            }
+            List<Ticket> admitted;
+            List<Ticket> moved;
+            synchronized (BotCallBulkhead.this) {
+                inFlight--;
+                inFlightByCompany.merge(company, -1, (a, b) -> a + b == 0 ? null : a + b);
+                admitted = dispatch();
+                moved = admitted.isEmpty() ? List.of() : renumber();
+            }
+            // 이벤트 루프 스레드에서 다음 챗봇 호출을 시작하지 않도록 실행 스레드에 넘김
+            if (!admitted.isEmpty()) {
+                dispatcher.execute(() -> {
+                    notifyPositions(moved);
+                    runAdmitted(admitted);
+                });
+            }
+        }
+    }
+
+    // 대기열 앞에서부터 실행 가능한 요청을 꺼냄 (lock 보유 상태에서 호출)
+    private List<Ticket> dispatch() {
+        List<Ticket> admitted = new ArrayList<>();
+        Iterator<Ticket> it = queue.iterator();
+        while (it.hasNext() && inFlight < maxConcurrent) {
+            Ticket ticket = it.next();
+            if (hasCapacity(ticket.company)) {
+                it.remove();
+                acquire(ticket.company);
+                admitted.add(ticket);
+            }
+        }
+        return admitted;
+    }
+
+    // 남은 대기 요청의 순번을 다시 매겨 바뀐 요청만 반환 (lock 보유 상태에서 호출)
+    private List<Ticket> renumber() {
+        List<Ticket> moved = new ArrayList<>();
+        int position = 0;
+        for (Ticket ticket : queue) {
+            position++;
+            if (ticket.position != position) {
+                ticket.position = position;
+                moved.add(ticket);
+            }
+        }
+        return moved;
+    }
+
+    // 순번 안내는 lock 밖에서 실행 (알림 사이에 순번이 또 바뀌면 다음 알림이 최신 값을 전달)
+    private void notifyPositions(List<Ticket> moved) {
+        for (Ticket ticket : moved) {
+            if (ticket.onPositionChanged == null) {
+                continue;
+            }
+            try {
+                ticket.onPositionChanged.accept(ticket.position);
+            } catch (Exception e) {
+                log.error("Bot queue position handler failed: companyId={}", ticket.company, e);
+            }
+        }
+    }
+
+    // 실제 챗봇 호출은 lock 밖에서 실행
+    private void runAdmitted(List<Ticket> admitted) {
+        for (Ticket ticket : admitted) {
+            if (ticket.timeout != null) {
+                ticket.timeout.cancel(false);
+            }
+            waitTimer.record(System.nanoTime() - ticket.enqueuedAt, TimeUnit.NANOSECONDS);
+            try {
+                ticket.onAdmitted.accept(new Permit(ticket.company));
+            } catch (Exception e) {
+                log.error("Queued bot call failed to start: companyId={}", ticket.company, e);
+            }
+        }
+    }
+
+    private void expire(Ticket ticket) {
+        List<Ticket> moved;
+        synchronized (this) {
+            if (!queue.remove(ticket)) {
+                return; // 이미 실행됨
+            }
+            moved = renumber();
+        }
+        notifyPositions(moved);
+        rejectedTimeout.increment();
+        log.warn("Bot call rejected (wait timeout): companyId={}, maxWait={}ms", ticket.company, maxWait);
+        try {
+            ticket.onRejected.run();
+        } catch (Exception e) {
+            log.error("Bot call reject handler failed: companyId={}", ticket.company, e);
+        }
+    }
+
+    private boolean hasCapacity(String company) {
+        return inFlight < maxConcurrent && inFlightByCompany.getOrDefault(company, 0) < maxConcurrentPerCompany;
+    }
+
+    private void acquire(String company) {
+        inFlight++;
+        inFlightByCompany.merge(company, 1, Integer::sum);
+    }
+
+    private static class Ticket {
+        private final String company;
+        private final Consumer<Permit> onAdmitted;
+        private final IntConsumer onPositionChanged;
+        private final Runnable onRejected;
+        private final long enqueuedAt = System.nanoTime();
+        private ScheduledFuture<?> timeout;
+        private volatile int position; // 마지막으로 알린 대기 순번 (lock 보유 상태에서 변경)
+
+        private Ticket(String company, Consumer<Permit> onAdmitted, IntConsumer onPositionChanged, Runnable onRejected) {
+            this.company = company;
+            this.onAdmitted = onAdmitted;
+            this.onPositionChanged = onPositionChanged;
+            this.onRejected = onRejected;
+        }
+    }
+}
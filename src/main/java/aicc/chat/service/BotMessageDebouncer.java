@@ -0,0 +1,195 @@
+package aicc.chat.service;
+
+import aicc.chat.config.bot.BotDebounceProperties;
+import aicc.chat.domain.ChatMessage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 짧은 간격으로 이어지는 고객 메시지를 모아 한 번의 챗봇 요청으로 전달 (방별 debounce)
+ *
+ * 메시지가 오면 window 만큼 기다리고, 그 사이 새 메시지가 오면 아직 시작하지 않은 요청에 합친 뒤 다시 기다린다.
+ * 계속 입력하더라도 첫 메시지부터 max-wait 가 지나거나 max-messages 에 도달하면 바로 전달한다.
+ * 대기 중인 요청은 BotStreamRegistry에 등록되므로 상담원 연결/퇴장/방 정리 시 함께 취소된다.
+ * 타이머 스레드는 시간만 재고, 챗봇 전달(Redis 조회 등)은 크기가 정해진 전달 스레드 풀에서 실행하여 한 방의 지연이 다른 방의 타이머를 막지 않게 한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BotMessageDebouncer {
+
+    private final BotDebounceProperties properties;
+    private final BotStreamRegistry botStreamRegistry;
+
+    private ScheduledExecutorService scheduler;
+    private ThreadPoolExecutor dispatcher;
+
+    // roomId -> 아직 전달하지 않은 메시지 묶음
+    private final Map<String, Pending> pendings = new HashMap<>();
+
+    @PostConstruct
+    public void init() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "bot-message-debouncer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 대기열이 가득 차면 타이머 스레드에서 직접 전달 (메시지를 버리지 않고 타이머 처리를 늦춰 유입을 조절)
+        int threads = Math.max(1, properties.getDispatchThreads());
+        AtomicInteger sequence = new AtomicInteger();
+        dispatcher = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, properties.getDispatchQueue())),
+                r -> {
+                    Thread thread = new Thread(r, "bot-message-dispatch-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        dispatcher.shutdownNow();
+    }
+
+    /**
+     * 고객 메시지 제출
+     *
+     * @param onFire 묶인 메시지(마지막 메시지 기준, 본문은 줄바꿈으로 연결)를 받아 챗봇을 호출할 작업
+     */
+    public void submit(String roomId, ChatMessage message, Consumer<ChatMessage> onFire) {
+        String companyId = message.getCompanyId();
+        long window = properties.windowFor(companyId);
+        if (!properties.enabledFor(companyId) || window <= 0) {
+            onFire.accept(message);
+            return;
+        }
+
+        Pending ready = null;
+        synchronized (this) {
+            Pending pending = pendings.get(roomId);
+            if (pending == null) {
+                Pending created = new Pending(roomId, onFire, System.currentTimeMillis());
+                created.handle = botStreamRegistry.register(roomId, () -> discard(created));
+                pendings.put(roomId, created);
+                pending = created;
+            }
+            pending.messages.add(message);
+            pending.onFire = onFire;
+            if (pending.future != null) {
+                pending.future.cancel(false);
+                pending.future = null;
+            }
+
+            long remaining = pending.firstAt + properties.maxWaitFor(companyId) - System.currentTimeMillis();
+            if (remaining <= 0 || pending.messages.size() >= properties.getMaxMessages()) {
+                pendings.remove(roomId);
+                ready = pending;
+            } else {
+                Pending scheduled = pending;
+                pending.future = scheduler.schedule(() -> fireOnTimer(scheduled), Math.min(window, remaining), TimeUnit.MILLISECONDS);
+            }
+        }
+
+        if (ready != null) {
+            fire(ready);
+        }
+    }
+
+    private void fireOnTimer(Pending pending) {
+        synchronized (this) {
+            if (pendings.get(pending.roomId) != pending) {
+                return; // 이미 전달되었거나 취소됨
+            }
+            pendings.remove(pending.roomId);
+            pending.future = null;
+        }
+        dispatcher.execute(() -> fire(pending));
+    }
+
+    private void fire(Pending pending) {
+        if (!pending.handle.complete()) {
+            return; // 대기 중에 취소된 방
+        }
+        ChatMessage merged = merge(pending.messages);
+        if (pending.messages.size() > 1) {
+            log.info("▼ fire. roomId:{}, merged:{}", pending.roomId, pending.messages.size());
+        }
+        try {
+            pending.onFire.accept(merged);
+        } catch (Exception e) {
+            log.error("Failed to dispatch debounced message: roomId={}", pending.roomId, e);
+        }
+    }
+
+    // BotStreamRegistry.cancel 에서 호출: 대기 중인 묶음 폐기
+    private synchronized void discard(Pending pending) {
+        if (pendings.get(pending.roomId) == pending) {
+            pendings.remove(pending.roomId);
+        }
+        if (pending.future != null) {
+            pending.future.cancel(false);
+            pending.future = null;
+        }
+        log.info("▼ discard. roomId:{}, messages:{}", pending.roomId, pending.messages.size());
+    }
+
+    // 마지막 메시지를 기준으로 본문만 줄바꿈으로 연결
+    private static ChatMessage merge(List<ChatMessage> messages) {
+        ChatMessage last = messages.get(messages.size() - 1);
+        if (messages.size() == 1) {
+            return last;
+        }
+        StringBuilder text = new StringBuilder();
+        for (ChatMessage m : messages) {
+            if (m.getMessage() == null || m.getMessage().isBlank()) {
+                continue;
+            }
+            if (text.length() > 0) {
+                text.append('\n');
+            }
+            text.append(m.getMessage());
+        }
+        return ChatMessage.builder()
+                .roomId(last.getRoomId())
+                .sender(last.getSender())
+                .senderRole(last.getSenderRole())
+                .message(text.toString())
+                .type(last.getType())
+                .companyId(last.getCompanyId())
+                .timestamp(last.getTimestamp())
+                .build();
+    }
+
+    private static class Pending {
+        private final String roomId;
+        private final long firstAt;
+        private final List<ChatMessage> messages = new ArrayList<>();
+        private Consumer<ChatMessage> onFire;
+        private BotStreamRegistry.Handle handle;
+        private ScheduledFuture<?> future;
+
+        private Pending(String roomId, Consumer<ChatMessage> onFire, long firstAt) {
+            this.roomId = roomId;
+            this.onFire = onFire;
+            this.firstAt = firstAt;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package aicc.chat.service;
+
+import aicc.chat.config.bot.StreamCoalesceProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 챗봇 스트리밍 청크를 시간/크기 기준으로 묶어서 전달 (STOMP 프레임 수 감소)
+ *
+ * 첫 청크는 체감 지연을 줄이기 위해 바로 전달하고,
+ * 이후 청크는 flush-interval 이 지나거나 누적 크기가 max-bytes 이상이 되면 한 번에 전달한다.
+ * 타이머 스레드는 시간만 재고 전달은 전송 스레드 풀에서 실행하며, 전달(sink 호출)은 버퍼 잠금을 놓은 뒤에 한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BotStreamCoalescer {
+
+    private final StreamCoalesceProperties properties;
+
+    private ScheduledExecutorService scheduler;
+    private ExecutorService flusher;
+
+    @PostConstruct
+    public void init() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "bot-stream-coalescer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger sequence = new AtomicInteger();
+        flusher = Executors.newFixedThreadPool(Math.max(1, properties.getFlushThreads()), r -> {
+            Thread thread = new Thread(r, "bot-stream-flush-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        flusher.shutdownNow();
+    }
+
+    /**
+     * 스트림 하나에 대한 묶음 전송 버퍼 생성
+     *
+     * @param companyId 회사별 설정 선택용
+     * @param sink      묶인 텍스트를 전달받을 대상 (예: STREAM_DELTA 발행)
+     */
+    public Stream open(String companyId, Consumer<String> sink) {
+        if (!properties.isEnabled()) {
+            return new Stream(sink, 0, 0);
+        }
+        return new Stream(sink, properties.flushIntervalFor(companyId), properties.maxBytesFor(companyId));
+    }
+
+    /**
+     * 스트림별 버퍼 (청크 수신 스레드와 전송 스레드가 함께 접근하므로 동기화)
+     * 버퍼는 this 잠금, 전달 순서는 sendLock 으로 보호한다. 전달할 내용은 this 잠금 안에서 꺼내고 sink는 잠금 밖에서 호출하며,
+     * 꺼내기와 전달을 sendLock 안에서 함께 하여 먼저 꺼낸 내용이 먼저 전달되게 한다. (잠금 순서: sendLock -> this)
+     */
+    public class Stream {
+        private final Consumer<String> sink;
+        private final long flushInterval;
+        private final int maxBytes;
+
+        private final Object sendLock = new Object();
+        private final StringBuilder buffer = new StringBuilder();
+        private int bufferedBytes;
+        private boolean firstSent;
+        private boolean closed;
+        private ScheduledFuture<?> pendingFlush;
+
+        private Stream(Consumer<String> sink, long flushInterval, int maxBytes) {
+            this.sink = sink;
+            this.flushInterval = flushInterval;
+            this.maxBytes = maxBytes;
+        }
+
+        public void append(String chunk) {
+            synchronized (this) {
+                if (closed || chunk == null || chunk.isEmpty()) {
+                    return;
+                }
+                buffer.append(chunk);
+                bufferedBytes += utf8Length(chunk);
+
+                // 묶지 않는 설정이거나 첫 청크, 또는 크기 초과가 아니면 시간 기준 전송 예약
+                boolean passThrough = flushInterval <= 0 && maxBytes <= 0;
+                if (!passThrough && firstSent && (maxBytes <= 0 || bufferedBytes < maxBytes)) {
+                    if (pendingFlush == null && flushInterval > 0) {
+                        pendingFlush = scheduler.schedule(() -> flusher.execute(this::flush), flushInterval, TimeUnit.MILLISECONDS);
+                    }
+                    return;
+                }
+                firstSent = true;
+            }
+            flush();
+        }
+
+        /**
+         * 남은 내용을 전달하고 종료 (이후 append는 무시)
+         */
+        public void close() {
+            synchronized (sendLock) {
+                String text;
+                synchronized (this) {
+                    if (closed) {
+                        return;
+                    }
+                    text = take();
+                    closed = true;
+                }
+                send(text);
+            }
+        }
+
+        /**
+         * 남은 내용을 버리고 종료 (응답이 취소된 경우)
+         */
+        public synchronized void discard() {
+            take();
+            closed = true;
+        }
+
+        // 버퍼에 쌓인 내용을 꺼내 전달 (청크 수신 스레드 또는 전송 스레드에서 호출)
+        private void flush() {
+            synchronized (sendLock) {
+                String text;
+                synchronized (this) {
+                    text = take();
+                }
+                send(text);
+            }
+        }
+
+        // 예약된 시간 기준 전송을 취소하고 버퍼 내용을 꺼냄 (this 잠금 안에서 호출, 비어 있으면 null)
+        private String take() {
+            if (pendingFlush != null) {
+                pendingFlush.cancel(false);
+                pendingFlush = null;
+            }
+            if (buffer.length() == 0) {
+                return null;
+            }
+            String text = buffer.toString();
+            buffer.setLength(0);
+            bufferedBytes = 0;
+            return text;
+        }
+
+        private void send(String text) {
+            if (text == null) {
+                return;
+            }
+            try {
+                sink.accept(text);
+            } catch (Exception e) {
+                log.warn("Failed to deliver coalesced stream chunk", e);
+            }
+        }
+    }
+
+    // 문자열을 UTF-8로 인코딩했을 때의 바이트 수 (배열 생성 없이 계산)
+    private static int utf8Length(String text) {
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,182 @@
+package aicc.chat.service;
+
+import aicc.bot.ChatBot;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 채팅방별 진행 중인 챗봇 응답(스트리밍) 추적 및 중단
+ *
+ * 상담원 연결(HANDOFF), 고객 퇴장(LEAVE), 유휴 방 정리 시 cancel(roomId)을 호출하면
+ *  1. 등록된 응답을 취소 상태로 표시하여 이후 완료 콜백이 응답을 발행/저장하지 않도록 하고
+ *  2. ChatBot.cancel로 AI 서버 호출(SSE 구독)을 끊어 연결과 AI 처리 용량을 바로 반환한 뒤
+ *  3. 각 응답의 취소 처리(permit 반환, 말풍선 정리)를 실행한다.
+ *
+ * 호출 측이 방 상태를 확인한 뒤 등록하기 전 사이에 들어온 cancel도 놓치지 않도록 cancel은 방별 취소 표시(tombstone)를 남긴다.
+ * 상태 확인 전에 mark()로 받은 값을 register(roomId, since, onCancel)에 넘기면 그 이후 취소된 방의 응답은 등록 즉시 취소된다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BotStreamRegistry {
+
+    private final ChatBot chatBot;
+
+    // roomId -> 진행 중인 응답 목록 (짧은 간격으로 질문하면 한 방에 여러 건이 있을 수 있음)
+    private final Map<String, Set<Handle>> activeStreams = new ConcurrentHashMap<>();
+
+    // roomId -> 마지막 취소 표시 (상태 확인과 등록 사이의 짧은 구간에만 필요하므로 일정 시간 뒤 정리)
+    private final Map<String, Tombstone> tombstones = new ConcurrentHashMap<>();
+    private final AtomicLong cancelSequence = new AtomicLong();
+
+    private static final long TOMBSTONE_TTL_MS = 60_000;
+
+    private record Tombstone(long sequence, long createdAt) {
+    }
+
+    /**
+     * 현재 취소 순번 (방 상태 확인 전에 받아 register에 전달)
+     */
+    public long mark() {
+        return cancelSequence.get();
+    }
+
+    /**
+     * 응답 스트림 등록 - since(mark() 값) 이후 이 방에 cancel이 있었으면 등록 즉시 취소한다.
+     * 이 경우 onCancel이 실행되고 반환된 Handle의 isCancelled()가 true이므로 호출 측은 챗봇을 호출하지 않아야 한다.
+     */
+    public Handle register(String roomId, long since, Runnable onCancel) {
+        Handle handle = register(roomId, onCancel);
+        // cancel은 표시를 먼저 남긴 뒤 목록을 가져가므로, 목록에 넣은 뒤 표시를 확인하면 둘 중 하나에서 반드시 취소됨
+        Tombstone tombstone = tombstones.get(roomId);
+        if (tombstone != null && tombstone.sequence() > since && handle.done.compareAndSet(false, true)) {
+            unregister(handle);
+            log.info("Bot stream cancelled on register: roomId={}", roomId);
+            try {
+                handle.onCancel.run();
+            } catch (Exception e) {
+                log.warn("Bot stream cancel callback failed: roomId={}", roomId, e);
+            }
+        }
+        return handle;
+    }
+
+    /**
+     * 응답 스트림 등록
+     *
+     * @param onCancel 취소 시 실행할 정리 작업 (완료 전에 취소된 경우에만 한 번 실행)
+     */
+    public Handle register(String roomId, Runnable onCancel) {
+        Handle handle = new Handle(roomId, onCancel);
+        activeStreams.computeIfAbsent(roomId, k -> ConcurrentHashMap.newKeySet()).add(handle);
+        return handle;
+    }
+
+    /**
+     * 방의 진행 중인 응답을 모두 중단
+     *
+     * @return 중단된 응답 수
+     */
+    public int cancel(String roomId) {
+        if (roomId == null) {
+            return 0;
+        }
+        long now = System.currentTimeMillis();
+        tombstones.put(roomId, new Tombstone(cancelSequence.incrementAndGet(), now));
+        tombstones.values().removeIf(t -> now - t.createdAt() > TOMBSTONE_TTL_MS);
+
+        Set<Handle> handles = activeStreams.remove(roomId);
+        if (handles == null || handles.isEmpty()) {
+            return 0;
+        }
+
+        // 이미 완료된 응답은 제외
+        List<Handle> cancelled = new ArrayList<>(handles.size());
+        for (Handle handle : handles) {
+            if (handle.done.compareAndSet(false, true)) {
+                cancelled.add(handle);
+            }
+        }
+        if (cancelled.isEmpty()) {
+            return 0;
+        }
+
+        // 완료 콜백이 더 이상 발행/저장하지 않도록 표시한 뒤 AI 서버 호출을 끊음
+        try {
+            chatBot.cancel(roomId);
+        } catch (Exception e) {
+            log.warn("Failed to cancel bot call: roomId={}", roomId, e);
+        }
+
+        for (Handle handle : cancelled) {
+            try {
+                handle.onCancel.run();
+            } catch (Exception e) {
+                log.warn("Bot stream cancel callback failed: roomId={}", roomId, e);
+            }
+        }
+        log.info("▼ cancel. roomId:{}, cancelled:{}", roomId, cancelled.size());
+        return cancelled.size();
+    }
+
+    /**
+     * 진행 중인 응답 수 (모니터링용)
+     */
+    public int activeCount() {
+        int count = 0;
+        for (Set<Handle> handles : activeStreams.values()) {
+            count += handles.size();
+        }
+        return count;
+    }
+
+    private void unregister(Handle handle) {
+        activeStreams.computeIfPresent(handle.roomId, (k, handles) -> {
+            handles.remove(handle);
+            return handles.isEmpty() ? null : handles;
+        });
+    }
+
+    /**
+     * 등록된 응답 하나
+     */
+    public class Handle {
+        private final String roomId;
+        private final Runnable onCancel;
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        private Handle(String roomId, Runnable onCancel) {
+            this.roomId = roomId;
+            this.onCancel = onCancel;
+        }
+
+        /**
+         * 완료 또는 취소되었는지 여부 (등록 즉시 취소된 경우 true)
+         */
+        public boolean isCancelled() {
+            return done.get();
+        }
+
+        /**
+         * 정상 완료 처리 (등록 해제)
+         *
+         * @return false면 이미 취소된 응답이므로 호출 측은 발행/저장을 하지 않아야 함
+         */
+        public boolean complete() {
+            if (!done.compareAndSet(false, true)) {
+                return false;
+            }
+            unregister(this);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package aicc.chat.service;
+
+import aicc.chat.domain.persistence.ChatHistory;
+import aicc.chat.mapper.ChatHistoryMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 로컬 저널(ChatHistorySpillJournal)에 대피한 채팅 이력을 DB 회복 후 chat_history로 일괄 반영
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChatHistoryJournalReplayer {
+
+    private final ChatHistorySpillJournal spillJournal;
+    private final ChatHistoryMapper chatHistoryMapper;
+
+    @Value("${app.chat.history.journal.replay-batch-size:500}")
+    private int replayBatchSize; // 한 번의 INSERT로 반영할 최대 건수
+
+    /**
+     * 저널에 남은 레코드를 배치 단위로 DB에 반영합니다.
+     * DB 연결 오류면 이번 주기는 중단하고 다음 주기에 같은 위치부터 다시 시도합니다.
+     * 그 밖의 오류(일부 레코드가 거부됨)면 한 건씩 다시 넣고, 계속 실패하는 레코드는 dead-letter로 옮기고 넘어갑니다.
+     */
+    @Scheduled(fixedDelayString = "${app.chat.history.journal.replay-interval:5000}")
+    public void replay() {
+        if (!spillJournal.isEnabled() || !spillJournal.hasPending()) {
+            return;
+        }
+        log.info("▼ replay. Replaying spilled chat history to DB...");
+
+        long replayed = 0;
+        ChatHistorySpillJournal.Batch batch;
+        while ((batch = spillJournal.readBatch(replayBatchSize)) != null) {
+            List<ChatHistory> records = batch.getRecords();
+            try {
+                if (!records.isEmpty()) {
+                    chatHistoryMapper.insertChatHistoryBatch(records);
+                }
+            } catch (Exception e) {
+                if (ChatHistorySpillJournal.isDbUnavailable(e)) {
+                    log.warn("Journal replay failed, will retry later. replayed so far={}", replayed, e);
+                    spillJournal.markDbFailure();
+                    return;
+                }
+                log.warn("Journal batch rejected, replaying one by one. size={}", records.size(), e);
+                int done = replayOneByOne(batch);
+                replayed += done;
+                if (done < records.size()) {
+                    return; // 도중에 DB 연결 오류 - 반영된 건까지만 커밋됨
+                }
+                continue;
+            }
+            spillJournal.commit(batch);
+            replayed += records.size();
+        }
+
+        spillJournal.markDbRecovered();
+        log.info("Journal replay completed. replayed={}", replayed);
+    }
+
+    // 한 건씩 반영, 거부된 레코드는 dead-letter로. DB 연결 오류가 나면 그 앞까지 커밋하고 처리한 건수 반환
+    private int replayOneByOne(ChatHistorySpillJournal.Batch batch) {
+        List<ChatHistory> records = batch.getRecords();
+        for (int i = 0; i < records.size(); i++) {
+            ChatHistory record = records.get(i);
+            try {
+                chatHistoryMapper.insertChatHistory(record);
+            } catch (Exception e) {
+                if (ChatHistorySpillJournal.isDbUnavailable(e)) {
+                    log.warn("Journal replay interrupted by DB failure. committed={}/{}", i, records.size(), e);
+                    spillJournal.commit(batch, i);
+                    spillJournal.markDbFailure();
+                    return i;
+                }
+                log.error("Journal record rejected by DB, moved to dead letter: roomId={}", record.getRoomId(), e);
+                spillJournal.deadLetter(record, e);
+            }
+        }
+        spillJournal.commit(batch);
+        return records.size();
+    }
+}
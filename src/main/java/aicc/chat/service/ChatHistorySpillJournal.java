@@ -0,0 +1,505 @@
+package aicc.chat.service;
+
+import aicc.chat.domain.persistence.ChatHistory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.net.ConnectException;
+import java.nio.charset.StandardCharsets;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * DB 지연/장애 시 채팅 이력을 임시로 보관하는 로컬 저널 (append-only, memory-mapped)
+ *
+ * 세그먼트 파일 구조:
+ *  - [0..8)   readPos  : DB 반영이 끝난 위치 (재처리 커밋 위치)
+ *  - [8..16)  writePos : 다음 레코드를 기록할 위치
+ *  - [16.. )  레코드   : [int 길이][JSON 바이트] 반복
+ *
+ * 세그먼트가 가득 차면 다음 번호의 세그먼트를 만들고, 재처리가 끝난 이전 세그먼트는 삭제한다.
+ * 기록은 OS 페이지 캐시에 반영되므로 프로세스가 죽어도 남지만, 서버(OS) 장애까지 보장하려면 force()가 필요하다.
+ * 재처리는 at-least-once 이므로 DB 반영 직후 커밋 전에 프로세스가 종료되면 일부 레코드가 중복 저장될 수 있다.
+ *
+ * DB가 거부하는 레코드(제약 조건 위반, 길이 초과 등)와 해석할 수 없는 레코드는 dead-letter 파일
+ * (dead-letter.ndjson, 한 줄에 한 건)로 옮기고 건너뛰어, 한 건 때문에 재처리가 멈추지 않도록 한다.
+ * 길이 정보가 손상된 세그먼트의 나머지 부분은 .corrupt 파일로 격리한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChatHistorySpillJournal {
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.chat.history.journal.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.chat.history.journal.dir:./journal}")
+    private String journalDir;
+
+    @Value("${app.chat.history.journal.segment-size:67108864}")
+    private int segmentSize; // 세그먼트 크기 (기본 64MB)
+
+    @Value("${app.chat.history.journal.db-retry-after:5000}")
+    private long dbRetryAfter; // DB 실패 후 저장 경로에서 DB를 우회하는 시간 (밀리초)
+
+    private static final int HEADER_SIZE = 16;
+    private static final int READ_POS_OFFSET = 0;
+    private static final int WRITE_POS_OFFSET = 8;
+    private static final String SEGMENT_PREFIX = "chat-history-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final String DEAD_LETTER_FILE = "dead-letter.ndjson";
+    private static final String CORRUPT_SUFFIX = ".corrupt";
+
+    // 오래된 세그먼트가 앞, 현재 기록 중인 세그먼트가 뒤
+    private final Deque<Segment> segments = new ArrayDeque<>();
+
+    // DB 장애 감지 시 해당 시각까지 저장 경로에서 DB를 건너뛰고 바로 저널에 기록
+    private volatile long dbBypassUntil = 0;
+
+    @PostConstruct
+    // 저널 디렉터리의 기존 세그먼트를 열어 미처리 레코드를 이어서 재처리할 수 있도록 준비
+    public void open() throws IOException {
+        if (!enabled) {
+            log.info("▼ ChatHistorySpillJournal disabled");
+            return;
+        }
+        Path dir = Paths.get(journalDir);
+        Files.createDirectories(dir);
+
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(dir)) {
+            files = stream
+                    .filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                            && p.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted((a, b) -> Long.compare(sequenceOf(a), sequenceOf(b)))
+                    .toList();
+        }
+
+        synchronized (this) {
+            for (Path file : files) {
+                segments.addLast(Segment.open(file, sequenceOf(file), segmentSize));
+            }
+            if (segments.isEmpty()) {
+                segments.addLast(Segment.open(segmentPath(0), 0, segmentSize));
+            }
+        }
+        log.info("▼ ChatHistorySpillJournal opened. dir:{}, segments:{}, pending:{}", dir.toAbsolutePath(), segments.size(), hasPending());
+    }
+
+    @PreDestroy
+    // 종료 시 매핑된 버퍼를 디스크에 반영하고 채널을 닫음
+    public synchronized void close() {
+        for (Segment segment : segments) {
+            segment.close();
+        }
+        segments.clear();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 최근 DB 실패로 인해 저장 경로에서 DB를 우회해야 하는지 여부
+     */
+    public boolean isDbBypassed() {
+        return System.currentTimeMillis() < dbBypassUntil;
+    }
+
+    /**
+     * DB 저장 실패를 기록 (일정 시간 동안 저장 경로가 DB를 기다리지 않도록 함)
+     */
+    public void markDbFailure() {
+        dbBypassUntil = System.currentTimeMillis() + dbRetryAfter;
+    }
+
+    /**
+     * 재처리 성공 등으로 DB 회복이 확인된 경우 우회 해제
+     */
+    public void markDbRecovered() {
+        dbBypassUntil = 0;
+    }
+
+    /**
+     * DB에 연결할 수 없거나 일시적인 오류인지 여부 (재시도하면 성공할 수 있는 오류)
+     * 제약 조건 위반, 값 길이 초과 등 레코드 자체의 문제는 false - DB 장애로 보지 않는다.
+     */
+    public static boolean isDbUnavailable(Throwable error) {
+        for (Throwable e = error; e != null; e = e.getCause() == e ? null : e.getCause()) {
+            if (e instanceof TransientDataAccessException
+                    || e instanceof RecoverableDataAccessException
+                    || e instanceof DataAccessResourceFailureException // CannotGetJdbcConnectionException 포함
+                    || e instanceof SQLTransientException
+                    || e instanceof SQLRecoverableException
+                    || e instanceof ConnectException) {
+                return true;
+            }
+            if (e instanceof SQLException sqlException && isUnavailableSqlState(sqlException.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 08: 연결 오류, 53: 자원 부족(too many connections 등), 57P: 관리자에 의한 종료/재시작, 40: 교착 상태/직렬화 실패
+    private static boolean isUnavailableSqlState(String sqlState) {
+        return sqlState != null
+                && (sqlState.startsWith("08") || sqlState.startsWith("53")
+                        || sqlState.startsWith("57P") || sqlState.startsWith("40"));
+    }
+
+    /**
+     * DB가 거부한 레코드를 dead-letter 파일에 기록 (재처리 대상에서 제외)
+     */
+    public boolean deadLetter(ChatHistory chatHistory, Throwable error) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("failedAt", LocalDateTime.now().toString());
+        entry.put("error", errorMessage(error));
+        entry.put("record", chatHistory);
+        return writeDeadLetter(entry);
+    }
+
+    // 해석할 수 없는 저널 레코드는 원본 바이트를 그대로 보관
+    private boolean deadLetterRaw(byte[] payload, String reason) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("failedAt", LocalDateTime.now().toString());
+        entry.put("error", reason);
+        entry.put("raw", Base64.getEncoder().encodeToString(payload));
+        return writeDeadLetter(entry);
+    }
+
+    private synchronized boolean writeDeadLetter(Map<String, Object> entry) {
+        try (Writer writer = Files.newBufferedWriter(Paths.get(journalDir, DEAD_LETTER_FILE), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            writer.write(objectMapper.writeValueAsString(entry));
+            writer.write('\n');
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to write dead letter: {}", entry.get("error"), e);
+            return false;
+        }
+    }
+
+    private static String errorMessage(Throwable error) {
+        if (error == null) {
+            return null;
+        }
+        Throwable root = error;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root.getClass().getSimpleName() + ": " + root.getMessage();
+    }
+
+    /**
+     * 채팅 이력 한 건을 저널에 추가
+     *
+     * @return 기록 성공 여부
+     */
+    public boolean append(ChatHistory chatHistory) {
+        if (!enabled) {
+            return false;
+        }
+        try {
+            byte[] payload = objectMapper.writeValueAsBytes(chatHistory);
+            if (payload.length + Integer.BYTES > segmentSize - HEADER_SIZE) {
+                log.error("Journal record too large: roomId={}, size={}", chatHistory.getRoomId(), payload.length);
+                return false;
+            }
+            synchronized (this) {
+                Segment tail = segments.peekLast();
+                if (tail == null) {
+                    log.error("Journal is closed. roomId={}", chatHistory.getRoomId());
+                    return false;
+                }
+                if (tail.remaining() < payload.length + Integer.BYTES) {
+                    tail = roll(tail);
+                }
+                tail.append(payload);
+            }
+            log.warn("Chat history spilled to journal: roomId={}, sender={}", chatHistory.getRoomId(), chatHistory.getSenderName());
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to append chat history to journal: roomId={}", chatHistory.getRoomId(), e);
+            return false;
+        }
+    }
+
+    /**
+     * 재처리 대기 중인 레코드 존재 여부
+     */
+    public synchronized boolean hasPending() {
+        for (Segment segment : segments) {
+            if (segment.readPos() < segment.writePos()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 가장 오래된 세그먼트에서 최대 maxRecords 건을 읽음 (커밋 전까지 readPos는 이동하지 않음)
+     */
+    public synchronized Batch readBatch(int maxRecords) {
+        Segment head = segments.peekFirst();
+        if (head == null) {
+            return null;
+        }
+        // 앞 세그먼트가 모두 처리되었으면 정리 후 다음 세그먼트로
+        while (head.readPos() >= head.writePos() && head != segments.peekLast()) {
+            segments.pollFirst();
+            head.delete();
+            head = segments.peekFirst();
+        }
+
+        List<ChatHistory> records = new ArrayList<>();
+        List<Long> recordEnds = new ArrayList<>();
+        long pos = head.readPos();
+        long end = head.writePos();
+        while (pos < end && records.size() < maxRecords) {
+            // 길이 정보가 손상되었거나 기록이 중간에 끊긴 경우: 나머지 구간을 격리하고 세그먼트 끝으로 이동
+            int length = end - pos >= Integer.BYTES ? head.lengthAt(pos) : -1;
+            if (length <= 0 || length > end - pos - Integer.BYTES) {
+                log.error("Corrupted journal record length: segment={}, pos={}, length={}, writePos={}",
+                        head.sequence, pos, length, end);
+                quarantine(head, pos, end);
+                pos = end;
+                break;
+            }
+            byte[] payload = head.read(pos, length);
+            pos += Integer.BYTES + length;
+            try {
+                records.add(objectMapper.readValue(payload, ChatHistory.class));
+                recordEnds.add(pos);
+            } catch (IOException | RuntimeException e) {
+                // 해석할 수 없는 레코드는 dead-letter로 옮기고 건너뜀 (재처리를 막지 않도록)
+                log.error("Skipping corrupted journal record: segment={}, pos={}", head.sequence, pos, e);
+                deadLetterRaw(payload, "decode failed: " + errorMessage(e));
+            }
+        }
+        if (pos == head.readPos()) {
+            return null;
+        }
+        return new Batch(head, pos, records, recordEnds);
+    }
+
+    /**
+     * DB 반영이 끝난 배치를 커밋 (readPos 이동, 다 읽은 세그먼트 정리)
+     */
+    public synchronized void commit(Batch batch) {
+        commit(batch.segment, batch.endPos);
+    }
+
+    /**
+     * 배치의 앞쪽 count 건까지만 커밋 (건별 재처리 도중 DB가 다시 끊긴 경우 반영된 건까지 진행)
+     */
+    public synchronized void commit(Batch batch, int count) {
+        if (count <= 0) {
+            return;
+        }
+        if (count >= batch.records.size()) {
+            commit(batch);
+            return;
+        }
+        commit(batch.segment, batch.recordEnds.get(count - 1));
+    }
+
+    private void commit(Segment segment, long endPos) {
+        if (!segments.contains(segment)) {
+            return;
+        }
+        segment.setReadPos(endPos);
+        if (segment.readPos() >= segment.writePos()) {
+            if (segment == segments.peekLast()) {
+                // 현재 기록 중인 세그먼트는 삭제 대신 처음부터 재사용
+                segment.reset();
+            } else {
+                segments.remove(segment);
+                segment.delete();
+            }
+        }
+    }
+
+    // 세그먼트의 [from, to) 구간을 .corrupt 파일로 복사 (수동 확인용)
+    private void quarantine(Segment segment, long from, long to) {
+        Path target = Paths.get(journalDir, SEGMENT_PREFIX + String.format("%019d", segment.sequence) + "-" + from + CORRUPT_SUFFIX);
+        try {
+            Files.write(target, segment.bytes(from, to));
+            log.error("Quarantined corrupted journal tail: {} ({} bytes)", target, to - from);
+        } catch (Exception e) {
+            log.error("Failed to quarantine corrupted journal tail: segment={}, pos={}", segment.sequence, from, e);
+        }
+    }
+
+    // 현재 세그먼트를 닫고 다음 번호의 세그먼트를 생성
+    private Segment roll(Segment tail) throws IOException {
+        tail.force();
+        Segment next = Segment.open(segmentPath(tail.sequence + 1), tail.sequence + 1, segmentSize);
+        segments.addLast(next);
+        log.info("Journal segment rolled: {} -> {}", tail.sequence, next.sequence);
+        return next;
+    }
+
+    private Path segmentPath(long sequence) {
+        return Paths.get(journalDir, SEGMENT_PREFIX + String.format("%019d", sequence) + SEGMENT_SUFFIX);
+    }
+
+    private static long sequenceOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * readBatch 결과 (commit 시 사용)
+     */
+    public static class Batch {
+        private final Segment segment;
+        private final long endPos;
+        private final List<ChatHistory> records;
+        private final List<Long> recordEnds; // 레코드별 끝 위치 (부분 커밋용)
+
+        private Batch(Segment segment, long endPos, List<ChatHistory> records, List<Long> recordEnds) {
+            this.segment = segment;
+            this.endPos = endPos;
+            this.records = records;
+            this.recordEnds = recordEnds;
+        }
+
+        public List<ChatHistory> getRecords() {
+            return records;
+        }
+    }
+
+    /**
+     * memory-mapped 세그먼트 파일
+     */
+    private static class Segment {
+        private final long sequence;
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+
+        private Segment(long sequence, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.sequence = sequence;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        static Segment open(Path path, long sequence, int size) throws IOException {
+            boolean created = !Files.exists(path);
+            FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, channel.size()));
+            Segment segment = new Segment(sequence, path, channel, buffer);
+            if (created || segment.writePos() < HEADER_SIZE) {
+                segment.reset();
+            } else if (segment.writePos() > buffer.capacity()) {
+                // 헤더 손상: 기록 위치를 믿을 수 없으므로 파일 끝까지를 읽기 대상으로 보고 readBatch에서 길이 검증
+                log.error("Journal segment header corrupted: {}, writePos={}", path, segment.writePos());
+                buffer.putLong(WRITE_POS_OFFSET, buffer.capacity());
+            }
+            if (segment.readPos() < HEADER_SIZE || segment.readPos() > segment.writePos()) {
+                log.error("Journal segment read position corrupted: {}, readPos={}", path, segment.readPos());
+                segment.setReadPos(HEADER_SIZE);
+            }
+            return segment;
+        }
+
+        long readPos() {
+            return buffer.getLong(READ_POS_OFFSET);
+        }
+
+        long writePos() {
+            return buffer.getLong(WRITE_POS_OFFSET);
+        }
+
+        void setReadPos(long pos) {
+            buffer.putLong(READ_POS_OFFSET, pos);
+        }
+
+        long remaining() {
+            return buffer.capacity() - writePos();
+        }
+
+        // 레코드를 기록한 뒤 writePos를 갱신 (writePos가 마지막에 바뀌므로 기록 도중 종료되어도 레코드가 반쯤 보이지 않음)
+        void append(byte[] payload) {
+            int pos = (int) writePos();
+            buffer.putInt(pos, payload.length);
+            buffer.put(pos + Integer.BYTES, payload);
+            buffer.putLong(WRITE_POS_OFFSET, pos + Integer.BYTES + payload.length);
+        }
+
+        int lengthAt(long pos) {
+            return buffer.getInt((int) pos);
+        }
+
+        byte[] bytes(long from, long to) {
+            byte[] raw = new byte[(int) (to - from)];
+            buffer.get((int) from, raw);
+            return raw;
+        }
+
+        // 길이는 호출하는 쪽에서 writePos 범위 안인지 확인한 값
+        byte[] read(long pos, int length) {
+            byte[] payload = new byte[length];
+            buffer.get((int) pos + Integer.BYTES, payload);
+            return payload;
+        }
+
+        void reset() {
+            buffer.putLong(READ_POS_OFFSET, HEADER_SIZE);
+            buffer.putLong(WRITE_POS_OFFSET, HEADER_SIZE);
+        }
+
+        void force() {
+            buffer.force();
+        }
+
+        void close() {
+            try {
+                buffer.force();
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Failed to close journal segment: {}", path, e);
+            }
+        }
+
+        void delete() {
+            close();
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                log.warn("Failed to delete journal segment: {}", path, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package aicc.chat.service;
+
+import aicc.chat.service.inteface.RoomRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 비정상 종료된 서버의 웹소켓 세션 정리
+ *
+ *  - heartbeat-interval 마다 이 서버의 생존 키(chat:nodes:alive:{nodeId}, heartbeat-ttl)를 갱신
+ *  - 생존 키가 만료된 서버가 있으면 그 서버의 세션(chat:wssessions:node:{nodeId})을 묶음 단위로 삭제하고,
+ *    다른 서버에도 세션이 없는 사용자(인증되지 않은 세션은 세션ID)를 구독했던 방의 멤버에서 제거한 뒤 방 목록을 다시 알림
+ *  - 정리 잠금(chat:nodes:reaping:{nodeId})을 잡은 서버 하나만 정리하고, 서버 목록(chat:nodes)에서는 정리가 끝난 뒤 제거하므로
+ *    정리 도중 서버가 멈춰도 잠금 만료 후 다른 서버가 다시 정리한다.
+ *  - GC 등으로 멈췄던 서버가 살아 있는 채로 정리되었으면, 다음 생존 키 갱신 때 자기 세션과 방 멤버를 다시 등록한다.
+ *
+ * 세션 TTL(24시간)까지 기다리지 않고 heartbeat-ttl 안에 종료된 서버의 세션과 방 멤버가 정리된다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NodeSessionReaper {
+
+    private final WebSocketSessionService webSocketSessionService;
+    private final RoomRepository roomRepository;
+    private final RoomUpdateBroadcaster roomUpdateBroadcaster;
+
+    @Value("${app.chat.node.heartbeat-interval:10000}")
+    private long interval; // 생존 키 갱신 및 종료된 서버 확인 주기 (밀리초)
+
+    private ScheduledExecutorService worker;
+
+    @PostConstruct
+    public void start() {
+        webSocketSessionService.heartbeatNode();
+        worker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "node-session-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        worker.scheduleWithFixedDelay(this::tick, interval, interval, TimeUnit.MILLISECONDS);
+        log.info("▼ NodeSessionReaper started. nodeId:{}, interval:{}ms", webSocketSessionService.getNodeId(), interval);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (worker != null) {
+            worker.shutdownNow();
+        }
+        try {
+            webSocketSessionService.leaveNode();
+        } catch (Exception e) {
+            log.warn("Failed to remove node heartbeat: nodeId={}", webSocketSessionService.getNodeId(), e);
+        }
+    }
+
+    private void tick() {
+        try {
+            // 이 서버가 살아 있는 동안 정리되었다면 다시 등록한 세션의 방 멤버도 복구
+            Map<String, Set<String>> restored = webSocketSessionService.heartbeatNode();
+            restored.forEach((member, rooms) -> rooms.forEach(roomId -> roomRepository.addMember(roomId, member)));
+
+            boolean changed = !restored.isEmpty();
+            for (String deadNodeId : webSocketSessionService.findDeadNodes()) {
+                if (webSocketSessionService.reapNode(deadNodeId, roomRepository::removeMembers)) {
+                    changed = true;
+                }
+            }
+            if (changed) {
+                roomUpdateBroadcaster.broadcastRoomList();
+            }
+        } catch (Exception e) {
+            log.warn("Node session reaping failed", e);
+        }
+    }
+}
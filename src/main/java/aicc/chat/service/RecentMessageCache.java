@@ -0,0 +1,231 @@
+package aicc.chat.service;
+
+import aicc.chat.domain.persistence.ChatHistory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 채팅방별 최근 메시지 캐시 (Redis List, 최대 size 건 유지)
+ *
+ * Redis 키 구조:
+ *  - chat:room:{roomId}:recent           : 최근 메시지 JSON 목록 (오래된 것 → 최신 순)
+ *  - chat:room:{roomId}:recent:complete  : 목록이 방의 최신 구간을 빠짐없이 담고 있음을 나타내는 표시
+ *  - chat:room:{roomId}:recent:version   : 메시지가 추가될 때마다 증가 (DB 조회 도중 추가된 메시지 감지)
+ *
+ * 표시 키가 없으면(만료, 재기동 등) 목록을 신뢰하지 않고 DB에서 다시 채운다.
+ * 다시 채우기는 DB 조회 전에 읽은 version이 그대로이고 표시 키가 없을 때만 스크립트로 원자적으로 수행하여,
+ * 조회와 채우기 사이에 추가된 메시지를 지우지 않는다 (version이 바뀌었으면 채우지 않고 다음 조회에서 다시 시도).
+ * 목록 길이가 size보다 작으면 방의 전체 메시지가 캐시에 있는 것이고, size와 같으면 앞부분이 잘려 있을 수 있다.
+ *
+ * id가 없는 메시지(DB 장애로 저널에 대피된 메시지)는 beforeId 페이지 조회 기준이 될 수 없으므로 목록에 넣지 않고
+ * 표시 키를 지워, 저널 재처리 후 DB에서 id와 함께 다시 채우도록 한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RecentMessageCache {
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.chat.history.recent-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.chat.history.recent-cache.size:50}")
+    private int size; // 방별 최대 보관 건수
+
+    @Value("${app.chat.history.recent-cache.ttl:1800000}")
+    private long ttl; // 마지막 메시지 이후 캐시 유지 시간 (밀리초, 기본 30분)
+
+    private static final String ROOM_KEY_PREFIX = "chat:room:";
+
+    // 조건부 채우기: 표시 키가 없고 version이 DB 조회 전과 같을 때만 목록 교체 + 표시 키 설정
+    // KEYS: 목록, 표시 키, version / ARGV: 조회 전 version('' = 없음), ttl(밀리초), size, 메시지 JSON...
+    private static final RedisScript<Long> SEED_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[2]) == 1 then return 0 end "
+          + "local version = redis.call('GET', KEYS[3]) or '' "
+          + "if version ~= ARGV[1] then return 0 end "
+          + "redis.call('DEL', KEYS[1]) "
+          + "if #ARGV > 3 then "
+          + "  redis.call('RPUSH', KEYS[1], unpack(ARGV, 4)) "
+          + "  redis.call('LTRIM', KEYS[1], -tonumber(ARGV[3]), -1) "
+          + "  redis.call('PEXPIRE', KEYS[1], ARGV[2]) "
+          + "end "
+          + "redis.call('SET', KEYS[2], '1', 'PX', ARGV[2]) "
+          + "return 1",
+            Long.class);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * 새로 생성된 방: 메시지가 없는 상태 그대로가 완전한 캐시
+     */
+    public void markComplete(String roomId) {
+        if (!enabled || roomId == null) return;
+        try {
+            redisTemplate.opsForValue().set(completeKey(roomId), "1", Duration.ofMillis(ttl));
+        } catch (Exception e) {
+            log.warn("Failed to mark recent cache complete: roomId={}", roomId, e);
+        }
+    }
+
+    /**
+     * 저장된 메시지를 목록 끝에 추가하고 size 건으로 자름 (INCR + RPUSH + LTRIM + PEXPIRE 파이프라인)
+     * id가 없는 메시지(저널 대피)는 추가하지 않고 표시 키를 지워 다음 조회가 DB에서 다시 채우도록 한다.
+     */
+    public void append(ChatHistory chatHistory) {
+        if (!enabled || chatHistory == null || chatHistory.getRoomId() == null) return;
+        String roomId = chatHistory.getRoomId();
+        try {
+            String json = chatHistory.getId() != null ? objectMapper.writeValueAsString(chatHistory) : null;
+            String listKey = listKey(roomId);
+            String completeKey = completeKey(roomId);
+            String versionKey = versionKey(roomId);
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection conn = (StringRedisConnection) connection;
+                conn.incr(versionKey);
+                conn.pExpire(versionKey, ttl);
+                if (json == null) {
+                    conn.del(completeKey);
+                    return null;
+                }
+                conn.rPush(listKey, json);
+                conn.lTrim(listKey, -size, -1);
+                conn.pExpire(listKey, ttl);
+                conn.pExpire(completeKey, ttl);
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("Failed to append recent message cache: roomId={}", roomId, e);
+        }
+    }
+
+    /**
+     * 최근 limit 건 조회 (오래된 것 → 최신 순)
+     *
+     * @return 캐시만으로 응답할 수 없으면 null (DB 조회 필요)
+     */
+    public List<ChatHistory> getRecent(String roomId, int limit) {
+        if (!enabled || roomId == null || limit <= 0) return null;
+        try {
+            String listKey = listKey(roomId);
+            List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection conn = (StringRedisConnection) connection;
+                conn.exists(completeKey(roomId));
+                conn.lLen(listKey);
+                conn.lRange(listKey, -Math.min(limit, size), -1);
+                return null;
+            });
+
+            if (!Boolean.TRUE.equals(results.get(0))) {
+                return null; // 완전성 표시가 없으면 DB에서 다시 채워야 함
+            }
+            long length = results.get(1) != null ? (Long) results.get(1) : 0;
+            if (length < limit && length >= size) {
+                return null; // 잘린 목록보다 많은 건수를 요청 - DB로
+            }
+
+            @SuppressWarnings("unchecked")
+            List<String> values = (List<String>) results.get(2);
+            List<ChatHistory> recent = new ArrayList<>(values != null ? values.size() : 0);
+            if (values != null) {
+                // 채우기 직전에 저장된 메시지는 DB 조회 결과와 추가(append) 양쪽에 들어갈 수 있음 - id로 중복 제거
+                Set<Long> ids = new HashSet<>();
+                for (String value : values) {
+                    ChatHistory history = objectMapper.readValue(value, ChatHistory.class);
+                    if (history.getId() == null || ids.add(history.getId())) {
+                        recent.add(history);
+                    }
+                }
+            }
+            return recent;
+        } catch (Exception e) {
+            log.warn("Failed to read recent message cache: roomId={}", roomId, e);
+            return null;
+        }
+    }
+
+    /**
+     * 다시 채우기 전 DB 조회 직전에 읽어 두는 version (seed에 그대로 전달)
+     */
+    public String seedVersion(String roomId) {
+        if (!enabled || roomId == null) return null;
+        try {
+            String version = redisTemplate.opsForValue().get(versionKey(roomId));
+            return version != null ? version : "";
+        } catch (Exception e) {
+            log.warn("Failed to read recent message cache version: roomId={}", roomId, e);
+            return null;
+        }
+    }
+
+    /**
+     * DB에서 읽은 최근 메시지로 캐시를 다시 채움 (그 사이 메시지가 추가되었으면 채우지 않음)
+     *
+     * @param version    DB 조회 직전에 seedVersion으로 읽은 값 (null이면 채우지 않음)
+     * @param recentRows 오래된 것 → 최신 순, 최대 size 건
+     * @return 채웠는지 여부
+     */
+    public boolean seed(String roomId, String version, List<ChatHistory> recentRows) {
+        if (!enabled || roomId == null || version == null) return false;
+        try {
+            List<String> args = new ArrayList<>(recentRows.size() + 3);
+            args.add(version);
+            args.add(String.valueOf(ttl));
+            args.add(String.valueOf(size));
+            for (ChatHistory row : recentRows) {
+                args.add(objectMapper.writeValueAsString(row));
+            }
+            Long seeded = redisTemplate.execute(SEED_SCRIPT,
+                    List.of(listKey(roomId), completeKey(roomId), versionKey(roomId)), args.toArray());
+            return seeded != null && seeded == 1;
+        } catch (Exception e) {
+            log.warn("Failed to seed recent message cache: roomId={}", roomId, e);
+            return false;
+        }
+    }
+
+    /**
+     * 방의 캐시 삭제 (이력 삭제 시)
+     */
+    public void evict(String roomId) {
+        if (!enabled || roomId == null) return;
+        try {
+            redisTemplate.delete(List.of(listKey(roomId), completeKey(roomId), versionKey(roomId)));
+        } catch (Exception e) {
+            log.warn("Failed to evict recent message cache: roomId={}", roomId, e);
+        }
+    }
+
+    private static String listKey(String roomId) {
+        return ROOM_KEY_PREFIX + roomId + ":recent";
+    }
+
+    private static String completeKey(String roomId) {
+        return ROOM_KEY_PREFIX + roomId + ":recent:complete";
+    }
+
+    private static String versionKey(String roomId) {
+        return ROOM_KEY_PREFIX + roomId + ":recent:version";
+    }
+}
@@ -30,6 +30,7 @@ public class RoomCleanupService {
     private final MessageBroker messageBroker;
     private final ChatHistoryService chatHistoryService;
     private final ChatSessionService chatSessionService;
+    private final BotStreamRegistry botStreamRegistry;
 
     @Value("${app.chat.cleanup.idle-timeout:600000}")
     private long idleTimeout; // 유휴 타임아웃 (기본값: 10분)
@@ -54,6 +55,9 @@ public class RoomCleanupService {
                 log.info("Cleaning up idle room: {} (Idle for {} ms, timeout: {} ms)",
                         room.getRoomId(), idleTime, idleTimeout);
 
+                // 0. 생성 중인 챗봇 응답 중단
+                botStreamRegistry.cancel(room.getRoomId());
+
                 // 1. 고객에게 자동 종료 알림 메시지 전송
                 notifyRoomTimeout(room);
 
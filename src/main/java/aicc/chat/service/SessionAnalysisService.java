@@ -0,0 +1,225 @@
+package aicc.chat.service;
+
+import aicc.bot.michat.MiChatAnalysisClient;
+import aicc.chat.domain.persistence.ChatHistory;
+import aicc.chat.domain.persistence.ChatSessionAnalysis;
+import aicc.chat.mapper.ChatHistoryMapper;
+import aicc.chat.mapper.ChatSessionAnalysisMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 종료된 상담 분석 파이프라인 (요약 / 키워드 / 분류)
+ *
+ *  - 상담 종료(endSession) 시 chat_session_analysis에 PENDING 행을 추가 (DB가 대기열 역할, 서버 재기동에도 유지)
+ *  - 전용 스레드가 poll-interval 마다 batch-size 건을 가져와(SKIP LOCKED, 여러 서버 동시 실행 가능)
+ *    대화 이력을 한 번의 쿼리로 읽고, 분석 API를 최대 concurrency 건씩 동시에 호출한 뒤 결과를 저장
+ *  - 실패 시 retry-backoff 부터 두 배씩 늘려 재시도, max-attempts 를 넘거나 요청 오류(4xx)면 FAILED
+ *  - 처리 중 서버가 종료되어 RUNNING으로 남은 건은 lease 이후 다시 처리
+ *
+ * 채팅 처리 스레드와 분리된 전용 스레드에서만 동작하므로 분석이 실시간 상담을 느리게 하지 않는다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SessionAnalysisService {
+
+    private final ChatSessionAnalysisMapper analysisMapper;
+    private final ChatHistoryMapper chatHistoryMapper;
+    private final MiChatAnalysisClient analysisClient;
+
+    @Value("${app.ai-bot.analysis.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.ai-bot.analysis.batch-size:20}")
+    private int batchSize; // 한 번에 가져올 분석 건수
+
+    @Value("${app.ai-bot.analysis.poll-interval:5000}")
+    private long pollInterval; // 대기열 확인 주기 (밀리초)
+
+    @Value("${app.ai-bot.analysis.concurrency:4}")
+    private int concurrency; // 동시에 분석할 상담 수 (상담 한 건당 API 3건 동시 호출)
+
+    @Value("${app.ai-bot.analysis.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.ai-bot.analysis.retry-backoff:60000}")
+    private long retryBackoff; // 첫 재시도 대기 시간 (밀리초, 이후 두 배씩 증가)
+
+    @Value("${app.ai-bot.analysis.max-retry-backoff:3600000}")
+    private long maxRetryBackoff;
+
+    @Value("${app.ai-bot.analysis.lease:600000}")
+    private long lease; // 이 시간 이상 RUNNING으로 남은 건은 다시 처리 (밀리초)
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private ScheduledExecutorService worker;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("▼ SessionAnalysisService disabled");
+            return;
+        }
+        worker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "session-analysis");
+            thread.setDaemon(true);
+            return thread;
+        });
+        worker.scheduleWithFixedDelay(this::poll, pollInterval, pollInterval, TimeUnit.MILLISECONDS);
+        log.info("▼ SessionAnalysisService started. batch:{}, interval:{}ms, concurrency:{}, maxAttempts:{}",
+                batchSize, pollInterval, concurrency, maxAttempts);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (worker != null) {
+            worker.shutdownNow();
+        }
+    }
+
+    /**
+     * 종료된 상담을 분석 대기열에 추가
+     * 트랜잭션 안에서 호출되면 커밋 이후에 추가하여, 대기열 오류가 상담 종료 트랜잭션을 실패시키지 않도록 한다.
+     */
+    public void enqueue(String roomId) {
+        if (!enabled || roomId == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            insertPending(roomId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                insertPending(roomId);
+            }
+        });
+    }
+
+    private void insertPending(String roomId) {
+        try {
+            if (analysisMapper.insertPendingAnalysis(roomId) > 0) {
+                log.info("▼ enqueue. roomId:{}", roomId);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to enqueue session analysis: roomId={}", roomId, e);
+        }
+    }
+
+    // 대기열이 빌 때까지 batch 단위로 처리
+    private void poll() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                List<ChatSessionAnalysis> batch = analysisMapper.claimPendingAnalyses(batchSize, lease);
+                if (batch.isEmpty()) {
+                    return;
+                }
+                processBatch(batch);
+                if (batch.size() < batchSize) {
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            // 다음 주기에 다시 시도 (가져간 건은 lease 이후 재처리)
+            log.warn("Session analysis poll failed", e);
+        }
+    }
+
+    private void processBatch(List<ChatSessionAnalysis> batch) {
+        log.info("▼ processBatch. size:{}", batch.size());
+
+        // 배치에 포함된 모든 상담의 이력을 한 번에 조회 후 방별로 분리
+        List<String> roomIds = new ArrayList<>(batch.size());
+        for (ChatSessionAnalysis analysis : batch) {
+            roomIds.add(analysis.getRoomId());
+        }
+        Map<String, List<ChatHistory>> historyByRoom = new HashMap<>();
+        for (ChatHistory history : chatHistoryMapper.selectChatHistoryByRoomIds(roomIds)) {
+            historyByRoom.computeIfAbsent(history.getRoomId(), k -> new ArrayList<>()).add(history);
+        }
+
+        // 분석 API 호출은 비동기로 동시에, 결과 저장(DB)은 이 작업 스레드에서 순서대로
+        List<Outcome> outcomes = Flux.fromIterable(batch)
+                .flatMap(analysis -> {
+                    List<ChatHistory> history = historyByRoom.getOrDefault(analysis.getRoomId(), Collections.emptyList());
+                    if (history.isEmpty()) {
+                        return Mono.just(new Outcome(analysis, new MiChatAnalysisClient.Result(null, null, null, null), null));
+                    }
+                    return analysisClient.analyze(analysis.getRoomId(), analysis.getCompanyId(), analysis.getCustomerId(), history)
+                            .map(result -> new Outcome(analysis, result, null))
+                            .onErrorResume(error -> Mono.just(new Outcome(analysis, null, error)));
+                }, Math.max(1, concurrency))
+                .collectList()
+                .block();
+
+        if (outcomes == null) {
+            return;
+        }
+        for (Outcome outcome : outcomes) {
+            try {
+                if (outcome.error() == null) {
+                    saveResult(outcome.analysis(), outcome.result());
+                } else {
+                    saveFailure(outcome.analysis(), outcome.error());
+                }
+            } catch (Exception e) {
+                log.error("Failed to store session analysis: roomId={}", outcome.analysis().getRoomId(), e);
+            }
+        }
+    }
+
+    private void saveResult(ChatSessionAnalysis analysis, MiChatAnalysisClient.Result result) {
+        analysis.setSummary(result.summary());
+        analysis.setKeywords(result.keywords());
+        analysis.setCategory(result.category());
+        analysis.setRawResult(result.rawResult());
+        analysisMapper.updateAnalysisDone(analysis);
+        log.info("Session analysis completed: roomId={}, category={}", analysis.getRoomId(), result.category());
+    }
+
+    private void saveFailure(ChatSessionAnalysis analysis, Throwable error) {
+        String message = error.getClass().getSimpleName() + ": " + error.getMessage();
+        if (message.length() > MAX_ERROR_LENGTH) {
+            message = message.substring(0, MAX_ERROR_LENGTH);
+        }
+
+        // 요청 오류(4xx)는 다시 보내도 같은 결과이므로 재시도하지 않음
+        boolean giveUp = analysis.getAttempts() >= maxAttempts || MiChatAnalysisClient.isClientError(error);
+        if (giveUp) {
+            analysisMapper.updateAnalysisFailed(analysis.getId(), "FAILED", LocalDateTime.now(), message);
+            log.error("Session analysis failed: roomId={}, attempts={}, error={}", analysis.getRoomId(), analysis.getAttempts(), message);
+            return;
+        }
+
+        long backoff = retryBackoff << Math.min(analysis.getAttempts() - 1, 20);
+        backoff = Math.min(backoff, maxRetryBackoff);
+        analysisMapper.updateAnalysisFailed(analysis.getId(), "PENDING",
+                LocalDateTime.now().plusNanos(backoff * 1_000_000), message);
+        log.warn("Session analysis will retry: roomId={}, attempts={}, after={}ms, error={}",
+                analysis.getRoomId(), analysis.getAttempts(), backoff, message);
+    }
+
+    private record Outcome(ChatSessionAnalysis analysis, MiChatAnalysisClient.Result result, Throwable error) {
+    }
+}
@@ -1,31 +1,94 @@
 package aicc.chat.service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import aicc.chat.domain.UserInfo;
 import aicc.chat.domain.UserRole;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * 토큰 생성/검증
+ *
+ * 검증된 토큰은 토큰 해시(SHA-256) -> UserInfo 로 메모리에 보관하여 (최대 token-cache.max-size 건, 초과 시 만료된 것부터 대략적으로 제거)
+ * 상담원 화면의 반복 조회와 WebSocket 핸드셰이크마다 Base64/JSON 파싱을 반복하지 않는다.
+ *  - 발급: 로그인마다 jti(임의값)/iat/exp(token-ttl)를 넣어 같은 사용자라도 매번 다른 토큰을 발급 (exp가 지난 토큰은 검증 실패)
+ *  - 보관 기간: token-cache.ttl, 토큰에 exp가 있으면 exp 까지로 제한
+ *  - 폐기: 로그아웃 시 revokeToken 으로 Redis(chat:auth:revoked:{토큰 해시})에 기록, 토큰 만료 시각까지 모든 서버에서 검증 실패 처리
+ *    (exp가 없는 토큰은 revoked-ttl 동안, Redis 장애 시에는 서버 메모리에만 기록)
+ *    Redis 폐기 기록은 보관 중이 아닌 토큰을 검증할 때만 확인하고, 다른 서버에는 폐기 채널(chat.auth.revoked)로 알려 보관 중인 검증 결과를 지운다.
+ *  - 검증 실패한 토큰은 보관하지 않음
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class TokenService {
 
+    private static final String REVOKED_KEY_PREFIX = "chat:auth:revoked:";
+    public static final String REVOKED_CHANNEL = "chat.auth.revoked"; // 폐기 알림 ("{토큰 해시}:{폐기 유지 만료 시각}")
+
+    // 발급 토큰에 추가하는 클레임 (UserInfo 필드가 아님)
+    private static final String CLAIM_JTI = "jti";
+    private static final String CLAIM_IAT = "iat";
+    private static final String CLAIM_EXP = "exp";
+
     private final ObjectMapper objectMapper;
+    private final StringRedisTemplate redisTemplate;
+
+    @Value("${app.auth.token-cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    @Value("${app.auth.token-cache.max-size:10000}")
+    private int cacheMaxSize;
+
+    @Value("${app.auth.token-cache.ttl:600000}")
+    private long cacheTtl; // 검증 결과 보관 시간 (밀리초)
+
+    @Value("${app.auth.token-ttl:86400000}")
+    private long tokenTtl; // 발급 토큰 유효 시간 (밀리초)
+
+    @Value("${app.auth.revoked-ttl:86400000}")
+    private long revokedTtl; // exp가 없는 토큰의 폐기 유지 시간 (밀리초)
+
+    // 토큰 해시 -> 검증 결과 (초과 시 evictIfFull 에서 정리)
+    private final Map<String, CachedToken> tokenCache = new ConcurrentHashMap<>();
+
+    // 폐기된 토큰 해시 -> 폐기 유지 만료 시각 (Redis 기록 실패 시 대체 및 같은 서버 즉시 반영용)
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+
+    // 정리 작업은 한 스레드만 수행
+    private final AtomicBoolean evicting = new AtomicBoolean();
 
     public String generateToken(UserInfo userInfo) {
         log.info("▼ generateToken");
-        // UserInfo를 Base64 JSON 토큰으로 생성
+        // UserInfo + jti/iat/exp 를 Base64 JSON 토큰으로 생성
         try {
-            String json = objectMapper.writeValueAsString(userInfo);
-            return Base64.getEncoder().encodeToString(json.getBytes());
+            long now = System.currentTimeMillis() / 1000;
+            ObjectNode claims = objectMapper.valueToTree(userInfo);
+            claims.remove("token");
+            claims.put(CLAIM_JTI, UUID.randomUUID().toString());
+            claims.put(CLAIM_IAT, now);
+            claims.put(CLAIM_EXP, now + tokenTtl / 1000);
+            String json = objectMapper.writeValueAsString(claims);
+            return Base64.getEncoder().encodeToString(json.getBytes(StandardCharsets.UTF_8));
         } catch (Exception e) {
             log.error("Token generation failed", e);
             return UUID.randomUUID().toString();
@@ -38,6 +101,146 @@ public class TokenService {
         if (token == null || token.isEmpty())
             return null;
 
+        String key = hashOf(token);
+        long now = System.currentTimeMillis();
+        // 보관 중이면 메모리만 확인 (다른 서버의 폐기는 폐기 채널로 전달되어 보관 항목이 지워짐)
+        CachedToken cached = cacheEnabled ? tokenCache.get(key) : null;
+        if (cached != null) {
+            if (!cached.isExpired(now) && !isRevokedLocally(key, now)) {
+                return copyOf(cached.userInfo);
+            }
+            tokenCache.remove(key, cached);
+        }
+        if (isRevoked(key, now)) {
+            log.warn("Revoked token provided");
+            return null;
+        }
+
+        UserInfo userInfo = parseToken(token);
+        if (userInfo == null) {
+            return null;
+        }
+
+        if (!cacheEnabled) {
+            return userInfo;
+        }
+        Long exp = tokenExpiresAt(token);
+        long expiresAt = exp != null ? Math.min(exp, now + cacheTtl) : now + cacheTtl;
+        if (expiresAt > now) {
+            tokenCache.put(key, new CachedToken(copyOf(userInfo), expiresAt));
+            // 파싱하는 동안 폐기된 경우 보관하지 않음
+            if (revokedTokens.containsKey(key)) {
+                tokenCache.remove(key);
+            }
+            evictIfFull(now);
+        }
+        return userInfo;
+    }
+
+    /**
+     * 토큰 폐기 (로그아웃) - 보관 중인 검증 결과를 지우고 토큰 만료 시각까지 모든 서버에서 검증 요청을 거부
+     */
+    public void revokeToken(String token) {
+        log.info("▼ revokeToken");
+        if (token == null || token.isEmpty()) {
+            return;
+        }
+        String key = hashOf(token);
+        long now = System.currentTimeMillis();
+        Long exp = tokenExpiresAt(token);
+        long revokedUntil = exp != null ? exp : now + revokedTtl;
+        if (revokedUntil <= now) {
+            tokenCache.remove(key);
+            return; // 이미 만료된 토큰
+        }
+        markRevoked(key, revokedUntil, now);
+        try {
+            redisTemplate.opsForValue().set(REVOKED_KEY_PREFIX + key, "1", Duration.ofMillis(revokedUntil - now));
+            redisTemplate.convertAndSend(REVOKED_CHANNEL, key + ":" + revokedUntil);
+        } catch (Exception e) {
+            log.error("Failed to record revoked token in Redis, revoked on this server only", e);
+        }
+    }
+
+    /**
+     * 다른 서버의 폐기 알림 처리 - 보관 중인 검증 결과를 지우고 이 서버 메모리에도 폐기 기록
+     *
+     * @param message "{토큰 해시}:{폐기 유지 만료 시각}"
+     */
+    public void onTokenRevoked(String message) {
+        int sep = message.lastIndexOf(':');
+        if (sep <= 0) {
+            return;
+        }
+        String key = message.substring(0, sep);
+        long revokedUntil;
+        try {
+            revokedUntil = Long.parseLong(message.substring(sep + 1));
+        } catch (NumberFormatException e) {
+            log.warn("Invalid token revoke message: {}", message);
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (revokedUntil > now) {
+            markRevoked(key, revokedUntil, now);
+        } else {
+            tokenCache.remove(key);
+        }
+    }
+
+    private void markRevoked(String key, long revokedUntil, long now) {
+        if (revokedTokens.size() >= cacheMaxSize) {
+            revokedTokens.values().removeIf(until -> until <= now);
+        }
+        revokedTokens.put(key, revokedUntil);
+        tokenCache.remove(key);
+    }
+
+    // 서버 메모리의 폐기 기록 확인 (이 서버에서 폐기했거나 폐기 채널로 전달받은 토큰)
+    private boolean isRevokedLocally(String key, long now) {
+        Long revokedUntil = revokedTokens.get(key);
+        if (revokedUntil != null) {
+            if (revokedUntil > now) {
+                return true;
+            }
+            revokedTokens.remove(key, revokedUntil);
+        }
+        return false;
+    }
+
+    // 폐기 여부 - 서버 메모리 확인 후 Redis 확인 (보관 중이 아닌 토큰만, 폐기 알림을 놓친 경우 대비)
+    private boolean isRevoked(String key, long now) {
+        if (isRevokedLocally(key, now)) {
+            return true;
+        }
+        try {
+            return Boolean.TRUE.equals(redisTemplate.hasKey(REVOKED_KEY_PREFIX + key));
+        } catch (Exception e) {
+            log.warn("Failed to check revoked token in Redis: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    // 보관 건수 초과 시 만료된 항목부터 제거하고, 그래도 초과하면 임의 항목을 한도의 90%까지 제거
+    private void evictIfFull(long now) {
+        if (tokenCache.size() <= cacheMaxSize || !evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            tokenCache.values().removeIf(cached -> cached.isExpired(now));
+            revokedTokens.values().removeIf(revokedUntil -> revokedUntil <= now);
+            int target = cacheMaxSize - cacheMaxSize / 10;
+            Iterator<CachedToken> it = tokenCache.values().iterator();
+            while (tokenCache.size() > target && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private UserInfo parseToken(String token) {
         try {
             // 1. JWT 토큰 처리 (ey... 로 시작)
             if (token.startsWith("ey") && token.contains(".")) {
@@ -46,10 +249,21 @@ public class TokenService {
             }
 
             log.info("[TokenService] Non-JWT token detected (Base64)");
-            // 2. 기존의 단순 Base64 JSON 토큰 처리
+            // 2. 기존의 단순 Base64 JSON 토큰 처리 (발급 클레임은 제거하고 UserInfo로 변환, exp가 지났으면 거부)
             byte[] decodedBytes = Base64.getDecoder().decode(token);
-            String json = new String(decodedBytes);
-            UserInfo userInfo = objectMapper.readValue(json, UserInfo.class);
+            JsonNode json = objectMapper.readTree(decodedBytes);
+            if (!json.isObject()) {
+                return null;
+            }
+            ObjectNode claims = (ObjectNode) json;
+            JsonNode exp = claims.remove(CLAIM_EXP);
+            if (exp != null && exp.canConvertToLong() && exp.asLong() * 1000 <= System.currentTimeMillis()) {
+                log.warn("Expired token provided");
+                return null;
+            }
+            claims.remove(CLAIM_JTI);
+            claims.remove(CLAIM_IAT);
+            UserInfo userInfo = objectMapper.treeToValue(claims, UserInfo.class);
             userInfo.setToken(token);
             return userInfo;
         } catch (Exception e) {
@@ -136,5 +350,58 @@ public class TokenService {
             return null;
         }
     }
-}
 
+    // 토큰 exp 클레임(초)을 밀리초로 반환 (JWT payload 또는 Base64 JSON, exp가 없으면 null)
+    private Long tokenExpiresAt(String token) {
+        try {
+            byte[] payload;
+            if (token.startsWith("ey") && token.contains(".")) {
+                String[] parts = token.split("\\.");
+                if (parts.length < 2) return null;
+                payload = Base64.getUrlDecoder().decode(parts[1]);
+            } else {
+                payload = Base64.getDecoder().decode(token);
+            }
+            JsonNode exp = objectMapper.readTree(payload).get(CLAIM_EXP);
+            return exp != null && exp.canConvertToLong() ? exp.asLong() * 1000 : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static String hashOf(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // 보관 중인 값이 호출 측에서 변경되지 않도록 복사본을 사용
+    private static UserInfo copyOf(UserInfo userInfo) {
+        return UserInfo.builder()
+                .userId(userInfo.getUserId())
+                .userName(userInfo.getUserName())
+                .role(userInfo.getRole())
+                .email(userInfo.getEmail())
+                .token(userInfo.getToken())
+                .roomId(userInfo.getRoomId())
+                .companyId(userInfo.getCompanyId())
+                .build();
+    }
+
+    private static class CachedToken {
+        private final UserInfo userInfo;
+        private final long expiresAt;
+
+        private CachedToken(UserInfo userInfo, long expiresAt) {
+            this.userInfo = userInfo;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
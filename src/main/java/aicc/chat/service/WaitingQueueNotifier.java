@@ -0,0 +1,214 @@
+package aicc.chat.service;
+
+import aicc.chat.domain.ChatMessage;
+import aicc.chat.domain.MessageType;
+import aicc.chat.domain.UserRole;
+import aicc.chat.service.inteface.MessageBroker;
+import aicc.chat.service.inteface.RoomRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 상담원 연결 대기 고객에게 대기 순서와 예상 대기 시간 안내 (WAITING_QUEUE 메시지)
+ *
+ *  - 대기열(chat:rooms:waiting)이 바뀌었을 때만(통계의 version 비교) 대기열을 읽고,
+ *    순서가 바뀐 방에만 전송한다. 대기열이 그대로면 주기마다 HMGET 한 번만 수행한다.
+ *  - 대기열 전체는 tail-refresh-interval 마다 한 번만 읽는다. 그 사이 변경 시에는
+ *      앞쪽 coarse-after 건(순서가 정확히 안내되는 구간)과 새로 들어온 방(대기 시작 시각 기준, 대기열 끝)만 읽고,
+ *      뒤쪽 방의 순서 변경(coarse-step 단위)은 다음 전체 읽기에서 반영한다.
+ *  - 예상 대기 시간 = 순서 x (배정 시 대기 시간 EWMA / 배정 시 대기열 길이 EWMA)
+ *    (리틀의 법칙: 평균 대기 시간 / 평균 대기열 길이 = 한 명이 빠지는 평균 간격)
+ *  - coarse-after 보다 뒤쪽 순서는 coarse-step 단위로 올림하여, 값이 바뀔 때만 전송 (대기 고객이 많을 때 전송량 제한)
+ *  - 한 번에 한 서버만 전송 (Redis 잠금, 잠금 서버가 종료되면 lock-ttl 이후 다른 서버가 이어받음)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WaitingQueueNotifier {
+
+    private final RoomRepository roomRepository;
+    private final MessageBroker messageBroker;
+    private final StringRedisTemplate redisTemplate;
+
+    @Value("${app.chat.waiting-queue.notify-enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.chat.waiting-queue.notify-interval:1000}")
+    private long interval; // 대기열 변경 확인 주기 (밀리초)
+
+    @Value("${app.chat.waiting-queue.coarse-after:100}")
+    private int coarseAfter;
+
+    @Value("${app.chat.waiting-queue.coarse-step:10}")
+    private int coarseStep;
+
+    @Value("${app.chat.waiting-queue.lock-ttl:5000}")
+    private long lockTtl;
+
+    @Value("${app.chat.waiting-queue.tail-refresh-interval:10000}")
+    private long tailRefreshInterval; // coarse-after 보다 뒤쪽 방의 순서를 다시 안내하는 주기 (밀리초)
+
+    private static final String LOCK_KEY = "chat:rooms:waiting:notify:lock";
+
+    // 잠금 연장: 자신이 잡은 잠금일 때만 (확인과 연장 사이에 만료되어 다른 서버가 잡은 잠금을 연장하지 않도록 원자적으로 처리)
+    // KEYS: 잠금 키 / ARGV: 서버 식별자, 유지 시간(밀리초)
+    private static final RedisScript<Long> EXTEND_LOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('PEXPIRE', KEYS[1], ARGV[2]) end "
+          + "return 0", Long.class);
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    // roomId -> 마지막으로 안내한 순서 (작업 스레드에서만 사용)
+    private final Map<String, Integer> notified = new HashMap<>();
+    private long lastVersion = -1;
+    private long lastTailRefresh; // 대기열 전체를 마지막으로 읽은 시각
+    private long lastCheckAt;     // 대기열을 마지막으로 읽은 시각 (새로 들어온 방 조회 기준)
+
+    private ScheduledExecutorService worker;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("▼ WaitingQueueNotifier disabled");
+            return;
+        }
+        worker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "waiting-queue-notifier");
+            thread.setDaemon(true);
+            return thread;
+        });
+        worker.scheduleWithFixedDelay(this::checkQueue, interval, interval, TimeUnit.MILLISECONDS);
+        log.info("▼ WaitingQueueNotifier started. interval:{}ms, coarseAfter:{}, coarseStep:{}", interval, coarseAfter, coarseStep);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (worker != null) {
+            worker.shutdownNow();
+        }
+    }
+
+    private void checkQueue() {
+        try {
+            if (!holdLock()) {
+                // 다른 서버가 안내 중 - 다시 맡게 되면 처음부터 안내
+                notified.clear();
+                lastVersion = -1;
+                lastTailRefresh = 0;
+                return;
+            }
+
+            RoomRepository.WaitingQueueStats stats = roomRepository.getWaitingQueueStats();
+            if (stats.version() == lastVersion) {
+                return;
+            }
+
+            long now = System.currentTimeMillis();
+            lastVersion = stats.version();
+            double interArrival = stats.averageLength() > 0 ? stats.averageWait() / stats.averageLength() : 0;
+            long count = roomRepository.getWaitingCount();
+
+            // 1. 앞쪽은 변경될 때마다 읽어 정확한 순서 안내
+            List<String> head = coarseAfter > 0 ? roomRepository.getWaitingRooms(coarseAfter) : List.of();
+            Set<String> current = new HashSet<>(head);
+            for (int i = 0; i < head.size(); i++) {
+                notifyIfChanged(head.get(i), i + 1, interArrival);
+            }
+            // 대기열은 앞으로만 이동하므로 앞쪽에서 안내했던 방이 앞쪽에 없으면 대기열에서 빠진 방
+            notified.entrySet().removeIf(e -> e.getValue() <= coarseAfter && !current.contains(e.getKey()));
+
+            if (count > head.size()) {
+                if (now - lastTailRefresh >= tailRefreshInterval) {
+                    // 2. 뒤쪽 전체는 tail-refresh-interval 마다 한 번만 읽음 (표시 순서가 바뀐 방만 전송)
+                    List<String> tail = roomRepository.getWaitingRooms(head.size(), 0);
+                    for (int i = 0; i < tail.size(); i++) {
+                        notifyIfChanged(tail.get(i), head.size() + i + 1, interArrival);
+                    }
+                    current.addAll(tail);
+                    notified.keySet().retainAll(current);
+                    lastTailRefresh = now;
+                } else {
+                    // 3. 그 사이에는 새로 들어온 방에만 첫 안내 (대기열 끝에 추가되므로 끝에서부터 순서 계산)
+                    //    서버 간 시각 차이를 고려해 한 주기 앞부터 조회, 이미 안내한 방은 제외
+                    List<String> arrivals = roomRepository.getWaitingRoomsSince(lastCheckAt - interval);
+                    for (int i = 0; i < arrivals.size(); i++) {
+                        String roomId = arrivals.get(i);
+                        long position = count - (arrivals.size() - i) + 1;
+                        if (!notified.containsKey(roomId) && position > head.size()) {
+                            notifyIfChanged(roomId, (int) position, interArrival);
+                        }
+                    }
+                }
+            } else {
+                notified.keySet().retainAll(current);
+            }
+            lastCheckAt = now;
+        } catch (Exception e) {
+            log.warn("Waiting queue notification failed", e);
+        }
+    }
+
+    // 표시 순서가 마지막 안내와 다를 때만 전송
+    private void notifyIfChanged(String roomId, int rank, double interArrival) {
+        int position = displayPosition(rank);
+        Integer previous = notified.put(roomId, position);
+        if (previous == null || previous != position) {
+            publish(roomId, position, rank > coarseAfter, Math.round(position * interArrival));
+        }
+    }
+
+    // 뒤쪽 순서는 coarse-step 단위로 올림
+    private int displayPosition(int position) {
+        if (position <= coarseAfter || coarseStep <= 1) {
+            return position;
+        }
+        return (position + coarseStep - 1) / coarseStep * coarseStep;
+    }
+
+    private void publish(String roomId, int position, boolean approximate, long expectedWait) {
+        StringBuilder text = new StringBuilder("상담원 연결 대기 순서: ")
+                .append(approximate ? "약 " : "")
+                .append(position)
+                .append("번째");
+        if (expectedWait > 0) {
+            long minutes = Math.max(1, (expectedWait + 59_999) / 60_000);
+            text.append(" (예상 대기 시간: 약 ").append(minutes).append("분)");
+        }
+        messageBroker.publish(ChatMessage.builder()
+                .roomId(roomId)
+                .sender("System")
+                .senderRole(UserRole.SYSTEM)
+                .message(text.toString())
+                .type(MessageType.WAITING_QUEUE)
+                .timestamp(LocalDateTime.now())
+                .build());
+    }
+
+    // 안내 담당 서버 잠금 획득 또는 연장
+    private boolean holdLock() {
+        if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(LOCK_KEY, nodeId, Duration.ofMillis(lockTtl)))) {
+            return true;
+        }
+        Long extended = redisTemplate.execute(EXTEND_LOCK_SCRIPT, List.of(LOCK_KEY), nodeId, String.valueOf(lockTtl));
+        return extended != null && extended == 1L;
+    }
+}
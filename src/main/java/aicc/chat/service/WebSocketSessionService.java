@@ -1,16 +1,48 @@
 package aicc.chat.service;
 
+import aicc.chat.domain.UserRole;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * WebSocket 세션ID와 사용자ID 매핑을 Redis에 저장/관리하는 서비스
+ *
+ * 연결/해제가 몰릴 때(배포 직후 재연결 등) Redis 왕복이 병목이 되지 않도록
+ * 등록은 파이프라인 한 번, 해제는 이 서버의 세션 정보(localSessions)로 키를 만들어 스크립트 한 번,
+ * TTL 갱신은 세션 정보 조회 후 스크립트 한 번으로 처리한다.
+ * 스크립트가 다루는 키는 모두 KEYS로 전달한다 (스크립트 안에서 키 이름을 만들지 않음).
+ *
+ * 세션마다 연결된 서버(nodeId)와 구독한 방을 함께 기록하고, 서버는 주기적으로 생존 키를 갱신한다 (NodeSessionReaper).
+ * 서버가 비정상 종료되면 생존 키가 만료되고, 다른 서버가 그 서버의 세션과 방 멤버 정보를 한 번에 정리한다.
+ * 이 서버에 연결된 세션은 메모리(localSessions)에도 보관하여, GC 등으로 생존 키 갱신이 늦어 다른 서버가 정리해 버린 경우
+ * 다음 생존 키 갱신 때 Redis에 다시 등록한다.
  */
 @Slf4j
 @Service
@@ -19,103 +51,203 @@ public class WebSocketSessionService {
 
     private final StringRedisTemplate redisTemplate;
 
+    @Value("${app.chat.node.id:}")
+    private String nodeIdPrefix; // 서버 식별자 접두어 (없으면 호스트명), 재기동 시 이전 세션과 구분되도록 실행마다 고유값을 붙임
+
+    @Value("${app.chat.node.heartbeat-ttl:30000}")
+    private long nodeTtl; // 서버 생존 키 유지 시간 (밀리초, 이 시간 동안 갱신이 없으면 종료된 서버로 보고 세션 정리)
+
+    private String nodeId;
+
+    // 이 서버에 연결된 세션 (sessionId -> 사용자/역할/구독한 방), 정리된 세션 복구용
+    private final Map<String, LocalSession> localSessions = new ConcurrentHashMap<>();
+
     // Redis 키 구조
-    private static final String WS_SESSION_TO_USER_PREFIX  = "chat:wssession:";     // sessionId -> userId 매핑
+    private static final String WS_SESSION_PREFIX          = "chat:wssession:info:"; // sessionId -> Hash(userId, role, node)
+    private static final String WS_SESSION_ROOMS_PREFIX    = "chat:wssession:rooms:"; // sessionId -> Set<roomId> (구독한 방)
     private static final String WS_USER_TO_SESSIONS_PREFIX = "chat:wsuser:";        // userId -> Set<sessionId> 매핑
     private static final String WS_ALL_SESSIONS_KEY        = "chat:wssessions:all"; // 모든 활성 세션 Set
+    private static final String WS_NODE_SESSIONS_PREFIX    = "chat:wssessions:node:"; // nodeId -> Set<sessionId>
+    private static final String WS_ROLE_SESSIONS_PREFIX    = "chat:wssessions:role:"; // role -> Set<sessionId>
+    private static final String NODES_KEY                  = "chat:nodes";          // 세션을 가진 서버 Set
+    private static final String NODE_ALIVE_PREFIX          = "chat:nodes:alive:";   // nodeId -> 생존 키 (TTL)
+    private static final String NODE_REAP_LOCK_PREFIX      = "chat:nodes:reaping:"; // nodeId -> 정리 중인 서버 (TTL)
 
     // TTL 설정 (기본 24시간)
     private static final long SESSION_TTL_HOURS = 24;
+    private static final long SESSION_TTL_MILLIS = TimeUnit.HOURS.toMillis(SESSION_TTL_HOURS);
+
+    private static final String FIELD_USER_ID = "userId";
+    private static final String FIELD_ROLE    = "role";
+    private static final String FIELD_NODE    = "node";
+
+    private static final int REAP_BATCH_SIZE = 500;
+    private static final long REAP_LOCK_TTL_MILLIS = TimeUnit.MINUTES.toMillis(1); // 정리 중 서버가 멈추면 이 시간 뒤 다른 서버가 다시 정리
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    // 스크립트가 다루는 키는 모두 KEYS로 전달 (키 이름을 스크립트 안에서 만들지 않음)
+    // 사용자/서버/역할 세션 Set 키는 세션 Hash를 먼저 읽어 Java에서 만든다.
+
+    // 세션 해제: 구독 방 조회 + 세션 Hash/구독 방 Set 삭제 + 전체/사용자/서버/역할 세션 Set에서 제거
+    // (마지막 세션이 제거된 사용자 Set은 Redis가 자동 삭제)
+    // KEYS: 세션 Hash, 구독 방 Set, 세션을 제거할 Set... / ARGV: sessionId / 반환: 구독했던 방 목록
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> UNREGISTER_SCRIPT = new DefaultRedisScript<>(
+            "local rooms = redis.call('SMEMBERS', KEYS[2]) "
+          + "redis.call('DEL', KEYS[1], KEYS[2]) "
+          + "for i = 3, #KEYS do redis.call('SREM', KEYS[i], ARGV[1]) end "
+          + "return rooms",
+            List.class);
+
+    // 세션 TTL 갱신: 세션 Hash와 사용자 세션 Set의 TTL을 함께 연장 (세션이 이미 해제되었으면 연장하지 않음)
+    // KEYS: 세션 Hash, 사용자 세션 Set / ARGV: TTL(밀리초)
+    private static final RedisScript<Long> REFRESH_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('PEXPIRE', KEYS[1], ARGV[1]) == 0 then return 0 end "
+          + "redis.call('PEXPIRE', KEYS[2], ARGV[1]) "
+          + "return 1",
+            Long.class);
+
+    // 정리 잠금 해제: 자신이 잡은 잠금일 때만 삭제
+    // KEYS: 잠금 키 / ARGV: 서버 식별자
+    private static final RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end "
+          + "return 0",
+            Long.class);
+
+    @PostConstruct
+    public void initNodeId() {
+        String prefix = nodeIdPrefix;
+        if (prefix == null || prefix.isBlank()) {
+            try {
+                prefix = InetAddress.getLocalHost().getHostName();
+            } catch (Exception e) {
+                prefix = "node";
+            }
+        }
+        nodeId = prefix + "-" + UUID.randomUUID().toString().substring(0, 8);
+        log.info("▼ initNodeId. nodeId:{}", nodeId);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
 
     /**
      * 웹소켓 연결 시 세션ID와 사용자ID를 Redis에 저장
+     * 인증되지 않은 세션(userId 없음)은 사용자/전체 세션 Set에는 넣지 않고 서버별 세션 Set에만 등록하여, 서버 비정상 종료 시 세션ID로 추가된 방 멤버를 정리할 수 있게 한다.
      *
      * @param sessionId WebSocket 세션 ID
-     * @param userId 사용자 ID
+     * @param userId 사용자 ID (인증되지 않은 세션이면 null)
      * @param userRole 사용자 역할 (CUSTOMER, AGENT 등)
      */
     public void registerSession(String sessionId, String userId, String userRole) {
         log.info("▼ registerSession called. broadcastRoomList. sessionId:{}, userId:{}, userRole:{}", sessionId, userId, userRole);
-        if (sessionId == null || userId == null) {
-            log.warn("sessionId 또는 userId가 null입니다. 등록하지 않습니다.");
+        if (sessionId == null) {
+            log.warn("sessionId가 null입니다. 등록하지 않습니다.");
             return;
         }
 
         log.info("WebSocket 세션 등록 - sessionId: {}, userId: {}, role: {}", sessionId, userId, userRole);
 
         try {
-            // 1. sessionId -> userId 매핑 저장
-            String sessionKey = WS_SESSION_TO_USER_PREFIX + sessionId;
-            redisTemplate.opsForValue().set(sessionKey, userId, SESSION_TTL_HOURS, TimeUnit.HOURS);
-
-            // 2. userId -> sessionId 매핑 (Set)에 추가
-            String userSessionsKey = WS_USER_TO_SESSIONS_PREFIX + userId;
-            redisTemplate.opsForSet().add(userSessionsKey, sessionId);
-            redisTemplate.expire(userSessionsKey, SESSION_TTL_HOURS, TimeUnit.HOURS);
+            LocalSession session = new LocalSession(userId, userRole, ConcurrentHashMap.newKeySet());
+            localSessions.put(sessionId, session);
 
-            // 3. 전체 활성 세션 Set에 추가
-            redisTemplate.opsForSet().add(WS_ALL_SESSIONS_KEY, sessionId);
+            // 세션 정보(Hash), 사용자/서버/전체 세션 Set을 한 번의 왕복으로 저장
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                writeSession((StringRedisConnection) connection, sessionId, session);
+                return null;
+            });
 
-            // 4. 역할 정보 저장 (옵션)
-            if (userRole != null) {
-                String roleKey = WS_SESSION_TO_USER_PREFIX + sessionId + ":role";
-                redisTemplate.opsForValue().set(roleKey, userRole, SESSION_TTL_HOURS, TimeUnit.HOURS);
-            }
-
-            log.info("WebSocket 세션 등록 완료 - Redis 키: {}, {}", sessionKey, userSessionsKey);
+            log.info("WebSocket 세션 등록 완료 - Redis 키: {}", sessionKey(sessionId));
 
         } catch (Exception e) {
             log.error("WebSocket 세션 등록 실패 - sessionId: {}, userId: {}", sessionId, userId, e);
         }
     }
 
+    // 세션 정보(Hash), 사용자/서버/전체/역할 세션 Set, 구독한 방 Set 기록 (파이프라인 안에서 호출)
+    private void writeSession(StringRedisConnection conn, String sessionId, LocalSession session) {
+        String sessionKey = sessionKey(sessionId);
+        Map<String, String> sessionInfo = new HashMap<>();
+        if (session.userId() != null) {
+            sessionInfo.put(FIELD_USER_ID, session.userId());
+        }
+        sessionInfo.put(FIELD_NODE, nodeId);
+        if (session.role() != null) {
+            sessionInfo.put(FIELD_ROLE, session.role());
+        }
+        conn.hMSet(sessionKey, sessionInfo);
+        conn.pExpire(sessionKey, SESSION_TTL_MILLIS);
+        if (session.userId() != null) {
+            String userSessionsKey = WS_USER_TO_SESSIONS_PREFIX + session.userId();
+            conn.sAdd(userSessionsKey, sessionId);
+            conn.pExpire(userSessionsKey, SESSION_TTL_MILLIS);
+            conn.sAdd(WS_ALL_SESSIONS_KEY, sessionId);
+        }
+        conn.sAdd(WS_NODE_SESSIONS_PREFIX + nodeId, sessionId);
+        conn.pExpire(WS_NODE_SESSIONS_PREFIX + nodeId, SESSION_TTL_MILLIS);
+        if (session.role() != null) {
+            conn.sAdd(WS_ROLE_SESSIONS_PREFIX + session.role(), sessionId);
+        }
+        if (!session.rooms().isEmpty()) {
+            String roomsKey = WS_SESSION_ROOMS_PREFIX + sessionId;
+            conn.sAdd(roomsKey, session.rooms().toArray(new String[0]));
+            conn.pExpire(roomsKey, SESSION_TTL_MILLIS);
+        }
+    }
+
     /**
      * 웹소켓 연결 해제 시 세션ID를 Redis에서 제거
      *
      * @param sessionId WebSocket 세션 ID
+     * @return 세션이 구독했던 방 목록 (세션ID로 추가된 방 멤버 정리용)
      */
-    public void unregisterSession(String sessionId) {
+    @SuppressWarnings("unchecked")
+    public Set<String> unregisterSession(String sessionId) {
         log.info("▼ unregisterSession. sessionId:{}",sessionId);
 
         if (sessionId == null) {
             log.warn("sessionId가 null입니다. 제거하지 않습니다.");
-            return;
+            return Collections.emptySet();
         }
 
         log.info("WebSocket 세션 해제 - sessionId: {}", sessionId);
+        LocalSession local = localSessions.remove(sessionId);
 
         try {
-            // 1. sessionId로 userId 조회
-            String sessionKey = WS_SESSION_TO_USER_PREFIX + sessionId;
-            String userId = redisTemplate.opsForValue().get(sessionKey);
-
-            if (userId != null) {
-                // 2. userId -> sessionId Set에서 제거
-                String userSessionsKey = WS_USER_TO_SESSIONS_PREFIX + userId;
-                redisTemplate.opsForSet().remove(userSessionsKey, sessionId);
-
-                // 3. userId의 세션이 모두 제거되었으면 키 삭제
-                Long remainingSessions = redisTemplate.opsForSet().size(userSessionsKey);
-                if (remainingSessions != null && remainingSessions == 0) {
-                    redisTemplate.delete(userSessionsKey);
-                    log.info("사용자 {}의 모든 세션이 종료되었습니다.", userId);
-                }
+            // 이 서버의 세션이면 기억해 둔 사용자/역할로 키를 만들어 스크립트 한 번으로 처리
+            // (연결 해제는 세션이 연결된 서버에서 일어나므로 보통 이 경우)
+            // 그 밖의 경우에만 세션 정보를 먼저 읽어 키를 만든다 (왕복 2회)
+            String userId;
+            String node;
+            String role;
+            if (local != null) {
+                userId = local.userId();
+                node = nodeId;
+                role = local.role();
+            } else {
+                List<Object> info = redisTemplate.opsForHash().multiGet(sessionKey(sessionId),
+                        List.of(FIELD_USER_ID, FIELD_NODE, FIELD_ROLE));
+                userId = (String) info.get(0);
+                node = (String) info.get(1);
+                role = (String) info.get(2);
             }
-
-            // 4. sessionId -> userId 매핑 삭제
-            redisTemplate.delete(sessionKey);
-
-            // 5. 역할 정보 삭제
-            String roleKey = WS_SESSION_TO_USER_PREFIX + sessionId + ":role";
-            redisTemplate.delete(roleKey);
-
-            // 6. 전체 활성 세션 Set에서 제거
-            redisTemplate.opsForSet().remove(WS_ALL_SESSIONS_KEY, sessionId);
+            List<String> keys = new ArrayList<>(6);
+            keys.add(sessionKey(sessionId));
+            keys.add(WS_SESSION_ROOMS_PREFIX + sessionId);
+            keys.add(WS_ALL_SESSIONS_KEY);
+            if (userId != null) keys.add(WS_USER_TO_SESSIONS_PREFIX + userId);
+            if (node != null) keys.add(WS_NODE_SESSIONS_PREFIX + node);
+            if (role != null) keys.add(WS_ROLE_SESSIONS_PREFIX + role);
+            List<String> rooms = redisTemplate.execute(UNREGISTER_SCRIPT, keys, sessionId);
 
             log.info("WebSocket 세션 해제 완료 - sessionId: {}, userId: {}", sessionId, userId);
+            return rooms != null ? new HashSet<>(rooms) : Collections.emptySet();
 
         } catch (Exception e) {
             log.error("WebSocket 세션 해제 실패 - sessionId: {}", sessionId, e);
+            return Collections.emptySet();
         }
     }
 
@@ -131,8 +263,8 @@ public class WebSocketSessionService {
             return null;
         }
 
-        String sessionKey = WS_SESSION_TO_USER_PREFIX + sessionId;
-        return redisTemplate.opsForValue().get(sessionKey);
+        Object userId = redisTemplate.opsForHash().get(sessionKey(sessionId), FIELD_USER_ID);
+        return userId != null ? userId.toString() : null;
     }
 
     /**
@@ -166,19 +298,141 @@ public class WebSocketSessionService {
             return null;
         }
 
-        String roleKey = WS_SESSION_TO_USER_PREFIX + sessionId + ":role";
-        return redisTemplate.opsForValue().get(roleKey);
+        Object role = redisTemplate.opsForHash().get(sessionKey(sessionId), FIELD_ROLE);
+        return role != null ? role.toString() : null;
     }
 
     /**
-     * 모든 활성 세션 ID 조회
+     * 활성 세션 목록 한 페이지 조회 (SSCAN, 세션 수와 무관하게 Redis를 오래 막지 않음)
+     * TTL로 세션 Hash만 만료되고 Set에 남은 세션ID는 이 페이지에서 함께 제거하여 SCARD 통계가 실제와 벌어지지 않게 한다.
+     *
+     * @param cursor 이전 페이지의 다음 cursor (첫 페이지는 "0")
+     * @param count  한 번에 확인할 세션 수 (SSCAN COUNT, 조건에 따라 반환 건수는 이보다 적거나 많을 수 있음)
+     * @param role   역할 필터 (null이면 전체)
+     * @param node   서버 필터 (null이면 전체)
+     * @return 세션 목록과 다음 cursor ("0"이면 마지막 페이지)
+     */
+    public SessionPage scanSessions(String cursor, int count, String role, String node) {
+        log.info("▼ scanSessions. cursor:{}, count:{}, role:{}, node:{}", cursor, count, role, node);
+
+        // 조건에 맞는 가장 작은 Set을 순회 (서버 > 역할 > 전체)
+        String setKey = node != null ? WS_NODE_SESSIONS_PREFIX + node
+                : role != null ? WS_ROLE_SESSIONS_PREFIX + role
+                : WS_ALL_SESSIONS_KEY;
+        int pageSize = Math.max(1, Math.min(count, MAX_PAGE_SIZE));
+
+        // SSCAN 한 번 (cursor를 이어서 받기 위해 명령을 직접 실행)
+        List<?> page = redisTemplate.execute((RedisCallback<List<?>>) connection ->
+                (List<?>) ((StringRedisConnection) connection).execute("SSCAN", setKey,
+                        cursor != null ? cursor : "0", "COUNT", String.valueOf(pageSize)));
+        if (page == null || page.size() < 2) {
+            return new SessionPage("0", Collections.emptyList());
+        }
+        String nextCursor = asString(page.get(0));
+        List<String> sessionIds = new ArrayList<>();
+        for (Object member : (List<?>) page.get(1)) {
+            sessionIds.add(asString(member));
+        }
+
+        // 세션별 정보 조회 (한 번의 왕복, 정보가 없는 세션은 제외, role 지정 시 역할이 같은 세션만)
+        List<Object> infos = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            for (String sessionId : sessionIds) {
+                conn.hMGet(sessionKey(sessionId), FIELD_USER_ID, FIELD_ROLE, FIELD_NODE);
+            }
+            return null;
+        });
+        List<SessionInfo> sessions = new ArrayList<>(sessionIds.size());
+        List<String> stale = new ArrayList<>();
+        for (int i = 0; i < sessionIds.size(); i++) {
+            @SuppressWarnings("unchecked")
+            List<String> info = (List<String>) infos.get(i);
+            if (info == null || (info.get(0) == null && info.get(1) == null && info.get(2) == null)) {
+                stale.add(sessionIds.get(i)); // 세션 Hash가 만료됨
+                continue;
+            }
+            if (info.get(0) == null || (role != null && !role.equals(info.get(1)))) {
+                continue;
+            }
+            sessions.add(new SessionInfo(sessionIds.get(i), info.get(0), emptyToNull(info.get(1)), emptyToNull(info.get(2))));
+        }
+        pruneStaleSessions(setKey, stale);
+        return new SessionPage(nextCursor, sessions);
+    }
+
+    // 만료된 세션ID를 순회한 Set, 전체/역할별 세션 Set에서 제거 (세션ID는 재사용되지 않으므로 Hash가 없으면 다시 생기지 않음)
+    // Hash가 없어 역할을 알 수 없으므로 역할별 Set 모두에서 제거 (역할 수만큼의 작은 왕복 1회)
+    private void pruneStaleSessions(String setKey, List<String> staleSessionIds) {
+        if (staleSessionIds.isEmpty()) {
+            return;
+        }
+        String[] members = staleSessionIds.toArray(new String[0]);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            conn.sRem(setKey, members);
+            conn.sRem(WS_ALL_SESSIONS_KEY, members);
+            for (UserRole role : UserRole.values()) {
+                conn.sRem(WS_ROLE_SESSIONS_PREFIX + role.name(), members);
+            }
+            return null;
+        });
+        log.info("Pruned stale sessions: set={}, count={}", setKey, members.length);
+    }
+
+    /**
+     * 모든 활성 세션 ID 조회 (기존 /api/session/all 응답용)
+     * SMEMBERS 대신 SSCAN 페이지를 이어 읽어 Redis를 오래 막지 않으며, 만료된 세션ID는 읽는 동안 정리된다.
+     * 세션 수가 많으면 응답이 커지므로 새 호출은 scanSessions(페이지 조회)를 사용한다.
      *
      * @return 모든 활성 세션 ID Set
      */
     public Set<String> getAllActiveSessions() {
         log.info("▼ getAllActiveSessions");
-        Set<String> sessions = redisTemplate.opsForSet().members(WS_ALL_SESSIONS_KEY);
-        return sessions != null ? sessions : Collections.emptySet();
+
+        Set<String> sessionIds = new HashSet<>();
+        String cursor = "0";
+        do {
+            SessionPage page = scanSessions(cursor, MAX_PAGE_SIZE, null, null);
+            for (SessionInfo session : page.sessions()) {
+                sessionIds.add(session.sessionId());
+            }
+            cursor = page.cursor();
+        } while (!"0".equals(cursor));
+        return sessionIds;
+    }
+
+    /**
+     * 세션 통계 (전체 / 역할별 / 서버별 세션 수)
+     * Set 원소를 읽지 않고 SCARD(Redis가 유지하는 원소 수)만 한 번의 왕복으로 조회한다.
+     */
+    public SessionStats getSessionStats() {
+        log.info("▼ getSessionStats");
+
+        Set<String> nodes = redisTemplate.opsForSet().members(NODES_KEY); // 서버 수만큼의 작은 Set
+        List<String> nodeIds = nodes != null ? new ArrayList<>(nodes) : Collections.emptyList();
+        UserRole[] roles = UserRole.values();
+
+        List<Object> counts = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            conn.sCard(WS_ALL_SESSIONS_KEY);
+            for (UserRole role : roles) {
+                conn.sCard(WS_ROLE_SESSIONS_PREFIX + role.name());
+            }
+            for (String id : nodeIds) {
+                conn.sCard(WS_NODE_SESSIONS_PREFIX + id);
+            }
+            return null;
+        });
+
+        Map<String, Long> byRole = new LinkedHashMap<>();
+        for (int i = 0; i < roles.length; i++) {
+            byRole.put(roles[i].name(), countOf(counts.get(1 + i)));
+        }
+        Map<String, Long> byNode = new TreeMap<>();
+        for (int i = 0; i < nodeIds.size(); i++) {
+            byNode.put(nodeIds.get(i), countOf(counts.get(1 + roles.length + i)));
+        }
+        return new SessionStats(countOf(counts.get(0)), byRole, byNode);
     }
 
     /**
@@ -210,21 +464,15 @@ public class WebSocketSessionService {
             return;
         }
 
-        String sessionKey = WS_SESSION_TO_USER_PREFIX + sessionId;
-        String userId = redisTemplate.opsForValue().get(sessionKey);
-
-        if (userId != null) {
-            // sessionId -> userId 매핑 TTL 갱신
-            redisTemplate.expire(sessionKey, SESSION_TTL_HOURS, TimeUnit.HOURS);
-
-            // userId -> sessionId Set TTL 갱신
-            String userSessionsKey = WS_USER_TO_SESSIONS_PREFIX + userId;
-            redisTemplate.expire(userSessionsKey, SESSION_TTL_HOURS, TimeUnit.HOURS);
-
-            // 역할 정보 TTL 갱신
-            String roleKey = WS_SESSION_TO_USER_PREFIX + sessionId + ":role";
-            redisTemplate.expire(roleKey, SESSION_TTL_HOURS, TimeUnit.HOURS);
-
+        // 세션의 사용자 ID로 사용자 세션 Set 키를 만든 뒤 세션 정보와 함께 TTL 갱신
+        String userId = getUserIdBySessionId(sessionId);
+        if (userId == null) {
+            return;
+        }
+        Long refreshed = redisTemplate.execute(REFRESH_SCRIPT,
+                List.of(sessionKey(sessionId), WS_USER_TO_SESSIONS_PREFIX + userId),
+                String.valueOf(SESSION_TTL_MILLIS));
+        if (refreshed != null && refreshed == 1L) {
             log.debug("세션 TTL 갱신 - sessionId: {}, userId: {}", sessionId, userId);
         }
     }
@@ -240,4 +488,255 @@ public class WebSocketSessionService {
         Long count = redisTemplate.opsForSet().size(WS_ALL_SESSIONS_KEY);
         return count != null ? count : 0;
     }
+
+    /**
+     * 세션이 구독한 방 기록 (서버 비정상 종료 시 방 멤버 정리용)
+     */
+    public void trackRoom(String sessionId, String roomId) {
+        if (sessionId == null || roomId == null) {
+            return;
+        }
+        LocalSession session = localSessions.get(sessionId);
+        if (session != null) {
+            session.rooms().add(roomId);
+        }
+        String roomsKey = WS_SESSION_ROOMS_PREFIX + sessionId;
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            conn.sAdd(roomsKey, roomId);
+            conn.pExpire(roomsKey, SESSION_TTL_MILLIS);
+            return null;
+        });
+    }
+
+    /**
+     * 이 서버의 생존 키 갱신 (서버 목록 등록 포함)
+     * 서버 목록에 새로 추가되었다면 (GC 등으로 갱신이 늦어 다른 서버가 이 서버를 정리함) 이 서버에 연결된 세션을 다시 등록한다.
+     * 다른 서버는 정리를 모두 마친 뒤 서버 목록에서 제거하므로, 정리 도중이었다면 다음 갱신 때 복구된다.
+     *
+     * @return 다시 등록한 세션의 방 멤버(사용자ID, 인증되지 않은 세션은 세션ID)별 구독한 방 목록 (복구하지 않았으면 빈 Map)
+     */
+    public Map<String, Set<String>> heartbeatNode() {
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            conn.sAdd(NODES_KEY, nodeId);
+            conn.pSetEx(NODE_ALIVE_PREFIX + nodeId, nodeTtl, "1");
+            conn.pExpire(WS_NODE_SESSIONS_PREFIX + nodeId, SESSION_TTL_MILLIS); // 정리되지 못한 서버의 세션 Set도 결국 만료
+            return null;
+        });
+        Object added = results.get(0);
+        if (!(added instanceof Long) || (Long) added == 0 || localSessions.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return restoreSessions();
+    }
+
+    // 이 서버에 연결된 세션을 Redis에 다시 등록하고 방 멤버 복구 대상을 반환
+    private Map<String, Set<String>> restoreSessions() {
+        Map<String, LocalSession> sessions = new HashMap<>(localSessions);
+        log.warn("Node was reaped while alive, restoring sessions: nodeId={}, sessions={}", nodeId, sessions.size());
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            sessions.forEach((sessionId, session) -> writeSession(conn, sessionId, session));
+            return null;
+        });
+        Map<String, Set<String>> roomsByMember = new HashMap<>();
+        sessions.forEach((sessionId, session) -> {
+            if (!session.rooms().isEmpty()) {
+                String member = session.userId() != null ? session.userId() : sessionId;
+                roomsByMember.computeIfAbsent(member, k -> new HashSet<>()).addAll(session.rooms());
+            }
+        });
+        return roomsByMember;
+    }
+
+    /**
+     * 정상 종료 시 생존 키 삭제 (남은 세션은 다른 서버가 바로 정리)
+     */
+    public void leaveNode() {
+        redisTemplate.delete(NODE_ALIVE_PREFIX + nodeId);
+    }
+
+    /**
+     * 생존 키가 만료된 서버 목록
+     */
+    public List<String> findDeadNodes() {
+        Set<String> nodes = redisTemplate.opsForSet().members(NODES_KEY);
+        if (nodes == null || nodes.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> nodeIds = new ArrayList<>(nodes);
+        List<Object> alive = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            for (String id : nodeIds) {
+                conn.exists(NODE_ALIVE_PREFIX + id);
+            }
+            return null;
+        });
+        List<String> dead = new ArrayList<>();
+        for (int i = 0; i < nodeIds.size(); i++) {
+            if (!nodeId.equals(nodeIds.get(i)) && !Boolean.TRUE.equals(alive.get(i))) {
+                dead.add(nodeIds.get(i));
+            }
+        }
+        return dead;
+    }
+
+    /**
+     * 종료된 서버의 세션 정리
+     * 정리 잠금(chat:nodes:reaping:{nodeId})을 잡은 서버 하나만 정리하고, 세션과 방 멤버를 모두 정리한 뒤 마지막에 서버 목록에서 제거한다.
+     * 정리 도중 멈추면 서버 목록에 남아 있으므로 잠금 만료 후 다른 서버가 다시 정리한다.
+     *
+     * @param memberCleanup 방 멤버에서 제거할 멤버(사용자ID, 인증되지 않은 세션은 세션ID)별 구독했던 방 목록을 받아 제거
+     * @return 방 멤버를 제거했으면 true
+     */
+    public boolean reapNode(String deadNodeId, Consumer<Map<String, Set<String>>> memberCleanup) {
+        String lockKey = NODE_REAP_LOCK_PREFIX + deadNodeId;
+        if (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(lockKey, nodeId,
+                Duration.ofMillis(REAP_LOCK_TTL_MILLIS)))) {
+            return false; // 다른 서버가 정리 중
+        }
+        try {
+            if (Boolean.TRUE.equals(redisTemplate.hasKey(NODE_ALIVE_PREFIX + deadNodeId))) {
+                return false; // 확인 이후 생존 키가 다시 갱신됨
+            }
+            log.info("▼ reapNode. nodeId:{}", deadNodeId);
+
+            String nodeSessionsKey = WS_NODE_SESSIONS_PREFIX + deadNodeId;
+            Map<String, Set<String>> roomsByUser = new HashMap<>();
+            Map<String, Set<String>> roomsBySession = new HashMap<>();
+            int reaped = 0;
+
+            try (Cursor<String> cursor = redisTemplate.opsForSet().scan(nodeSessionsKey,
+                    ScanOptions.scanOptions().count(REAP_BATCH_SIZE).build())) {
+                List<String> batch = new ArrayList<>(REAP_BATCH_SIZE);
+                while (cursor.hasNext()) {
+                    batch.add(cursor.next());
+                    if (batch.size() >= REAP_BATCH_SIZE) {
+                        reaped += reapSessions(batch, roomsByUser, roomsBySession);
+                        batch.clear();
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    reaped += reapSessions(batch, roomsByUser, roomsBySession);
+                }
+            }
+
+            // 다른 서버에 연결된 세션이 남아 있는 사용자는 방 멤버를 유지
+            if (!roomsByUser.isEmpty()) {
+                List<String> userIds = new ArrayList<>(roomsByUser.keySet());
+                List<Object> remaining = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    StringRedisConnection conn = (StringRedisConnection) connection;
+                    for (String userId : userIds) {
+                        conn.sCard(WS_USER_TO_SESSIONS_PREFIX + userId);
+                    }
+                    return null;
+                });
+                for (int i = 0; i < userIds.size(); i++) {
+                    Object count = remaining.get(i);
+                    if (count instanceof Long && (Long) count > 0) {
+                        roomsByUser.remove(userIds.get(i));
+                    }
+                }
+            }
+
+            Map<String, Set<String>> roomsByMember = new HashMap<>(roomsBySession);
+            roomsByMember.putAll(roomsByUser);
+            if (!roomsByMember.isEmpty()) {
+                memberCleanup.accept(roomsByMember);
+            }
+
+            // 세션과 방 멤버를 모두 정리한 뒤 서버 세션 Set과 서버 목록에서 제거
+            redisTemplate.delete(nodeSessionsKey);
+            redisTemplate.opsForSet().remove(NODES_KEY, deadNodeId);
+
+            log.info("Reaped sessions of dead node: nodeId={}, sessions={}, users={}, anonymous={}",
+                    deadNodeId, reaped, roomsByUser.size(), roomsBySession.size());
+            return !roomsByMember.isEmpty();
+        } finally {
+            redisTemplate.execute(UNLOCK_SCRIPT, List.of(lockKey), nodeId);
+        }
+    }
+
+    // 세션 묶음 정리 (조회 1회 + 삭제 1회 왕복)
+    @SuppressWarnings("unchecked")
+    private int reapSessions(List<String> sessionIds, Map<String, Set<String>> roomsByUser,
+                             Map<String, Set<String>> roomsBySession) {
+        List<Object> infos = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            for (String sessionId : sessionIds) {
+                conn.hMGet(sessionKey(sessionId), FIELD_USER_ID, FIELD_ROLE);
+                conn.sMembers(WS_SESSION_ROOMS_PREFIX + sessionId);
+            }
+            return null;
+        });
+
+        String[] userIds = new String[sessionIds.size()];
+        String[] roles = new String[sessionIds.size()];
+        for (int i = 0; i < sessionIds.size(); i++) {
+            List<String> info = (List<String>) infos.get(i * 2);
+            userIds[i] = info != null ? info.get(0) : null;
+            roles[i] = info != null ? info.get(1) : null;
+            Set<String> rooms = (Set<String>) infos.get(i * 2 + 1);
+            if (rooms != null && !rooms.isEmpty()) {
+                if (userIds[i] != null) {
+                    roomsByUser.computeIfAbsent(userIds[i], k -> new HashSet<>()).addAll(rooms);
+                } else {
+                    roomsBySession.put(sessionIds.get(i), new HashSet<>(rooms)); // 세션ID로 추가된 방 멤버
+                }
+            }
+        }
+
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            for (int i = 0; i < sessionIds.size(); i++) {
+                String sessionId = sessionIds.get(i);
+                conn.del(sessionKey(sessionId), WS_SESSION_ROOMS_PREFIX + sessionId);
+                conn.sRem(WS_ALL_SESSIONS_KEY, sessionId);
+                if (userIds[i] != null) {
+                    conn.sRem(WS_USER_TO_SESSIONS_PREFIX + userIds[i], sessionId);
+                }
+                if (roles[i] != null) {
+                    conn.sRem(WS_ROLE_SESSIONS_PREFIX + roles[i], sessionId);
+                }
+            }
+            return null;
+        });
+        return sessionIds.size();
+    }
+
+    private static String sessionKey(String sessionId) {
+        return WS_SESSION_PREFIX + sessionId;
+    }
+
+    // SSCAN 응답 값 (드라이버에 따라 byte[] 또는 String)
+    private static String asString(Object value) {
+        return value instanceof byte[] bytes ? new String(bytes, StandardCharsets.UTF_8) : String.valueOf(value);
+    }
+
+    private static String emptyToNull(Object value) {
+        return value == null || value.toString().isEmpty() ? null : value.toString();
+    }
+
+    private static long countOf(Object value) {
+        return value instanceof Long count ? count : 0L;
+    }
+
+    /**
+     * 세션 목록 한 페이지
+     *
+     * @param cursor 다음 페이지 cursor ("0"이면 마지막 페이지)
+     */
+    // 이 서버에 연결된 세션 정보 (rooms는 동시 추가 가능한 Set)
+    private record LocalSession(String userId, String role, Set<String> rooms) {
+    }
+
+    public record SessionPage(String cursor, List<SessionInfo> sessions) {
+    }
+
+    public record SessionInfo(String sessionId, String userId, String userRole, String node) {
+    }
+
+    public record SessionStats(long total, Map<String, Long> byRole, Map<String, Long> byNode) {
+    }
 }
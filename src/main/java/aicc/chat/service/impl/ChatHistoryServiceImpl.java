@@ -2,14 +2,24 @@ package aicc.chat.service.impl;
 
 import aicc.chat.domain.persistence.ChatHistory;
 import aicc.chat.mapper.ChatHistoryMapper;
+import aicc.chat.service.ChatHistorySpillJournal;
+import aicc.chat.service.RecentMessageCache;
 import aicc.chat.service.inteface.ChatHistoryService;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * 채팅 이력 서비스 구현체
@@ -20,24 +30,53 @@ import java.util.List;
 public class ChatHistoryServiceImpl implements ChatHistoryService {
 
     private final ChatHistoryMapper chatHistoryMapper;
+    private final ChatHistorySpillJournal spillJournal;
+    private final RecentMessageCache recentMessageCache;
+
+    @Value("${app.chat.history.journal.max-in-flight:8}")
+    private int maxInFlight; // 동시에 DB INSERT를 수행할 수 있는 최대 요청 수 (커넥션 풀보다 작게)
+
+    @Value("${app.chat.history.journal.acquire-timeout:200}")
+    private long acquireTimeout; // DB 저장 슬롯 대기 시간 (밀리초). 초과 시 저널로 대피
+
+    private Semaphore dbWritePermits;
+
+    @PostConstruct
+    public void init() {
+        dbWritePermits = new Semaphore(maxInFlight);
+    }
 
     @Override
-    @Transactional
     // 단건 채팅 이력 저장
+    // 트랜잭션 없이 단일 INSERT(autocommit)로 저장하여 커넥션 획득 실패도 이 메서드 안에서 처리한다.
+    // DB가 포화(슬롯 대기 초과)되었거나 실패하면 로컬 저널에 기록하고, ChatHistoryJournalReplayer가 나중에 반영한다.
+    // 저장된 메시지는 방별 최근 메시지 캐시(Redis)에도 추가하여 재접속 시 화면 복원을 DB 없이 처리한다.
     public void saveChatHistory(ChatHistory chatHistory) {
         log.info("▼ saveChatHistory");
-        try {
-            chatHistoryMapper.insertChatHistory(chatHistory);
-            log.debug("Chat history saved: roomId={}, sender={}, message={}",
-                    chatHistory.getRoomId(), chatHistory.getSenderName(), chatHistory.getMessage());
-        } catch (Exception e) {
-            log.error("Failed to save chat history: roomId={}", chatHistory.getRoomId(), e);
-            throw new RuntimeException("채팅 이력 저장 실패", e);
+        if (!spillJournal.isEnabled()) {
+            insertChatHistory(chatHistory);
+        } else if (spillJournal.isDbBypassed() || !tryAcquireDbWrite()) {
+            // DB 장애가 감지된 직후에는 DB를 기다리지 않고 바로 저널로
+            spill(chatHistory);
+        } else {
+            try {
+                insertChatHistory(chatHistory);
+            } catch (RuntimeException e) {
+                if (!ChatHistorySpillJournal.isDbUnavailable(e)) {
+                    // 레코드 자체의 문제(제약 조건 위반 등)는 다시 넣어도 실패 - DB 장애로 보지 않고 dead-letter에 보관
+                    spillJournal.deadLetter(chatHistory, e);
+                    throw e;
+                }
+                spillJournal.markDbFailure();
+                spill(chatHistory);
+            } finally {
+                dbWritePermits.release();
+            }
         }
+        recentMessageCache.append(chatHistory);
     }
 
     @Override
-    @Transactional
     // 다건 채팅 이력 저장
     public void saveChatHistoryBatch(List<ChatHistory> chatHistories) {
         log.info("▼ saveChatHistoryBatch");
@@ -50,7 +89,69 @@ public class ChatHistoryServiceImpl implements ChatHistoryService {
             log.debug("Batch chat history saved: count={}", chatHistories.size());
         } catch (Exception e) {
             log.error("Failed to save batch chat history: count={}", chatHistories.size(), e);
-            throw new RuntimeException("채팅 이력 일괄 저장 실패", e);
+            if (!spillJournal.isEnabled()) {
+                throw new RuntimeException("채팅 이력 일괄 저장 실패", e);
+            }
+            if (ChatHistorySpillJournal.isDbUnavailable(e)) {
+                spillJournal.markDbFailure();
+                chatHistories.forEach(this::spill);
+            } else {
+                // 일부 레코드가 거부됨 - 한 건씩 다시 넣고 거부된 레코드만 dead-letter로
+                chatHistories = insertOneByOne(chatHistories);
+            }
+        }
+        chatHistories.forEach(recentMessageCache::append);
+    }
+
+    // 한 건씩 저장 (거부된 레코드는 dead-letter, 도중에 DB가 끊기면 나머지는 저널로). 저장/대피된 레코드 반환
+    private List<ChatHistory> insertOneByOne(List<ChatHistory> chatHistories) {
+        List<ChatHistory> saved = new ArrayList<>(chatHistories.size());
+        for (ChatHistory chatHistory : chatHistories) {
+            if (spillJournal.isDbBypassed()) {
+                spill(chatHistory);
+                saved.add(chatHistory);
+                continue;
+            }
+            try {
+                insertChatHistory(chatHistory);
+                saved.add(chatHistory);
+            } catch (RuntimeException e) {
+                if (ChatHistorySpillJournal.isDbUnavailable(e)) {
+                    spillJournal.markDbFailure();
+                    spill(chatHistory);
+                    saved.add(chatHistory);
+                } else {
+                    spillJournal.deadLetter(chatHistory, e);
+                }
+            }
+        }
+        return saved;
+    }
+
+    private void insertChatHistory(ChatHistory chatHistory) {
+        try {
+            chatHistoryMapper.insertChatHistory(chatHistory);
+            log.debug("Chat history saved: roomId={}, sender={}, message={}",
+                    chatHistory.getRoomId(), chatHistory.getSenderName(), chatHistory.getMessage());
+        } catch (Exception e) {
+            log.error("Failed to save chat history: roomId={}", chatHistory.getRoomId(), e);
+            throw new RuntimeException("채팅 이력 저장 실패", e);
+        }
+    }
+
+    private boolean tryAcquireDbWrite() {
+        try {
+            return dbWritePermits.tryAcquire(acquireTimeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // 저널 기록까지 실패하면 기존과 같이 예외로 알림
+    private void spill(ChatHistory chatHistory) {
+        if (!spillJournal.append(chatHistory)) {
+            throw new RuntimeException("채팅 이력 저장 실패 (저널 기록 실패)");
         }
     }
 
@@ -83,6 +184,54 @@ public class ChatHistoryServiceImpl implements ChatHistoryService {
         }
     }
 
+    @Override
+    // 채팅방 최근 메시지 조회
+    // 캐시 히트 시 DB 커넥션을 잡지 않도록 트랜잭션 없이 처리한다.
+    // 캐시 미스 시 캐시 크기만큼 DB에서 읽어 캐시를 다시 채운다 (limit만큼만 채우면 방 전체 이력으로 오인될 수 있음).
+    // 캐시를 채우는 조회는 복제 지연으로 최신 메시지가 빠지지 않도록 readOnly 트랜잭션 없이 primary에서 수행한다.
+    public List<ChatHistory> getRecentChatHistoryByRoomId(String roomId, int limit) {
+        log.info("▼ getRecentChatHistoryByRoomId. roomId:{}, limit:{}", roomId, limit);
+        List<ChatHistory> cached = recentMessageCache.getRecent(roomId, limit);
+        if (cached != null) {
+            return cached;
+        }
+
+        if (!recentMessageCache.isEnabled()) {
+            return selectChatHistoryPage(roomId, null, limit);
+        }
+        int cacheSize = recentMessageCache.getSize();
+        String version = recentMessageCache.seedVersion(roomId); // DB 조회 전에 읽어야 그 사이 추가된 메시지를 감지
+        List<ChatHistory> rows = selectChatHistoryPage(roomId, null, Math.max(limit, cacheSize));
+        if (recentMessageCache.seed(roomId, version, tail(rows, cacheSize))) {
+            log.debug("Recent message cache seeded: roomId={}, count={}", roomId, Math.min(rows.size(), cacheSize));
+        }
+        return tail(rows, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    // 채팅방 이전 메시지 페이지 조회 (캐시에 없는 과거 구간은 항상 DB)
+    public List<ChatHistory> getChatHistoryPageByRoomId(String roomId, Long beforeId, int limit) {
+        log.info("▼ getChatHistoryPageByRoomId. roomId:{}, beforeId:{}, limit:{}", roomId, beforeId, limit);
+        return selectChatHistoryPage(roomId, beforeId, limit);
+    }
+
+    // 최신순으로 조회한 페이지를 화면 표시 순서(오래된 것 → 최신)로 뒤집어 반환
+    private List<ChatHistory> selectChatHistoryPage(String roomId, Long beforeId, int limit) {
+        try {
+            List<ChatHistory> rows = new ArrayList<>(chatHistoryMapper.selectChatHistoryPageByRoomId(roomId, beforeId, limit));
+            Collections.reverse(rows);
+            return rows;
+        } catch (Exception e) {
+            log.error("Failed to get chat history page: roomId={}, beforeId={}", roomId, beforeId, e);
+            throw new RuntimeException("채팅 이력 조회 실패", e);
+        }
+    }
+
+    private static List<ChatHistory> tail(List<ChatHistory> rows, int count) {
+        return rows.size() > count ? new ArrayList<>(rows.subList(rows.size() - count, rows.size())) : rows;
+    }
+
     @Override
     @Transactional(readOnly = true)
     // 고객 ID 기준 채팅 이력 조회
@@ -112,6 +261,31 @@ public class ChatHistoryServiceImpl implements ChatHistoryService {
         }
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    // 회사 ID와 시간 범위로 채팅 이력을 Cursor로 순회하며 내보내기 (메모리 사용량 일정)
+    // PostgreSQL은 autocommit이 꺼진 트랜잭션 안에서만 fetchSize 단위로 읽으므로 트랜잭션 필수
+    public long exportChatHistoryByCompanyIdAndTimeRange(
+            String companyId,
+            LocalDateTime startTime,
+            LocalDateTime endTime,
+            Consumer<ChatHistory> consumer) {
+        log.info("▼ exportChatHistoryByCompanyIdAndTimeRange. companyId:{}, startTime:{}, endTime:{}", companyId, startTime, endTime);
+        long count = 0;
+        try (Cursor<ChatHistory> cursor =
+                     chatHistoryMapper.selectChatHistoryCursorByCompanyIdAndTimeRange(companyId, startTime, endTime)) {
+            for (ChatHistory chatHistory : cursor) {
+                consumer.accept(chatHistory);
+                count++;
+            }
+        } catch (Exception e) {
+            log.error("Failed to export chat history: companyId={}, exported={}", companyId, count, e);
+            throw new RuntimeException("채팅 이력 내보내기 실패", e);
+        }
+        log.info("Chat history exported: companyId={}, count={}", companyId, count);
+        return count;
+    }
+
     @Override
     @Transactional
     // roomId 기준 채팅 이력 삭제
@@ -119,6 +293,7 @@ public class ChatHistoryServiceImpl implements ChatHistoryService {
         log.info("▼ deleteChatHistoryByRoomId");
         try {
             int deletedCount = chatHistoryMapper.deleteChatHistoryByRoomId(roomId);
+            recentMessageCache.evict(roomId);
             log.info("Chat history deleted: roomId={}, count={}", roomId, deletedCount);
             return deletedCount;
         } catch (Exception e) {
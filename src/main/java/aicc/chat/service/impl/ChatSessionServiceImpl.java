@@ -1,12 +1,16 @@
 package aicc.chat.service.impl;
 
+import aicc.chat.config.MyBatisTtlCache;
 import aicc.chat.domain.persistence.ChatSession;
 import aicc.chat.mapper.ChatSessionMapper;
+import aicc.chat.service.SessionAnalysisService;
 import aicc.chat.service.inteface.ChatSessionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -20,6 +24,8 @@ import java.util.List;
 public class ChatSessionServiceImpl implements ChatSessionService {
 
     private final ChatSessionMapper chatSessionMapper;
+    private final SessionAnalysisService sessionAnalysisService;
+    private final MyBatisTtlCache chatSessionCache;
 
     @Override
     @Transactional
@@ -132,11 +138,12 @@ public class ChatSessionServiceImpl implements ChatSessionService {
 
     @Override
     @Transactional
-    // 상담 종료 시간 기록
+    // 상담 종료 시간 기록 후 상담 분석 대기열에 추가 (커밋 이후)
     public void endSession(String roomId) {
         log.info("▼ endSession. roomId:{}",roomId);
         try {
             chatSessionMapper.updateEndedAt(roomId, LocalDateTime.now());
+            sessionAnalysisService.enqueue(roomId);
             log.info("Chat session ended: roomId={}", roomId);
         } catch (Exception e) {
             log.error("Failed to end session: roomId={}", roomId, e);
@@ -147,13 +154,29 @@ public class ChatSessionServiceImpl implements ChatSessionService {
     @Override
     @Transactional
     // 마지막 활동 시간 갱신 - DB
+    // updateLastActivityAt은 flushCache="false" 이므로 2차 캐시에서 이 방이 포함된 조회 결과만 커밋 후 삭제
     public void updateLastActivity(String roomId) {
         log.info("▼ updateLastActivity. roomId:{}",roomId);
         try {
             chatSessionMapper.updateLastActivityAt(roomId, LocalDateTime.now());
+            evictSessionCacheAfterCommit(roomId);
         } catch (Exception e) {
             log.error("Failed to update last activity: roomId={}", roomId, e);
             // 마지막 활동 시간 업데이트 실패는 치명적이지 않으므로 예외를 던지지 않음
         }
     }
+
+    private void evictSessionCacheAfterCommit(String roomId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            chatSessionCache.evictByIndex(roomId);
+            return;
+        }
+        // 커밋 전에 지우면 다른 요청이 이전 값을 다시 캐시할 수 있으므로 커밋 이후에 삭제
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                chatSessionCache.evictByIndex(roomId);
+            }
+        });
+    }
 }
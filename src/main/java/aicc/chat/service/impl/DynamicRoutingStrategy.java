@@ -3,6 +3,7 @@ package aicc.chat.service.impl;
 import aicc.chat.domain.ChatMessage;
 import aicc.chat.domain.ChatRoom;
 import aicc.chat.domain.UserRole;
+import aicc.chat.service.BotStreamRegistry;
 import aicc.chat.service.inteface.ChatRoutingStrategy;
 import aicc.chat.service.inteface.RoomRepository;
 import lombok.RequiredArgsConstructor;
@@ -19,6 +20,7 @@ public class DynamicRoutingStrategy implements ChatRoutingStrategy {
     private final MiChatRoutingStrategy miChatRoutingStrategy;
     private final AgentRoutingStrategy agentRoutingStrategy;
     private final aicc.chat.service.RoomUpdateBroadcaster roomUpdateBroadcaster;
+    private final BotStreamRegistry botStreamRegistry;
 
     public static final String MODE_BOT = "BOT";
     public static final String MODE_WAITING = "WAITING";
@@ -37,6 +39,8 @@ public class DynamicRoutingStrategy implements ChatRoutingStrategy {
         if (aicc.chat.domain.MessageType.LEAVE.equals(message.getType())) {
             log.info("Room {} is being closed due to LEAVE message", roomId);
             roomRepository.setRoutingMode(roomId, MODE_CLOSED);
+            // 고객이 나갔으므로 생성 중인 챗봇 응답 중단
+            botStreamRegistry.cancel(roomId);
             roomUpdateBroadcaster.broadcastRoomList();
         }
 
@@ -1,5 +1,6 @@
 package aicc.chat.service.impl;
 
+import aicc.bot.BotUnavailableException;
 import aicc.bot.ChatBot;
 import aicc.bot.dto.ChatBotRequest;
 import aicc.chat.domain.ChatMessage;
@@ -7,6 +8,10 @@ import aicc.chat.domain.ChatRoom;
 import aicc.chat.domain.MessageType;
 import aicc.chat.domain.UserRole;
 import aicc.chat.domain.persistence.ChatHistory;
+import aicc.chat.service.BotCallBulkhead;
+import aicc.chat.service.BotMessageDebouncer;
+import aicc.chat.service.BotStreamCoalescer;
+import aicc.chat.service.BotStreamRegistry;
 import aicc.chat.service.inteface.ChatHistoryService;
 import aicc.chat.service.inteface.ChatRoutingStrategy;
 import aicc.chat.service.inteface.ChatSessionService;
@@ -16,6 +21,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import java.time.LocalDateTime;
+import java.util.UUID;
 
 /**
  * MiChat(자체 AI 엔진)을 통해 대화를 처리하는 전략 구현체
@@ -30,6 +36,10 @@ public class MiChatRoutingStrategy implements ChatRoutingStrategy {
     private final aicc.chat.service.RoomUpdateBroadcaster roomUpdateBroadcaster;
     private final ChatHistoryService chatHistoryService;
     private final ChatSessionService chatSessionService;
+    private final BotStreamCoalescer botStreamCoalescer;
+    private final BotCallBulkhead botCallBulkhead;
+    private final BotStreamRegistry botStreamRegistry;
+    private final BotMessageDebouncer botMessageDebouncer;
 
     @Override
     // 고객 메시지를 MiChat으로 전달하고 응답을 브로드캐스트
@@ -63,7 +73,12 @@ public class MiChatRoutingStrategy implements ChatRoutingStrategy {
             return;
         }
 
-        // 5. 사용자가 보낸 메시지인 경우 MiChat으로 전달하여 응답 요청
+        // 5. 짧은 간격으로 이어진 고객 메시지는 묶어서 한 번에 MiChat으로 전달 (설정 시)
+        botMessageDebouncer.submit(roomId, message, merged -> dispatchToBot(roomId, merged));
+    }
+
+    // 고객 메시지를 MiChat으로 전달하여 응답 요청
+    private void dispatchToBot(String roomId, ChatMessage message) {
         log.info("Forwarding customer message to MiChat for room: {}", roomId);
 
         ChatBotRequest request = ChatBotRequest.builder()
@@ -73,53 +88,162 @@ public class MiChatRoutingStrategy implements ChatRoutingStrategy {
                 .userId(message.getSender())
                 .build();
 
-        // 스트리밍 응답을 누적하기 위한 StringBuilder
+        // AI 서버 보호를 위한 동시 호출 제한 - 한도를 넘으면 대기열에서 순서를 기다림
+        BotCallBulkhead.Admission admission = botCallBulkhead.submit(message.getCompanyId(),
+                permit -> askBot(roomId, message, request, permit),
+                position -> publishBotQueue(roomId, position),
+                () -> publishBotBusy(roomId));
+        if (admission.status() == BotCallBulkhead.Status.QUEUED) {
+            publishBotQueue(roomId, admission.position());
+        } else if (admission.status() == BotCallBulkhead.Status.REJECTED) {
+            publishBotBusy(roomId);
+        }
+    }
+
+    // 챗봇 호출 대기 순번 안내 (대기 중 순번이 바뀔 때마다 다시 보냄, 이력 저장 없음)
+    private void publishBotQueue(String roomId, int position) {
+        messageBroker.publish(ChatMessage.builder()
+                .roomId(roomId)
+                .sender("System")
+                .senderRole(UserRole.BOT)
+                .message("문의가 많아 답변을 준비하고 있습니다. 잠시만 기다려 주세요. (대기 순번: " + position + ")")
+                .type(MessageType.BOT_QUEUE)
+                .timestamp(LocalDateTime.now())
+                .build());
+    }
+
+    // 대기열이 가득 찼거나 대기 시간이 초과된 경우 안내 (이력 저장 없음)
+    private void publishBotBusy(String roomId) {
+        messageBroker.publish(ChatMessage.builder()
+                .roomId(roomId)
+                .sender("System")
+                .senderRole(UserRole.BOT)
+                .message("현재 문의가 많아 답변드리기 어렵습니다. 잠시 후 다시 질문해 주시거나 '상담원 연결'을 요청해 주세요.")
+                .type(MessageType.TALK)
+                .timestamp(LocalDateTime.now())
+                .build());
+    }
+
+    // MiChat 호출 및 스트리밍 응답 전달 (호출이 끝나면 permit 반환)
+    private void askBot(String roomId, ChatMessage message, ChatBotRequest request, BotCallBulkhead.Permit permit) {
+        // 대기열에 있는 동안 상담원 연결/퇴장한 방이면 호출하지 않음
+        // 확인 이후 등록 전까지 들어온 취소는 register가 since 기준으로 처리
+        long since = botStreamRegistry.mark();
+        String mode = roomRepository.getRoutingMode(roomId);
+        if (mode != null && !"BOT".equalsIgnoreCase(mode)) {
+            log.info("Skipping queued bot call, room is no longer in BOT mode: roomId={}, mode={}", roomId, mode);
+            permit.release();
+            return;
+        }
+
+        // 스트리밍 응답: 시작(STREAM_START) → 청크마다 STREAM_DELTA → 완료 시 STREAM_END (같은 messageId)
+        // 고객은 첫 청크부터 바로 보고, DB에는 완료 시점에 전체 응답 한 건만 저장
+        String messageId = UUID.randomUUID().toString();
         StringBuilder fullResponse = new StringBuilder();
 
-        chatBot.ask(request,
-            chunk -> {
-                // 수신된 청크를 누적
-                fullResponse.append(chunk);
-            },
-            () -> {
-                // 스트림 완료 시 누적된 전체 메시지를 발송
-                String responseText = fullResponse.toString();
-                if (!responseText.isEmpty()) {
-                    LocalDateTime now = LocalDateTime.now(); // 서버 타임스탬프
-
-                    ChatMessage botMessage = ChatMessage.builder()
-                            .roomId(roomId)
-                            .sender("Bot")
-                            .senderRole(UserRole.BOT)
-                            .message(responseText)
-                            .type(MessageType.TALK)
-                            .timestamp(now) // 서버 타임스탬프 설정
-                            .build();
-                    messageBroker.publish(botMessage);
-
-                    // PostgreSQL에 BOT 응답 저장
-                    try {
-                        ChatHistory chatHistory = ChatHistory.builder()
-                                .roomId(roomId)
-                                .senderId("BOT")
-                                .senderName("Bot")
-                                .senderRole("BOT")
-                                .message(responseText)
-                                .messageType("TALK")
-                                .companyId(message.getCompanyId())
-                                .createdAt(now) // 서버 타임스탬프 사용
-                                .build();
-                        chatHistoryService.saveChatHistory(chatHistory);
-
-                        // 세션 마지막 활동 시간 업데이트
-                        chatSessionService.updateLastActivity(roomId);
-                    } catch (Exception e) {
-                        log.error("Failed to save bot message to DB: roomId={}", roomId, e);
-                        // DB 저장 실패해도 채팅은 계속 진행
+        messageBroker.publish(botStreamMessage(roomId, messageId, MessageType.STREAM_START, ""));
+
+        // 토큰 단위 청크를 시간/크기 기준으로 묶어 STREAM_DELTA 프레임 수를 줄임
+        BotStreamCoalescer.Stream deltas = botStreamCoalescer.open(message.getCompanyId(),
+                text -> messageBroker.publish(botStreamMessage(roomId, messageId, MessageType.STREAM_DELTA, text)));
+
+        // 상담원 연결/퇴장/방 정리 시 중단: 남은 조각은 버리고 말풍선만 정리 (이력 저장 없음)
+        BotStreamRegistry.Handle handle = botStreamRegistry.register(roomId, since, () -> {
+            permit.release();
+            deltas.discard();
+            messageBroker.publish(botStreamMessage(roomId, messageId, MessageType.STREAM_END, ""));
+        });
+        if (handle.isCancelled()) {
+            log.info("Bot call cancelled before start: roomId={}", roomId);
+            return;
+        }
+
+        try {
+            chatBot.ask(request,
+                chunk -> {
+                    // 수신된 청크를 누적하고 묶음 버퍼로 전달
+                    fullResponse.append(chunk);
+                    deltas.append(chunk);
+                },
+                () -> {
+                    // 이미 취소된 응답이면 취소 처리에서 정리했으므로 발행/저장하지 않음
+                    if (!handle.complete()) {
+                        return;
+                    }
+                    // AI 서버 호출이 끝났으므로 다음 대기 요청이 실행되도록 먼저 반환
+                    permit.release();
+                    // 남은 조각을 먼저 보낸 뒤, 전체 응답을 담아 종료 알림 (클라이언트는 이 내용으로 말풍선을 확정)
+                    deltas.close();
+                    String responseText = fullResponse.toString();
+                    ChatMessage endMessage = botStreamMessage(roomId, messageId, MessageType.STREAM_END, responseText);
+                    messageBroker.publish(endMessage);
+
+                    if (!responseText.isEmpty()) {
+                        LocalDateTime now = endMessage.getTimestamp(); // 서버 타임스탬프
+
+                        // PostgreSQL에 BOT 응답 저장
+                        try {
+                            ChatHistory chatHistory = ChatHistory.builder()
+                                    .roomId(roomId)
+                                    .senderId("BOT")
+                                    .senderName("Bot")
+                                    .senderRole("BOT")
+                                    .message(responseText)
+                                    .messageType("TALK")
+                                    .companyId(message.getCompanyId())
+                                    .createdAt(now) // 서버 타임스탬프 사용
+                                    .build();
+                            chatHistoryService.saveChatHistory(chatHistory);
+
+                            // 세션 마지막 활동 시간 업데이트
+                            chatSessionService.updateLastActivity(roomId);
+                        } catch (Exception e) {
+                            log.error("Failed to save bot message to DB: roomId={}", roomId, e);
+                            // DB 저장 실패해도 채팅은 계속 진행
+                        }
                     }
                 }
+            );
+        } catch (BotUnavailableException e) {
+            // AI 서버 장애(circuit OPEN): 기다리게 하지 않고 바로 상담원 연결 안내
+            log.warn("MiChat unavailable, offering handoff: roomId={}", roomId);
+            if (!handle.complete()) {
+                return;
             }
-        );
+            permit.release();
+            deltas.close();
+            messageBroker.publish(botStreamMessage(roomId, messageId, MessageType.STREAM_END, ""));
+            messageBroker.publish(ChatMessage.builder()
+                    .roomId(roomId)
+                    .sender("System")
+                    .senderRole(UserRole.BOT)
+                    .message("현재 AI 상담이 원활하지 않습니다. '상담원 연결'을 요청하시면 상담원과 연결해 드립니다.")
+                    .type(MessageType.BOT_UNAVAILABLE)
+                    .timestamp(LocalDateTime.now())
+                    .build());
+        } catch (RuntimeException e) {
+            // 호출 자체가 시작되지 못한 경우에도 permit 반환 및 말풍선 정리
+            log.error("Failed to start MiChat call: roomId={}", roomId, e);
+            if (!handle.complete()) {
+                return;
+            }
+            permit.release();
+            deltas.close();
+            messageBroker.publish(botStreamMessage(roomId, messageId, MessageType.STREAM_END, ""));
+        }
+    }
+
+    // 챗봇 스트리밍 메시지 생성 (서버 타임스탬프 설정)
+    private ChatMessage botStreamMessage(String roomId, String messageId, MessageType type, String text) {
+        return ChatMessage.builder()
+                .roomId(roomId)
+                .sender("Bot")
+                .senderRole(UserRole.BOT)
+                .message(text)
+                .type(type)
+                .messageId(messageId)
+                .timestamp(LocalDateTime.now())
+                .build();
     }
 
     @Override
@@ -160,6 +284,9 @@ public class MiChatRoutingStrategy implements ChatRoutingStrategy {
 
     private void switchToAgentMode(String roomId) {
         log.info("▼ switchToAgentMode. roomId:{}", roomId);
+        // 생성 중인 챗봇 응답은 더 이상 필요 없으므로 즉시 중단 (AI 서버 연결/용량 반환)
+        botStreamRegistry.cancel(roomId);
+
         // 상담원 연결 요청 처리: WAITING 전환 및 알림 발송
         log.info("Switching room {} to WAITING mode", roomId);
         roomRepository.setRoutingMode(roomId, "WAITING");
@@ -2,21 +2,34 @@ package aicc.chat.service.impl;
 
 // import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.log;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Repository;
 
 import aicc.chat.domain.ChatRoom;
 import aicc.chat.service.inteface.RoomRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -30,6 +43,208 @@ public class RedisRoomRepository implements RoomRepository {
     // Redis 키 구성: roomId별 멤버/상태/메타데이터, 그리고 전체 roomId 인덱스
     private static final String ROOM_KEY_PREFIX = "chat:room:"; // set of members
     private static final String CHAT_ROOMS_KEY  = "chat:rooms"; // set of roomIds
+    private static final String AGENT_LOAD_KEY  = "chat:agents:load:ids"; // hash of 상담원 ID -> AGENT 상태 방 수 (0 인 항목도 유지)
+    private static final String AGENT_NAMES_KEY = "chat:agents:names"; // hash of 상담원 ID -> 이름 (AgentPresenceRegistry)
+    private static final String WAITING_KEY     = "chat:rooms:waiting"; // zset of WAITING roomIds (score = 대기 시작 시각)
+    private static final String WAITING_STATS_KEY = "chat:rooms:waiting:stats"; // hash: version(대기열 변경 횟수), wait/length(배정 시 대기 시간/대기열 길이 EWMA)
+
+    @Value("${app.chat.waiting-queue.ewma-alpha:0.2}")
+    private double waitEwmaAlpha; // 배정 시 대기 시간 EWMA 가중치 (클수록 최근 값 비중이 큼)
+
+    @Value("${app.chat.agent-capacity.reconcile-interval:60000}")
+    private long reconcileInterval; // 상담원별 상담 수 재계산 주기 (밀리초, 0 이하이면 시작 시에만)
+
+    private ScheduledExecutorService reconciler;
+
+    // 방의 mode/assignedAgent 변경과 상담원별 상담 수/상담 대기열 갱신을 원자적으로 처리
+    //  - 방에는 표시용 상담원 이름(assignedAgent)과 상담원 ID(assignedAgentId)를 함께 저장
+    //  - 상담 수는 (mode == AGENT 이고 assignedAgentId 가 있는) 방을 상담원 ID 별로 센 값이므로, 변경 전후 담당 상담원이 달라질 때만 증감
+    //    (한도 설정(agent-capacity)과 같은 상담원 ID 기준, 0 이 되어도 항목을 지우지 않음)
+    //  - 대기열에는 mode == WAITING 인 방만 대기 시작 순으로 유지, 변경될 때마다 version 증가
+    //  - 대기 중이던 방이 AGENT가 되면 대기 시간과 당시 대기열 길이를 EWMA로 반영 (예상 대기 시간 계산용)
+    // KEYS: mode, assignedAgent, load, waiting, waiting stats, assignedAgentId
+    // ARGV: 작업(mode, agent, assign, delete), 값(mode 또는 상담원 이름), roomId, 현재 시각, 상담원 최대 상담 수(assign, 0이면 무제한),
+    //       WAITING 방만 배정(assign, 1/0), EWMA 가중치, 상담원 ID(agent, assign)
+    // 반환: 1 처리, 0 배정 불가(이미 배정됨 또는 대기 중이 아님), -1 상담원 상담 수 한도 도달
+    private static final RedisScript<Long> ROOM_STATE_SCRIPT = new DefaultRedisScript<>(
+            "local oldMode = redis.call('GET', KEYS[1]) "
+          + "local oldAgent = redis.call('GET', KEYS[2]) "
+          + "local oldAgentId = redis.call('GET', KEYS[6]) "
+          + "local op = ARGV[1] "
+          + "local result = 1 "
+          + "if op == 'mode' then "
+          + "  redis.call('SET', KEYS[1], ARGV[2]) "
+          + "elseif op == 'agent' then "
+          + "  if ARGV[2] == '' then redis.call('DEL', KEYS[2], KEYS[6]) "
+          + "  else redis.call('SET', KEYS[2], ARGV[2]) redis.call('SET', KEYS[6], ARGV[8]) end "
+          + "elseif op == 'assign' then "
+          + "  if oldAgent or (ARGV[6] == '1' and oldMode ~= 'WAITING') then "
+          + "    result = 0 "
+          + "  elseif tonumber(ARGV[5]) > 0 and tonumber(redis.call('HGET', KEYS[3], ARGV[8]) or '0') >= tonumber(ARGV[5]) then "
+          + "    result = -1 "
+          + "  else "
+          + "    redis.call('SET', KEYS[2], ARGV[2]) "
+          + "    redis.call('SET', KEYS[6], ARGV[8]) "
+          + "    redis.call('SET', KEYS[1], 'AGENT') "
+          + "  end "
+          + "elseif op == 'delete' then "
+          + "  redis.call('DEL', KEYS[1], KEYS[2], KEYS[6]) "
+          + "end "
+          + "local newMode = redis.call('GET', KEYS[1]) "
+          + "local newAgentId = redis.call('GET', KEYS[6]) "
+          + "local oldOwner = (oldMode == 'AGENT' and oldAgentId) or nil "
+          + "local newOwner = (newMode == 'AGENT' and newAgentId) or nil "
+          + "if oldOwner ~= newOwner then "
+          + "  if oldOwner and redis.call('HINCRBY', KEYS[3], oldOwner, -1) < 0 then redis.call('HSET', KEYS[3], oldOwner, 0) end "
+          + "  if newOwner then redis.call('HINCRBY', KEYS[3], newOwner, 1) end "
+          + "end "
+          + "if newMode == 'WAITING' then "
+          + "  if redis.call('ZADD', KEYS[4], 'NX', ARGV[4], ARGV[3]) == 1 then redis.call('HINCRBY', KEYS[5], 'version', 1) end "
+          + "else "
+          + "  local since = redis.call('ZSCORE', KEYS[4], ARGV[3]) "
+          + "  if since then "
+          + "    if newMode == 'AGENT' then "
+          + "      local alpha = tonumber(ARGV[7]) "
+          + "      local waited = tonumber(ARGV[4]) - tonumber(since) "
+          + "      local length = redis.call('ZCARD', KEYS[4]) "
+          + "      local w = tonumber(redis.call('HGET', KEYS[5], 'wait') or '') "
+          + "      local l = tonumber(redis.call('HGET', KEYS[5], 'length') or '') "
+          + "      if w then w = w + alpha * (waited - w) else w = waited end "
+          + "      if l then l = l + alpha * (length - l) else l = length end "
+          + "      redis.call('HSET', KEYS[5], 'wait', tostring(w), 'length', tostring(l)) "
+          + "    end "
+          + "    redis.call('ZREM', KEYS[4], ARGV[3]) "
+          + "    redis.call('HINCRBY', KEYS[5], 'version', 1) "
+          + "  end "
+          + "end "
+          + "return result",
+            Long.class);
+
+    // 재계산 결과 반영: 방 상태를 읽기 전 값과 같을 때만 변경 (읽는 동안 배정/해제로 바뀐 상담원은 다음 주기에 반영)
+    // KEYS: load / ARGV: 상담원 ID, 읽기 전 값('' 이면 없음), 새 값
+    private static final RedisScript<Long> LOAD_CAS_SCRIPT = new DefaultRedisScript<>(
+            "if (redis.call('HGET', KEYS[1], ARGV[1]) or '') ~= ARGV[2] then return 0 end "
+          + "redis.call('HSET', KEYS[1], ARGV[1], ARGV[3]) "
+          + "return 1", Long.class);
+
+    /**
+     * 시작 시 상담원별 상담 수를 현재 방 상태로 다시 계산하고(상담 대기열이 없으면 함께 구성) 이후 주기적으로 재계산
+     * 스크립트 오류, 중간에 끊긴 요청 등으로 어긋난 상담 수가 한도 판단에 계속 남지 않도록 한다.
+     */
+    @PostConstruct
+    public void initAgentRoomCounts() {
+        try {
+            if (!Boolean.TRUE.equals(redisTemplate.hasKey(WAITING_KEY))) {
+                int waiting = 0;
+                for (ChatRoom room : findAllRooms()) {
+                    if ("WAITING".equals(room.getStatus())) {
+                        long since = room.getLastActivityAt() > 0 ? room.getLastActivityAt() : System.currentTimeMillis();
+                        redisTemplate.opsForZSet().addIfAbsent(WAITING_KEY, room.getRoomId(), since);
+                        waiting++;
+                    }
+                }
+                log.info("▼ initAgentRoomCounts. waiting:{}", waiting);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to initialize waiting queue", e);
+        }
+        reconcileAgentRoomCounts();
+
+        if (reconcileInterval > 0) {
+            reconciler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "agent-room-count-reconciler");
+                thread.setDaemon(true);
+                return thread;
+            });
+            reconciler.scheduleWithFixedDelay(this::reconcileAgentRoomCounts, reconcileInterval, reconcileInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (reconciler != null) {
+            reconciler.shutdownNow();
+        }
+    }
+
+    /**
+     * 상담원별 상담 수 재계산 - AGENT 상태 방을 상담원 ID 별로 세어 카운터와 다르면 바로잡는다.
+     * assignedAgentId 가 없는 방(상담원 ID 저장 이전에 배정된 방)은 상담원 이름으로 ID를 찾아 센다.
+     */
+    void reconcileAgentRoomCounts() {
+        try {
+            Map<String, String> before = new HashMap<>();
+            redisTemplate.opsForHash().entries(AGENT_LOAD_KEY)
+                    .forEach((agentId, count) -> before.put(agentId.toString(), count.toString()));
+
+            List<String> roomIds = new ArrayList<>(Optional.ofNullable(redisTemplate.opsForSet().members(CHAT_ROOMS_KEY))
+                    .orElse(Collections.emptySet()));
+            List<Object> states = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection conn = (StringRedisConnection) connection;
+                for (String roomId : roomIds) {
+                    conn.mGet(ROOM_KEY_PREFIX + roomId + ":mode", ROOM_KEY_PREFIX + roomId + ":assignedAgentId",
+                            ROOM_KEY_PREFIX + roomId + ":assignedAgent");
+                }
+                return null;
+            });
+
+            Map<String, String> idsByName = null;
+            Map<String, Long> counts = new HashMap<>();
+            for (Object state : states) {
+                @SuppressWarnings("unchecked")
+                List<String> values = (List<String>) state;
+                if (values == null || !"AGENT".equals(values.get(0))) {
+                    continue;
+                }
+                String agentId = values.get(1);
+                if (agentId == null && values.get(2) != null) {
+                    if (idsByName == null) {
+                        idsByName = new HashMap<>();
+                        for (Map.Entry<Object, Object> e : redisTemplate.opsForHash().entries(AGENT_NAMES_KEY).entrySet()) {
+                            idsByName.put(e.getValue().toString(), e.getKey().toString());
+                        }
+                    }
+                    agentId = idsByName.get(values.get(2));
+                }
+                if (agentId != null) {
+                    counts.merge(agentId, 1L, Long::sum);
+                }
+            }
+
+            Set<String> agentIds = new HashSet<>(before.keySet());
+            agentIds.addAll(counts.keySet());
+            int corrected = 0;
+            for (String agentId : agentIds) {
+                String expected = before.getOrDefault(agentId, "");
+                String actual = String.valueOf(counts.getOrDefault(agentId, 0L));
+                if (!actual.equals(expected)) {
+                    Long result = redisTemplate.execute(LOAD_CAS_SCRIPT, List.of(AGENT_LOAD_KEY), agentId, expected, actual);
+                    if (result != null && result == 1L) {
+                        corrected++;
+                    }
+                }
+            }
+            if (corrected > 0) {
+                log.info("▼ reconcileAgentRoomCounts. corrected:{}, counts:{}", corrected, counts);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to reconcile agent room counts", e);
+        }
+    }
+
+    // mode/assignedAgent 변경 (상담원별 상담 수, 상담 대기열 함께 갱신)
+    private long updateRoomState(String roomId, String op, String value, String agentId, int maxChats, boolean waitingOnly) {
+        Long result = redisTemplate.execute(ROOM_STATE_SCRIPT,
+                List.of(ROOM_KEY_PREFIX + roomId + ":mode", ROOM_KEY_PREFIX + roomId + ":assignedAgent", AGENT_LOAD_KEY,
+                        WAITING_KEY, WAITING_STATS_KEY, ROOM_KEY_PREFIX + roomId + ":assignedAgentId"),
+                op, value != null ? value : "", roomId, String.valueOf(System.currentTimeMillis()),
+                String.valueOf(maxChats), waitingOnly ? "1" : "0", String.valueOf(waitEwmaAlpha), agentId != null ? agentId : "");
+        return result != null ? result : 0L;
+    }
+
+    private long updateRoomState(String roomId, String op, String value) {
+        return updateRoomState(roomId, op, value, null, 0, false);
+    }
 
     @Override
     public ChatRoom createRoom(String name) {
@@ -118,6 +333,25 @@ public class RedisRoomRepository implements RoomRepository {
         redisTemplate.opsForSet().remove(ROOM_KEY_PREFIX + roomId + ":mems", memberId); // members "chat:room:"
     }
 
+    @Override
+    public void removeMembers(Map<String, Set<String>> roomsByMember) {
+        if (roomsByMember == null || roomsByMember.isEmpty()) {
+            return;
+        }
+        log.info("▼ removeMembers. members:{}", roomsByMember.size());
+
+        // [removeMembers] 방 멤버 Set에서 한 번의 왕복으로 제거
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            roomsByMember.forEach((memberId, roomIds) -> {
+                for (String roomId : roomIds) {
+                    conn.sRem(ROOM_KEY_PREFIX + roomId + ":mems", memberId);
+                }
+            });
+            return null;
+        });
+    }
+
     @Override
     public void removeMemberFromAll(String memberId) {
         log.info("▼ removeMemberFromAll. memberId:{}", memberId);
@@ -156,7 +390,7 @@ public class RedisRoomRepository implements RoomRepository {
         // [setRoutingMode] 방의 라우팅 상태 저장
         // 방 상태(BOT/WAITING/AGENT/CLOSED 등) 저장
         if (roomId != null && mode != null) {
-            redisTemplate.opsForValue().set(ROOM_KEY_PREFIX + roomId + ":mode", mode);
+            updateRoomState(roomId, "mode", mode);
         }
     }
 
@@ -169,17 +403,12 @@ public class RedisRoomRepository implements RoomRepository {
     }
 
     @Override
-    public void setAssignedAgent(String roomId, String agentName) {
-        log.info("▶▶▶ roomId:{},agentName:{}", roomId, agentName);
+    public void setAssignedAgent(String roomId, String agentId, String agentName) {
+        log.info("▶▶▶ roomId:{},agentId:{},agentName:{}", roomId, agentId, agentName);
         // [setAssignedAgent] 방에 배정된 상담원 저장 또는 삭제
         if (roomId != null) {
-            if (agentName != null) {
-                // 상담원 배정
-                redisTemplate.opsForValue().set(ROOM_KEY_PREFIX + roomId + ":assignedAgent", agentName);
-            } else {
-                // agentName이 null이면 키 삭제 (상담원 배정 해제)
-                redisTemplate.delete(ROOM_KEY_PREFIX + roomId + ":assignedAgent");
-            }
+            // agentName이 null이면 키 삭제 (상담원 배정 해제)
+            updateRoomState(roomId, "agent", agentName, agentId, 0, false);
         }
     }
 
@@ -192,16 +421,13 @@ public class RedisRoomRepository implements RoomRepository {
     }
 
     @Override
-    public boolean assignAgent(String roomId, String agentName) {
-        log.info("▶▶▶ roomId:{},agentName:{}", roomId, agentName );
+    public boolean assignAgent(String roomId, String agentId, String agentName) {
+        log.info("▶▶▶ roomId:{},agentId:{},agentName:{}", roomId, agentId, agentName );
 
         // [assignAgent] 이미 배정된 경우 실패, 최초 배정만 성공
-        if (roomId == null || agentName == null) return false;
-        // NX(setIfAbsent)로 최초 배정만 허용(원자적)
-        Boolean success = redisTemplate.opsForValue().setIfAbsent(ROOM_KEY_PREFIX + roomId + ":assignedAgent", agentName);
-        if (Boolean.TRUE.equals(success)) {
-            // 배정 성공 시 모드도 AGENT로 변경
-            setRoutingMode(roomId, "AGENT");
+        if (roomId == null || agentId == null || agentName == null) return false;
+        // 배정된 상담원이 없을 때만 배정하고 모드를 AGENT로 변경 (원자적)
+        if (updateRoomState(roomId, "assign", agentName, agentId, 0, false) == 1L) {
             updateLastActivity(roomId);
             return true;
         }
@@ -230,11 +456,70 @@ public class RedisRoomRepository implements RoomRepository {
         if ( !b ) { log.error("delete failed."); }
         b = redisTemplate.delete(ROOM_KEY_PREFIX + roomId + ":name");
         if ( !b ) { log.error("delete failed."); }
-        b = redisTemplate.delete(ROOM_KEY_PREFIX + roomId + ":mode");
-        if ( !b ) { log.error("delete failed."); }
-        b = redisTemplate.delete(ROOM_KEY_PREFIX + roomId + ":assignedAgent");
-        if ( !b ) { log.error("delete failed."); }
+        updateRoomState(roomId, "delete", null); // mode, assignedAgent, assignedAgentId (상담원별 상담 수 함께 갱신)
         b = redisTemplate.delete(ROOM_KEY_PREFIX + roomId + ":lastActivity");
         if ( !b ) { log.error("delete failed."); }
     }
+
+    @Override
+    public Map<String, Long> getAgentRoomCounts() {
+        log.info("▶▶▶ getAgentRoomCounts");
+
+        // [getAgentRoomCounts] 상담원 ID 별 AGENT 상태 방 수 (방 전체를 읽지 않음)
+        Map<Object, Object> entries = redisTemplate.opsForHash().entries(AGENT_LOAD_KEY);
+        Map<String, Long> counts = new HashMap<>();
+        entries.forEach((agentId, count) -> counts.put(agentId.toString(), Long.parseLong(count.toString())));
+        return counts;
+    }
+
+    @Override
+    public List<String> getWaitingRooms(int limit) {
+        // [getWaitingRooms] 대기 시작 순 WAITING 방 목록 (limit <= 0 이면 전체)
+        return getWaitingRooms(0, limit);
+    }
+
+    @Override
+    public List<String> getWaitingRooms(long offset, int limit) {
+        // [getWaitingRooms] 대기 시작 순 WAITING 방 목록 중 offset 번째부터 (limit <= 0 이면 끝까지)
+        Set<String> roomIds = redisTemplate.opsForZSet().range(WAITING_KEY, offset, limit > 0 ? offset + limit - 1L : -1L);
+        return roomIds != null ? List.copyOf(roomIds) : Collections.emptyList();
+    }
+
+    @Override
+    public List<String> getWaitingRoomsSince(long since) {
+        // [getWaitingRoomsSince] 대기 시작 시각(score)이 since 이후인 WAITING 방 (대기열 끝부분만 읽음)
+        Set<String> roomIds = redisTemplate.opsForZSet().rangeByScore(WAITING_KEY, since, Double.POSITIVE_INFINITY);
+        return roomIds != null ? List.copyOf(roomIds) : Collections.emptyList();
+    }
+
+    @Override
+    public long getWaitingCount() {
+        // [getWaitingCount] WAITING 방 수
+        Long count = redisTemplate.opsForZSet().zCard(WAITING_KEY);
+        return count != null ? count : 0L;
+    }
+
+    @Override
+    public AssignResult assignWaitingRoom(String roomId, String agentId, String agentName, int maxChats) {
+        log.info("▶▶▶ roomId:{},agentId:{},agentName:{},maxChats:{}", roomId, agentId, agentName, maxChats);
+
+        // [assignWaitingRoom] WAITING 상태이고 상담원 한도가 남아 있을 때만 배정 (원자적)
+        if (roomId == null || agentId == null || agentName == null) return AssignResult.ROOM_UNAVAILABLE;
+        long result = updateRoomState(roomId, "assign", agentName, agentId, maxChats, true);
+        if (result == 1L) {
+            updateLastActivity(roomId);
+            return AssignResult.ASSIGNED;
+        }
+        return result == -1L ? AssignResult.AGENT_FULL : AssignResult.ROOM_UNAVAILABLE;
+    }
+
+    @Override
+    public WaitingQueueStats getWaitingQueueStats() {
+        // [getWaitingQueueStats] 대기열 변경 횟수와 배정 시 대기 시간/대기열 길이 EWMA
+        List<Object> values = redisTemplate.opsForHash().multiGet(WAITING_STATS_KEY, List.of("version", "wait", "length"));
+        return new WaitingQueueStats(
+                values.get(0) != null ? Long.parseLong(values.get(0).toString()) : 0L,
+                values.get(1) != null ? Double.parseDouble(values.get(1).toString()) : 0d,
+                values.get(2) != null ? Double.parseDouble(values.get(2).toString()) : 0d);
+    }
 }
@@ -4,6 +4,7 @@ import aicc.chat.domain.persistence.ChatHistory;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 채팅 이력 서비스 인터페이스
@@ -34,6 +35,20 @@ public interface ChatHistoryService {
             LocalDateTime endTime
     );
     
+    /**
+     * 채팅방의 최근 메시지 조회 (Redis 최근 메시지 캐시 우선, 부족하면 DB)
+     *
+     * @return 최대 limit 건, 오래된 것 → 최신 순
+     */
+    List<ChatHistory> getRecentChatHistoryByRoomId(String roomId, int limit);
+    
+    /**
+     * 채팅방의 이전 메시지 페이지 조회 (beforeId 보다 이전, DB)
+     *
+     * @return 최대 limit 건, 오래된 것 → 최신 순
+     */
+    List<ChatHistory> getChatHistoryPageByRoomId(String roomId, Long beforeId, int limit);
+    
     /**
      * 고객 ID로 이력 조회
      */
@@ -48,6 +63,18 @@ public interface ChatHistoryService {
             LocalDateTime endTime
     );
     
+    /**
+     * 회사 ID와 시간 범위로 이력을 스트리밍 내보내기 (Cursor 기반, 건별로 consumer 호출)
+     *
+     * @return 내보낸 건수
+     */
+    long exportChatHistoryByCompanyIdAndTimeRange(
+            String companyId,
+            LocalDateTime startTime,
+            LocalDateTime endTime,
+            Consumer<ChatHistory> consumer
+    );
+    
     /**
      * 채팅방 ID로 모든 이력 삭제
      */
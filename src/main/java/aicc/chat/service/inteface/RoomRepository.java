@@ -15,6 +15,8 @@ public interface RoomRepository {
     void removeMember(String roomId, String memberId);
     // 모든 방에서 특정 멤버 제거
     void removeMemberFromAll(String memberId);
+    // 여러 멤버를 각자의 방에서 한 번에 제거 (memberId -> roomId 목록)
+    void removeMembers(java.util.Map<String, java.util.Set<String>> roomsByMember);
     // 전체 방 목록 조회
     java.util.List<ChatRoom> findAllRooms();
     
@@ -23,15 +25,43 @@ public interface RoomRepository {
     void setRoutingMode(String roomId, String mode);
     // 방 라우팅 모드 조회
     String getRoutingMode(String roomId);
-    // 방에 배정된 상담원 설정
-    void setAssignedAgent(String roomId, String agentName);
-    // 방에 배정된 상담원 조회
+    // 방에 배정된 상담원 설정 (agentName이 null이면 배정 해제)
+    void setAssignedAgent(String roomId, String agentId, String agentName);
+    // 방에 배정된 상담원 이름 조회
     String getAssignedAgent(String roomId);
     // 원자적으로 상담원 배정 시도
-    boolean assignAgent(String roomId, String agentName); // 원자적 배정 추가
+    boolean assignAgent(String roomId, String agentId, String agentName); // 원자적 배정 추가
     
     // 방의 마지막 활동 시간 갱신
     void updateLastActivity(String roomId);
     // 방 삭제
     void deleteRoom(String roomId);
+
+    // 상담원 ID 별 진행 중(AGENT 상태) 상담 수 (상담 한도 설정과 같은 기준)
+    java.util.Map<String, Long> getAgentRoomCounts();
+
+    // 상담원 연결 대기(WAITING) 방 목록 (대기 시작 순, 최대 limit 건, 0 이하이면 전체)
+    java.util.List<String> getWaitingRooms(int limit);
+    // 상담원 연결 대기(WAITING) 방 목록 중 offset 번째(0부터)부터 최대 limit 건 (0 이하이면 끝까지)
+    java.util.List<String> getWaitingRooms(long offset, int limit);
+    // 대기 시작 시각이 since(밀리초) 이후인 WAITING 방 목록 (대기 시작 순)
+    java.util.List<String> getWaitingRoomsSince(long since);
+    // 상담원 연결 대기(WAITING) 방 수
+    long getWaitingCount();
+    // WAITING 방을 상담원에게 원자적으로 배정 (maxChats: 상담원 최대 상담 수, 0이면 무제한)
+    AssignResult assignWaitingRoom(String roomId, String agentId, String agentName, int maxChats);
+
+    // 상담원 연결 대기열 통계
+    WaitingQueueStats getWaitingQueueStats();
+
+    // 대기열 통계 (version: 대기열 변경 횟수, averageWait: 배정 시 대기 시간 EWMA(밀리초), averageLength: 배정 시 대기열 길이 EWMA)
+    record WaitingQueueStats(long version, double averageWait, double averageLength) {
+    }
+
+    // 대기 방 배정 결과
+    enum AssignResult {
+        ASSIGNED,         // 배정 완료
+        ROOM_UNAVAILABLE, // 이미 배정되었거나 대기 중이 아님
+        AGENT_FULL        // 상담원 상담 수 한도 도달
+    }
 }
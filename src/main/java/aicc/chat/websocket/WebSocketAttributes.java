@@ -2,14 +2,13 @@ package aicc.chat.websocket;
 
 import java.util.Map;
 
-import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.stomp.StompCommand;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
-import org.springframework.messaging.support.GenericMessage;
-
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 import aicc.chat.websocket.domain.WebSocketSessionAttribute;
+import aicc.chat.websocket.domain.WebSocketSessionContext;
 
 public class WebSocketAttributes {
 
@@ -24,50 +23,44 @@ public class WebSocketAttributes {
     SessionUnsubscribeEvent 클라이언트가 구독을 해제할 때 발생         채팅방 탈퇴 추적, 알림 해제
    */
 	// WebSocketSessionAttribute attr = WebSocketAttributes.getSimpSessionAttributes(...)
+	// 이벤트 정보(sessionId, destination, command)와 세션 사용자 정보를 함께 반환 (연결/구독/해제 이벤트용)
 	public static WebSocketSessionAttribute getSimpSessionAttributes(StompHeaderAccessor accessor) {
-        ObjectMapper mapper = new ObjectMapper();
-        MessageHeaders headers = accessor.getMessageHeaders();
-        Map<?,?> map = (Map<?,?>) headers.get("simpSessionAttributes");
-        if ( map == null ) {
-            // 2. keySet() + get()
-            for (String key : headers.keySet()) {
-                Object value = headers.get(key);
-                if ( value instanceof GenericMessage) {
-                	GenericMessage<?> genericMessage = (GenericMessage<?>) value;
+        WebSocketSessionContext context = getSessionContext(accessor);
 
-            	    // Payload 확인
-            	    //Object payload = genericMessage.getPayload();
-            	    //System.out.println("Payload: " + payload);
+        StompCommand stompCommand = accessor.getCommand();
+        WebSocketSessionAttribute.WebSocketSessionAttributeBuilder builder = WebSocketSessionAttribute.builder()
+                .sessionId(accessor.getSessionId())
+                .destination(accessor.getDestination())
+                .command((stompCommand != null) ? stompCommand.name() : "UNKNOWN");
+        if (context != null) {
+            builder.userId(context.getUserId())
+                   .userName(context.getUserName())
+                   .userRole(context.getUserRoleName())
+                   .userEmail(context.getUserEmail())
+                   .roomId(context.getRoomId())
+                   .companyId(context.getCompanyId());
+        }
+        return builder.build();
+    }
 
-            	    // Headers 확인
-            	    Map<String, Object> headers2 = genericMessage.getHeaders();
-            	    map = (Map<?,?>) headers2.get("simpSessionAttributes");
-                }
-                //System.out.println("Header: [" + key + "] = " + value);
+	// 핸드셰이크 시 세션 속성에 저장한 사용자 정보 (인증되지 않은 세션이면 null)
+	public static WebSocketSessionContext getSessionContext(SimpMessageHeaderAccessor accessor) {
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        if ( attributes == null ) {
+            /*
+            CONNECT_ACK(SessionConnectedEvent)는 세션 속성이 원래 CONNECT 메시지 헤더 안에 있음
+            StompHeaderAccessor [headers={simpMessageType=CONNECT_ACK,
+                    simpConnectMessage=GenericMessage [payload=byte[0], headers={simpMessageType=CONNECT, stompCommand=CONNECT,
+                    nativeHeaders={accept-version=[1.1,1.0], heart-beat=[10000,10000]},
+                    simpSessionAttributes={userName=홍길철, userId=cust01, roomId=room-e2e2007b, companyId=apt001, userEmail=cust01@example.com, userRole=CUSTOMER},
+                    simpHeartbeat=[J@499017b8, simpSessionId=eatejeae}], simpSessionId=eatejeae}]
+            */
+            Object connectMessage = accessor.getHeader(SimpMessageHeaderAccessor.CONNECT_MESSAGE_HEADER);
+            if ( connectMessage instanceof Message<?> message ) {
+                attributes = SimpMessageHeaderAccessor.getSessionAttributes(message.getHeaders());
             }
-
-            accessor.getMessageHeaders().forEach((key, value) -> {
-                // log.info("onConnect Header [" + key + "] = " + value);
-            });
-
-            // 특정 Native Header 출력
-            //List<String> userIds = accessor.getNativeHeader("userId");
         }
-        WebSocketSessionAttribute sessionAttribute = mapper.convertValue(map, WebSocketSessionAttribute.class);
-        /*
-        StompHeaderAccessor [headers={simpMessageType=CONNECT_ACK,
-                simpConnectMessage=GenericMessage [payload=byte[0], headers={simpMessageType=CONNECT, stompCommand=CONNECT,
-                nativeHeaders={accept-version=[1.1,1.0], heart-beat=[10000,10000]},
-                simpSessionAttributes={userName=홍길철, userId=cust01, roomId=room-e2e2007b, companyId=apt001, userEmail=cust01@example.com, userRole=CUSTOMER},
-                simpHeartbeat=[J@499017b8, simpSessionId=eatejeae}], simpSessionId=eatejeae}]
- 		*/
-        sessionAttribute.setSessionId( accessor.getSessionId() );
-        sessionAttribute.setDestination( accessor.getDestination() );
-
-        StompCommand stompCommand = accessor.getCommand();
-        sessionAttribute.setCommand ( (stompCommand != null) ? stompCommand.name() : "UNKNOWN" );
-
-        return sessionAttribute;
+        return WebSocketSessionContext.from(attributes);
     }
-	
+
 }
@@ -4,8 +4,10 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.springframework.context.event.EventListener;
 import org.springframework.messaging.MessageHeaders;
@@ -34,7 +36,10 @@ public class WebSocketEventListener {
     private final RoomRepository roomRepository;
     private final WebSocketSessionService webSocketSessionService;
     private final MessageBroker messageBroker;
-static private boolean skip = true; 
+    // 로그만 남기는 이벤트(연결 시도, 구독 해제) 생략 여부. 세션 등록/해제, 방 구독 추적은 항상 처리
+    static private boolean skipTraceLog = true;
+    // 고객 연결 해제 시 상담원에게 CUSTOMER_DISCONNECTED 알림 생략 여부 (기존과 같이 보내지 않음)
+    static private boolean skipCustomerDisconnectNotice = true;
 
     /*
     ㅁ WebSocket/STOMP 이벤트 종류
@@ -70,7 +75,7 @@ static private boolean skip = true;
         command         STOMP 명령 (예: CONNECT)
         message         전체 메시지 객체
         */
-    ) { if ( skip ) return;
+    ) { if ( skipTraceLog ) return;
         log.info("▶ WebSocket 연결 이벤트 시작.");
         log.info("ㅁㅁㅁ ▶ WebSocket onConnect: {}", event.getMessage().getHeaders());
         StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
@@ -159,7 +164,7 @@ static private boolean skip = true;
     // 연결 완료
     @EventListener
     // 세션 연결 완료 시 로깅 및 Redis 세션 등록
-    public void onConnected(SessionConnectedEvent event) { if ( skip ) return;
+    public void onConnected(SessionConnectedEvent event) {
         log.info("▶ WebSocket 연결 완료 이벤트 시작. event.getMessage().getHeaders():{}", event.getMessage().getHeaders());
 
         StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
@@ -198,7 +203,7 @@ static private boolean skip = true;
 	    nativeHeaders   클라이언트가 SUBSCRIBE 시 보낸 커스텀 헤더
 	    messageHeaders  전체 메시지 헤더 맵
 	  */
-    ) { if ( skip ) return;
+    ) {
         log.info("▶ WebSocket 토픽 구독 이벤트 시작.");
         StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
 
@@ -215,6 +220,7 @@ static private boolean skip = true;
             else {
                 roomRepository.addMember(roomId, sessionAttribute.getSessionId());
             }
+            webSocketSessionService.trackRoom(sessionAttribute.getSessionId(), roomId); // 서버 비정상 종료 시 멤버 정리용
         }
         log.info("◀ WebSocket 토픽 구독 이벤트 처리 종료.");
     }
@@ -222,7 +228,7 @@ static private boolean skip = true;
     // 구독 해제
     @EventListener
     // 토픽 구독 해제 이벤트 로깅
-    public void onUnsubscribe(SessionUnsubscribeEvent event) { if ( skip ) return;
+    public void onUnsubscribe(SessionUnsubscribeEvent event) { if ( skipTraceLog ) return;
         log.info("▶ WebSocket 토픽 구독 해제 처리 이벤트 시작.");
 
     	StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
@@ -250,7 +256,7 @@ static private boolean skip = true;
 		message         전체 STOMP 메시지 객체
 		nativeHeaders   연결 종료 시점에 포함된 헤더 (일반적으로 CONNECT 시 전달된 값과 동일)
 		*/
-    ) { if ( skip ) return;
+    ) {
         log.info("▶ WebSocket 연결 해제 이벤트 시작.");
 
         StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
@@ -268,9 +274,10 @@ static private boolean skip = true;
         String roomId    = sessionAttribute.getRoomId();
         
         // 1. Redis에서 세션 정보 제거
+        Set<String> subscribedRooms = Collections.emptySet();
         if (sessionId != null) {
             log.info("▶▶ Redis에서 세션:{} 제거(webSocketSessionService.unregisterSession) 시작. sessionAttribute:{}", sessionId, sessionAttribute);
-            webSocketSessionService.unregisterSession(sessionId);
+            subscribedRooms = webSocketSessionService.unregisterSession(sessionId);
             log.info("◀◀ Redis에서 세션 제거 완료!");
 
         } else {
@@ -278,7 +285,7 @@ static private boolean skip = true;
         }
 
         // 2. 고객이 연결 해제된 경우 상담원에게 알림
-        if ("CUSTOMER".equals(userRole) && roomId != null && userId != null) {
+        if (!skipCustomerDisconnectNotice && "CUSTOMER".equals(userRole) && roomId != null && userId != null) {
             log.info("▶▶ 고객 연결 해제 알림 전송 시작...");
             log.info("  - roomId: {}", roomId);
             log.info("  - userId: {}", userId);
@@ -324,9 +331,12 @@ static private boolean skip = true;
     	    simpSessionId=aroiqtew
    	    }
          */
-        log.info("▶▶ 채팅방 멤버 제거 시작.roomRepository.removeMemberFromAll(sessionId:{})", sessionId);
-        roomRepository.removeMemberFromAll(sessionId);
-        log.info("◀◀ 채팅방 멤버 제거 종료.");
+        // 세션ID로 추가된 멤버(인증되지 않은 세션)만 대상이며, 전체 방을 순회하지 않고 이 세션이 구독했던 방에서만 제거
+        if (sessionId != null && userId == null && !subscribedRooms.isEmpty()) {
+            log.info("▶▶ 채팅방 멤버 제거 시작. sessionId:{}, rooms:{}", sessionId, subscribedRooms);
+            roomRepository.removeMembers(Map.of(sessionId, subscribedRooms));
+            log.info("◀◀ 채팅방 멤버 제거 종료.");
+        }
 
         log.info("◀ WebSocket 연결 해제 이벤트 종료.");
     }
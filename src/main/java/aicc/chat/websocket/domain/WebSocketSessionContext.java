@@ -0,0 +1,63 @@
+package aicc.chat.websocket.domain;
+
+import java.util.Map;
+
+import aicc.chat.domain.UserInfo;
+import aicc.chat.domain.UserRole;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 웹소켓 세션의 사용자 정보 (핸드셰이크 시 한 번 생성하여 세션 속성에 보관, 이후 변경 없음)
+ *
+ * 메시지/이벤트마다 세션 속성 Map을 변환하지 않고 이 객체를 그대로 꺼내 사용한다.
+ */
+@Getter
+@Builder
+@ToString
+public class WebSocketSessionContext {
+
+    // 세션 속성(simpSessionAttributes) 키
+    public static final String ATTRIBUTE = WebSocketSessionContext.class.getName();
+
+    private final String userId;
+    private final String userName;
+    private final UserRole userRole;
+    private final String userEmail;
+    private final String roomId;
+    private final String companyId;
+
+    /**
+     * 토큰 검증 결과로 생성
+     *
+     * @param roomId 토큰에 roomId가 없을 때 사용할 방 (핸드셰이크 파라미터)
+     */
+    public static WebSocketSessionContext of(UserInfo userInfo, String roomId) {
+        // 1. 토큰에 roomId가 있으면 사용 (주로 상담원 등 고정된 경우)
+        // 2. 파라미터로 roomId가 전달되면 사용 (주로 고객이 상담 시작 시 생성한 경우)
+        return WebSocketSessionContext.builder()
+                .userId(userInfo.getUserId())
+                .userName(userInfo.getUserName())
+                .userRole(userInfo.getRole())
+                .userEmail(userInfo.getEmail())
+                .roomId(userInfo.getRoomId() != null ? userInfo.getRoomId() : roomId)
+                .companyId(userInfo.getCompanyId())
+                .build();
+    }
+
+    /**
+     * 세션 속성에서 꺼내기 (인증되지 않은 세션이면 null)
+     */
+    public static WebSocketSessionContext from(Map<String, Object> sessionAttributes) {
+        if (sessionAttributes == null) {
+            return null;
+        }
+        Object context = sessionAttributes.get(ATTRIBUTE);
+        return context instanceof WebSocketSessionContext ? (WebSocketSessionContext) context : null;
+    }
+
+    public String getUserRoleName() {
+        return userRole != null ? userRole.name() : null;
+    }
+}
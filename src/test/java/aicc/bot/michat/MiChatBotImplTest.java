@@ -0,0 +1,107 @@
+package aicc.bot.michat;
+
+import aicc.bot.dto.ChatBotRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MiChatBotImplTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = JsonMapper.builder().findAndAddModules().build();
+    private static final String QUESTION = "그럼 요금은 얼마예요?";
+
+    private final AtomicInteger aiCalls = new AtomicInteger();
+    private MiChatAnswerCache answerCache;
+    private MiChatBotImpl bot;
+
+    @BeforeEach
+    void setUp() {
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    aiCalls.incrementAndGet();
+                    return Mono.just(ClientResponse.create(HttpStatus.OK)
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.TEXT_EVENT_STREAM_VALUE)
+                            .body("data: {\"delta\":\"room-b answer\"}\n\ndata: [DONE]\n\n")
+                            .build());
+                })
+                .build();
+
+        answerCache = mock(MiChatAnswerCache.class);
+        MiChatCircuitBreaker circuitBreaker = mock(MiChatCircuitBreaker.class);
+        when(circuitBreaker.tryAcquirePermission()).thenReturn(true);
+        MiChatEndpointBalancer endpointBalancer = mock(MiChatEndpointBalancer.class);
+        MiChatEndpointBalancer.Call call = mock(MiChatEndpointBalancer.Call.class);
+        when(call.getUrl()).thenReturn("http://ai.test");
+        when(endpointBalancer.acquire(any())).thenReturn(call);
+
+        bot = new MiChatBotImpl(webClient, OBJECT_MAPPER, answerCache, circuitBreaker, endpointBalancer);
+    }
+
+    private List<String> ask(String roomId) throws InterruptedException {
+        List<String> chunks = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+        bot.ask(ChatBotRequest.builder()
+                        .sessionId(roomId)
+                        .companyId("apt001")
+                        .userId("customer")
+                        .message(QUESTION)
+                        .build(),
+                chunks::add, done::countDown);
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        return chunks;
+    }
+
+    @Test
+    void firstTurnUsesCachedAnswer() throws InterruptedException {
+        when(answerCache.lookup(eq("room-a"), eq("apt001"), any(), any(), eq(QUESTION)))
+                .thenReturn(new MiChatAnswerCache.Lookup(true, "room-a answer"));
+
+        assertThat(ask("room-a")).containsExactly("room-a answer");
+        assertThat(aiCalls).hasValue(0);
+        // AI 서버는 캐시로 답한 질문을 모르므로 대화 이력으로 표시하지 않음
+        verify(answerCache, never()).markTurn(anyString());
+    }
+
+    @Test
+    void contextualFollowUpInAnotherRoomDoesNotGetCachedAnswer() throws InterruptedException {
+        // room A의 첫 질문 답변이 캐시에 있어도 이전 대화가 있는 room B는 AI 서버에 물어야 함
+        when(answerCache.lookup(eq("room-b"), eq("apt001"), any(), any(), eq(QUESTION)))
+                .thenReturn(new MiChatAnswerCache.Lookup(false, null));
+
+        assertThat(ask("room-b")).containsExactly("room-b answer");
+        assertThat(aiCalls).hasValue(1);
+        verify(answerCache, never()).put(anyString(), any(), any(), anyString(), anyString());
+    }
+
+    @Test
+    void firstTurnAnswerIsStoredForLaterFirstTurns() throws InterruptedException {
+        when(answerCache.lookup(eq("room-c"), eq("apt001"), any(), any(), eq(QUESTION)))
+                .thenReturn(new MiChatAnswerCache.Lookup(true, null));
+
+        assertThat(ask("room-c")).containsExactly("room-b answer");
+        verify(answerCache).put(eq("apt001"), any(), any(), eq(QUESTION), eq("room-b answer"));
+        verify(answerCache).markTurn("room-c");
+    }
+}
@@ -0,0 +1,167 @@
+package aicc.bot.michat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MiChatCircuitBreakerTest {
+
+    private MiChatCircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        circuitBreaker = new MiChatCircuitBreaker(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(circuitBreaker, "enabled", true);
+        ReflectionTestUtils.setField(circuitBreaker, "windowSize", 10);
+        ReflectionTestUtils.setField(circuitBreaker, "minimumCalls", 4);
+        ReflectionTestUtils.setField(circuitBreaker, "failureRateThreshold", 50);
+        ReflectionTestUtils.setField(circuitBreaker, "slowCallRateThreshold", 75);
+        ReflectionTestUtils.setField(circuitBreaker, "slowCallDuration", 1_000L);
+        ReflectionTestUtils.setField(circuitBreaker, "openDuration", 60_000L);
+        ReflectionTestUtils.setField(circuitBreaker, "halfOpenCalls", 2);
+        circuitBreaker.init();
+    }
+
+    private void record(boolean success, long duration) {
+        assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+        circuitBreaker.onResult(success, duration);
+    }
+
+    // open-duration이 지난 것처럼 만들어 다음 호출에서 HALF_OPEN으로 전환
+    private void elapseOpenDuration() {
+        ReflectionTestUtils.setField(circuitBreaker, "openUntil", System.currentTimeMillis() - 1);
+    }
+
+    private void tripOpen() {
+        for (int i = 0; i < 4; i++) {
+            record(false, 10);
+        }
+        assertThat(circuitBreaker.getState()).isEqualTo(MiChatCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void staysClosedBelowMinimumCalls() {
+        record(false, 10);
+        record(false, 10);
+        record(false, 10);
+
+        assertThat(circuitBreaker.getState()).isEqualTo(MiChatCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void opensOnFailureRateAndRejectsCalls() {
+        record(true, 10);
+        record(false, 10);
+        record(true, 10);
+        record(false, 10);
+
+        assertThat(circuitBreaker.getState()).isEqualTo(MiChatCircuitBreaker.State.OPEN);
+        assertThat(circuitBreaker.tryAcquirePermission()).isFalse();
+    }
+
+    @Test
+    void opensOnSlowFirstTokenRate() {
+        record(true, 1_500);
+        record(true, 2_000);
+        record(true, 10);
+        assertThat(circuitBreaker.getState()).isEqualTo(MiChatCircuitBreaker.State.CLOSED);
+
+        record(true, 1_000);
+
+        assertThat(circuitBreaker.getState()).isEqualTo(MiChatCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void oldResultsLeaveTheWindow() {
+        record(false, 10);
+        for (int i = 0; i < 9; i++) {
+            record(true, 10);
+        }
+        // 창 크기 10 - 첫 실패는 밀려나므로 새 실패 4건이면 실패율 40%
+        for (int i = 0; i < 4; i++) {
+            record(false, 10);
+        }
+        assertThat(circuitBreaker.getState()).isEqualTo(MiChatCircuitBreaker.State.CLOSED);
+
+        record(false, 10);
+
+        assertThat(circuitBreaker.getState()).isEqualTo(MiChatCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void halfOpenAllowsLimitedProbesAndClosesOnSuccess() {
+        tripOpen();
+        elapseOpenDuration();
+
+        assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+        assertThat(circuitBreaker.getState()).isEqualTo(MiChatCircuitBreaker.State.HALF_OPEN);
+        assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+        assertThat(circuitBreaker.tryAcquirePermission()).isFalse();
+
+        circuitBreaker.onResult(true, 10);
+        assertThat(circuitBreaker.getState()).isEqualTo(MiChatCircuitBreaker.State.HALF_OPEN);
+        circuitBreaker.onResult(true, 10);
+
+        assertThat(circuitBreaker.getState()).isEqualTo(MiChatCircuitBreaker.State.CLOSED);
+        // 닫히면 이전 실패 기록은 초기화
+        record(false, 10);
+        assertThat(circuitBreaker.getState()).isEqualTo(MiChatCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void halfOpenReopensOnSlowProbe() {
+        tripOpen();
+        elapseOpenDuration();
+
+        record(true, 5_000);
+
+        assertThat(circuitBreaker.getState()).isEqualTo(MiChatCircuitBreaker.State.OPEN);
+        assertThat(circuitBreaker.tryAcquirePermission()).isFalse();
+    }
+
+    @Test
+    void halfOpenReopensOnFailedProbe() {
+        tripOpen();
+        elapseOpenDuration();
+
+        record(false, 10);
+
+        assertThat(circuitBreaker.getState()).isEqualTo(MiChatCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void cancelledProbeReturnsItsSlot() {
+        tripOpen();
+        elapseOpenDuration();
+        assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+        assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+        assertThat(circuitBreaker.tryAcquirePermission()).isFalse();
+
+        circuitBreaker.onCancel();
+
+        assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+    }
+
+    @Test
+    void resultsOfCallsStartedBeforeOpenAreIgnored() {
+        tripOpen();
+
+        circuitBreaker.onResult(true, 10);
+
+        assertThat(circuitBreaker.getState()).isEqualTo(MiChatCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void disabledBreakerAlwaysPermits() {
+        ReflectionTestUtils.setField(circuitBreaker, "enabled", false);
+
+        for (int i = 0; i < 10; i++) {
+            record(false, 10);
+        }
+
+        assertThat(circuitBreaker.getState()).isEqualTo(MiChatCircuitBreaker.State.CLOSED);
+    }
+}
@@ -0,0 +1,239 @@
+package aicc.bot.michat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class MiChatEndpointBalancerTest {
+
+    private static final String A = "http://ai-a";
+    private static final String B = "http://ai-b";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    private MiChatEndpointBalancer balancer(String... urls) {
+        MiChatEndpointBalancer balancer = new MiChatEndpointBalancer(meterRegistry);
+        ReflectionTestUtils.setField(balancer, "endpointUrls", urls);
+        ReflectionTestUtils.setField(balancer, "ewmaDecay", 10_000L);
+        ReflectionTestUtils.setField(balancer, "ejectAfterFailures", 3);
+        ReflectionTestUtils.setField(balancer, "ejectDuration", 30_000L);
+        ReflectionTestUtils.setField(balancer, "stickyMaxSessions", 100);
+        ReflectionTestUtils.setField(balancer, "stickyTtl", 1_800_000L);
+        balancer.clock = now::get;
+        balancer.init();
+        return balancer;
+    }
+
+    private double gauge(String name, String url) {
+        return meterRegistry.get(name).tag("endpoint", url).gauge().value();
+    }
+
+    // latency 밀리초 뒤 첫 바이트를 받고 결과와 함께 종료
+    private void call(MiChatEndpointBalancer balancer, String sessionId, long latency, boolean healthy) {
+        MiChatEndpointBalancer.Call call = balancer.acquire(sessionId);
+        now.addAndGet(latency);
+        if (healthy) {
+            call.onFirstByte();
+        }
+        call.release(healthy);
+    }
+
+    private void fail(MiChatEndpointBalancer balancer, String url, int times) {
+        for (int i = 0; i < times; i++) {
+            MiChatEndpointBalancer.Call call = balancer.acquire("fail-" + url);
+            assertThat(call.getUrl()).isEqualTo(url);
+            call.release(false);
+        }
+    }
+
+    @Test
+    void trailingSlashIsRemoved() {
+        MiChatEndpointBalancer balancer = balancer("http://ai-a/");
+
+        assertThat(balancer.acquire("s1").getUrl()).isEqualTo(A);
+    }
+
+    @Test
+    void newSessionGoesToEndpointWithFewerOutstandingCalls() {
+        MiChatEndpointBalancer balancer = balancer(A, B);
+        MiChatEndpointBalancer.Call first = balancer.acquire("s1");
+
+        MiChatEndpointBalancer.Call second = balancer.acquire("s2");
+
+        assertThat(second.getUrl()).isNotEqualTo(first.getUrl());
+        assertThat(gauge("bot.endpoint.outstanding", A)).isEqualTo(1);
+        assertThat(gauge("bot.endpoint.outstanding", B)).isEqualTo(1);
+    }
+
+    @Test
+    void sessionStaysOnItsEndpoint() {
+        MiChatEndpointBalancer balancer = balancer(A, B);
+        String url = balancer.acquire("s1").getUrl();
+        balancer.acquire("s1");
+
+        // 더 바쁜 엔드포인트라도 같은 세션은 그대로 유지
+        assertThat(balancer.acquire("s1").getUrl()).isEqualTo(url);
+    }
+
+    @Test
+    void stickyAssignmentExpiresAfterTtl() {
+        MiChatEndpointBalancer balancer = balancer(A, B);
+        MiChatEndpointBalancer.Call call = balancer.acquire("s1");
+        String url = call.getUrl();
+        balancer.acquire("other"); // 다른 엔드포인트도 한 건 진행 중
+        MiChatEndpointBalancer.Call busy = balancer.acquire("s1");
+        assertThat(busy.getUrl()).isEqualTo(url);
+
+        now.addAndGet(1_800_000);
+
+        assertThat(balancer.acquire("s1").getUrl()).isNotEqualTo(url);
+    }
+
+    @Test
+    void slowerEndpointGetsFewerNewSessions() {
+        MiChatEndpointBalancer balancer = balancer(A, B);
+        MiChatEndpointBalancer.Call first = balancer.acquire("s1");
+        MiChatEndpointBalancer.Call second = balancer.acquire("s2");
+        MiChatEndpointBalancer.Call slow = first.getUrl().equals(A) ? first : second;
+        MiChatEndpointBalancer.Call fast = slow == first ? second : first;
+
+        now.addAndGet(50);
+        fast.onFirstByte();
+        now.addAndGet(1_950);
+        slow.onFirstByte();
+        fast.release(true);
+        slow.release(true);
+
+        assertThat(gauge("bot.endpoint.latency.ewma", A)).isEqualTo(2_000);
+        assertThat(gauge("bot.endpoint.latency.ewma", B)).isEqualTo(50);
+        assertThat(balancer.acquire("s3").getUrl()).isEqualTo(B);
+    }
+
+    @Test
+    void ewmaDecaysTowardsRecentLatency() {
+        MiChatEndpointBalancer balancer = balancer(A);
+        call(balancer, "s1", 1_000, true);
+
+        // 감쇠 시간 상수만큼 지난 뒤 지연 0 → 이전 값에 e^-1 가중
+        now.addAndGet(10_000);
+        MiChatEndpointBalancer.Call call = balancer.acquire("s1");
+        call.onFirstByte();
+        call.release(true);
+
+        assertThat(gauge("bot.endpoint.latency.ewma", A)).isCloseTo(1_000 * Math.exp(-1), within(0.001));
+    }
+
+    @Test
+    void onlyFirstByteIsMeasured() {
+        MiChatEndpointBalancer balancer = balancer(A);
+        MiChatEndpointBalancer.Call call = balancer.acquire("s1");
+        now.addAndGet(100);
+        call.onFirstByte();
+        now.addAndGet(5_000);
+        call.onFirstByte();
+        call.release(true);
+
+        assertThat(gauge("bot.endpoint.latency.ewma", A)).isEqualTo(100);
+    }
+
+    @Test
+    void consecutiveFailuresEjectEndpoint() {
+        MiChatEndpointBalancer balancer = balancer(A, B);
+        MiChatEndpointBalancer.Call sticky = balancer.acquire("s1");
+        String url = sticky.getUrl();
+        String other = url.equals(A) ? B : A;
+        sticky.cancel();
+
+        fail(balancer, url, 2);
+        assertThat(gauge("bot.endpoint.ejected", url)).isZero();
+        fail(balancer, url, 1);
+
+        assertThat(gauge("bot.endpoint.ejected", url)).isEqualTo(1);
+        // 고정된 세션도 제외된 엔드포인트에서 옮겨짐
+        assertThat(balancer.acquire("s1").getUrl()).isEqualTo(other);
+        assertThat(balancer.acquire("s2").getUrl()).isEqualTo(other);
+    }
+
+    @Test
+    void successResetsFailureCount() {
+        MiChatEndpointBalancer balancer = balancer(A);
+        fail(balancer, A, 2);
+        call(balancer, "s1", 10, true);
+        fail(balancer, A, 2);
+
+        assertThat(gauge("bot.endpoint.ejected", A)).isZero();
+    }
+
+    @Test
+    void recoveredEndpointIsEjectedAgainOnFirstFailure() {
+        MiChatEndpointBalancer balancer = balancer(A);
+        fail(balancer, A, 3);
+        assertThat(gauge("bot.endpoint.ejected", A)).isEqualTo(1);
+
+        now.addAndGet(30_000);
+        assertThat(gauge("bot.endpoint.ejected", A)).isZero();
+        fail(balancer, A, 1);
+
+        assertThat(gauge("bot.endpoint.ejected", A)).isEqualTo(1);
+    }
+
+    @Test
+    void allEjectedUsesEndpointWhoseEjectionEndsFirst() {
+        MiChatEndpointBalancer balancer = balancer(A, B);
+        MiChatEndpointBalancer.Call first = balancer.acquire("pin-first");
+        String firstUrl = first.getUrl();
+        String secondUrl = firstUrl.equals(A) ? B : A;
+        first.cancel();
+        fail(balancer, firstUrl, 3);
+        now.addAndGet(1_000);
+        fail(balancer, secondUrl, 3);
+
+        assertThat(balancer.acquire("s1").getUrl()).isEqualTo(firstUrl);
+    }
+
+    @Test
+    void cancelDoesNotCountAsFailure() {
+        MiChatEndpointBalancer balancer = balancer(A);
+        for (int i = 0; i < 5; i++) {
+            balancer.acquire("s1").cancel();
+        }
+
+        assertThat(gauge("bot.endpoint.ejected", A)).isZero();
+        assertThat(gauge("bot.endpoint.outstanding", A)).isZero();
+    }
+
+    @Test
+    void failedCallWithoutResponseRaisesLatency() {
+        MiChatEndpointBalancer balancer = balancer(A);
+        call(balancer, "s1", 100, true);
+        MiChatEndpointBalancer.Call failed = balancer.acquire("s1");
+        failed.release(false);
+
+        assertThat(gauge("bot.endpoint.latency.ewma", A)).isEqualTo(100);
+        // 시간 경과 후 응답 없이 실패하면 그 시간만큼 나쁜 지연으로 반영
+        MiChatEndpointBalancer.Call timedOut = balancer.acquire("s1");
+        now.addAndGet(10_000);
+        timedOut.release(false);
+
+        assertThat(gauge("bot.endpoint.latency.ewma", A)).isGreaterThan(100);
+    }
+
+    @Test
+    void releaseIsCountedOnce() {
+        MiChatEndpointBalancer balancer = balancer(A);
+        MiChatEndpointBalancer.Call call = balancer.acquire("s1");
+        balancer.acquire("s2");
+
+        call.release(true);
+        call.release(true);
+        call.cancel();
+
+        assertThat(gauge("bot.endpoint.outstanding", A)).isEqualTo(1);
+    }
+}
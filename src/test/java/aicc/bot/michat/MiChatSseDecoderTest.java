@@ -0,0 +1,154 @@
+package aicc.bot.michat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MiChatSseDecoderTest {
+
+    private final MiChatSseDecoder decoder = new MiChatSseDecoder(new ObjectMapper().getFactory());
+    private final List<String> deltas = new ArrayList<>();
+
+    private void feed(byte[] bytes) {
+        decoder.decode(DefaultDataBufferFactory.sharedInstance.wrap(bytes), deltas::add);
+    }
+
+    private void feed(String text) {
+        feed(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void decodesDataLines() {
+        feed("data: {\"delta\":\"안녕\"}\n\ndata: {\"delta\":\"하세요\"}\n\n");
+
+        assertThat(deltas).containsExactly("안녕", "하세요");
+    }
+
+    @Test
+    void multibyteCharacterSplitAcrossBuffers() {
+        byte[] bytes = "data: {\"delta\":\"상담원\"}\n".getBytes(StandardCharsets.UTF_8);
+        // '상'(3바이트)의 첫 바이트 뒤에서 자름
+        int split = "data: {\"delta\":\"".getBytes(StandardCharsets.UTF_8).length + 1;
+
+        feed(Arrays.copyOfRange(bytes, 0, split));
+        assertThat(deltas).isEmpty();
+        feed(Arrays.copyOfRange(bytes, split, bytes.length));
+
+        assertThat(deltas).containsExactly("상담원");
+    }
+
+    @Test
+    void lineSplitIntoSingleBytes() {
+        byte[] bytes = "data: {\"delta\":\"한글 답변\"}\r\n\r\n".getBytes(StandardCharsets.UTF_8);
+        for (byte b : bytes) {
+            feed(new byte[] { b });
+        }
+
+        assertThat(deltas).containsExactly("한글 답변");
+    }
+
+    @Test
+    void doneTerminatesStream() {
+        feed("data: {\"delta\":\"끝\"}\n\ndata: [DONE]\n\ndata: {\"delta\":\"무시\"}\n\n");
+        feed("data: {\"delta\":\"이것도 무시\"}\n");
+        decoder.finish(deltas::add);
+
+        assertThat(decoder.isDone()).isTrue();
+        assertThat(deltas).containsExactly("끝");
+    }
+
+    @Test
+    void multiLineDataEventIsJoined() {
+        feed("data: {\"delta\":\n");
+        assertThat(deltas).isEmpty();
+        feed("data: \"여러 줄\",\n");
+        feed("data: \"index\":1}\n\n");
+
+        assertThat(deltas).containsExactly("여러 줄");
+
+        // 다음 이벤트는 새로 시작
+        feed("data: {\"delta\":\"다음\"}\n\n");
+        assertThat(deltas).containsExactly("여러 줄", "다음");
+    }
+
+    @Test
+    void incompleteEventIsDroppedAtBlankLine() {
+        feed("data: {\"delta\":\n\n");
+        feed("data: {\"delta\":\"정상\"}\n\n");
+
+        assertThat(deltas).containsExactly("정상");
+    }
+
+    @Test
+    void deltaWinsOverOtherFieldsRegardlessOfOrder() {
+        feed("data: {\"content\":\"content\",\"message\":\"message\",\"delta\":\"delta\"}\n");
+        feed("data: {\"delta\":\"delta\",\"content\":\"content\"}\n");
+
+        assertThat(deltas).containsExactly("delta", "delta");
+    }
+
+    @Test
+    void fieldPriorityFollowsContentMessageTextAnswer() {
+        feed("data: {\"answer\":\"answer\",\"content\":\"content\"}\n");
+        feed("data: {\"answer\":\"answer\",\"text\":\"text\",\"message\":\"message\"}\n");
+        feed("data: {\"answer\":\"answer\",\"text\":\"text\"}\n");
+        feed("data: {\"answer\":\"answer\"}\n");
+
+        assertThat(deltas).containsExactly("content", "message", "text", "answer");
+    }
+
+    @Test
+    void nestedValuesOfOtherFieldsAreSkipped() {
+        feed("data: {\"meta\":{\"delta\":\"nested\"},\"usage\":[1,2],\"content\":\"top\"}\n");
+
+        assertThat(deltas).containsExactly("top");
+    }
+
+    @Test
+    void ignoresNonDataFieldsAndComments() {
+        feed(": keep-alive\nevent: message\nid: 7\nretry: 1000\ndata: {\"delta\":\"ok\"}\n\n");
+
+        assertThat(deltas).containsExactly("ok");
+    }
+
+    @Test
+    void bareJsonLineWithoutDataPrefix() {
+        feed("{\"content\":\"plain\"}\n");
+
+        assertThat(deltas).containsExactly("plain");
+    }
+
+    @Test
+    void malformedJsonIsSkipped() {
+        feed("data: {\"delta\" \"broken\"}\n\ndata: {\"delta\":\"next\"}\n\n");
+
+        assertThat(deltas).containsExactly("next");
+    }
+
+    @Test
+    void trailingLineWithoutNewlineIsFlushedOnFinish() {
+        feed("data: {\"delta\":\"마지막\"}");
+        assertThat(deltas).isEmpty();
+
+        decoder.finish(deltas::add);
+
+        assertThat(deltas).containsExactly("마지막");
+    }
+
+    @Test
+    void overlongLineIsDroppedUntilNextLine() {
+        byte[] huge = new byte[1024 * 1024 + 10];
+        Arrays.fill(huge, (byte) 'x');
+        feed(huge);
+        feed("still huge\ndata: {\"delta\":\"after\"}\n");
+
+        assertThat(deltas).containsExactly("after");
+    }
+}
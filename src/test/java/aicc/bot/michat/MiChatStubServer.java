@@ -0,0 +1,227 @@
+package aicc.bot.michat;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+/*
+ MiChat(AI 서버) 대역 서버 - 실제 AI 서버 없이 챗봇 경로의 부하/지연 테스트용 (app.ai-bot.stub.enabled=true)
+
+ POST /v1/chatbot/ask 를 실제 서버와 같은 SSE 형식(doc/bot-res.txt)으로 응답한다.
+   data: {"sessionId": "...", "delta": "...", "isComplete": false}
+   ...
+   data: {"sessionId": "...", "delta": "", "isComplete": true}
+   data: [DONE]
+
+ - 첫 토큰까지 지연(ttft), 초당 토큰 수(tokens-per-second), 토큰당 글자 수(chunk-chars)
+ - 오류 응답 비율(error-rate)과 상태/오류 코드 (MAI-4xx: 요청 오류, MAI-5xx: 서버 오류)
+ - 스트림 중간 멈춤 비율(stall-rate)과 멈춤 시간(stall-duration) - 타임아웃/지연 호출 재현
+ - seed 를 지정하면 같은 순서의 요청에 항상 같은 결과 (재현 가능한 성능 테스트)
+
+ 질문에 #error4xx, #error5xx, #stall 을 포함하면 비율과 관계없이 해당 시나리오로 응답한다 (수동 확인용).
+ 오류 응답은 설정된 error-status/error-code를 사용하고, 태그로 고른 시나리오가 설정과 다른 종류(4xx/5xx)일 때만 기본값(400/MAI-4001, 500/MAI-5001)을 사용한다.
+
+ 테스트 소스에 있으므로 운영 jar에는 포함되지 않는다. 실행: ./gradlew bootRunStub
+ (테스트 classpath로 애플리케이션을 띄우고 michat-stub 프로필로 대역 서버를 켜고 ai-end-point를 대역 서버로 지정한다)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.ai-bot.stub.enabled", havingValue = "true")
+public class MiChatStubServer {
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.ai-bot.stub.host:127.0.0.1}")
+    private String host;
+
+    @Value("${app.ai-bot.stub.port:18040}")
+    private int port;
+
+    @Value("${app.ai-bot.stub.ttft:300}")
+    private long ttft; // 첫 토큰까지 지연 (밀리초)
+
+    @Value("${app.ai-bot.stub.tokens-per-second:30}")
+    private double tokensPerSecond;
+
+    @Value("${app.ai-bot.stub.chunk-chars:2}")
+    private int chunkChars; // 토큰 하나에 담을 글자 수
+
+    @Value("${app.ai-bot.stub.answer:문의하신 내용은 확인 후 안내해 드리겠습니다. 관리사무소 운영 시간은 평일 오전 9시부터 오후 6시까지이며, 자세한 사항은 관리사무소로 문의해 주시면 감사하겠습니다.}")
+    private String answer;
+
+    @Value("${app.ai-bot.stub.error-rate:0}")
+    private double errorRate;
+
+    @Value("${app.ai-bot.stub.error-status:500}")
+    private int errorStatus;
+
+    @Value("${app.ai-bot.stub.error-code:MAI-5001}")
+    private String errorCode;
+
+    @Value("${app.ai-bot.stub.stall-rate:0}")
+    private double stallRate;
+
+    @Value("${app.ai-bot.stub.stall-duration:10000}")
+    private long stallDuration;
+
+    @Value("${app.ai-bot.stub.seed:0}")
+    private long seed; // 0이면 매번 다른 난수
+
+    private static final String ASK_ENDPOINT = "/v1/chatbot/ask";
+
+    private Random random;
+    private DisposableServer server;
+
+    @PostConstruct
+    public void start() {
+        random = seed != 0 ? new Random(seed) : new Random();
+        server = HttpServer.create()
+                .host(host)
+                .port(port)
+                .route(routes -> routes.post(ASK_ENDPOINT, this::handleAsk))
+                .bindNow();
+        log.info("▼ MiChatStubServer started. http://{}:{}{} (ttft:{}ms, tps:{}, errorRate:{}, stallRate:{}, seed:{})",
+                host, server.port(), ASK_ENDPOINT, ttft, tokensPerSecond, errorRate, stallRate, seed);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (server != null) {
+            server.disposeNow();
+        }
+    }
+
+    private Mono<Void> handleAsk(HttpServerRequest request, HttpServerResponse response) {
+        return request.receive().aggregate().asString(StandardCharsets.UTF_8)
+                .defaultIfEmpty("{}")
+                .flatMap(body -> {
+                    String sessionId = "";
+                    String message = "";
+                    try {
+                        JsonNode node = objectMapper.readTree(body);
+                        sessionId = node.path("meta").path("sessionId").asText("");
+                        message = node.path("chat").path("message").asText("");
+                    } catch (Exception e) {
+                        return sendError(response, 400, "MAI-4000", "요청 본문을 해석할 수 없습니다.");
+                    }
+
+                    Scenario scenario = pickScenario(message);
+                    log.info("▼ stub ask. sessionId:{}, scenario:{}", sessionId, scenario);
+                    return switch (scenario) {
+                        case ERROR_4XX -> isClientErrorStatus()
+                                ? sendError(response, errorStatus, errorCode, "질문 형식이 올바르지 않습니다.")
+                                : sendError(response, 400, "MAI-4001", "질문 형식이 올바르지 않습니다.");
+                        case ERROR_5XX -> isClientErrorStatus()
+                                ? sendError(response, 500, "MAI-5001", "AI 엔진 처리 중 오류가 발생했습니다.")
+                                : sendError(response, errorStatus, errorCode, "AI 엔진 처리 중 오류가 발생했습니다.");
+                        case STALL, NORMAL -> sendStream(response, sessionId, scenario == Scenario.STALL);
+                    };
+                });
+    }
+
+    private enum Scenario { NORMAL, STALL, ERROR_4XX, ERROR_5XX }
+
+    // 질문의 시나리오 태그가 우선, 없으면 설정된 비율로 결정 (난수 순서를 고정하기 위해 동기화)
+    private synchronized Scenario pickScenario(String message) {
+        if (message.contains("#error4xx")) return Scenario.ERROR_4XX;
+        if (message.contains("#error5xx")) return Scenario.ERROR_5XX;
+        if (message.contains("#stall")) return Scenario.STALL;
+
+        double errorDraw = random.nextDouble();
+        double stallDraw = random.nextDouble();
+        if (errorDraw < errorRate) {
+            return isClientErrorStatus() ? Scenario.ERROR_4XX : Scenario.ERROR_5XX;
+        }
+        if (stallDraw < stallRate) {
+            return Scenario.STALL;
+        }
+        return Scenario.NORMAL;
+    }
+
+    private boolean isClientErrorStatus() {
+        return errorStatus >= 400 && errorStatus < 500;
+    }
+
+    // 표준 에러 응답 구조 (MiChatBotImpl.handleDetailedError 가 해석하는 형식)
+    private Mono<Void> sendError(HttpServerResponse response, int status, String code, String message) {
+        ObjectNode error = objectMapper.createObjectNode();
+        error.putObject("error")
+                .put("error_code", code)
+                .put("error_message", message)
+                .put("requestId", UUID.randomUUID().toString());
+        return response.status(HttpResponseStatus.valueOf(status))
+                .header("Content-Type", "application/json; charset=utf-8")
+                .sendString(Mono.just(error.toString()), StandardCharsets.UTF_8)
+                .then();
+    }
+
+    // 답변을 토큰 단위로 나누어 ttft 이후 일정 간격으로 전송 (stall이면 중간에 한 번 멈춤)
+    private Mono<Void> sendStream(HttpServerResponse response, String sessionId, boolean stall) {
+        List<String> tokens = tokenize(answer, Math.max(1, chunkChars));
+        long interval = tokensPerSecond > 0 ? Math.round(1000 / tokensPerSecond) : 0;
+        int stallAt = tokens.size() / 2;
+
+        Flux<String> frames = Flux.range(0, tokens.size())
+                .concatMap(i -> {
+                    long delay = i == 0 ? ttft : interval;
+                    if (stall && i == stallAt) {
+                        delay += stallDuration;
+                    }
+                    return Mono.just(frame(sessionId, tokens.get(i), false)).delayElement(Duration.ofMillis(delay));
+                })
+                .concatWith(Mono.fromSupplier(() -> frame(sessionId, "", true)))
+                .concatWith(Mono.just("data: [DONE]\n\n"));
+
+        return response.status(HttpResponseStatus.OK)
+                .header("Content-Type", "text/event-stream; charset=utf-8")
+                .header("Cache-Control", "no-cache")
+                .sendString(frames, StandardCharsets.UTF_8)
+                .then();
+    }
+
+    private String frame(String sessionId, String delta, boolean complete) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("sessionId", sessionId);
+        node.put("delta", delta);
+        node.put("isComplete", complete);
+        return "data: " + node + "\n\n";
+    }
+
+    private static List<String> tokenize(String text, int size) {
+        List<String> tokens = new ArrayList<>((text.length() + size - 1) / size);
+        int i = 0;
+        while (i < text.length()) {
+            int end = Math.min(text.length(), i + size);
+            if (end < text.length() && Character.isHighSurrogate(text.charAt(end - 1))) {
+                end++; // 서로게이트 쌍이 나뉘지 않도록
+            }
+            tokens.add(text.substring(i, end));
+            i = end;
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,129 @@
+package aicc.chat.config;
+
+import aicc.chat.domain.persistence.ChatSession;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.apache.ibatis.cache.CacheException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MyBatisTtlCacheTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = JsonMapper.builder().findAndAddModules().build();
+
+    private static MyBatisTtlCache localCache(int maxSize, long ttl) {
+        MyBatisTtlCache cache = new MyBatisTtlCache("test.Mapper", null, OBJECT_MAPPER);
+        cache.setBackend("local");
+        cache.setMaxSize(maxSize);
+        cache.setTtl(ttl);
+        cache.setIndexProperty("roomId");
+        cache.initialize();
+        return cache;
+    }
+
+    private static ChatSession session(String roomId) {
+        ChatSession session = new ChatSession();
+        session.setRoomId(roomId);
+        return session;
+    }
+
+    @Test
+    void returnsCopyOfCachedResult() {
+        MyBatisTtlCache cache = localCache(10, 60_000);
+        ChatSession stored = session("room-1");
+        cache.putObject("k1", stored);
+
+        Object cached = cache.getObject("k1");
+
+        assertThat(cached).isInstanceOf(ChatSession.class).isNotSameAs(stored);
+        assertThat(((ChatSession) cached).getRoomId()).isEqualTo("room-1");
+    }
+
+    @Test
+    void evictByIndexRemovesOnlyEntriesContainingRoom() {
+        MyBatisTtlCache cache = localCache(10, 60_000);
+        cache.putObject("single", session("room-1"));
+        cache.putObject("list", List.of(session("room-1"), session("room-2")));
+        cache.putObject("other", session("room-2"));
+
+        cache.evictByIndex("room-1");
+
+        assertThat(cache.getObject("single")).isNull();
+        assertThat(cache.getObject("list")).isNull();
+        assertThat(cache.getObject("other")).isNotNull();
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedBeyondMaxSize() {
+        MyBatisTtlCache cache = localCache(2, 60_000);
+        cache.putObject("a", session("room-a"));
+        cache.putObject("b", session("room-b"));
+        cache.getObject("a");
+        cache.putObject("c", session("room-c"));
+
+        assertThat(cache.getSize()).isEqualTo(2);
+        assertThat(cache.getObject("b")).isNull();
+        assertThat(cache.getObject("a")).isNotNull();
+        assertThat(cache.getObject("c")).isNotNull();
+    }
+
+    @Test
+    void expiresAfterTtl() throws InterruptedException {
+        MyBatisTtlCache cache = localCache(10, 20);
+        cache.putObject("k1", session("room-1"));
+
+        Thread.sleep(50);
+
+        assertThat(cache.getObject("k1")).isNull();
+    }
+
+    @Test
+    void clearRemovesEverything() {
+        MyBatisTtlCache cache = localCache(10, 60_000);
+        cache.putObject("a", session("room-a"));
+        cache.putObject("b", session("room-b"));
+
+        cache.clear();
+
+        assertThat(cache.getSize()).isZero();
+        assertThat(cache.getObject("a")).isNull();
+    }
+
+    @Test
+    void listResultKeepsElementTypeAndFields() {
+        MyBatisTtlCache cache = localCache(10, 60_000);
+        ChatSession stored = session("room-1");
+        stored.setStartedAt(LocalDateTime.of(2026, 1, 2, 3, 4, 5));
+        cache.putObject("k1", List.of(stored, session("room-2")));
+
+        Object cached = cache.getObject("k1");
+
+        assertThat(cached).isInstanceOf(List.class);
+        List<?> rows = (List<?>) cached;
+        assertThat(rows).hasSize(2).allSatisfy(row -> assertThat(row).isInstanceOf(ChatSession.class));
+        assertThat(((ChatSession) rows.get(0)).getStartedAt()).isEqualTo(LocalDateTime.of(2026, 1, 2, 3, 4, 5));
+    }
+
+    @Test
+    void typesOutsideAllowListAreNotCached() {
+        MyBatisTtlCache cache = localCache(10, 60_000);
+        cache.putObject("map", new HashMap<>(Map.of("roomId", "room-1")));
+
+        assertThat(cache.getObject("map")).isNull();
+    }
+
+    @Test
+    void redisBackendRequiresTemplate() {
+        MyBatisTtlCache cache = new MyBatisTtlCache("test.Mapper", null, OBJECT_MAPPER);
+        cache.setBackend("redis");
+
+        assertThatThrownBy(cache::initialize).isInstanceOf(CacheException.class);
+    }
+}
@@ -0,0 +1,186 @@
+package aicc.chat.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BotCallBulkheadTest {
+
+    private BotCallBulkhead bulkhead;
+
+    @BeforeEach
+    void setUp() {
+        bulkhead = new BotCallBulkhead(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(bulkhead, "enabled", true);
+        ReflectionTestUtils.setField(bulkhead, "maxConcurrent", 2);
+        ReflectionTestUtils.setField(bulkhead, "maxConcurrentPerCompany", 1);
+        ReflectionTestUtils.setField(bulkhead, "maxQueue", 3);
+        ReflectionTestUtils.setField(bulkhead, "maxWait", 60_000L);
+        bulkhead.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        bulkhead.shutdown();
+    }
+
+    /**
+     * 요청별 콜백 기록
+     */
+    private static class Call {
+        final List<BotCallBulkhead.Permit> permits = new CopyOnWriteArrayList<>();
+        final List<String> threads = new CopyOnWriteArrayList<>();
+        final List<Integer> positions = new CopyOnWriteArrayList<>();
+        final CountDownLatch admittedLatch = new CountDownLatch(1);
+        final CountDownLatch rejected = new CountDownLatch(1);
+        BotCallBulkhead.Admission admission;
+
+        boolean admitted() {
+            return !permits.isEmpty();
+        }
+
+        // 대기 후 실행은 실행 스레드에서 일어나므로 기다려서 확인
+        boolean awaitAdmitted() throws InterruptedException {
+            return admittedLatch.await(5, TimeUnit.SECONDS);
+        }
+
+        void release() {
+            permits.get(0).release();
+        }
+    }
+
+    private Call submit(String companyId) {
+        Call call = new Call();
+        call.admission = bulkhead.submit(companyId, permit -> {
+            call.threads.add(Thread.currentThread().getName());
+            call.permits.add(permit);
+            call.admittedLatch.countDown();
+        }, call.positions::add, call.rejected::countDown);
+        return call;
+    }
+
+    @Test
+    void admitsUntilCompanyLimitThenQueues() {
+        Call first = submit("a");
+        Call second = submit("a");
+
+        assertThat(first.admission.status()).isEqualTo(BotCallBulkhead.Status.ADMITTED);
+        assertThat(first.admitted()).isTrue();
+        assertThat(second.admission.status()).isEqualTo(BotCallBulkhead.Status.QUEUED);
+        assertThat(second.admission.position()).isEqualTo(1);
+        assertThat(second.admitted()).isFalse();
+        assertThat(bulkhead.getInFlight()).isEqualTo(1);
+        assertThat(bulkhead.getQueued()).isEqualTo(1);
+    }
+
+    @Test
+    void otherCompanyIsAdmittedWhileOneCompanyIsAtLimit() {
+        submit("a");
+        Call queued = submit("a");
+        Call other = submit("b");
+
+        assertThat(queued.admission.status()).isEqualTo(BotCallBulkhead.Status.QUEUED);
+        assertThat(other.admission.status()).isEqualTo(BotCallBulkhead.Status.ADMITTED);
+    }
+
+    @Test
+    void rejectsWhenQueueIsFull() {
+        submit("a");
+        submit("a");
+        submit("a");
+        submit("a");
+        Call overflow = submit("a");
+
+        assertThat(overflow.admission.status()).isEqualTo(BotCallBulkhead.Status.REJECTED);
+        assertThat(overflow.admitted()).isFalse();
+        assertThat(bulkhead.getQueued()).isEqualTo(3);
+    }
+
+    @Test
+    void releaseAdmitsNextAndUpdatesRemainingPositions() throws InterruptedException {
+        Call running = submit("a");
+        Call first = submit("a");
+        Call second = submit("a");
+        Call third = submit("a");
+
+        running.release();
+
+        assertThat(first.awaitAdmitted()).isTrue();
+        assertThat(first.threads).allMatch(name -> name.startsWith("bot-bulkhead-dispatch-"));
+        assertThat(first.positions).isEmpty();
+        assertThat(second.positions).containsExactly(1);
+        assertThat(third.positions).containsExactly(2);
+        assertThat(bulkhead.getInFlight()).isEqualTo(1);
+        assertThat(bulkhead.getQueued()).isEqualTo(2);
+    }
+
+    @Test
+    void queuedRequestBehindBlockedCompanyKeepsPositionUntilItMoves() throws InterruptedException {
+        Call runningA = submit("a");
+        Call runningB = submit("b");
+        Call queuedA = submit("a");
+        Call queuedB = submit("b");
+
+        // b의 호출이 끝나면 b 대기 요청만 실행되고, 앞에 있던 a 대기 요청의 순번은 그대로
+        runningB.release();
+
+        assertThat(queuedB.awaitAdmitted()).isTrue();
+        assertThat(queuedA.admitted()).isFalse();
+        assertThat(queuedA.positions).isEmpty();
+
+        runningA.release();
+        assertThat(queuedA.awaitAdmitted()).isTrue();
+    }
+
+    @Test
+    void releaseIsIdempotent() throws InterruptedException {
+        Call running = submit("a");
+        Call queued = submit("a");
+        Call next = submit("a");
+
+        running.release();
+        running.release();
+
+        assertThat(queued.awaitAdmitted()).isTrue();
+        assertThat(next.admitted()).isFalse();
+        assertThat(bulkhead.getInFlight()).isEqualTo(1);
+    }
+
+    @Test
+    void expiredRequestIsRejectedAndOthersMoveUp() throws InterruptedException {
+        ReflectionTestUtils.setField(bulkhead, "maxWait", 50L);
+        submit("a");
+        Call expiring = submit("a");
+        ReflectionTestUtils.setField(bulkhead, "maxWait", 60_000L);
+        Call behind = submit("a");
+
+        assertThat(expiring.rejected.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(expiring.admitted()).isFalse();
+        assertThat(bulkhead.getQueued()).isEqualTo(1);
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (behind.positions.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(behind.positions).containsExactly(1);
+    }
+
+    @Test
+    void disabledBulkheadAdmitsEverything() {
+        ReflectionTestUtils.setField(bulkhead, "enabled", false);
+
+        for (int i = 0; i < 5; i++) {
+            Call call = submit("a");
+            assertThat(call.admission.status()).isEqualTo(BotCallBulkhead.Status.ADMITTED);
+            assertThat(call.admitted()).isTrue();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package aicc.chat.service;
+
+import aicc.chat.config.bot.StreamCoalesceProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BotStreamCoalescerTest {
+
+    private StreamCoalesceProperties properties;
+    private BotStreamCoalescer coalescer;
+
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+    private final List<String> threads = new CopyOnWriteArrayList<>();
+    private final CountDownLatch secondSend = new CountDownLatch(2);
+
+    @BeforeEach
+    void setUp() {
+        properties = new StreamCoalesceProperties();
+        properties.setFlushInterval(60_000);
+        properties.setMaxBytes(1_000);
+        coalescer = new BotStreamCoalescer(properties);
+        coalescer.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        coalescer.shutdown();
+    }
+
+    private BotStreamCoalescer.Stream open() {
+        return coalescer.open("apt001", text -> {
+            sent.add(text);
+            threads.add(Thread.currentThread().getName());
+            secondSend.countDown();
+        });
+    }
+
+    @Test
+    void firstChunkIsSentImmediately() {
+        BotStreamCoalescer.Stream stream = open();
+
+        stream.append("안녕");
+        stream.append("하세요");
+
+        assertThat(sent).containsExactly("안녕");
+    }
+
+    @Test
+    void chunksAreSentTogetherWhenMaxBytesIsReached() {
+        properties.setMaxBytes(6);
+        BotStreamCoalescer.Stream stream = open();
+
+        stream.append("a");
+        stream.append("가");   // 3바이트, 아직 기준 미만
+        assertThat(sent).containsExactly("a");
+
+        stream.append("나");   // 누적 6바이트, 바로 전송
+        assertThat(sent).containsExactly("a", "가나");
+    }
+
+    @Test
+    void chunksAreSentAfterFlushIntervalOffTheTimerThread() throws InterruptedException {
+        properties.setFlushInterval(50);
+        BotStreamCoalescer.Stream stream = open();
+
+        stream.append("a");
+        stream.append("b");
+        stream.append("c");
+        assertThat(sent).containsExactly("a");
+
+        assertThat(secondSend.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(sent).containsExactly("a", "bc");
+        assertThat(threads.get(1)).startsWith("bot-stream-flush-");
+    }
+
+    @Test
+    void closeSendsRemainderAndDiscardDropsIt() {
+        BotStreamCoalescer.Stream closed = open();
+        closed.append("a");
+        closed.append("b");
+        closed.close();
+        closed.append("c");
+
+        BotStreamCoalescer.Stream discarded = open();
+        discarded.append("x");
+        discarded.append("y");
+        discarded.discard();
+
+        assertThat(sent).containsExactly("a", "b", "x");
+    }
+}
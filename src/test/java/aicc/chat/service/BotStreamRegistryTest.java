@@ -0,0 +1,68 @@
+package aicc.chat.service;
+
+import aicc.bot.ChatBot;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class BotStreamRegistryTest {
+
+    private final ChatBot chatBot = mock(ChatBot.class);
+    private final BotStreamRegistry registry = new BotStreamRegistry(chatBot);
+
+    @Test
+    void cancelStopsRegisteredStreamOnce() {
+        AtomicInteger cancelled = new AtomicInteger();
+        BotStreamRegistry.Handle handle = registry.register("room-1", registry.mark(), cancelled::incrementAndGet);
+
+        assertThat(registry.cancel("room-1")).isEqualTo(1);
+        assertThat(registry.cancel("room-1")).isZero();
+
+        assertThat(cancelled).hasValue(1);
+        assertThat(handle.isCancelled()).isTrue();
+        assertThat(handle.complete()).isFalse();
+        verify(chatBot).cancel("room-1");
+    }
+
+    @Test
+    void cancelBetweenMarkAndRegisterCancelsOnRegister() {
+        AtomicInteger cancelled = new AtomicInteger();
+        long since = registry.mark();
+
+        // 방 상태 확인 후 등록 전에 상담원 연결
+        registry.cancel("room-1");
+        BotStreamRegistry.Handle handle = registry.register("room-1", since, cancelled::incrementAndGet);
+
+        assertThat(handle.isCancelled()).isTrue();
+        assertThat(cancelled).hasValue(1);
+        assertThat(registry.activeCount()).isZero();
+    }
+
+    @Test
+    void cancelBeforeMarkDoesNotAffectLaterRegister() {
+        AtomicInteger cancelled = new AtomicInteger();
+        registry.cancel("room-1");
+
+        BotStreamRegistry.Handle handle = registry.register("room-1", registry.mark(), cancelled::incrementAndGet);
+
+        assertThat(handle.isCancelled()).isFalse();
+        assertThat(cancelled).hasValue(0);
+        assertThat(handle.complete()).isTrue();
+        assertThat(registry.activeCount()).isZero();
+    }
+
+    @Test
+    void cancelOfAnotherRoomDoesNotAffectRegister() {
+        long since = registry.mark();
+        registry.cancel("room-2");
+
+        BotStreamRegistry.Handle handle = registry.register("room-1", since, () -> { });
+
+        assertThat(handle.isCancelled()).isFalse();
+        assertThat(registry.activeCount()).isEqualTo(1);
+    }
+}
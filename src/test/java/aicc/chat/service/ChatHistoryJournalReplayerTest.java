@@ -0,0 +1,98 @@
+package aicc.chat.service;
+
+import aicc.chat.domain.persistence.ChatHistory;
+import aicc.chat.mapper.ChatHistoryMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static aicc.chat.service.ChatHistorySpillJournalTest.history;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ChatHistoryJournalReplayerTest {
+
+    @TempDir
+    Path dir;
+
+    private ChatHistorySpillJournal journal;
+    private ChatHistoryMapper mapper;
+    private ChatHistoryJournalReplayer replayer;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        journal = new ChatHistorySpillJournal(JsonMapper.builder().findAndAddModules().build());
+        ReflectionTestUtils.setField(journal, "enabled", true);
+        ReflectionTestUtils.setField(journal, "journalDir", dir.toString());
+        ReflectionTestUtils.setField(journal, "segmentSize", 1024 * 1024);
+        ReflectionTestUtils.setField(journal, "dbRetryAfter", 5000L);
+        journal.open();
+
+        mapper = mock(ChatHistoryMapper.class);
+        replayer = new ChatHistoryJournalReplayer(journal, mapper);
+        ReflectionTestUtils.setField(replayer, "replayBatchSize", 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        journal.close();
+    }
+
+    @Test
+    void rejectedRecordIsDeadLetteredAndReplayAdvances() throws IOException {
+        journal.append(history("room-1", "a"));
+        journal.append(history("room-1", "bad"));
+        journal.append(history("room-1", "c"));
+        when(mapper.insertChatHistoryBatch(anyList())).thenThrow(new DataIntegrityViolationException("value too long"));
+        when(mapper.insertChatHistory(argThat(h -> "bad".equals(h.getMessage()))))
+                .thenThrow(new DataIntegrityViolationException("value too long"));
+
+        replayer.replay();
+
+        verify(mapper, times(3)).insertChatHistory(any(ChatHistory.class));
+        assertThat(journal.hasPending()).isFalse();
+        assertThat(journal.isDbBypassed()).isFalse();
+        assertThat(Files.readAllLines(dir.resolve("dead-letter.ndjson"))).hasSize(1).first().asString().contains("bad");
+    }
+
+    @Test
+    void connectionFailureKeepsBatchForRetryAndBypassesDb() {
+        journal.append(history("room-1", "a"));
+        when(mapper.insertChatHistoryBatch(anyList())).thenThrow(new CannotGetJdbcConnectionException("pool exhausted"));
+
+        replayer.replay();
+
+        assertThat(journal.hasPending()).isTrue();
+        assertThat(journal.isDbBypassed()).isTrue();
+        assertThat(Files.exists(dir.resolve("dead-letter.ndjson"))).isFalse();
+    }
+
+    @Test
+    void connectionFailureDuringOneByOneReplayCommitsOnlyInsertedRecords() {
+        journal.append(history("room-1", "a"));
+        journal.append(history("room-1", "b"));
+        when(mapper.insertChatHistoryBatch(anyList())).thenThrow(new DataIntegrityViolationException("duplicate"));
+        when(mapper.insertChatHistory(argThat(h -> "b".equals(h.getMessage()))))
+                .thenThrow(new CannotGetJdbcConnectionException("connection lost"));
+
+        replayer.replay();
+
+        assertThat(journal.readBatch(10).getRecords()).extracting(ChatHistory::getMessage).containsExactly("b");
+        assertThat(journal.isDbBypassed()).isTrue();
+    }
+}
@@ -0,0 +1,224 @@
+package aicc.chat.service;
+
+import aicc.chat.domain.persistence.ChatHistory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChatHistorySpillJournalTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = JsonMapper.builder().findAndAddModules().build();
+
+    @TempDir
+    Path dir;
+
+    private final List<ChatHistorySpillJournal> opened = new ArrayList<>();
+
+    @AfterEach
+    void closeAll() {
+        opened.forEach(ChatHistorySpillJournal::close);
+    }
+
+    @Test
+    void appendedRecordsAreReadBackInOrderAndCommitted() throws IOException {
+        ChatHistorySpillJournal journal = open(1024 * 1024);
+        journal.append(history("room-1", "첫 번째"));
+        journal.append(history("room-1", "두 번째"));
+        journal.append(history("room-2", "세 번째"));
+
+        ChatHistorySpillJournal.Batch batch = journal.readBatch(10);
+
+        assertThat(batch.getRecords()).extracting(ChatHistory::getMessage).containsExactly("첫 번째", "두 번째", "세 번째");
+        assertThat(batch.getRecords().get(2).getRoomId()).isEqualTo("room-2");
+        assertThat(batch.getRecords().get(0).getCreatedAt()).isEqualTo(LocalDateTime.of(2026, 1, 1, 9, 0));
+        journal.commit(batch);
+        assertThat(journal.hasPending()).isFalse();
+        assertThat(journal.readBatch(10)).isNull();
+    }
+
+    @Test
+    void uncommittedRecordsSurviveReopen() throws IOException {
+        ChatHistorySpillJournal journal = open(1024 * 1024);
+        journal.append(history("room-1", "a"));
+        journal.append(history("room-1", "b"));
+        journal.readBatch(10); // 커밋하지 않음
+        journal.close();
+        opened.remove(journal);
+
+        ChatHistorySpillJournal reopened = open(1024 * 1024);
+
+        assertThat(reopened.hasPending()).isTrue();
+        assertThat(reopened.readBatch(10).getRecords()).extracting(ChatHistory::getMessage).containsExactly("a", "b");
+    }
+
+    @Test
+    void partialCommitResumesAfterCommittedRecords() throws IOException {
+        ChatHistorySpillJournal journal = open(1024 * 1024);
+        journal.append(history("room-1", "a"));
+        journal.append(history("room-1", "b"));
+        journal.append(history("room-1", "c"));
+
+        journal.commit(journal.readBatch(10), 1);
+
+        assertThat(journal.readBatch(10).getRecords()).extracting(ChatHistory::getMessage).containsExactly("b", "c");
+    }
+
+    @Test
+    void readsAcrossRolledSegments() throws IOException {
+        ChatHistorySpillJournal journal = open(1024);
+        for (int i = 0; i < 30; i++) {
+            assertThat(journal.append(history("room-1", "message-" + i))).isTrue();
+        }
+
+        List<String> messages = new ArrayList<>();
+        ChatHistorySpillJournal.Batch batch;
+        while ((batch = journal.readBatch(7)) != null) {
+            batch.getRecords().forEach(h -> messages.add(h.getMessage()));
+            journal.commit(batch);
+        }
+
+        assertThat(messages).hasSize(30).startsWith("message-0").endsWith("message-29");
+        assertThat(journal.hasPending()).isFalse();
+    }
+
+    @Test
+    void corruptedLengthPrefixIsQuarantinedAndReplayContinues() throws IOException {
+        assertCorruptedLengthIsSkipped(Integer.MAX_VALUE);
+    }
+
+    @Test
+    void negativeLengthPrefixIsQuarantinedAndReplayContinues() throws IOException {
+        assertCorruptedLengthIsSkipped(-7);
+    }
+
+    @Test
+    void undecodableRecordIsMovedToDeadLetter() throws IOException {
+        ChatHistorySpillJournal journal = open(1024 * 1024);
+        journal.append(history("room-1", "a"));
+        journal.append(history("room-1", "b"));
+        journal.close();
+        opened.remove(journal);
+
+        // 두 번째 레코드의 JSON 첫 바이트를 깨뜨림 (길이는 정상)
+        int firstLength = recordLengthAt(segmentFile(), 16);
+        try (RandomAccessFile file = new RandomAccessFile(segmentFile().toFile(), "rw")) {
+            file.seek(16 + Integer.BYTES + firstLength + Integer.BYTES);
+            file.write('#');
+        }
+
+        ChatHistorySpillJournal reopened = open(1024 * 1024);
+        ChatHistorySpillJournal.Batch batch = reopened.readBatch(10);
+
+        assertThat(batch.getRecords()).extracting(ChatHistory::getMessage).containsExactly("a");
+        reopened.commit(batch);
+        assertThat(reopened.hasPending()).isFalse();
+        assertThat(Files.readAllLines(dir.resolve("dead-letter.ndjson"))).hasSize(1).first().asString().contains("\"raw\"");
+    }
+
+    @Test
+    void deadLetterKeepsRejectedRecordWithError() throws IOException {
+        ChatHistorySpillJournal journal = open(1024 * 1024);
+
+        journal.deadLetter(history("room-9", "거부된 메시지"), new DataIntegrityViolationException("value too long"));
+
+        String line = Files.readString(dir.resolve("dead-letter.ndjson"), StandardCharsets.UTF_8);
+        assertThat(line).contains("room-9").contains("거부된 메시지").contains("value too long");
+    }
+
+    @Test
+    void onlyConnectionAndTransientErrorsCountAsDbUnavailable() {
+        assertThat(ChatHistorySpillJournal.isDbUnavailable(new CannotGetJdbcConnectionException("pool exhausted"))).isTrue();
+        assertThat(ChatHistorySpillJournal.isDbUnavailable(new RuntimeException("wrapped", new QueryTimeoutException("slow")))).isTrue();
+        assertThat(ChatHistorySpillJournal.isDbUnavailable(new SQLException("connection refused", "08001"))).isTrue();
+
+        assertThat(ChatHistorySpillJournal.isDbUnavailable(new DataIntegrityViolationException("duplicate key"))).isFalse();
+        assertThat(ChatHistorySpillJournal.isDbUnavailable(new SQLException("value too long", "22001"))).isFalse();
+        assertThat(ChatHistorySpillJournal.isDbUnavailable(new IllegalStateException("bad value"))).isFalse();
+    }
+
+    private void assertCorruptedLengthIsSkipped(int corruptedLength) throws IOException {
+        ChatHistorySpillJournal journal = open(1024 * 1024);
+        journal.append(history("room-1", "a"));
+        journal.append(history("room-1", "b"));
+        journal.append(history("room-1", "c"));
+        journal.close();
+        opened.remove(journal);
+
+        int firstLength = recordLengthAt(segmentFile(), 16);
+        try (RandomAccessFile file = new RandomAccessFile(segmentFile().toFile(), "rw")) {
+            file.seek(16 + Integer.BYTES + firstLength);
+            file.writeInt(corruptedLength);
+        }
+
+        ChatHistorySpillJournal reopened = open(1024 * 1024);
+        ChatHistorySpillJournal.Batch batch = reopened.readBatch(10);
+
+        assertThat(batch.getRecords()).extracting(ChatHistory::getMessage).containsExactly("a");
+        reopened.commit(batch);
+        assertThat(reopened.hasPending()).isFalse();
+        try (Stream<Path> files = Files.list(dir)) {
+            assertThat(files.filter(p -> p.getFileName().toString().endsWith(".corrupt"))).hasSize(1);
+        }
+
+        // 격리 이후 새 레코드는 정상적으로 기록/재처리
+        reopened.append(history("room-1", "d"));
+        assertThat(reopened.readBatch(10).getRecords()).extracting(ChatHistory::getMessage).containsExactly("d");
+    }
+
+    private ChatHistorySpillJournal open(int segmentSize) throws IOException {
+        ChatHistorySpillJournal journal = new ChatHistorySpillJournal(OBJECT_MAPPER);
+        ReflectionTestUtils.setField(journal, "enabled", true);
+        ReflectionTestUtils.setField(journal, "journalDir", dir.toString());
+        ReflectionTestUtils.setField(journal, "segmentSize", segmentSize);
+        ReflectionTestUtils.setField(journal, "dbRetryAfter", 5000L);
+        journal.open();
+        opened.add(journal);
+        return journal;
+    }
+
+    private Path segmentFile() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(".journal")).findFirst().orElseThrow();
+        }
+    }
+
+    // 세그먼트 파일은 ByteBuffer 기본값(big-endian)으로 기록됨
+    private static int recordLengthAt(Path file, long pos) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "r")) {
+            raf.seek(pos);
+            return raf.readInt();
+        }
+    }
+
+    static ChatHistory history(String roomId, String message) {
+        return ChatHistory.builder()
+                .roomId(roomId)
+                .senderId("cust01")
+                .senderName("홍길동")
+                .senderRole("CUSTOMER")
+                .message(message)
+                .messageType("TALK")
+                .companyId("apt001")
+                .createdAt(LocalDateTime.of(2026, 1, 1, 9, 0))
+                .build();
+    }
+}
@@ -0,0 +1,166 @@
+package aicc.chat.service;
+
+import aicc.chat.domain.UserInfo;
+import aicc.chat.domain.UserRole;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TokenServiceTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = JsonMapper.builder().findAndAddModules().build();
+
+    private StringRedisTemplate redisTemplate;
+    private ValueOperations<String, String> valueOperations;
+    private TokenService tokenService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(redisTemplate.hasKey(anyString())).thenReturn(false);
+
+        tokenService = new TokenService(OBJECT_MAPPER, redisTemplate);
+        ReflectionTestUtils.setField(tokenService, "cacheEnabled", true);
+        ReflectionTestUtils.setField(tokenService, "cacheMaxSize", 10);
+        ReflectionTestUtils.setField(tokenService, "cacheTtl", 600_000L);
+        ReflectionTestUtils.setField(tokenService, "tokenTtl", 86_400_000L);
+        ReflectionTestUtils.setField(tokenService, "revokedTtl", 86_400_000L);
+    }
+
+    @Test
+    void loginAfterLogoutIssuesTokenThatIsNotRevoked() {
+        UserInfo userInfo = UserInfo.builder().userId("agent01").userName("agent01").role(UserRole.AGENT).companyId("default").build();
+        String first = tokenService.generateToken(userInfo);
+        assertThat(tokenService.validateToken(first)).isNotNull();
+
+        tokenService.revokeToken(first);
+        String second = tokenService.generateToken(userInfo);
+
+        assertThat(second).isNotEqualTo(first);
+        assertThat(tokenService.validateToken(first)).isNull();
+        UserInfo validated = tokenService.validateToken(second);
+        assertThat(validated).isNotNull();
+        assertThat(validated.getUserId()).isEqualTo("agent01");
+        assertThat(validated.getRole()).isEqualTo(UserRole.AGENT);
+        verify(valueOperations).set(startsWith("chat:auth:revoked:"), eq("1"),
+                argThat((Duration ttl) -> ttl.toHours() >= 23 && ttl.toHours() <= 24));
+    }
+
+    @Test
+    void expiredIssuedTokenIsRejected() {
+        ReflectionTestUtils.setField(tokenService, "tokenTtl", -1_000L);
+        String token = tokenService.generateToken(UserInfo.builder().userId("cust01").role(UserRole.CUSTOMER).build());
+
+        assertThat(tokenService.validateToken(token)).isNull();
+    }
+
+    @Test
+    void revokedTokenIsRecordedInRedisUntilJwtExpiry() {
+        long exp = System.currentTimeMillis() / 1000 + 3600;
+        String token = jwt("{\"sub\":\"agent01\",\"auth\":\"ROLE_AGENT\",\"exp\":" + exp + "}");
+        assertThat(tokenService.validateToken(token)).isNotNull();
+
+        tokenService.revokeToken(token);
+
+        verify(valueOperations).set(startsWith("chat:auth:revoked:"), eq("1"),
+                argThat((Duration ttl) -> ttl.toSeconds() > 3500 && ttl.toSeconds() <= 3600));
+        assertThat(tokenService.validateToken(token)).isNull();
+    }
+
+    @Test
+    void cachedTokenIsValidatedWithoutRedis() {
+        String token = base64Token("cust01");
+        assertThat(tokenService.validateToken(token)).isNotNull();
+        assertThat(tokenService.validateToken(token)).isNotNull();
+
+        verify(redisTemplate, times(1)).hasKey(anyString());
+    }
+
+    @Test
+    void tokenRevokedOnAnotherServerIsRejectedEvenWhenCached() {
+        String token = base64Token("cust01");
+        assertThat(tokenService.validateToken(token)).isNotNull();
+
+        tokenService.onTokenRevoked(sha256(token) + ":" + (System.currentTimeMillis() + 60_000));
+
+        assertThat(tokenService.validateToken(token)).isNull();
+    }
+
+    @Test
+    void uncachedTokenRevokedInRedisIsRejected() {
+        when(redisTemplate.hasKey(startsWith("chat:auth:revoked:"))).thenReturn(true);
+
+        assertThat(tokenService.validateToken(base64Token("cust01"))).isNull();
+    }
+
+    @Test
+    void revocationStillAppliesLocallyWhenRedisFails() {
+        String token = base64Token("cust01");
+        doThrow(new IllegalStateException("redis down"))
+                .when(valueOperations).set(anyString(), anyString(), any(Duration.class));
+
+        tokenService.revokeToken(token);
+
+        assertThat(tokenService.validateToken(token)).isNull();
+    }
+
+    @Test
+    void cacheIsTrimmedWhenFull() {
+        for (int i = 0; i < 25; i++) {
+            assertThat(tokenService.validateToken(base64Token("cust" + i))).isNotNull();
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, ?> cache = (Map<String, ?>) ReflectionTestUtils.getField(tokenService, "tokenCache");
+        assertThat(cache).hasSizeLessThanOrEqualTo(10);
+    }
+
+    private static String jwt(String payload) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString("{\"alg\":\"none\"}".getBytes(StandardCharsets.UTF_8)) + "."
+                + encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + ".sig";
+    }
+
+    private static String sha256(String token) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String base64Token(String userId) {
+        UserInfo userInfo = UserInfo.builder().userId(userId).userName(userId).role(UserRole.CUSTOMER).companyId("default").build();
+        try {
+            return Base64.getEncoder().encodeToString(OBJECT_MAPPER.writeValueAsBytes(userInfo));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
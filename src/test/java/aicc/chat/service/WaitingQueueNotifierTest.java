@@ -0,0 +1,94 @@
+package aicc.chat.service;
+
+import aicc.chat.domain.ChatMessage;
+import aicc.chat.service.inteface.MessageBroker;
+import aicc.chat.service.inteface.RoomRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WaitingQueueNotifierTest {
+
+    private final List<ChatMessage> published = new CopyOnWriteArrayList<>();
+    private RoomRepository roomRepository;
+    private WaitingQueueNotifier notifier;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        roomRepository = mock(RoomRepository.class);
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+
+        MessageBroker messageBroker = published::add;
+        notifier = new WaitingQueueNotifier(roomRepository, messageBroker, redisTemplate);
+        ReflectionTestUtils.setField(notifier, "interval", 1000L);
+        ReflectionTestUtils.setField(notifier, "coarseAfter", 2);
+        ReflectionTestUtils.setField(notifier, "coarseStep", 10);
+        ReflectionTestUtils.setField(notifier, "tailRefreshInterval", 60_000L);
+    }
+
+    @Test
+    void readsWholeQueueOnceThenOnlyHeadAndArrivals() {
+        queue(1, List.of("r1", "r2"), List.of("r3"), 3);
+
+        check();
+
+        assertThat(published).extracting(ChatMessage::getRoomId).containsExactly("r1", "r2", "r3");
+        assertThat(published.get(2).getMessage()).contains("약 10번째");
+
+        // r1 배정, r4 대기 시작 - 앞쪽과 새로 들어온 방만 읽음
+        published.clear();
+        queue(2, List.of("r2", "r3"), List.of("r4"), 3);
+        when(roomRepository.getWaitingRoomsSince(anyLong())).thenReturn(List.of("r4"));
+
+        check();
+
+        assertThat(published).extracting(ChatMessage::getRoomId).containsExactly("r2", "r3", "r4");
+        assertThat(published.get(0).getMessage()).contains("1번째");
+        assertThat(published.get(1).getMessage()).contains("2번째");
+        assertThat(published.get(2).getMessage()).contains("약 10번째");
+        verify(roomRepository, times(1)).getWaitingRooms(eq(2L), anyInt()); // 첫 확인에서만 전체 읽기
+    }
+
+    @Test
+    void skipsQueueWhenVersionIsUnchanged() {
+        queue(1, List.of("r1"), List.of(), 1);
+        check();
+        published.clear();
+
+        check();
+
+        assertThat(published).isEmpty();
+    }
+
+    private void queue(long version, List<String> head, List<String> tail, long count) {
+        when(roomRepository.getWaitingQueueStats()).thenReturn(new RoomRepository.WaitingQueueStats(version, 0, 0));
+        when(roomRepository.getWaitingCount()).thenReturn(count);
+        when(roomRepository.getWaitingRooms(2)).thenReturn(head);
+        when(roomRepository.getWaitingRooms((long) head.size(), 0)).thenReturn(tail);
+    }
+
+    private void check() {
+        ReflectionTestUtils.invokeMethod(notifier, "checkQueue");
+    }
+}